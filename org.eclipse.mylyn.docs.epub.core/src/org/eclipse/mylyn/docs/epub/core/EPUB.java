@@ -15,11 +15,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -42,7 +44,9 @@ import org.eclipse.mylyn.docs.epub.ocf.RootFile;
 import org.eclipse.mylyn.docs.epub.ocf.RootFiles;
 import org.eclipse.mylyn.docs.epub.ocf.util.OCFResourceImpl;
 import org.eclipse.mylyn.internal.docs.epub.core.EPUBFileUtil;
+import org.eclipse.mylyn.internal.docs.epub.core.EPUBZipWriter;
 import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.ext.DefaultHandler2;
 
@@ -85,7 +89,7 @@ public class EPUB {
 	/**
 	 * SAX parser for detecting the version of an OEBPS contained within an EPUB.
 	 */
-	private class VersionDetector extends DefaultHandler2 {
+	private static class VersionDetector extends DefaultHandler2 {
 
 		private String versionString;
 
@@ -102,7 +106,7 @@ public class EPUB {
 	public static final String MIMETYPE_EPUB = "application/epub+zip"; //$NON-NLS-1$
 
 	/** OEBPS (OPS+OPF) MIME type */
-	private static final String MIMETYPE_OEBPS = "application/oebps-package+xml"; //$NON-NLS-1$
+	static final String MIMETYPE_OEBPS = "application/oebps-package+xml"; //$NON-NLS-1$
 
 	/** The encoding to use for the OCF */
 	private static final String OCF_FILE_ENCODING = "UTF-8"; //$NON-NLS-1$
@@ -113,6 +117,12 @@ public class EPUB {
 	/** Version of the OCF specification used */
 	private static final String OCF_VERSION = "1.0"; //$NON-NLS-1$
 
+	/** The compression level used when assembling the EPUB */
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+	/** The modification time of all EPUB entries, or -1 */
+	private long entryTime = -1;
+
 	private ILogger logger;
 
 	/** The container holding all the publications */
@@ -253,11 +263,8 @@ public class EPUB {
 	 * @throws IOException
 	 */
 	public boolean isEPUB(File epubFile) throws IOException {
-		String mimeType = EPUBFileUtil.getMimeType(epubFile);
-		if (mimeType.equals(MIMETYPE_EPUB)) {
-			return isEPUB(new FileInputStream(epubFile));
-		}
-		return false;
+		// Only the first entry of the file needs to be read
+		return isEPUB(new FileInputStream(epubFile));
 	}
 
 	private static final int BUFFERSIZE = 2048;
@@ -305,11 +312,22 @@ public class EPUB {
 	 * @return the publication version
 	 */
 	private PublicationVersion readPublicationVersion(File rootFile) {
+		return readPublicationVersion(new InputSource(rootFile.toURI().toASCIIString()));
+	}
+
+	/**
+	 * Determines the publication version of the root file read from the given source.
+	 *
+	 * @param source
+	 *            the root file source
+	 * @return the publication version
+	 */
+	static PublicationVersion readPublicationVersion(InputSource source) {
 		try {
 			SAXParserFactory factory = SAXParserFactory.newInstance();
 			VersionDetector vd = new VersionDetector();
 			SAXParser parser = factory.newSAXParser();
-			parser.parse(rootFile, vd);
+			parser.parse(source, vd);
 			if (vd.versionString == null) {
 				return PublicationVersion.UNKNOWN;
 			}
@@ -383,7 +401,7 @@ public class EPUB {
 					}
 				}
 			}
-			EPUBFileUtil.zip(epubFile, rootFolder);
+			EPUBFileUtil.zip(epubFile, rootFolder, compressionLevel, entryTime);
 			log(MessageFormat.format(Messages.getString("EPUB.3"), //$NON-NLS-1$
 					publications.size()), Severity.INFO);
 		} else {
@@ -391,6 +409,49 @@ public class EPUB {
 		}
 	}
 
+	/**
+	 * Assembles the EPUB directly into the given stream without using a working folder. The OCF container, the OPF
+	 * files and the tables of contents are written into the EPUB as they are generated, and the contents of each
+	 * publication item are read from the source file only once. This is the preferred way of assembling large EPUBs.
+	 * The stream is not closed when the operation has completed.
+	 *
+	 * @param out
+	 *            the stream to write the EPUB to
+	 * @throws Exception
+	 * @see {@link #pack(File)}
+	 * @since 3.1
+	 */
+	public void pack(OutputStream out) throws Exception {
+		if (ocfContainer.getRootfiles().getRootfiles().isEmpty()) {
+			throw new ValidationException("EPUB does not contain any publications"); //$NON-NLS-1$
+		}
+		EList<RootFile> publications = ocfContainer.getRootfiles().getRootfiles();
+		EPUBZipWriter zip = new EPUBZipWriter(out, compressionLevel);
+		try {
+			zip.setTime(entryTime);
+			zip.writeEPUBHeader();
+			writeOCF(zip);
+			for (RootFile rootFile : publications) {
+				Object publication = rootFile.getPublication();
+				String rootPath = rootFile.getFullPath().replace(File.separatorChar, '/');
+				if (publication instanceof Publication) {
+					((Publication) publication).pack(zip, rootPath);
+				} else {
+					if (rootFile.getPublication() instanceof File) {
+						zip.add(rootPath, (File) rootFile.getPublication());
+					} else {
+						throw new IllegalArgumentException("Unknown publication type in root file"); //$NON-NLS-1$
+					}
+				}
+			}
+			zip.finish();
+		} finally {
+			zip.close();
+		}
+		log(MessageFormat.format(Messages.getString("EPUB.3"), //$NON-NLS-1$
+				publications.size()), Severity.INFO);
+	}
+
 	/**
 	 * Reads the <i>Open Container Format (OCF)</i> formatted list of contents of this EPUB. The result of this
 	 * operation is placed in the {@link #ocfContainer} instance.
@@ -415,6 +476,24 @@ public class EPUB {
 		ocfContainer = (Container) resource.getContents().get(0);
 	}
 
+	/**
+	 * Reads the <i>Open Container Format (OCF)</i> formatted list of contents of this EPUB from the given stream. The
+	 * result of this operation is placed in the {@link #ocfContainer} instance.
+	 *
+	 * @param in
+	 *            the stream to read the container from
+	 * @param path
+	 *            the path of the container file within the EPUB
+	 * @throws IOException
+	 * @see EPUBReader
+	 */
+	void readOCF(InputStream in, String path) throws IOException {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		Resource resource = resourceSet.createResource(URI.createURI(path));
+		resource.load(in, null);
+		ocfContainer = (Container) resource.getContents().get(0);
+	}
+
 	/**
 	 * Registers a new resource factory for OCF data structures. This is normally done through Eclipse extension points
 	 * but we also need to be able to create this factory without the Eclipse runtime.
@@ -455,6 +534,35 @@ public class EPUB {
 				});
 	}
 
+	/**
+	 * Sets the level used for compressing the contents of the EPUB when it is assembled. Files with content that is
+	 * already compressed, such as JPEG and PNG images, are always stored without compression.
+	 *
+	 * @param level
+	 *            the compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+	 * @since 3.1
+	 */
+	public void setCompressionLevel(int level) {
+		if (level != Deflater.DEFAULT_COMPRESSION
+				&& (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+			throw new IllegalArgumentException("Illegal compression level " + level); //$NON-NLS-1$
+		}
+		this.compressionLevel = level;
+	}
+
+	/**
+	 * Sets the modification time given to all entries of the EPUB when it is assembled. Use this in order to get
+	 * identical EPUBs when assembling the same content again, as is required for reproducible builds. By default the
+	 * entries of files have the modification time of the file while generated entries have the time of assembly.
+	 *
+	 * @param time
+	 *            the time in milliseconds since the epoch, or -1 to use the default
+	 * @since 3.1
+	 */
+	public void setEntryTime(long time) {
+		this.entryTime = time;
+	}
+
 	/**
 	 * Unpacks the EPUB file to a temporary location and populates the data model with the content.
 	 *
@@ -509,26 +617,38 @@ public class EPUB {
 		for (RootFile rootFile : rootFiles) {
 			if (rootFile.getMediaType().equals(MIMETYPE_OEBPS)) {
 				File root = new File(rootFolder.getAbsolutePath() + File.separator + rootFile.getFullPath());
-				switch (readPublicationVersion(root)) {
-				case V2:
-					Publication ops2 = Publication.getVersion2Instance(logger);
-					ops2.unpack(root);
-					rootFile.setPublication(ops2);
-					break;
-				case V3:
-					Publication ops3 = Publication.getVersion3Instance();
-					ops3.unpack(root);
-					rootFile.setPublication(ops3);
-					break;
-				default:
-					log(MessageFormat.format("Unsupported OEBPS version in root file {0}", rootFile.getFullPath()), //$NON-NLS-1$
-							Severity.WARNING);
-					break;
+				Publication publication = createPublication(rootFile, readPublicationVersion(root));
+				if (publication != null) {
+					publication.unpack(root);
+					rootFile.setPublication(publication);
 				}
 			}
 		}
 	}
 
+	/**
+	 * Creates an empty publication of the given version for the root file. If the version is not supported a warning
+	 * is logged and <code>null</code> is returned.
+	 *
+	 * @param rootFile
+	 *            the root file of the publication
+	 * @param version
+	 *            the publication version
+	 * @return the new publication or <code>null</code>
+	 */
+	Publication createPublication(RootFile rootFile, PublicationVersion version) {
+		switch (version) {
+		case V2:
+			return Publication.getVersion2Instance(logger);
+		case V3:
+			return Publication.getVersion3Instance();
+		default:
+			log(MessageFormat.format("Unsupported OEBPS version in root file {0}", rootFile.getFullPath()), //$NON-NLS-1$
+					Severity.WARNING);
+			return null;
+		}
+	}
+
 	/**
 	 * Creates a new folder named META-INF and writes the required (as per the OPS specification) <b>container.xml</b>
 	 * in that folder. This is part of the packing procedure.
@@ -550,4 +670,26 @@ public class EPUB {
 			resource.save(null);
 		}
 	}
+
+	/**
+	 * Writes the required (as per the OPS specification) <b>META-INF/container.xml</b> into the EPUB. This is part of
+	 * the packing procedure.
+	 *
+	 * @param out
+	 *            the EPUB being assembled
+	 * @see <a href="http://idpf.org/epub/30/spec/epub30-ocf.html">EPUB3 OCF specification</a>
+	 * @see <a href="http://idpf.org/epub/20/spec/OCF_2.0.1_draft.doc">EPUB2 OCF specification</a>
+	 */
+	private void writeOCF(EPUBZipWriter out) throws IOException {
+		String path = "META-INF/container.xml"; //$NON-NLS-1$
+		ResourceSet resourceSet = new ResourceSetImpl();
+		Resource resource = resourceSet.createResource(URI.createURI(path));
+		resource.getContents().add(ocfContainer);
+		OutputStream entry = out.openEntry(path);
+		try {
+			resource.save(entry, null);
+		} finally {
+			entry.close();
+		}
+	}
 }
@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Torkild U. Resheim.
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Torkild U. Resheim - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.docs.epub.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.mylyn.docs.epub.core.EPUB.PublicationVersion;
+import org.eclipse.mylyn.docs.epub.ocf.Container;
+import org.eclipse.mylyn.docs.epub.ocf.RootFile;
+import org.eclipse.mylyn.docs.epub.opf.Item;
+import org.xml.sax.InputSource;
+
+/**
+ * Reads an EPUB file without unpacking it. Unlike {@link EPUB#unpack(File, File)}, which extracts the entire EPUB
+ * before reading the data model, the reader uses the central directory of the file to read each entry only when it is
+ * needed. The OCF container is read when first requested, the publications with their root files and tables of
+ * contents when these are first requested, while the contents of items are only read when explicitly asked for.
+ * <p>
+ * The items of the publications obtained through the reader have no files, so the publications cannot be packed
+ * again as they are. Use {@link EPUB#unpack(File, File)} if the EPUB is to be modified.
+ * </p>
+ *
+ * <pre>
+ * EPUBReader reader = new EPUBReader(new File(&quot;book.epub&quot;));
+ * try {
+ * 	for (Publication publication : reader.getOPSPublications()) {
+ * 		System.out.println(publication.getPackage().getMetadata().getTitles());
+ * 	}
+ * } finally {
+ * 	reader.close();
+ * }
+ * </pre>
+ *
+ * @author Torkild U. Resheim
+ * @since 3.1
+ */
+public class EPUBReader implements Closeable {
+
+	/** Path of the OCF container file as listed in the OCF specification */
+	private static final String CONTAINER_PATH = "META-INF/container.xml"; //$NON-NLS-1$
+
+	private final EPUB epub;
+
+	private final ZipFile zipFile;
+
+	private boolean containerRead = false;
+
+	private boolean publicationsRead = false;
+
+	/**
+	 * Opens the given EPUB file for reading.
+	 *
+	 * @param epubFile
+	 *            the EPUB file to read
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if the file is not an EPUB
+	 */
+	public EPUBReader(File epubFile) throws IOException {
+		this(epubFile, null);
+	}
+
+	/**
+	 * Opens the given EPUB file for reading, reporting through the given logger.
+	 *
+	 * @param epubFile
+	 *            the EPUB file to read
+	 * @param logger
+	 *            the logger or <code>null</code>
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if the file is not an EPUB
+	 */
+	public EPUBReader(File epubFile, ILogger logger) throws IOException {
+		epub = new EPUB(logger);
+		if (!epub.isEPUB(epubFile)) {
+			throw new IllegalArgumentException(MessageFormat.format("{0} is not an EPUB file", epubFile)); //$NON-NLS-1$
+		}
+		zipFile = new ZipFile(epubFile);
+	}
+
+	/**
+	 * Closes the EPUB file. Streams obtained from the reader can no longer be used.
+	 */
+	@Override
+	public void close() throws IOException {
+		zipFile.close();
+	}
+
+	/**
+	 * Returns the OCF container of the EPUB, reading it if this has not already been done.
+	 *
+	 * @return the OCF container
+	 * @throws IOException
+	 */
+	public Container getContainer() throws IOException {
+		if (!containerRead) {
+			InputStream in = getInputStream(CONTAINER_PATH);
+			try {
+				epub.readOCF(in, CONTAINER_PATH);
+			} finally {
+				in.close();
+			}
+			containerRead = true;
+		}
+		return epub.getContainer();
+	}
+
+	/**
+	 * Returns the EPUB data model with all supported publications read.
+	 *
+	 * @return the EPUB
+	 * @throws IOException
+	 * @see #getOPSPublications()
+	 */
+	public EPUB getEPUB() throws IOException {
+		getOPSPublications();
+		return epub;
+	}
+
+	/**
+	 * Returns a stream for reading the content of the given item.
+	 *
+	 * @param publication
+	 *            the publication of the item
+	 * @param item
+	 *            the item to read
+	 * @return a stream with the content of the item
+	 * @throws IOException
+	 * @throws FileNotFoundException
+	 *             if the item is not in the EPUB
+	 */
+	public InputStream getInputStream(Publication publication, Item item) throws IOException {
+		return getInputStream(getFolderPath(getRootPath(publication)) + item.getHref());
+	}
+
+	/**
+	 * Returns a stream for reading the entry at the given path within the EPUB.
+	 *
+	 * @param path
+	 *            path of the entry, relative to the root of the EPUB
+	 * @return a stream with the content of the entry
+	 * @throws IOException
+	 * @throws FileNotFoundException
+	 *             if there is no such entry in the EPUB
+	 */
+	public InputStream getInputStream(String path) throws IOException {
+		ZipEntry entry = zipFile.getEntry(path);
+		if (entry == null) {
+			throw new FileNotFoundException(MessageFormat.format("Could not find {0} in the EPUB", path)); //$NON-NLS-1$
+		}
+		return zipFile.getInputStream(entry);
+	}
+
+	/**
+	 * Returns a list of all <i>OPS Publications</i> contained within the EPUB, reading the root files and their tables
+	 * of contents if this has not already been done. Publications in unsupported versions are not included.
+	 *
+	 * @return a list of all OPS publications
+	 * @throws IOException
+	 * @see EPUB#getOPSPublications()
+	 */
+	public List<Publication> getOPSPublications() throws IOException {
+		if (!publicationsRead) {
+			for (RootFile rootFile : getContainer().getRootfiles().getRootfiles()) {
+				if (rootFile.getMediaType().equals(EPUB.MIMETYPE_OEBPS)) {
+					String rootPath = rootFile.getFullPath();
+					PublicationVersion version;
+					InputStream in = getInputStream(rootPath);
+					try {
+						version = EPUB.readPublicationVersion(new InputSource(in));
+					} finally {
+						in.close();
+					}
+					Publication publication = epub.createPublication(rootFile, version);
+					if (publication != null) {
+						publication.read(this, rootPath);
+						rootFile.setPublication(publication);
+					}
+				}
+			}
+			publicationsRead = true;
+		}
+		return epub.getOPSPublications();
+	}
+
+	/**
+	 * Extracts the content of the given item to the destination file. Any existing file will be replaced.
+	 *
+	 * @param publication
+	 *            the publication of the item
+	 * @param item
+	 *            the item to extract
+	 * @param destination
+	 *            the file to write to
+	 * @throws IOException
+	 * @throws FileNotFoundException
+	 *             if the item is not in the EPUB
+	 */
+	public void extract(Publication publication, Item item, File destination) throws IOException {
+		InputStream in = getInputStream(publication, item);
+		try {
+			File folder = destination.getAbsoluteFile().getParentFile();
+			if (!folder.exists() && !folder.mkdirs()) {
+				throw new IOException(MessageFormat.format("Could not create folder {0}", folder)); //$NON-NLS-1$
+			}
+			Files.copy(in, destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Returns the path of the root file of the given publication.
+	 */
+	private String getRootPath(Publication publication) throws IOException {
+		for (RootFile rootFile : getContainer().getRootfiles().getRootfiles()) {
+			if (rootFile.getPublication() == publication) {
+				return rootFile.getFullPath();
+			}
+		}
+		throw new IllegalArgumentException("The publication is not read from this EPUB"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the path of the folder holding the entry at the given path, ending with a '/' unless empty.
+	 */
+	static String getFolderPath(String path) {
+		return path.substring(0, path.lastIndexOf('/') + 1);
+	}
+}
@@ -12,9 +12,9 @@
 package org.eclipse.mylyn.docs.epub.core;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -50,9 +50,8 @@ import org.eclipse.mylyn.docs.epub.opf.Metadata;
 import org.eclipse.mylyn.docs.epub.opf.OPFFactory;
 import org.eclipse.mylyn.docs.epub.opf.Spine;
 import org.eclipse.mylyn.internal.docs.epub.core.EPUBXMLHelperImp;
-import org.eclipse.mylyn.internal.docs.epub.core.OPSValidator;
+import org.eclipse.mylyn.internal.docs.epub.core.EPUBZipWriter;
 import org.eclipse.mylyn.internal.docs.epub.core.TOCGenerator;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 /**
@@ -144,26 +143,23 @@ public class OPSPublication extends Publication {
 		int playOrder = 0;
 		// Iterate over the spine
 		EList<Itemref> spineItems = getSpine().getSpineItems();
-		EList<Item> manifestItems = opfPackage.getManifest().getItems();
+		List<Item> tocItems = new ArrayList<Item>();
 		for (Itemref itemref : spineItems) {
-			Item referencedItem = null;
-			String id = itemref.getIdref();
 			// Find the manifest item that is referenced
-			for (Item item : manifestItems) {
-				if (item.getId().equals(id)) {
-					referencedItem = item;
-					break;
-				}
-			}
+			Item referencedItem = getItemById(itemref.getIdref());
+			// Items without a file, such as a cover page written directly into the EPUB, are generated and have no
+			// headers to contribute
 			if (referencedItem != null && !referencedItem.isNoToc()
-					&& referencedItem.getMedia_type().equals(MIMETYPE_XHTML)) {
-				File file = new File(referencedItem.getFile());
-				FileInputStream fis = new FileInputStream(file);
-				log(MessageFormat.format(Messages.getString("OPS2Publication.1"), referencedItem.getHref()), //$NON-NLS-1$
-						Severity.VERBOSE, indent);
-				playOrder = TOCGenerator.parse(new InputSource(fis), referencedItem.getHref(), ncxTOC, playOrder);
+					&& referencedItem.getMedia_type().equals(MIMETYPE_XHTML) && referencedItem.getFile() != null) {
+				tocItems.add(referencedItem);
 			}
 		}
+		scan(tocItems);
+		for (Item item : tocItems) {
+			log(MessageFormat.format(Messages.getString("OPS2Publication.1"), item.getHref()), //$NON-NLS-1$
+					Severity.VERBOSE, indent);
+			playOrder = TOCGenerator.add(getScanner(item).getHeaders(), item.getHref(), ncxTOC, playOrder);
+		}
 		indent--;
 	}
 
@@ -196,6 +192,14 @@ public class OPSPublication extends Publication {
 		ncxTOC = (Ncx) resource.getContents().get(0);
 	}
 
+	@Override
+	void readTableOfContents(InputStream in, String path) throws IOException {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		Resource resource = resourceSet.createResource(URI.createURI(path));
+		resource.load(in, null);
+		ncxTOC = (Ncx) resource.getContents().get(0);
+	}
+
 	/**
 	 * Registers a new resource factory for NCX data structures. This is normally done through Eclipse extension points
 	 * but we also need to be able to create this factory without the Eclipse runtime.
@@ -329,7 +333,15 @@ public class OPSPublication extends Publication {
 			throws ParserConfigurationException, SAXException, IOException {
 		EList<Item> manifestItems = opfPackage.getManifest().getItems();
 		ArrayList<ValidationMessage> messages = new ArrayList<ValidationMessage>();
+		List<Item> missingItems = new ArrayList<Item>();
+		List<Item> xhtmlItems = new ArrayList<Item>();
 		for (Item item : manifestItems) {
+			// items without a file that were generated when the publication was
+			// previously packed are generated again, so there is nothing to
+			// validate
+			if (item.isGenerated() && item.getFile() == null) {
+				continue;
+			}
 			// if the "file" attribute is not set we probably have an item
 			// that is in the model because we're repacking an EPUB. We'll try
 			// to make it easier on the user by figuring out the path to the
@@ -339,11 +351,21 @@ public class OPSPublication extends Publication {
 				String href = item.getHref();
 				File file = new File(rootFolder, href);
 				if (!file.exists()) {
-					messages.add(new ValidationMessage(ValidationMessage.Severity.ERROR,
-							MessageFormat.format(Messages.getString("OPSPublication.7"), item.getHref()))); //$NON-NLS-1$
+					missingItems.add(item);
 				}
 				item.setFile(file.toString());
 			}
+			if (item.getMedia_type().equals(MIMETYPE_XHTML)) {
+				xhtmlItems.add(item);
+			}
+		}
+		// Parse all XHTML items up front so that this can be done in parallel
+		scan(xhtmlItems);
+		for (Item item : manifestItems) {
+			if (missingItems.contains(item)) {
+				messages.add(new ValidationMessage(ValidationMessage.Severity.ERROR,
+						MessageFormat.format(Messages.getString("OPSPublication.7"), item.getHref()))); //$NON-NLS-1$
+			}
 			if (!isLegalType(item)) {
 				Item fallback = getItemById(item.getFallback());
 				if (fallback == null) {
@@ -361,10 +383,8 @@ public class OPSPublication extends Publication {
 				}
 			}
 			// Validate the XHTML items to see if they contain illegal attributes and elements
-			if (item.getMedia_type().equals(MIMETYPE_XHTML)) {
-				File file = new File(item.getFile());
-				FileReader fr = new FileReader(file);
-				messages.addAll(OPSValidator.validate(new InputSource(fr), item.getHref()));
+			if (item.getMedia_type().equals(MIMETYPE_XHTML) && item.getFile() != null) {
+				messages.addAll(getScanner(item).getValidationMessages());
 			}
 		}
 		return messages;
@@ -389,24 +409,9 @@ public class OPSPublication extends Publication {
 		// If a table of contents file has not been specified we must create
 		// one. If it has been specified it will be copied.
 		if (getItemById(opfPackage.getSpine().getToc()) == null) {
-			configureNCX();
 			File ncxFile = new File(oepbsFolder.getAbsolutePath() + File.separator + TOCFILE_NAME);
-			ResourceSet resourceSet = new ResourceSetImpl();
-			// Register the packages to make it available during loading.
-			resourceSet.getPackageRegistry().put(NCXPackage.eNS_URI, NCXPackage.eINSTANCE);
-			URI fileURI = URI.createFileURI(ncxFile.getAbsolutePath());
-			Resource resource = resourceSet.createResource(fileURI);
-			// We've been asked to generate a table of contents using pages
-			// contained in the spine.
-			if (opfPackage.isGenerateTableOfContents()) {
-				generateTableOfContents();
-			}
-			resource.getContents().add(ncxTOC);
-			Map<String, Object> options = new HashMap<String, Object>();
-			// NCX requires that we encode using UTF-8
-			options.put(XMLResource.OPTION_ENCODING, XML_ENCODING);
-			options.put(XMLResource.OPTION_EXTENDED_META_DATA, Boolean.TRUE);
-			resource.save(options);
+			Resource resource = createTableOfContentsResource(URI.createFileURI(ncxFile.getAbsolutePath()));
+			resource.save(getTableOfContentsSaveOptions());
 			// Make sure the table of contents file is in the manifest and
 			// referenced in the spine. We also want it to be the first element
 			// in the manifest.
@@ -415,4 +420,64 @@ public class OPSPublication extends Publication {
 		}
 	}
 
+	/**
+	 * Writes the table of contents into the EPUB using the NCX format. A table of contents that was generated when the
+	 * publication was previously packed without a working folder has no file and is generated again.
+	 *
+	 * @param out
+	 *            the EPUB being assembled
+	 * @param folderPath
+	 *            path of the OEPBS folder within the EPUB
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 * @see {@link #writeTableOfContents(File)}
+	 */
+	@Override
+	void writeTableOfContents(EPUBZipWriter out, String folderPath)
+			throws IOException, ParserConfigurationException, SAXException {
+		Item item = getItemById(opfPackage.getSpine().getToc());
+		if (item == null || (item.isGenerated() && item.getFile() == null)) {
+			Resource resource = createTableOfContentsResource(URI.createURI(folderPath + TOCFILE_NAME));
+			OutputStream entry = out.openEntry(folderPath + TOCFILE_NAME);
+			try {
+				resource.save(entry, getTableOfContentsSaveOptions());
+			} finally {
+				entry.close();
+			}
+			if (item == null) {
+				item = addGeneratedItem(opfPackage.getSpine().getToc(), TOCFILE_NAME, MIMETYPE_NCX, false, false);
+				opfPackage.getManifest().getItems().move(0, item);
+			}
+		}
+	}
+
+	/**
+	 * Creates a resource holding a new table of contents, which is generated from the publication contents if so
+	 * specified.
+	 */
+	private Resource createTableOfContentsResource(URI uri)
+			throws ParserConfigurationException, SAXException, IOException {
+		configureNCX();
+		ResourceSet resourceSet = new ResourceSetImpl();
+		// Register the packages to make it available during loading.
+		resourceSet.getPackageRegistry().put(NCXPackage.eNS_URI, NCXPackage.eINSTANCE);
+		Resource resource = resourceSet.createResource(uri);
+		// We've been asked to generate a table of contents using pages
+		// contained in the spine.
+		if (opfPackage.isGenerateTableOfContents()) {
+			generateTableOfContents();
+		}
+		resource.getContents().add(ncxTOC);
+		return resource;
+	}
+
+	private Map<String, Object> getTableOfContentsSaveOptions() {
+		Map<String, Object> options = new HashMap<String, Object>();
+		// NCX requires that we encode using UTF-8
+		options.put(XMLResource.OPTION_ENCODING, XML_ENCODING);
+		options.put(XMLResource.OPTION_EXTENDED_META_DATA, Boolean.TRUE);
+		return options;
+	}
+
 }
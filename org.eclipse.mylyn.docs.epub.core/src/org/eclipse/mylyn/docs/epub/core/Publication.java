@@ -15,13 +15,21 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
 
@@ -72,7 +80,9 @@ import org.eclipse.mylyn.docs.epub.opf.util.OPFResourceImpl;
 import org.eclipse.mylyn.docs.epub.opf.util.OPFValidator;
 import org.eclipse.mylyn.internal.docs.epub.core.EPUBFileUtil;
 import org.eclipse.mylyn.internal.docs.epub.core.EPUBXMLHelperImp;
-import org.eclipse.mylyn.internal.docs.epub.core.ReferenceScanner;
+import org.eclipse.mylyn.internal.docs.epub.core.EPUBZipWriter;
+import org.eclipse.mylyn.internal.docs.epub.core.ManifestIndex;
+import org.eclipse.mylyn.internal.docs.epub.core.XHTMLScanner;
 import org.xml.sax.SAXException;
 
 /**
@@ -101,6 +111,8 @@ public abstract class Publication {
 	 */
 	protected static final String COVER_ID = "cover"; //$NON-NLS-1$
 
+	private static final String COVER_FILE_NAME = "cover-page.xhtml"; //$NON-NLS-1$
+
 	/** Publication identifier for the cover image item */
 	public static final String COVER_IMAGE_ID = "cover-image"; //$NON-NLS-1$
 
@@ -162,6 +174,12 @@ public abstract class Publication {
 	/** The root folder TODO: Move to opfPackage */
 	private File rootFolder;
 
+	/** Index of the manifest items, kept up to date as the manifest changes */
+	private final ManifestIndex manifestIndex = new ManifestIndex();
+
+	/** Results of scanning XHTML items, kept while the publication is being assembled */
+	private final Map<Item, XHTMLScanner> scanners = new HashMap<Item, XHTMLScanner>();
+
 	protected Publication() {
 		opfPackage = OPFFactory.eINSTANCE.createPackage();
 		registerOPFResourceFactory();
@@ -935,13 +953,7 @@ public abstract class Publication {
 	 * @return the item or <code>null</code>.
 	 */
 	public Item getItemById(String id) {
-		EList<Item> items = opfPackage.getManifest().getItems();
-		for (Item item : items) {
-			if (item.getId().equals(id)) {
-				return item;
-			}
-		}
-		return null;
+		return manifestIndex.getItemById(opfPackage.getManifest(), id);
 	}
 
 	/**
@@ -954,14 +966,7 @@ public abstract class Publication {
 	 * @since 3.1
 	 */
 	public Item removeItemById(String id) {
-		EList<Item> items = opfPackage.getManifest().getItems();
-		Item found = null;
-		for (Item item : items) {
-			if (item.getId().equals(id)) {
-				found = item;
-				break;
-			}
-		}
+		Item found = getItemById(id);
 		if (found != null) {
 			opfPackage.getManifest().getItems().remove(found);
 		}
@@ -1060,23 +1065,29 @@ public abstract class Publication {
 	private void includeReferencedResources() throws ParserConfigurationException, SAXException, IOException {
 		log(Messages.getString("OPSPublication.23"), Severity.INFO, indent++); //$NON-NLS-1$
 		EList<Item> manifestItems = opfPackage.getManifest().getItems();
+		// Only parse XHTML-files and files that are not generated
+		List<Item> xhtmlItems = new ArrayList<Item>();
+		for (Item item : manifestItems) {
+			if (item.getMedia_type().equals(MIMETYPE_XHTML) && !item.isGenerated()) {
+				xhtmlItems.add(item);
+			}
+		}
+		scan(xhtmlItems);
 		// Compose a list of file references
 		HashMap<File, List<File>> references = new HashMap<File, List<File>>();
 		for (Item item : manifestItems) {
-			// Only parse XHTML-files and files that are not generated
 			if (item.getMedia_type().equals(MIMETYPE_XHTML) && !item.isGenerated()) {
 				File source = null;
 				if (item.getSourcePath() != null) {
 					source = new File(item.getSourcePath());
 					log(MessageFormat.format(Messages.getString("OPSPublication.24"), source), Severity.VERBOSE, //$NON-NLS-1$
 							indent);
-					references.put(source, ReferenceScanner.parse(item));
 				} else {
 					source = new File(item.getFile());
 					log(MessageFormat.format(Messages.getString("OPSPublication.25"), source), Severity.VERBOSE, //$NON-NLS-1$
 							indent);
 				}
-				references.put(source, ReferenceScanner.parse(item));
+				references.put(source, getScanner(item).getReferencedFiles());
 			} else {
 				log(MessageFormat.format(Messages.getString("OPSPublication.26"), item.getFile()), Severity.DEBUG, //$NON-NLS-1$
 						indent);
@@ -1095,14 +1106,7 @@ public abstract class Publication {
 					relativePath = new File(EMPTY_STRING);
 				}
 				// Add those files that does not already exist in the manifest
-				boolean add = true;
-				EList<Item> items = getPackage().getManifest().getItems();
-				for (Item item : items) {
-					if (item.getFile().equals(file.getAbsolutePath())) {
-						add = false;
-					}
-				}
-				if (add) {
+				if (manifestIndex.getItemByFile(opfPackage.getManifest(), file.getAbsolutePath()) == null) {
 					try {
 						addItem(null, null, file, relativePath.getParent(), null, false, false, false);
 					} catch (Exception e) {
@@ -1117,6 +1121,47 @@ public abstract class Publication {
 		indent--;
 	}
 
+	/**
+	 * Scans the given XHTML items that have not been scanned since assembling of the publication started. The items are
+	 * scanned in parallel and the results are kept until the publication has been assembled, so that each file is only
+	 * parsed once for finding references, validating and generating the table of contents.
+	 *
+	 * @param items
+	 *            the XHTML items to scan
+	 * @throws ParserConfigurationException
+	 * @throws SAXException
+	 * @throws IOException
+	 */
+	void scan(List<Item> items) throws ParserConfigurationException, SAXException, IOException {
+		List<Item> unscanned = new ArrayList<Item>();
+		for (Item item : items) {
+			if (!scanners.containsKey(item)) {
+				unscanned.add(item);
+			}
+		}
+		scanners.putAll(XHTMLScanner.scan(unscanned));
+	}
+
+	/**
+	 * Returns the result of scanning the given XHTML item, scanning it if this has not already been done.
+	 *
+	 * @param item
+	 *            the XHTML item
+	 * @return the scanner holding the results
+	 * @throws ParserConfigurationException
+	 * @throws SAXException
+	 * @throws IOException
+	 * @see #scan(List)
+	 */
+	XHTMLScanner getScanner(Item item) throws ParserConfigurationException, SAXException, IOException {
+		XHTMLScanner scanner = scanners.get(item);
+		if (scanner == null) {
+			scanner = XHTMLScanner.scan(item);
+			scanners.put(item, scanner);
+		}
+		return scanner;
+	}
+
 	/**
 	 * Logs a message using the specified logger. If no logger has been assigned, the message is ignored.
 	 *
@@ -1156,6 +1201,70 @@ public abstract class Publication {
 	 *             when the SAX parser cannot configured
 	 */
 	void pack(File rootFile) throws IOException, ValidationException, ParserConfigurationException, SAXException {
+		try {
+			prepare();
+			// Note that order is important here. Some of the steps for assembling
+			// the EPUB may insert data into the publication structure. Hence the OPF must
+			// be written last.
+			this.rootFolder = rootFile.getAbsoluteFile().getParentFile();
+			if (rootFolder.isDirectory() || rootFolder.mkdirs()) {
+				validate();
+				// Validation OK -- Write content.
+				if (opfPackage.isGenerateCoverHTML()) {
+					writeCoverHTML(rootFolder);
+				}
+				writeContent(rootFolder);
+				writeTableOfContents(rootFolder);
+				writeOPF(rootFile);
+			} else {
+				throw new IOException("Could not create OEBPS folder in " + rootFolder.getAbsolutePath()); //$NON-NLS-1$
+			}
+		} finally {
+			scanners.clear();
+		}
+	}
+
+	/**
+	 * Assembles the OPS publication directly into an EPUB without using a working folder. The content of each item is
+	 * read from its source and written into the EPUB, while the cover page, the table of contents and the OPF file are
+	 * written into the EPUB as they are generated. Validation is performed as in {@link #pack(File)}.
+	 *
+	 * @param out
+	 *            the EPUB being assembled
+	 * @param rootPath
+	 *            path of the root file within the EPUB
+	 * @throws ValidationException
+	 *             when the EPUB contains errors
+	 * @throws SAXException
+	 *             when content cannot be read
+	 * @throws ParserConfigurationException
+	 *             when the SAX parser cannot configured
+	 */
+	void pack(EPUBZipWriter out, String rootPath)
+			throws IOException, ValidationException, ParserConfigurationException, SAXException {
+		try {
+			prepare();
+			validate();
+			String folderPath = rootPath.substring(0, rootPath.lastIndexOf('/') + 1);
+			if (opfPackage.isGenerateCoverHTML()) {
+				writeCoverHTML(out, folderPath);
+			}
+			writeContent(out, folderPath);
+			writeTableOfContents(out, folderPath);
+			writeOPF(out, rootPath);
+		} finally {
+			scanners.clear();
+		}
+	}
+
+	/**
+	 * Adds referenced resources and required data to the publication prior to assembling it.
+	 *
+	 * @throws ValidationException
+	 *             when the spine is empty
+	 */
+	private void prepare() throws IOException, ValidationException, ParserConfigurationException, SAXException {
+		scanners.clear();
 		if (opfPackage.getSpine().getSpineItems().isEmpty()) {
 			throw new ValidationException("Spine does not contain any items"); //$NON-NLS-1$
 		}
@@ -1165,43 +1274,38 @@ public abstract class Publication {
 		}
 		// Make sure all data is in place in the OPF
 		addCompulsoryData();
-		// Note that order is important here. Some of the steps for assembling
-		// the EPUB may insert data into the publication structure. Hence the OPF must
-		// be written last.
-		this.rootFolder = rootFile.getAbsoluteFile().getParentFile();
-		if (rootFolder.isDirectory() || rootFolder.mkdirs()) {
-			// Validate contents.
-			messages = validateContents();
-			log(Messages.getString("OPSPublication.5"), Severity.INFO, indent); //$NON-NLS-1$
-			indent++;
-			for (ValidationMessage validation : messages) {
-				switch (validation.getSeverity()) {
-				case ERROR:
-					throw new ValidationException(validation.getMessage());
-				case WARNING:
-					log(validation.getMessage(), Severity.WARNING, indent);
-					break;
-				default:
-					break;
-				}
-			}
-			indent--;
-			// Validate metadata. These are "hard" requirements, so any problem here is an exception
-			List<Diagnostic> problems = validateMetadata();
-			if (problems.size() > 0) {
-				for (Diagnostic diagnostic : problems) {
-					throw new ValidationException(diagnostic.getMessage());
-				}
+	}
+
+	/**
+	 * Validates the contents and the metadata of the publication. Warnings are logged while an error will result in a
+	 * {@link ValidationException} being thrown.
+	 *
+	 * @throws ValidationException
+	 *             when the EPUB contains errors
+	 */
+	private void validate() throws IOException, ValidationException, ParserConfigurationException, SAXException {
+		// Validate contents.
+		messages = validateContents();
+		log(Messages.getString("OPSPublication.5"), Severity.INFO, indent); //$NON-NLS-1$
+		indent++;
+		for (ValidationMessage validation : messages) {
+			switch (validation.getSeverity()) {
+			case ERROR:
+				throw new ValidationException(validation.getMessage());
+			case WARNING:
+				log(validation.getMessage(), Severity.WARNING, indent);
+				break;
+			default:
+				break;
 			}
-			// Validation OK -- Write content.
-			if (opfPackage.isGenerateCoverHTML()) {
-				writeCoverHTML(rootFolder);
+		}
+		indent--;
+		// Validate metadata. These are "hard" requirements, so any problem here is an exception
+		List<Diagnostic> problems = validateMetadata();
+		if (problems.size() > 0) {
+			for (Diagnostic diagnostic : problems) {
+				throw new ValidationException(diagnostic.getMessage());
 			}
-			writeContent(rootFolder);
-			writeTableOfContents(rootFolder);
-			writeOPF(rootFile);
-		} else {
-			throw new IOException("Could not create OEBPS folder in " + rootFolder.getAbsolutePath()); //$NON-NLS-1$
 		}
 	}
 
@@ -1229,6 +1333,27 @@ public abstract class Publication {
 	 */
 	protected abstract void readTableOfContents(File tocFile) throws IOException;
 
+	/**
+	 * Reads the table of contents from the given stream when the publication is read directly from an EPUB. The
+	 * default implementation copies the table of contents to a temporary file and reads it using
+	 * {@link #readTableOfContents(File)}.
+	 *
+	 * @param in
+	 *            the stream to read the table of contents from
+	 * @param path
+	 *            path of the table of contents file within the EPUB
+	 * @throws IOException
+	 */
+	void readTableOfContents(InputStream in, String path) throws IOException {
+		File tocFile = File.createTempFile("epub_", null); //$NON-NLS-1$
+		try {
+			Files.copy(in, tocFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			readTableOfContents(tocFile);
+		} finally {
+			tocFile.delete();
+		}
+	}
+
 	/**
 	 * Registers a new resource factory for OPF data structures. This is normally done through Eclipse extension points
 	 * but we also need to be able to create this factory without the Eclipse runtime.
@@ -1381,6 +1506,38 @@ public abstract class Publication {
 		readTableOfContents(tocFile);
 	}
 
+	/**
+	 * Populates the data model with the root file and the table of contents read directly from an EPUB, without
+	 * extracting any of the items. As the items have no files the publication cannot be packed again as it is.
+	 *
+	 * @param reader
+	 *            the reader of the EPUB
+	 * @param rootPath
+	 *            path of the (OPS) root file within the EPUB
+	 * @throws IOException
+	 */
+	void read(EPUBReader reader, String rootPath) throws IOException {
+		InputStream in = reader.getInputStream(rootPath);
+		try {
+			ResourceSet resourceSet = new ResourceSetImpl();
+			Resource resource = resourceSet.createResource(URI.createURI(rootPath));
+			resource.load(in, null);
+			opfPackage = (Package) resource.getContents().get(0);
+		} finally {
+			in.close();
+		}
+		Item tocItem = getItemById(opfPackage.getSpine().getToc());
+		if (tocItem != null) {
+			String tocPath = EPUBReader.getFolderPath(rootPath) + tocItem.getHref();
+			in = reader.getInputStream(tocPath);
+			try {
+				readTableOfContents(in, tocPath);
+			} finally {
+				in.close();
+			}
+		}
+	}
+
 	/**
 	 * Implement to validate contents.
 	 *
@@ -1429,6 +1586,31 @@ public abstract class Publication {
 		}
 	}
 
+	/**
+	 * Writes all items part of the publication into the EPUB unless the item in question will be generated.
+	 *
+	 * @param out
+	 *            the EPUB being assembled
+	 * @param folderPath
+	 *            path of the OEPBS folder within the EPUB
+	 * @throws IOException
+	 */
+	private void writeContent(EPUBZipWriter out, String folderPath) throws IOException {
+		log(Messages.getString("OPSPublication.22"), Severity.INFO, indent); //$NON-NLS-1$
+		Set<String> written = new HashSet<String>();
+		EList<Item> items = opfPackage.getManifest().getItems();
+		for (Item item : items) {
+			if (!item.isGenerated()) {
+				if (written.add(item.getHref())) {
+					out.add(folderPath + item.getHref(), new File(item.getFile()));
+				} else {
+					log(MessageFormat.format(Messages.getString("Publication.0"), //$NON-NLS-1$
+							item.getHref()), Severity.WARNING, indent + 1);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Writes a XHTML-file for the cover image. This is added to the publication and all required references set.
 	 *
@@ -1438,42 +1620,13 @@ public abstract class Publication {
 	 */
 	private void writeCoverHTML(File rootFolder) throws IOException {
 		Item coverImage = getItemById(COVER_IMAGE_ID);
-		File coverFile = new File(rootFolder.getAbsolutePath() + File.separator + "cover-page.xhtml"); //$NON-NLS-1$
+		File coverFile = new File(rootFolder.getAbsolutePath() + File.separator + COVER_FILE_NAME);
 		if (!coverFile.exists()) {
 			try {
 				log(MessageFormat.format(Messages.getString("OPSPublication.28"), coverImage.getHref()), Severity.INFO, //$NON-NLS-1$
 						indent);
 				FileWriter fw = new FileWriter(coverFile);
-				fw.append("<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"no\"?>\n"); //$NON-NLS-1$
-				fw.append(
-						"<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.1//EN\" \"http://www.w3.org/TR/xhtml11/DTD/xhtml11.dtd\">\n"); //$NON-NLS-1$
-				fw.append("<html xmlns=\"http://www.w3.org/1999/xhtml\">\n"); //$NON-NLS-1$
-				fw.append("  <head>\n"); //$NON-NLS-1$
-				fw.append("    <title>" + coverImage.getTitle() + "</title>\n"); //$NON-NLS-1$ //$NON-NLS-2$
-				fw.append("    <style type=\"text/css\">"); //$NON-NLS-1$
-				fw.append("      #cover-body {\n"); //$NON-NLS-1$
-				fw.append("        margin: 0px;\n"); //$NON-NLS-1$
-				fw.append("        text-align: center;\n"); //$NON-NLS-1$
-				fw.append("        background-color: #222222;\n"); //$NON-NLS-1$
-				fw.append("      }\n"); //$NON-NLS-1$
-				fw.append("      #cover-block {\n"); //$NON-NLS-1$
-				fw.append("        height: 100%;\n"); //$NON-NLS-1$
-				fw.append("        margin-top: 0;\n"); //$NON-NLS-1$
-				fw.append("      }\n"); //$NON-NLS-1$
-				fw.append("      #cover-image {\n"); //$NON-NLS-1$
-				fw.append("        height: 100%;\n"); //$NON-NLS-1$
-				fw.append("        text-align: center;\n"); //$NON-NLS-1$
-				fw.append("        max-width: 100%;\n"); //$NON-NLS-1$
-				fw.append("      }\n"); //$NON-NLS-1$
-				fw.append("    </style>\n"); //$NON-NLS-1$
-				fw.append("  </head>\n"); //$NON-NLS-1$
-				fw.append("  <body id=\"cover-body\">\n"); //$NON-NLS-1$
-				fw.append("    <div id=\"cover-block\">\n"); //$NON-NLS-1$
-				fw.append("      <img id=\"cover-image\" src=\"" + coverImage.getHref() + "\" alt=\"" //$NON-NLS-1$ //$NON-NLS-2$
-						+ coverImage.getTitle() + "\"/>\n"); //$NON-NLS-1$
-				fw.append("    </div>\n"); //$NON-NLS-1$
-				fw.append("  </body>\n"); //$NON-NLS-1$
-				fw.append("</html>\n"); //$NON-NLS-1$
+				fw.append(createCoverHTML(coverImage));
 				fw.close();
 			} catch (IOException e) {
 				e.printStackTrace();
@@ -1482,6 +1635,78 @@ public abstract class Publication {
 		// Add the cover page item
 		Item coverPage = addItem(COVER_ID, null, coverFile, null, MIMETYPE_XHTML, true, false, false);
 		coverPage.setGenerated(true);
+		addCoverReference(coverPage, coverImage);
+	}
+
+	/**
+	 * Writes a XHTML-file for the cover image into the EPUB. This is added to the publication and all required
+	 * references set.
+	 *
+	 * @param out
+	 *            the EPUB being assembled
+	 * @param folderPath
+	 *            path of the OEPBS folder within the EPUB
+	 * @throws IOException
+	 */
+	private void writeCoverHTML(EPUBZipWriter out, String folderPath) throws IOException {
+		Item coverImage = getItemById(COVER_IMAGE_ID);
+		log(MessageFormat.format(Messages.getString("OPSPublication.28"), coverImage.getHref()), Severity.INFO, //$NON-NLS-1$
+				indent);
+		OutputStream entry = out.openEntry(folderPath + COVER_FILE_NAME);
+		try {
+			Writer writer = new OutputStreamWriter(entry, XML_ENCODING);
+			writer.append(createCoverHTML(coverImage));
+			writer.flush();
+		} finally {
+			entry.close();
+		}
+		// Add the cover page item unless it was added when the publication was previously packed
+		Item coverPage = getItemById(COVER_ID);
+		if (coverPage == null) {
+			coverPage = addGeneratedItem(COVER_ID, COVER_FILE_NAME, MIMETYPE_XHTML, true, false);
+			addCoverReference(coverPage, coverImage);
+		}
+	}
+
+	private String createCoverHTML(Item coverImage) {
+		StringBuilder html = new StringBuilder();
+		html.append("<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"no\"?>\n"); //$NON-NLS-1$
+		html.append(
+				"<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.1//EN\" \"http://www.w3.org/TR/xhtml11/DTD/xhtml11.dtd\">\n"); //$NON-NLS-1$
+		html.append("<html xmlns=\"http://www.w3.org/1999/xhtml\">\n"); //$NON-NLS-1$
+		html.append("  <head>\n"); //$NON-NLS-1$
+		html.append("    <title>" + coverImage.getTitle() + "</title>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		html.append("    <style type=\"text/css\">"); //$NON-NLS-1$
+		html.append("      #cover-body {\n"); //$NON-NLS-1$
+		html.append("        margin: 0px;\n"); //$NON-NLS-1$
+		html.append("        text-align: center;\n"); //$NON-NLS-1$
+		html.append("        background-color: #222222;\n"); //$NON-NLS-1$
+		html.append("      }\n"); //$NON-NLS-1$
+		html.append("      #cover-block {\n"); //$NON-NLS-1$
+		html.append("        height: 100%;\n"); //$NON-NLS-1$
+		html.append("        margin-top: 0;\n"); //$NON-NLS-1$
+		html.append("      }\n"); //$NON-NLS-1$
+		html.append("      #cover-image {\n"); //$NON-NLS-1$
+		html.append("        height: 100%;\n"); //$NON-NLS-1$
+		html.append("        text-align: center;\n"); //$NON-NLS-1$
+		html.append("        max-width: 100%;\n"); //$NON-NLS-1$
+		html.append("      }\n"); //$NON-NLS-1$
+		html.append("    </style>\n"); //$NON-NLS-1$
+		html.append("  </head>\n"); //$NON-NLS-1$
+		html.append("  <body id=\"cover-body\">\n"); //$NON-NLS-1$
+		html.append("    <div id=\"cover-block\">\n"); //$NON-NLS-1$
+		html.append("      <img id=\"cover-image\" src=\"" + coverImage.getHref() + "\" alt=\"" //$NON-NLS-1$ //$NON-NLS-2$
+				+ coverImage.getTitle() + "\"/>\n"); //$NON-NLS-1$
+		html.append("    </div>\n"); //$NON-NLS-1$
+		html.append("  </body>\n"); //$NON-NLS-1$
+		html.append("</html>\n"); //$NON-NLS-1$
+		return html.toString();
+	}
+
+	/**
+	 * Adds a reference to the cover page and moves the cover page first in the spine.
+	 */
+	private void addCoverReference(Item coverPage, Item coverImage) {
 		addReference(coverPage.getHref(), coverImage.getTitle(), Type.COVER.getLiteral());
 		// Move the cover page first in the spine.
 		EList<Itemref> spine = opfPackage.getSpine().getSpineItems();
@@ -1512,6 +1737,27 @@ public abstract class Publication {
 		resource.save(null);
 	}
 
+	/**
+	 * Writes the <b>content.opf</b> file into the EPUB.
+	 *
+	 * @param out
+	 *            the EPUB being assembled
+	 * @param rootPath
+	 *            path of the OPF file within the EPUB
+	 * @throws IOException
+	 */
+	private void writeOPF(EPUBZipWriter out, String rootPath) throws IOException {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		Resource resource = resourceSet.createResource(URI.createURI(rootPath));
+		resource.getContents().add(opfPackage);
+		OutputStream entry = out.openEntry(rootPath);
+		try {
+			resource.save(entry, null);
+		} finally {
+			entry.close();
+		}
+	}
+
 	/**
 	 * Implement to handle writing of the table of contents. Note that this method should do nothing if the table of
 	 * contents has already been specified using {@link #setTableOfContents(File)}.
@@ -1522,4 +1768,79 @@ public abstract class Publication {
 	 */
 	protected abstract void writeTableOfContents(File rootFolder)
 			throws IOException, ParserConfigurationException, SAXException;
+
+	/**
+	 * Handles writing of the table of contents into the EPUB when assembling the publication without a working folder.
+	 * Like {@link #writeTableOfContents(File)} this method should do nothing if the table of contents has already been
+	 * specified, in which case it is written along with the other items. The default implementation writes the table
+	 * of contents to a temporary folder using {@link #writeTableOfContents(File)} and copies it into the EPUB.
+	 *
+	 * @param out
+	 *            the EPUB being assembled
+	 * @param folderPath
+	 *            path of the OEPBS folder within the EPUB, ending with a '/' unless empty
+	 * @throws IOException
+	 * @throws ParserConfigurationException
+	 * @throws SAXException
+	 */
+	void writeTableOfContents(EPUBZipWriter out, String folderPath)
+			throws IOException, ParserConfigurationException, SAXException {
+		Item tocItem = getItemById(opfPackage.getSpine().getToc());
+		if (tocItem != null) {
+			return;
+		}
+		File folder = File.createTempFile("epub_", null); //$NON-NLS-1$
+		try {
+			if (!folder.delete() || !folder.mkdirs()) {
+				throw new IOException("Could not create folder for the table of contents"); //$NON-NLS-1$
+			}
+			writeTableOfContents(folder);
+			tocItem = getItemById(opfPackage.getSpine().getToc());
+			if (tocItem != null) {
+				File tocFile = new File(tocItem.getFile());
+				out.add(folderPath + tocItem.getHref(), tocFile);
+				tocItem.setFile(null);
+				tocItem.setGenerated(true);
+				tocFile.delete();
+			}
+		} finally {
+			folder.delete();
+		}
+	}
+
+	/**
+	 * Adds a new item to the manifest for content that is written into the EPUB as it is generated, and thus has no
+	 * file.
+	 *
+	 * @param id
+	 *            the identifier of the item
+	 * @param href
+	 *            the location of the item relative to the OPF file
+	 * @param type
+	 *            MIME file type
+	 * @param spine
+	 *            whether or not to add the item to the spine
+	 * @param linear
+	 *            whether or not the item is part of the reading order
+	 * @return the new item
+	 */
+	Item addGeneratedItem(String id, String href, String type, boolean spine, boolean linear) {
+		Item item = OPFFactory.eINSTANCE.createItem();
+		item.setId(id);
+		item.setHref(href);
+		item.setMedia_type(type);
+		item.setGenerated(true);
+		log(MessageFormat.format(Messages.getString("OPSPublication.8"), item.getHref(), item.getMedia_type()), //$NON-NLS-1$
+				Severity.VERBOSE, indent);
+		opfPackage.getManifest().getItems().add(item);
+		if (spine) {
+			Itemref ref = OPFFactory.eINSTANCE.createItemref();
+			if (!linear) {
+				ref.setLinear("no"); //$NON-NLS-1$
+			}
+			ref.setIdref(id);
+			getSpine().getSpineItems().add(ref);
+		}
+		return item;
+	}
 }
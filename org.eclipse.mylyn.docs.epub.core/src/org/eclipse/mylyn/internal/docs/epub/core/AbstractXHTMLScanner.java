@@ -11,6 +11,10 @@
  *******************************************************************************/
 package org.eclipse.mylyn.internal.docs.epub.core;
 
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.ext.DefaultHandler2;
@@ -22,6 +26,34 @@ import org.xml.sax.ext.DefaultHandler2;
  */
 public abstract class AbstractXHTMLScanner extends DefaultHandler2 {
 
+	/**
+	 * Parser factories are not thread safe, so one is configured for each thread that parses content files.
+	 */
+	private static final ThreadLocal<SAXParserFactory> parserFactory = new ThreadLocal<SAXParserFactory>() {
+		@Override
+		protected SAXParserFactory initialValue() {
+			SAXParserFactory factory = SAXParserFactory.newInstance();
+			try {
+				factory.setFeature("http://xml.org/sax/features/validation", false); //$NON-NLS-1$
+				factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); //$NON-NLS-1$
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return factory;
+		}
+	};
+
+	/**
+	 * Creates a non-validating parser for EPUB XHTML content files that does not load external DTDs.
+	 *
+	 * @return the new parser
+	 * @throws ParserConfigurationException
+	 * @throws SAXException
+	 */
+	static SAXParser newParser() throws ParserConfigurationException, SAXException {
+		return parserFactory.get().newSAXParser();
+	}
+
 	/** Buffer holding element text */
 	protected StringBuilder buffer = null;
 
@@ -11,13 +11,16 @@
  *******************************************************************************/
 package org.eclipse.mylyn.internal.docs.epub.core;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipInputStream;
@@ -249,19 +252,47 @@ public class EPUBFileUtil {
 	 *            the destination file
 	 * @param folder
 	 *            the source folder
-	 * @param uncompressed
-	 *            a list of files to keep uncompressed
 	 * @throws ZipException
 	 * @throws IOException
 	 */
 	public static void zip(File destination, File folder) throws ZipException, IOException {
+		zip(destination, folder, Deflater.DEFAULT_COMPRESSION, -1);
+	}
+
+	/**
+	 * Recursively compresses contents of the given folder into a zip-file using the given compression level. If a file
+	 * already exists in the given location an exception will be thrown.
+	 *
+	 * @param destination
+	 *            the destination file
+	 * @param folder
+	 *            the source folder
+	 * @param level
+	 *            the compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+	 * @param time
+	 *            the modification time of all entries, or -1 to use the modification time of the files
+	 * @throws ZipException
+	 * @throws IOException
+	 * @see EPUBZipWriter
+	 */
+	public static void zip(File destination, File folder, int level, long time) throws ZipException, IOException {
 		if (destination.exists()) {
 			throw new IOException("A file already exists at " + destination.getAbsolutePath()); //$NON-NLS-1$
 		}
-		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(destination));
-		writeEPUBHeader(out);
-		zip(folder, folder, out);
-		out.close();
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(destination));
+		try {
+			EPUBZipWriter writer = new EPUBZipWriter(out, level);
+			try {
+				writer.setTime(time);
+				writer.writeEPUBHeader();
+				zip(folder, folder, writer);
+				writer.finish();
+			} finally {
+				writer.close();
+			}
+		} finally {
+			out.close();
+		}
 	}
 
 	/**
@@ -273,7 +304,7 @@ public class EPUBFileUtil {
 	 *            the output stream
 	 * @throws IOException
 	 */
-	private static void zip(File root, File folder, ZipOutputStream out) throws IOException {
+	private static void zip(File root, File folder, EPUBZipWriter out) throws IOException {
 		// Files first in order to make sure "metadata" is placed first in the
 		// zip file. We need that in order to support EPUB properly. Also do
 		// not add a mimetype file – it has already been added to the stream.
@@ -282,19 +313,8 @@ public class EPUBFileUtil {
 				return !pathname.isDirectory() && !pathname.getName().equals("mimetype"); //$NON-NLS-1$
 			}
 		});
-		byte[] tmpBuf = new byte[BUFFERSIZE];
-
 		for (File file : files) {
-			FileInputStream in = new FileInputStream(file.getAbsolutePath());
-			ZipEntry zipEntry = new ZipEntry(getRelativePath(root, file));
-			zipEntry.setTime(file.lastModified());
-			out.putNextEntry(zipEntry);
-			int len;
-			while ((len = in.read(tmpBuf)) > 0) {
-				out.write(tmpBuf, 0, len);
-			}
-			out.closeEntry();
-			in.close();
+			out.add(getRelativePath(root, file), file);
 		}
 		File[] dirs = folder.listFiles(new java.io.FileFilter() {
 			public boolean accept(File pathname) {
@@ -302,9 +322,7 @@ public class EPUBFileUtil {
 			}
 		});
 		for (File dir : dirs) {
-			ZipEntry f = new ZipEntry(getRelativePath(root, dir));
-			f.setTime(dir.lastModified());
-			out.putNextEntry(f);
+			out.add(getRelativePath(root, dir), dir);
 			zip(root, dir, out);
 		}
 	}
@@ -0,0 +1,733 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Torkild U. Resheim.
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Torkild U. Resheim - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.internal.docs.epub.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.eclipse.mylyn.docs.epub.core.EPUB;
+
+/**
+ * Writes an EPUB container in the ZIP format, compressing the entries on multiple threads. Entries are written in the
+ * order they are added and each entry is compressed on its own, so the output does not depend on the number of threads
+ * or on how they are scheduled. When the time of the entries is fixed using {@link #setTime(long)}, assembling the
+ * same content twice in the same time zone gives identical EPUBs.
+ * <p>
+ * Files that are already compressed, such as JPEG and PNG images and WOFF fonts, are stored rather than deflated, as
+ * are entries that do not get smaller when deflated. The <b>mimetype</b> entry written by {@link #writeEPUBHeader()}
+ * is always stored. Stored files are not held in memory: their checksum is computed in the background and their
+ * content is copied to the EPUB when the entry is written. Files larger than 4 MB that are to be deflated are
+ * compressed while they are written, on the thread adding the entries, and are followed by a data descriptor. Other
+ * entries are compressed in memory in the background, and the entries waiting to be written hold at most about 64 MB,
+ * unless a single entry written with {@link #openEntry(String)} is larger than that. Entries and EPUBs larger than 4
+ * GB are written in the ZIP64 format.
+ * </p>
+ * <p>
+ * Instances are not thread-safe. The stream written to is not closed by this type, but {@link #close()} must be called
+ * in order to release the threads.
+ * </p>
+ *
+ * @author Torkild U. Resheim
+ */
+public class EPUBZipWriter implements Closeable {
+
+	/**
+	 * Holds an entry until it is written, and its central directory information after that.
+	 */
+	private static class Entry {
+
+		final byte[] name;
+
+		final int time;
+
+		int flags;
+
+		int method;
+
+		long crc;
+
+		long size;
+
+		long compressedSize;
+
+		/** The compressed content, or <code>null</code> if the content is read from {@link #source} */
+		byte[] data;
+
+		File source;
+
+		/** The number of bytes the entry may hold in memory until it is written */
+		long bufferedSize;
+
+		Future<?> future;
+
+		long offset;
+
+		Entry(String name, long time) {
+			this.name = name.getBytes(UTF_8);
+			this.time = toDosTime(time);
+		}
+
+		boolean isUTF8() {
+			for (byte b : name) {
+				if (b < 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		boolean isZip64() {
+			return size >= MAX_32 || compressedSize >= MAX_32;
+		}
+	}
+
+	/**
+	 * A byte array stream providing its buffer without copying it.
+	 */
+	private static class EntryBuffer extends ByteArrayOutputStream {
+
+		EntryBuffer(int size) {
+			super(size);
+		}
+
+		byte[] getBuffer() {
+			return buf;
+		}
+	}
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	private static final int METHOD_STORED = 0;
+
+	private static final int METHOD_DEFLATED = 8;
+
+	/** The flag indicating that the checksum and sizes follow the content in a data descriptor */
+	private static final int FLAG_DATA_DESCRIPTOR = 0x8;
+
+	/** The flag indicating that the entry name is encoded using UTF-8 */
+	private static final int FLAG_UTF8 = 0x800;
+
+	private static final int VERSION = 20;
+
+	private static final int VERSION_ZIP64 = 45;
+
+	private static final long MAX_32 = 0xFFFFFFFFL;
+
+	private static final int MAX_16 = 0xFFFF;
+
+	/** Files to be deflated that are larger than this are compressed while they are written */
+	private static final int MAXIMUM_BUFFERED_ENTRY_SIZE = 4 * 1024 * 1024;
+
+	/** The number of bytes held by entries waiting to be written, before they are written */
+	private static final long MAXIMUM_PENDING_SIZE = 64 * 1024 * 1024;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** Extensions of files with content that is already compressed */
+	@SuppressWarnings("nls")
+	private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<String>(Arrays.asList("gif", "jpeg", "jpg",
+			"png", "woff", "woff2", "mp3", "m4a", "mp4", "m4v", "ogg", "webm", "zip"));
+
+	private final OutputStream out;
+
+	private final int level;
+
+	private final ExecutorService executor;
+
+	private final Queue<Entry> pending = new ArrayDeque<Entry>();
+
+	/** The number of bytes that the entries waiting to be written may hold */
+	private long pendingSize;
+
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+	private long offset;
+
+	private long time = -1;
+
+	private final long creationTime = System.currentTimeMillis();
+
+	private boolean finished;
+
+	/**
+	 * Creates a new writer compressing entries on as many threads as there are processors.
+	 *
+	 * @param out
+	 *            the stream to write the EPUB to
+	 * @param level
+	 *            the compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+	 */
+	public EPUBZipWriter(OutputStream out, int level) {
+		this(out, level, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a new writer.
+	 *
+	 * @param out
+	 *            the stream to write the EPUB to
+	 * @param level
+	 *            the compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+	 * @param threads
+	 *            the number of threads to compress entries on, entries are compressed on the calling thread when
+	 *            this is 1 or less
+	 */
+	public EPUBZipWriter(OutputStream out, int level, int threads) {
+		if (level != Deflater.DEFAULT_COMPRESSION
+				&& (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+			throw new IllegalArgumentException("Illegal compression level " + level); //$NON-NLS-1$
+		}
+		this.out = out;
+		this.level = level;
+		executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+	}
+
+	/**
+	 * Sets the modification time of all entries added after this call. By default entries of files have the
+	 * modification time of the file, while other entries have the time this writer was created.
+	 *
+	 * @param time
+	 *            the time in milliseconds since the epoch, or -1 to use the default
+	 */
+	public void setTime(long time) {
+		this.time = time;
+	}
+
+	/**
+	 * Adds the <b>mimetype</b> entry, which must be the first entry of an EPUB.
+	 *
+	 * @throws IOException
+	 * @see EPUBFileUtil#writeEPUBHeader(java.util.zip.ZipOutputStream)
+	 */
+	public void writeEPUBHeader() throws IOException {
+		if (!entries.isEmpty() || !pending.isEmpty()) {
+			throw new IllegalStateException("The mimetype must be the first entry"); //$NON-NLS-1$
+		}
+		byte[] bytes = EPUB.MIMETYPE_EPUB.getBytes("ASCII"); //$NON-NLS-1$
+		Entry entry = new Entry("mimetype", time == -1 ? creationTime : time); //$NON-NLS-1$
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		entry.crc = crc.getValue();
+		entry.size = bytes.length;
+		entry.method = METHOD_STORED;
+		entry.data = bytes;
+		entry.compressedSize = bytes.length;
+		writeEntry(entry);
+	}
+
+	/**
+	 * Adds an entry with the contents of the given file. The file is read and compressed in the background, unless it
+	 * is large and is to be deflated. A directory is added as an empty entry, which should then be named with a
+	 * trailing '/'.
+	 *
+	 * @param name
+	 *            the name of the entry
+	 * @param source
+	 *            the file to add
+	 * @throws IOException
+	 */
+	public void add(String name, final File source) throws IOException {
+		final Entry entry = new Entry(name, time == -1 ? source.lastModified() : time);
+		if (source.isDirectory()) {
+			submit(entry, new byte[0], 0, false);
+			return;
+		}
+		entry.source = source;
+		long length = source.length();
+		if (isCompressed(source.getName()) || level == Deflater.NO_COMPRESSION) {
+			entry.method = METHOD_STORED;
+			submit(entry, 0, new Callable<Void>() {
+
+				@Override
+				public Void call() throws Exception {
+					computeChecksum(entry);
+					return null;
+				}
+			});
+		} else if (length > MAXIMUM_BUFFERED_ENTRY_SIZE) {
+			// deflated while written
+			entry.method = METHOD_DEFLATED;
+			submit(entry, 0, null);
+		} else {
+			submit(entry, 2 * length, new Callable<Void>() {
+
+				@Override
+				public Void call() throws Exception {
+					byte[] content = readContent(source);
+					compress(entry, content, content.length, false);
+					return null;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Adds a new entry and provides a stream for writing the contents of the entry. Closing the provided stream
+	 * completes the entry, which is then compressed in the background. Only one entry may be open at a time.
+	 *
+	 * @param name
+	 *            the name of the entry
+	 * @return the stream to write the contents of the entry to
+	 */
+	public OutputStream openEntry(String name) {
+		final Entry entry = new Entry(name, time == -1 ? creationTime : time);
+		final boolean store = isCompressed(name);
+		return new EntryBuffer(8192) {
+
+			private boolean closed;
+
+			@Override
+			public void close() throws IOException {
+				if (!closed) {
+					closed = true;
+					submit(entry, getBuffer(), size(), store);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Writes all remaining entries and the central directory. The stream written to is flushed but not closed.
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		while (!pending.isEmpty()) {
+			writeNextEntry();
+		}
+		long centralDirectoryOffset = offset;
+		for (Entry entry : entries) {
+			writeCentralDirectoryHeader(entry);
+		}
+		writeEndOfCentralDirectory(centralDirectoryOffset, offset - centralDirectoryOffset);
+		out.flush();
+		finished = true;
+	}
+
+	/**
+	 * Releases the threads used for compressing entries. Entries that have not been written are discarded unless
+	 * {@link #finish()} has been called. The stream written to is not closed.
+	 */
+	public void close() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	private static boolean isCompressed(String name) {
+		int dot = name.lastIndexOf('.');
+		return dot >= 0 && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ENGLISH));
+	}
+
+	private void submit(final Entry entry, final byte[] content, final int length, final boolean store)
+			throws IOException {
+		submit(entry, 2L * length, new Callable<Void>() {
+
+			@Override
+			public Void call() throws Exception {
+				compress(entry, content, length, store);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Adds an entry to the entries waiting to be written, running the given task in the background.
+	 *
+	 * @param bufferedSize
+	 *            the number of bytes the entry may hold in memory until it is written
+	 * @param task
+	 *            the task preparing the entry to be written, or <code>null</code>
+	 */
+	private void submit(Entry entry, long bufferedSize, Callable<Void> task) throws IOException {
+		if (finished) {
+			throw new IllegalStateException("The EPUB has been finished"); //$NON-NLS-1$
+		}
+		// write completed entries in the order they were added to limit the amount of memory used
+		while (!pending.isEmpty() && pendingSize + bufferedSize > MAXIMUM_PENDING_SIZE) {
+			writeNextEntry();
+		}
+		if (task != null) {
+			if (executor == null) {
+				FutureTask<Void> future = new FutureTask<Void>(task);
+				future.run();
+				entry.future = future;
+			} else {
+				entry.future = executor.submit(task);
+			}
+		}
+		entry.bufferedSize = bufferedSize;
+		pendingSize += bufferedSize;
+		pending.add(entry);
+	}
+
+	private void writeNextEntry() throws IOException {
+		Entry entry = pending.poll();
+		if (entry.future != null) {
+			getResult(entry.future);
+			entry.future = null;
+		}
+		writeEntry(entry);
+		pendingSize -= entry.bufferedSize;
+	}
+
+	private static byte[] readContent(File source) throws IOException {
+		InputStream in = new FileInputStream(source);
+		try {
+			EntryBuffer buffer = new EntryBuffer((int) Math.min(source.length(), MAXIMUM_BUFFERED_ENTRY_SIZE) + 1);
+			byte[] bytes = new byte[BUFFER_SIZE];
+			int length;
+			while ((length = in.read(bytes)) != -1) {
+				buffer.write(bytes, 0, length);
+			}
+			return buffer.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void computeChecksum(Entry entry) throws IOException {
+		CRC32 crc = new CRC32();
+		long size = 0;
+		InputStream in = new FileInputStream(entry.source);
+		try {
+			byte[] bytes = new byte[BUFFER_SIZE];
+			int length;
+			while ((length = in.read(bytes)) != -1) {
+				crc.update(bytes, 0, length);
+				size += length;
+			}
+		} finally {
+			in.close();
+		}
+		entry.crc = crc.getValue();
+		entry.size = size;
+		entry.compressedSize = size;
+	}
+
+	private void compress(Entry entry, byte[] content, int length, boolean store) {
+		CRC32 crc = new CRC32();
+		crc.update(content, 0, length);
+		entry.crc = crc.getValue();
+		entry.size = length;
+		if (!store && length > 0 && level != Deflater.NO_COMPRESSION) {
+			Deflater deflater = new Deflater(level, true);
+			try {
+				deflater.setInput(content, 0, length);
+				deflater.finish();
+				// deflating only pays when the result is smaller than the content
+				byte[] data = new byte[length];
+				int dataLength = 0;
+				while (!deflater.finished() && dataLength < length) {
+					dataLength += deflater.deflate(data, dataLength, length - dataLength);
+				}
+				if (deflater.finished() && dataLength < length) {
+					entry.method = METHOD_DEFLATED;
+					entry.data = data;
+					entry.compressedSize = dataLength;
+					return;
+				}
+			} finally {
+				deflater.end();
+			}
+		}
+		entry.method = METHOD_STORED;
+		entry.data = content;
+		entry.compressedSize = length;
+	}
+
+	private void getResult(Future<?> future) throws IOException {
+		boolean interrupted = false;
+		try {
+			for (;;) {
+				try {
+					future.get();
+					return;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof IOException) {
+						throw (IOException) cause;
+					} else if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					} else if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw new IOException(cause);
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void writeEntry(Entry entry) throws IOException {
+		entry.offset = offset;
+		if (entry.data != null) {
+			writeLocalHeader(entry);
+			out.write(entry.data, 0, (int) entry.compressedSize);
+			offset += entry.compressedSize;
+		} else if (entry.method == METHOD_STORED) {
+			writeLocalHeader(entry);
+			copyContent(entry);
+		} else {
+			writeDeflatedContent(entry);
+		}
+		// only the central directory information is kept
+		entry.data = null;
+		entry.source = null;
+		entries.add(entry);
+	}
+
+	/**
+	 * Copies the content of a stored file, which must not have changed since its checksum was computed.
+	 */
+	private void copyContent(Entry entry) throws IOException {
+		long size = 0;
+		InputStream in = new FileInputStream(entry.source);
+		try {
+			byte[] bytes = new byte[BUFFER_SIZE];
+			int length;
+			while (size < entry.size
+					&& (length = in.read(bytes, 0, (int) Math.min(bytes.length, entry.size - size))) != -1) {
+				out.write(bytes, 0, length);
+				size += length;
+			}
+		} finally {
+			in.close();
+		}
+		offset += size;
+		if (size != entry.size) {
+			throw new IOException(MessageFormat.format("{0} changed while it was added", entry.source)); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Deflates the content of a file while writing it, followed by a data descriptor with the checksum and sizes. As
+	 * with {@link java.util.zip.ZipOutputStream}, the sizes in the data descriptor are in the ZIP64 format when either
+	 * of them turns out to be too large for the ZIP format.
+	 */
+	private void writeDeflatedContent(Entry entry) throws IOException {
+		entry.flags = FLAG_DATA_DESCRIPTOR;
+		writeLocalHeader(entry);
+		CRC32 crc = new CRC32();
+		long size = 0;
+		Deflater deflater = new Deflater(level, true);
+		InputStream in = new FileInputStream(entry.source);
+		try {
+			byte[] bytes = new byte[BUFFER_SIZE];
+			byte[] data = new byte[BUFFER_SIZE];
+			int length;
+			while ((length = in.read(bytes)) != -1) {
+				crc.update(bytes, 0, length);
+				size += length;
+				deflater.setInput(bytes, 0, length);
+				while (!deflater.needsInput()) {
+					writeDeflated(deflater, data);
+				}
+			}
+			deflater.finish();
+			while (!deflater.finished()) {
+				writeDeflated(deflater, data);
+			}
+			entry.compressedSize = deflater.getBytesWritten();
+		} finally {
+			in.close();
+			deflater.end();
+		}
+		entry.crc = crc.getValue();
+		entry.size = size;
+		boolean zip64 = entry.isZip64();
+		ByteBuffer descriptor = allocate(zip64 ? 24 : 16);
+		descriptor.putInt(0x08074b50);
+		descriptor.putInt((int) entry.crc);
+		if (zip64) {
+			descriptor.putLong(entry.compressedSize);
+			descriptor.putLong(entry.size);
+		} else {
+			descriptor.putInt((int) entry.compressedSize);
+			descriptor.putInt((int) entry.size);
+		}
+		write(descriptor);
+	}
+
+	private void writeDeflated(Deflater deflater, byte[] data) throws IOException {
+		int length = deflater.deflate(data);
+		out.write(data, 0, length);
+		offset += length;
+	}
+
+	/**
+	 * Writes the local file header of the given entry. The checksum and sizes are left out when they follow the
+	 * content in a data descriptor, in which case the header has no ZIP64 extra field.
+	 */
+	private void writeLocalHeader(Entry entry) throws IOException {
+		boolean dataDescriptor = (entry.flags & FLAG_DATA_DESCRIPTOR) != 0;
+		boolean zip64 = !dataDescriptor && entry.isZip64();
+		ByteBuffer header = allocate(30 + entry.name.length + (zip64 ? 20 : 0));
+		header.putInt(0x04034b50);
+		header.putShort((short) (zip64 ? VERSION_ZIP64 : VERSION));
+		header.putShort((short) (entry.flags | (entry.isUTF8() ? FLAG_UTF8 : 0)));
+		header.putShort((short) entry.method);
+		header.putInt(entry.time);
+		header.putInt(dataDescriptor ? 0 : (int) entry.crc);
+		if (zip64) {
+			header.putInt((int) MAX_32);
+			header.putInt((int) MAX_32);
+		} else {
+			header.putInt(dataDescriptor ? 0 : (int) entry.compressedSize);
+			header.putInt(dataDescriptor ? 0 : (int) entry.size);
+		}
+		header.putShort((short) entry.name.length);
+		header.putShort((short) (zip64 ? 20 : 0));
+		header.put(entry.name);
+		if (zip64) {
+			header.putShort((short) 0x0001);
+			header.putShort((short) 16);
+			header.putLong(entry.size);
+			header.putLong(entry.compressedSize);
+		}
+		write(header);
+	}
+
+	private void writeCentralDirectoryHeader(Entry entry) throws IOException {
+		boolean zip64Sizes = entry.isZip64();
+		boolean zip64Offset = entry.offset >= MAX_32;
+		int extraLength = (zip64Sizes ? 16 : 0) + (zip64Offset ? 8 : 0);
+		int version = extraLength > 0 ? VERSION_ZIP64 : VERSION;
+		ByteBuffer header = allocate(46 + entry.name.length + (extraLength > 0 ? extraLength + 4 : 0));
+		header.putInt(0x02014b50);
+		header.putShort((short) version);
+		header.putShort((short) version);
+		header.putShort((short) (entry.flags | (entry.isUTF8() ? FLAG_UTF8 : 0)));
+		header.putShort((short) entry.method);
+		header.putInt(entry.time);
+		header.putInt((int) entry.crc);
+		header.putInt((int) (zip64Sizes ? MAX_32 : entry.compressedSize));
+		header.putInt((int) (zip64Sizes ? MAX_32 : entry.size));
+		header.putShort((short) entry.name.length);
+		header.putShort((short) (extraLength > 0 ? extraLength + 4 : 0));
+		// comment length, disk number, internal and external attributes
+		header.putShort((short) 0);
+		header.putShort((short) 0);
+		header.putShort((short) 0);
+		header.putInt(0);
+		header.putInt((int) (zip64Offset ? MAX_32 : entry.offset));
+		header.put(entry.name);
+		if (extraLength > 0) {
+			header.putShort((short) 0x0001);
+			header.putShort((short) extraLength);
+			if (zip64Sizes) {
+				header.putLong(entry.size);
+				header.putLong(entry.compressedSize);
+			}
+			if (zip64Offset) {
+				header.putLong(entry.offset);
+			}
+		}
+		write(header);
+	}
+
+	private void writeEndOfCentralDirectory(long centralDirectoryOffset, long centralDirectorySize)
+			throws IOException {
+		int count = entries.size();
+		boolean zip64 = count >= MAX_16 || centralDirectoryOffset >= MAX_32 || centralDirectorySize >= MAX_32;
+		if (zip64) {
+			long zip64Offset = offset;
+			ByteBuffer record = allocate(56 + 20);
+			record.putInt(0x06064b50);
+			record.putLong(44);
+			record.putShort((short) VERSION_ZIP64);
+			record.putShort((short) VERSION_ZIP64);
+			record.putInt(0);
+			record.putInt(0);
+			record.putLong(count);
+			record.putLong(count);
+			record.putLong(centralDirectorySize);
+			record.putLong(centralDirectoryOffset);
+			// the locator of the record above
+			record.putInt(0x07064b50);
+			record.putInt(0);
+			record.putLong(zip64Offset);
+			record.putInt(1);
+			write(record);
+		}
+		ByteBuffer record = allocate(22);
+		record.putInt(0x06054b50);
+		record.putShort((short) 0);
+		record.putShort((short) 0);
+		record.putShort((short) Math.min(count, MAX_16));
+		record.putShort((short) Math.min(count, MAX_16));
+		record.putInt((int) Math.min(centralDirectorySize, MAX_32));
+		record.putInt((int) Math.min(centralDirectoryOffset, MAX_32));
+		record.putShort((short) 0);
+		write(record);
+	}
+
+	private static ByteBuffer allocate(int capacity) {
+		return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		out.write(buffer.array(), 0, buffer.position());
+		offset += buffer.position();
+	}
+
+	/**
+	 * Converts the given time to the MS-DOS date and time format used in ZIP files. As with
+	 * {@link java.util.zip.ZipEntry#setTime(long)} the time is converted in the default time zone, in which ZIP readers
+	 * convert it back.
+	 */
+	private static int toDosTime(long time) {
+		Calendar calendar = Calendar.getInstance(Locale.ENGLISH);
+		calendar.setTimeInMillis(time);
+		int year = calendar.get(Calendar.YEAR);
+		if (year < 1980) {
+			return (1 << 21) | (1 << 16);
+		}
+		return (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21
+				| calendar.get(Calendar.DAY_OF_MONTH) << 16 | calendar.get(Calendar.HOUR_OF_DAY) << 11
+				| calendar.get(Calendar.MINUTE) << 5 | calendar.get(Calendar.SECOND) >> 1;
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Torkild U. Resheim.
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Torkild U. Resheim - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.internal.docs.epub.core;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.mylyn.docs.epub.opf.Item;
+import org.eclipse.mylyn.docs.epub.opf.Manifest;
+import org.eclipse.mylyn.docs.epub.opf.OPFPackage;
+
+/**
+ * Keeps an index of the items in a manifest by identifier and by file, so that items can be looked up without
+ * iterating over the manifest. The index follows changes to the manifest and its items through EMF notifications.
+ * Items appended to the manifest are added to the index as they come, while other changes cause the index to be
+ * rebuilt the next time it is used. Where several items share an identifier or a file, the first one in the manifest
+ * is found.
+ *
+ * @author Torkild U. Resheim
+ */
+public class ManifestIndex extends EContentAdapter {
+
+	private Manifest manifest;
+
+	private final Map<String, Item> itemsById = new HashMap<String, Item>();
+
+	private final Map<String, Item> itemsByFile = new HashMap<String, Item>();
+
+	private boolean valid = false;
+
+	/**
+	 * Returns the first item in the given manifest with the given identifier.
+	 *
+	 * @param manifest
+	 *            the manifest
+	 * @param id
+	 *            the identifier
+	 * @return the item or <code>null</code>
+	 */
+	public Item getItemById(Manifest manifest, String id) {
+		update(manifest);
+		return itemsById.get(id);
+	}
+
+	/**
+	 * Returns the first item in the given manifest with the given file.
+	 *
+	 * @param manifest
+	 *            the manifest
+	 * @param file
+	 *            the absolute path of the file
+	 * @return the item or <code>null</code>
+	 */
+	public Item getItemByFile(Manifest manifest, String file) {
+		update(manifest);
+		return itemsByFile.get(file);
+	}
+
+	@Override
+	public void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		if (!valid || notification.isTouch()) {
+			return;
+		}
+		Object notifier = notification.getNotifier();
+		if (notifier == manifest) {
+			if (notification.getFeatureID(Manifest.class) == OPFPackage.MANIFEST__ITEMS) {
+				if (notification.getEventType() == Notification.ADD
+						&& notification.getPosition() == manifest.getItems().size() - 1) {
+					index((Item) notification.getNewValue());
+				} else {
+					valid = false;
+				}
+			}
+		} else if (notifier instanceof Item) {
+			switch (notification.getFeatureID(Item.class)) {
+			case OPFPackage.ITEM__ID:
+			case OPFPackage.ITEM__FILE:
+				valid = false;
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Makes sure the index follows and is up to date with the given manifest.
+	 */
+	private void update(Manifest current) {
+		if (current != manifest) {
+			if (manifest != null) {
+				manifest.eAdapters().remove(this);
+			}
+			manifest = current;
+			valid = false;
+			if (manifest != null) {
+				manifest.eAdapters().add(this);
+			}
+		}
+		if (!valid) {
+			itemsById.clear();
+			itemsByFile.clear();
+			if (manifest != null) {
+				for (Item item : manifest.getItems()) {
+					index(item);
+				}
+			}
+			valid = true;
+		}
+	}
+
+	private void index(Item item) {
+		if (item.getId() != null && !itemsById.containsKey(item.getId())) {
+			itemsById.put(item.getId(), item);
+		}
+		if (item.getFile() != null && !itemsByFile.containsKey(item.getFile())) {
+			itemsByFile.put(item.getFile(), item);
+		}
+	}
+}
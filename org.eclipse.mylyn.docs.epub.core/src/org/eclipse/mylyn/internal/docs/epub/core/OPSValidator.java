@@ -17,7 +17,6 @@ import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 import org.eclipse.mylyn.docs.epub.core.ValidationMessage;
 import org.eclipse.mylyn.docs.epub.core.ValidationMessage.Severity;
@@ -45,10 +44,7 @@ public class OPSValidator extends DefaultHandler {
 
 	public static String clean(InputSource file, String href) throws ParserConfigurationException, SAXException,
 			IOException {
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		factory.setFeature("http://xml.org/sax/features/validation", false); //$NON-NLS-1$
-		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); //$NON-NLS-1$
-		SAXParser parser = factory.newSAXParser();
+		SAXParser parser = AbstractXHTMLScanner.newParser();
 		OPSValidator tocGenerator = new OPSValidator(href, Mode.REMOVE);
 		try {
 			parser.parse(file, tocGenerator);
@@ -62,10 +58,7 @@ public class OPSValidator extends DefaultHandler {
 
 	public static List<ValidationMessage> validate(InputSource file, String href) throws ParserConfigurationException,
 			SAXException, IOException {
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		factory.setFeature("http://xml.org/sax/features/validation", false); //$NON-NLS-1$
-		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); //$NON-NLS-1$
-		SAXParser parser = factory.newSAXParser();
+		SAXParser parser = AbstractXHTMLScanner.newParser();
 		OPSValidator tocGenerator = new OPSValidator(href, Mode.WARN);
 		try {
 			parser.parse(file, tocGenerator);
@@ -220,19 +213,39 @@ public class OPSValidator extends DefaultHandler {
 					contents.append("=\""); //$NON-NLS-1$
 					contents.append(attributes.getValue(i));
 					contents.append("\""); //$NON-NLS-1$
-					if (!isLegalAttribute(name)) {
-						messages.add(new ValidationMessage(Severity.WARNING, MessageFormat.format(
-								"Attribute \"{0}\" in file \"{1}\" is not in OPS Preferred Vocabularies", name, href))); //$NON-NLS-1$
-					}
 				}
 			}
 			contents.append('>');
 			recording = true;
-			if (!isLegalElement(qName)) {
-				messages.add(new ValidationMessage(Severity.WARNING, MessageFormat.format(
-						"Element \"{0}\" in file \"{1}\" is not in OPS Preferred Vocabularies", qName, href))); //$NON-NLS-1$
+			if (mode.equals(Mode.WARN)) {
+				checkVocabulary(qName, attributes);
+			}
+		}
+	}
 
+	/**
+	 * Adds warnings for the given element and for its attributes when they are not in the OPS preferred vocabularies.
+	 * Elements that are let through are not checked.
+	 *
+	 * @param qName
+	 *            the name of the element
+	 * @param attributes
+	 *            the attributes of the element
+	 */
+	void checkVocabulary(String qName, Attributes attributes) {
+		if (isPassthroughElement(qName)) {
+			return;
+		}
+		for (int i = 0; i < attributes.getLength(); i++) {
+			String name = attributes.getQName(i);
+			if (!isLegalAttribute(name)) {
+				messages.add(new ValidationMessage(Severity.WARNING, MessageFormat.format(
+						"Attribute \"{0}\" in file \"{1}\" is not in OPS Preferred Vocabularies", name, href))); //$NON-NLS-1$
 			}
 		}
+		if (!isLegalElement(qName)) {
+			messages.add(new ValidationMessage(Severity.WARNING, MessageFormat.format(
+					"Element \"{0}\" in file \"{1}\" is not in OPS Preferred Vocabularies", qName, href))); //$NON-NLS-1$
+		}
 	}
 }
\ No newline at end of file
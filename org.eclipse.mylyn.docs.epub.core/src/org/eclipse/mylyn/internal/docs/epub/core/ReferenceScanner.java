@@ -19,7 +19,6 @@ import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 import org.eclipse.mylyn.docs.epub.opf.Item;
 import org.xml.sax.Attributes;
@@ -37,10 +36,7 @@ public class ReferenceScanner extends AbstractXHTMLScanner {
 	public static List<File> parse(Item item) throws ParserConfigurationException, SAXException, IOException {
 		FileReader fr = new FileReader(item.getFile());
 		InputSource file = new InputSource(fr);
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		factory.setFeature("http://xml.org/sax/features/validation", false); //$NON-NLS-1$
-		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); //$NON-NLS-1$
-		SAXParser parser = factory.newSAXParser();
+		SAXParser parser = newParser();
 		String href = item.getHref();
 		ReferenceScanner scanner = new ReferenceScanner(item);
 		try {
@@ -63,6 +59,15 @@ public class ReferenceScanner extends AbstractXHTMLScanner {
 		currentItem = item;
 	}
 
+	/**
+	 * Returns the files referenced from the scanned content.
+	 *
+	 * @return the referenced files
+	 */
+	public List<File> getFiles() {
+		return files;
+	}
+
 	/**
 	 * Case-insensitive method for obtaining an attribute.
 	 * 
@@ -12,10 +12,10 @@
 package org.eclipse.mylyn.internal.docs.epub.core;
 
 import java.io.IOException;
+import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 
 import org.eclipse.emf.ecore.util.FeatureMapUtil;
 import org.eclipse.mylyn.docs.epub.ncx.Content;
@@ -36,6 +36,36 @@ import org.xml.sax.SAXException;
  */
 public class TOCGenerator extends AbstractXHTMLScanner {
 
+	/**
+	 * A header of an XHTML file that is to be added to the table of contents.
+	 */
+	public static class Header {
+
+		final int level;
+
+		final String id;
+
+		final String title;
+
+		public Header(int level, String id, String title) {
+			this.level = level;
+			this.id = id;
+			this.title = title;
+		}
+
+		public int getLevel() {
+			return level;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public String getTitle() {
+			return title;
+		}
+	}
+
 	private String currentId = null;
 
 	private NavPoint[] headers = null;
@@ -62,28 +92,43 @@ public class TOCGenerator extends AbstractXHTMLScanner {
 		int level = isHeader(qName);
 		if (level > 0) {
 			recording = false;
-			NavPoint np = createNavPoint(buffer.toString());
-			// Determine the parent header
-			NavPoint h = headers[level - 1];
-			while (level > 1 && h == null) {
-				level--;
-				if (level == 1) {
-					h = headers[0];
-					break;
-				}
-				h = headers[level - 1];
-			}
-			// Add to the parent header or to the root
-			if (level > 1) {
-				h.getNavPoints().add(np);
-			} else {
-				ncx.getNavMap().getNavPoints().add(np);
-			}
-			headers[level] = np;
+			addHeader(level, currentId, buffer.toString());
 			buffer.setLength(0);
 		}
 	}
 
+	/**
+	 * Adds a header to the table of contents, nested under the closest preceding header of a higher level.
+	 *
+	 * @param level
+	 *            the level of the header, 1 to 6
+	 * @param id
+	 *            the identifier of the header element or <code>null</code>
+	 * @param title
+	 *            the text of the header
+	 */
+	private void addHeader(int level, String id, String title) {
+		currentId = id;
+		NavPoint np = createNavPoint(title);
+		// Determine the parent header
+		NavPoint h = headers[level - 1];
+		while (level > 1 && h == null) {
+			level--;
+			if (level == 1) {
+				h = headers[0];
+				break;
+			}
+			h = headers[level - 1];
+		}
+		// Add to the parent header or to the root
+		if (level > 1) {
+			h.getNavPoints().add(np);
+		} else {
+			ncx.getNavMap().getNavPoints().add(np);
+		}
+		headers[level] = np;
+	}
+
 	private NavPoint createNavPoint(String title) {
 		NavPoint np = NCXFactory.eINSTANCE.createNavPoint();
 		NavLabel nl = NCXFactory.eINSTANCE.createNavLabel();
@@ -111,6 +156,29 @@ public class TOCGenerator extends AbstractXHTMLScanner {
 		}
 	}
 
+	/**
+	 * Adds the given headers of an XHTML file, representing a publication chapter, to the table of contents in the same
+	 * way as {@link #parse(InputSource, String, Ncx, int)}.
+	 *
+	 * @param headers
+	 *            the headers found in the XHTML file, in document order
+	 * @param href
+	 *            the XHTML file referencing this file
+	 * @param ncx
+	 *            the NCX to add headers to
+	 * @param playOrder
+	 *            initial play order
+	 * @return the play order of the last header added
+	 * @see XHTMLScanner#getHeaders()
+	 */
+	public static int add(List<Header> headers, String href, Ncx ncx, int playOrder) {
+		TOCGenerator tocGenerator = new TOCGenerator(href, ncx, playOrder);
+		for (Header header : headers) {
+			tocGenerator.addHeader(header.level, header.id, header.title);
+		}
+		return tocGenerator.getPlayOrder();
+	}
+
 	/**
 	 * Parses an XHTML file, representing a publication chapter, and generates a table of contents for this chapter.
 	 * 
@@ -129,10 +197,7 @@ public class TOCGenerator extends AbstractXHTMLScanner {
 	 */
 	public static int parse(InputSource file, String href, Ncx ncx, int playOrder) throws ParserConfigurationException,
 			SAXException, IOException {
-		SAXParserFactory factory = SAXParserFactory.newInstance();
-		factory.setFeature("http://xml.org/sax/features/validation", false); //$NON-NLS-1$
-		factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false); //$NON-NLS-1$
-		SAXParser parser = factory.newSAXParser();
+		SAXParser parser = newParser();
 		TOCGenerator tocGenerator = new TOCGenerator(href, ncx, playOrder);
 		try {
 			parser.parse(file, tocGenerator);
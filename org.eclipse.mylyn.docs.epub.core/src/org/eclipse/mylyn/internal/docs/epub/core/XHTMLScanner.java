@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Torkild U. Resheim.
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Torkild U. Resheim - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.internal.docs.epub.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+
+import org.eclipse.mylyn.docs.epub.core.ValidationMessage;
+import org.eclipse.mylyn.docs.epub.opf.Item;
+import org.eclipse.mylyn.internal.docs.epub.core.OPSValidator.Mode;
+import org.eclipse.mylyn.internal.docs.epub.core.TOCGenerator.Header;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Scans an EPUB XHTML content file once, collecting what is needed for assembling the publication: the referenced
+ * resources as found by {@link ReferenceScanner}, the validation messages of {@link OPSValidator} and the headers used
+ * by {@link TOCGenerator} to create the table of contents.
+ *
+ * @author Torkild U. Resheim
+ */
+public class XHTMLScanner extends AbstractXHTMLScanner {
+
+	private final ReferenceScanner referenceScanner;
+
+	private final OPSValidator validator;
+
+	private final List<Header> headers = new ArrayList<Header>();
+
+	private String currentId;
+
+	XHTMLScanner(Item item) {
+		currentHref = item.getHref();
+		referenceScanner = new ReferenceScanner(item);
+		validator = new OPSValidator(item.getHref(), Mode.WARN);
+	}
+
+	/**
+	 * Returns the files referenced from the content.
+	 *
+	 * @return the referenced files
+	 */
+	public List<File> getReferencedFiles() {
+		return referenceScanner.getFiles();
+	}
+
+	/**
+	 * Returns warnings for elements and attributes of the content that are not in the OPS preferred vocabularies.
+	 *
+	 * @return the validation messages
+	 */
+	public List<ValidationMessage> getValidationMessages() {
+		return validator.getMessages();
+	}
+
+	/**
+	 * Returns the headers of the content in document order.
+	 *
+	 * @return the headers
+	 * @see TOCGenerator#add(List, String, org.eclipse.mylyn.docs.epub.ncx.Ncx, int)
+	 */
+	public List<Header> getHeaders() {
+		return headers;
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+		super.startElement(uri, localName, qName, attributes);
+		referenceScanner.startElement(uri, localName, qName, attributes);
+		validator.checkVocabulary(qName, attributes);
+		if (isHeader(qName) > 0) {
+			recording = true;
+			currentId = attributes.getValue("id"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		super.endElement(uri, localName, qName);
+		int level = isHeader(qName);
+		if (level > 0) {
+			recording = false;
+			headers.add(new Header(level, currentId, buffer.toString()));
+			buffer.setLength(0);
+		}
+	}
+
+	/**
+	 * Scans the content file of the given item. Content that cannot be parsed is reported and scanned up to the point
+	 * of the problem.
+	 *
+	 * @param item
+	 *            the XHTML item
+	 * @return the scanner holding the results
+	 * @throws ParserConfigurationException
+	 * @throws SAXException
+	 * @throws IOException
+	 */
+	public static XHTMLScanner scan(Item item) throws ParserConfigurationException, SAXException, IOException {
+		SAXParser parser = newParser();
+		XHTMLScanner scanner = new XHTMLScanner(item);
+		InputStream in = new FileInputStream(item.getFile());
+		try {
+			parser.parse(new InputSource(in), scanner);
+		} catch (SAXException e) {
+			System.err.println("Could not parse " + item.getHref()); //$NON-NLS-1$
+			e.printStackTrace();
+		} finally {
+			in.close();
+		}
+		return scanner;
+	}
+
+	/**
+	 * Scans the content files of the given items, using multiple threads when there is more than one item.
+	 *
+	 * @param items
+	 *            the XHTML items
+	 * @return the scanners holding the results, in the order of the items
+	 * @throws ParserConfigurationException
+	 * @throws SAXException
+	 * @throws IOException
+	 * @see #scan(Item)
+	 */
+	public static Map<Item, XHTMLScanner> scan(List<Item> items)
+			throws ParserConfigurationException, SAXException, IOException {
+		Map<Item, XHTMLScanner> scanners = new LinkedHashMap<Item, XHTMLScanner>();
+		int threads = Math.min(items.size(), Runtime.getRuntime().availableProcessors());
+		if (threads <= 1) {
+			for (Item item : items) {
+				scanners.put(item, scan(item));
+			}
+			return scanners;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<XHTMLScanner>> futures = new ArrayList<Future<XHTMLScanner>>(items.size());
+			for (final Item item : items) {
+				futures.add(executor.submit(new Callable<XHTMLScanner>() {
+
+					@Override
+					public XHTMLScanner call() throws Exception {
+						return scan(item);
+					}
+				}));
+			}
+			for (int i = 0; i < items.size(); i++) {
+				scanners.put(items.get(i), getResult(futures.get(i)));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return scanners;
+	}
+
+	private static XHTMLScanner getResult(Future<XHTMLScanner> future)
+			throws ParserConfigurationException, SAXException, IOException {
+		boolean interrupted = false;
+		try {
+			for (;;) {
+				try {
+					return future.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof IOException) {
+						throw (IOException) cause;
+					} else if (cause instanceof SAXException) {
+						throw (SAXException) cause;
+					} else if (cause instanceof ParserConfigurationException) {
+						throw (ParserConfigurationException) cause;
+					} else if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					} else if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw new IllegalStateException(cause);
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
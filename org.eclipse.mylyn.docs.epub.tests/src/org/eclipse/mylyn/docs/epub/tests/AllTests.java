@@ -13,12 +13,15 @@ package org.eclipse.mylyn.docs.epub.tests;
 
 import org.eclipse.mylyn.docs.epub.tests.api.TestEPUB;
 import org.eclipse.mylyn.docs.epub.tests.api.TestEPUBPublication;
+import org.eclipse.mylyn.docs.epub.tests.api.TestEPUBReader;
 import org.eclipse.mylyn.docs.epub.tests.api.TestOPSPublication;
 import org.eclipse.mylyn.docs.epub.tests.api.TestPublication;
 import org.eclipse.mylyn.docs.epub.tests.core.TestEPUBFileUtil;
+import org.eclipse.mylyn.docs.epub.tests.core.TestEPUBZipWriter;
 import org.eclipse.mylyn.docs.epub.tests.core.TestEclipseTocImporter;
 import org.eclipse.mylyn.docs.epub.tests.core.TestOPSValidator;
 import org.eclipse.mylyn.docs.epub.tests.core.TestTOCGenerator;
+import org.eclipse.mylyn.docs.epub.tests.core.TestXHTMLScanner;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
@@ -33,13 +36,16 @@ public class AllTests {
 		TestSuite suite = new TestSuite("Tests for org.eclipse.mylyn.docs.epub");
 		// API tests
 		suite.addTestSuite(TestEPUB.class);
+		suite.addTestSuite(TestEPUBReader.class);
 		suite.addTestSuite(TestOPSPublication.class);
 		suite.addTestSuite(TestEPUBPublication.class);
 		suite.addTestSuite(TestPublication.class);
 		// Core tests
 		suite.addTestSuite(TestEPUBFileUtil.class);
+		suite.addTestSuite(TestEPUBZipWriter.class);
 		suite.addTestSuite(TestOPSValidator.class);
 		suite.addTestSuite(TestTOCGenerator.class);
+		suite.addTestSuite(TestXHTMLScanner.class);
 		suite.addTestSuite(TestEclipseTocImporter.class);
 		// Ant tests
 		//suite.addTestSuite(TestAntTask.class);
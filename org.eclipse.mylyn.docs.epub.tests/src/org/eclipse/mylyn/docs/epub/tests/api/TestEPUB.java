@@ -12,9 +12,19 @@
 package org.eclipse.mylyn.docs.epub.tests.api;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.mylyn.docs.epub.core.EPUB;
@@ -239,6 +249,142 @@ public class TestEPUB extends AbstractTest {
 		}
 	}
 
+	/**
+	 * Test method for {@link org.eclipse.mylyn.docs.epub.core.EPUB#pack(java.io.OutputStream)}.
+	 * <ul>
+	 * <li>The mimetype entry shall be first and not compressed.</li>
+	 * <li>The EPUB shall contain the OCF, OPF, table of contents and item entries.</li>
+	 * <li>The EPUB shall be possible to unpack.</li>
+	 * </ul>
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public final void testPackOutputStream() throws Exception {
+		EPUB epub = new EPUB();
+		Publication oebps = new OPSPublication();
+		oebps.addItem(new File("testdata/plain-page.xhtml"));
+		oebps.setCover(new File("testdata/drawing.svg"), "Cover");
+		epub.add(oebps);
+		epubFile.getParentFile().mkdirs();
+		epubFile.delete();
+		OutputStream out = new FileOutputStream(epubFile);
+		try {
+			epub.pack(out);
+		} finally {
+			out.close();
+		}
+		List<String> names = new ArrayList<String>();
+		ZipInputStream in = new ZipInputStream(new FileInputStream(epubFile));
+		try {
+			ZipEntry entry = in.getNextEntry();
+			assertEquals("mimetype", entry.getName());
+			assertEquals(ZipEntry.STORED, entry.getMethod());
+			while ((entry = in.getNextEntry()) != null) {
+				names.add(entry.getName());
+			}
+		} finally {
+			in.close();
+		}
+		assertEquals(Arrays.asList("META-INF/container.xml", "OEBPS/cover-page.xhtml", "OEBPS/plain-page.xhtml",
+				"OEBPS/drawing.svg", "OEBPS/toc.ncx", "OEBPS/content.opf"), names);
+
+		EPUB epub2 = new EPUB();
+		epub2.unpack(epubFile);
+		Publication publication = epub2.getOPSPublications().get(0);
+		assertNotNull(publication.getItemById("cover"));
+		assertNotNull(publication.getItemById(publication.getSpine().getToc()));
+	}
+
+	/**
+	 * Test method for {@link org.eclipse.mylyn.docs.epub.core.EPUB#pack(java.io.OutputStream)}.
+	 * <ul>
+	 * <li>Packing the same publication twice shall succeed, generating the cover page and table of contents again.</li>
+	 * <li>The generated items shall not be added to the manifest twice.</li>
+	 * </ul>
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public final void testPackOutputStreamTwice() throws Exception {
+		EPUB epub = new EPUB();
+		Publication oebps = new OPSPublication();
+		oebps.addItem(new File("testdata/plain-page.xhtml"));
+		oebps.setCover(new File("testdata/drawing.svg"), "Cover");
+		epub.add(oebps);
+		List<String> first = getEntryNames(packToBytes(epub));
+		int manifestSize = oebps.getPackage().getManifest().getItems().size();
+		List<String> second = getEntryNames(packToBytes(epub));
+		assertEquals(Arrays.asList("META-INF/container.xml", "OEBPS/cover-page.xhtml", "OEBPS/plain-page.xhtml",
+				"OEBPS/drawing.svg", "OEBPS/toc.ncx", "OEBPS/content.opf"), first);
+		assertEquals(first, second);
+		assertEquals(manifestSize, oebps.getPackage().getManifest().getItems().size());
+	}
+
+	private byte[] packToBytes(EPUB epub) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		epub.pack(out);
+		return out.toByteArray();
+	}
+
+	private List<String> getEntryNames(byte[] epub) throws IOException {
+		List<String> names = new ArrayList<String>();
+		ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(epub));
+		try {
+			ZipEntry entry = in.getNextEntry();
+			assertEquals("mimetype", entry.getName());
+			while ((entry = in.getNextEntry()) != null) {
+				names.add(entry.getName());
+			}
+		} finally {
+			in.close();
+		}
+		return names;
+	}
+
+	/**
+	 * Test method for {@link org.eclipse.mylyn.docs.epub.core.EPUB#setEntryTime(long)}.
+	 * <ul>
+	 * <li>Assembling the same content twice shall give identical EPUBs.</li>
+	 * <li>Already compressed images shall be stored without compression.</li>
+	 * </ul>
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public final void testPackReproducible() throws Exception {
+		byte[] first = packReproducible();
+		byte[] second = packReproducible();
+		assertTrue(Arrays.equals(first, second));
+		ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(first));
+		try {
+			ZipEntry entry;
+			while ((entry = in.getNextEntry()) != null) {
+				assertEquals(1400000000000L, entry.getTime());
+				if (entry.getName().endsWith(".png")) {
+					assertEquals(ZipEntry.STORED, entry.getMethod());
+				}
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	private byte[] packReproducible() throws Exception {
+		EPUB epub = new EPUB();
+		epub.setCompressionLevel(9);
+		epub.setEntryTime(1400000000000L);
+		Publication oebps = new OPSPublication();
+		oebps.addIdentifier("BookID", "UUID", "urn:uuid:c1a3a8b4-1b2d-4b5e-9d3f-6b4a2c1e0f77");
+		oebps.setIdentifierId("BookID");
+		oebps.addItem(new File("testdata/plain-page.xhtml"));
+		oebps.addItem(new File("testdata/content-detection/image.png"));
+		epub.add(oebps);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		epub.pack(out);
+		return out.toByteArray();
+	}
+
 	/**
 	 * Test method for {@link org.eclipse.mylyn.docs.epub.core.EPUB#unpack(java.io.File)}.
 	 * <ul>
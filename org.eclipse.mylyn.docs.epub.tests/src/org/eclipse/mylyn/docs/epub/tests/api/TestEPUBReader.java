@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Torkild U. Resheim.
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Torkild U. Resheim - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.docs.epub.tests.api;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.mylyn.docs.epub.core.EPUBReader;
+import org.eclipse.mylyn.docs.epub.core.OPSPublication;
+import org.eclipse.mylyn.docs.epub.core.Publication;
+import org.eclipse.mylyn.docs.epub.ncx.Ncx;
+import org.eclipse.mylyn.docs.epub.opf.Item;
+import org.junit.Test;
+
+/**
+ * Tests reading EPUBs with {@link EPUBReader} without unpacking them.
+ *
+ * @author Torkild U. Resheim
+ */
+@SuppressWarnings("nls")
+public class TestEPUBReader extends AbstractTest {
+
+	private final File epub_2 = new File("testdata/epub/basic_2.epub");
+
+	private final File epub_3 = new File("testdata/epub/basic_3.epub");
+
+	/**
+	 * The reader shall refuse files that are not EPUBs.
+	 */
+	@Test
+	public void testNotEPUB() throws IOException {
+		try {
+			new EPUBReader(new File("testdata/drawing.svg"), logger).close();
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * The container, metadata and table of contents shall be read without unpacking the EPUB.
+	 */
+	@Test
+	public void testReadPublication() throws IOException {
+		EPUBReader reader = new EPUBReader(epub_2, logger);
+		try {
+			assertEquals(1, reader.getContainer().getRootfiles().getRootfiles().size());
+			List<Publication> publications = reader.getOPSPublications();
+			assertEquals(1, publications.size());
+			Publication publication = publications.get(0);
+			assertTrue(publication instanceof OPSPublication);
+			assertEquals("Mylyn Docs Test EPUB", getText(publication.getPackage().getMetadata().getTitles().get(0)));
+			assertTrue(publication.getTableOfContents() instanceof Ncx);
+			Ncx ncx = (Ncx) publication.getTableOfContents();
+			assertFalse(ncx.getNavMap().getNavPoints().isEmpty());
+			Item item = publication.getItemById("plain-page");
+			assertNotNull(item);
+			assertNull(item.getFile());
+			assertSame(publication, reader.getOPSPublications().get(0));
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * EPUB 3 publications shall be read as well.
+	 */
+	@Test
+	public void testReadPublicationV3() throws IOException {
+		EPUBReader reader = new EPUBReader(epub_3, logger);
+		try {
+			assertEquals(1, reader.getOPSPublications().size());
+			assertEquals(1, reader.getEPUB().getOPSPublications().size());
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * An item shall be extracted with the same content as it has in the EPUB, while missing items shall be reported.
+	 */
+	@Test
+	public void testExtract() throws IOException {
+		EPUBReader reader = new EPUBReader(epub_2, logger);
+		try {
+			Publication publication = reader.getOPSPublications().get(0);
+			Item item = publication.getItemById("plain-page");
+			File destination = new File(epubFolder, "extracted" + File.separator + "plain-page.xhtml");
+			reader.extract(publication, item, destination);
+			byte[] expected;
+			ZipFile zip = new ZipFile(epub_2);
+			try {
+				ZipEntry entry = zip.getEntry("OEBPS/plain-page.xhtml");
+				expected = new byte[(int) entry.getSize()];
+				new DataInputStream(zip.getInputStream(entry)).readFully(expected);
+			} finally {
+				zip.close();
+			}
+			assertTrue(Arrays.equals(expected, Files.readAllBytes(destination.toPath())));
+			item.setHref("missing.xhtml");
+			try {
+				reader.getInputStream(publication, item);
+				fail();
+			} catch (FileNotFoundException e) {
+			}
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -469,7 +469,20 @@ public class TestPublication extends AbstractTest {
 	 */
 	@Test
 	public final void testGetItemById() {
-		// TODO
+		Item i_in_1 = oebps.addItem(new File("testdata/images/subfolder-drawing.svg"));
+		Item i_in_2 = oebps.addItem(new File("testdata/plain-page.xhtml"));
+		assertEquals(i_in_1, oebps.getItemById("image-subfolder-drawing"));
+		assertEquals(i_in_2, oebps.getItemById("plain-page"));
+		assertNull(oebps.getItemById("missing"));
+		// The lookup must follow changes to the manifest
+		i_in_2.setId("renamed");
+		assertNull(oebps.getItemById("plain-page"));
+		assertEquals(i_in_2, oebps.getItemById("renamed"));
+		oebps.getPackage().getManifest().getItems().remove(i_in_1);
+		assertNull(oebps.getItemById("image-subfolder-drawing"));
+		assertEquals(i_in_2, oebps.removeItemById("renamed"));
+		assertNull(oebps.getItemById("renamed"));
+		assertTrue(oebps.getPackage().getManifest().getItems().isEmpty());
 	}
 
 	/**
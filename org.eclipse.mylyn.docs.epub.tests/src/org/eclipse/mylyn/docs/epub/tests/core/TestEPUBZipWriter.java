@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Torkild U. Resheim.
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Torkild U. Resheim - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.docs.epub.tests.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.TimeZone;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.internal.docs.epub.core.EPUBZipWriter;
+import org.junit.Test;
+
+/**
+ * Tests for the parallel EPUB zip writer.
+ *
+ * @author Torkild U. Resheim
+ */
+@SuppressWarnings({ "restriction", "nls" })
+public class TestEPUBZipWriter extends TestCase {
+
+	/**
+	 * The output shall not depend on the number of threads used for compressing entries.
+	 */
+	@Test
+	public void testDeterministic() throws IOException {
+		byte[] expected = write(1);
+		assertTrue(Arrays.equals(expected, write(2)));
+		assertTrue(Arrays.equals(expected, write(8)));
+	}
+
+	/**
+	 * The mimetype shall be the first entry and stored, as shall already compressed images, while other content is
+	 * deflated.
+	 */
+	@Test
+	public void testEntries() throws IOException {
+		ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(write(4)));
+		try {
+			ZipEntry entry = in.getNextEntry();
+			assertEquals("mimetype", entry.getName());
+			assertEquals(ZipEntry.STORED, entry.getMethod());
+			assertEquals("application/epub+zip", read(in));
+			entry = in.getNextEntry();
+			assertEquals("META-INF/container.xml", entry.getName());
+			assertEquals("<container/>", read(in));
+			int count = 0;
+			while ((entry = in.getNextEntry()) != null) {
+				if (entry.getName().endsWith(".png")) {
+					assertEquals(ZipEntry.STORED, entry.getMethod());
+				} else {
+					assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+				}
+				count++;
+			}
+			assertEquals(40, count);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Large files shall be streamed rather than read into memory, stored files with their checksum computed up front
+	 * and deflated files followed by a data descriptor.
+	 */
+	@Test
+	public void testLargeFiles() throws IOException {
+		File folder = Files.createTempDirectory("epub").toFile();
+		byte[] content = new byte[5 * 1024 * 1024 + 17];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) ((i * 31) % 251);
+		}
+		File text = new File(folder, "large.xhtml");
+		File image = new File(folder, "large.png");
+		try {
+			Files.write(text.toPath(), content);
+			Files.write(image.toPath(), content);
+			byte[] expected = writeLargeFiles(text, image, 1);
+			assertTrue(Arrays.equals(expected, writeLargeFiles(text, image, 4)));
+			ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(expected));
+			try {
+				assertEquals("mimetype", in.getNextEntry().getName());
+				ZipEntry entry = in.getNextEntry();
+				assertEquals("OEBPS/large.xhtml", entry.getName());
+				assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+				assertTrue(Arrays.equals(content, readBytes(in)));
+				assertEquals(0x8, getCentralDirectoryFlags(expected, "OEBPS/large.xhtml") & 0x8);
+				entry = in.getNextEntry();
+				assertEquals("OEBPS/large.png", entry.getName());
+				assertEquals(ZipEntry.STORED, entry.getMethod());
+				assertTrue(Arrays.equals(content, readBytes(in)));
+				assertEquals("OEBPS/small.xhtml", in.getNextEntry().getName());
+				assertEquals("<html/>", new String(readBytes(in), "UTF-8"));
+				assertNull(in.getNextEntry());
+			} finally {
+				in.close();
+			}
+		} finally {
+			text.delete();
+			image.delete();
+			folder.delete();
+		}
+	}
+
+	/**
+	 * The time of the entries shall be read back as it was set, whatever the time zone.
+	 */
+	@Test
+	public void testTimeInAnyTimeZone() throws IOException {
+		TimeZone timeZone = TimeZone.getDefault();
+		try {
+			for (String id : new String[] { "UTC", "Europe/Oslo", "America/New_York", "Asia/Tokyo" }) {
+				TimeZone.setDefault(TimeZone.getTimeZone(id));
+				ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(write(1)));
+				try {
+					ZipEntry entry;
+					while ((entry = in.getNextEntry()) != null) {
+						assertEquals(id, 1400000000000L, entry.getTime());
+					}
+				} finally {
+					in.close();
+				}
+			}
+		} finally {
+			TimeZone.setDefault(timeZone);
+		}
+	}
+
+	@Test
+	public void testMimetypeFirst() throws IOException {
+		EPUBZipWriter writer = new EPUBZipWriter(new ByteArrayOutputStream(), 9, 1);
+		try {
+			writer.openEntry("test").close();
+			writer.writeEPUBHeader();
+			fail();
+		} catch (IllegalStateException e) {
+		} finally {
+			writer.close();
+		}
+	}
+
+	private byte[] write(int threads) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		EPUBZipWriter writer = new EPUBZipWriter(out, 9, threads);
+		try {
+			writer.setTime(1400000000000L);
+			writer.writeEPUBHeader();
+			OutputStream entry = writer.openEntry("META-INF/container.xml");
+			entry.write("<container/>".getBytes("UTF-8"));
+			entry.close();
+			for (int i = 0; i < 20; i++) {
+				writer.add("OEBPS/page" + i + ".xhtml", new File("testdata/plain-page.xhtml"));
+				writer.add("OEBPS/image" + i + ".png", new File("testdata/content-detection/image.png"));
+			}
+			writer.finish();
+		} finally {
+			writer.close();
+		}
+		return out.toByteArray();
+	}
+
+	private byte[] writeLargeFiles(File text, File image, int threads) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		EPUBZipWriter writer = new EPUBZipWriter(out, 9, threads);
+		try {
+			writer.setTime(1400000000000L);
+			writer.writeEPUBHeader();
+			writer.add("OEBPS/large.xhtml", text);
+			writer.add("OEBPS/large.png", image);
+			OutputStream entry = writer.openEntry("OEBPS/small.xhtml");
+			entry.write("<html/>".getBytes("UTF-8"));
+			entry.close();
+			writer.finish();
+		} finally {
+			writer.close();
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Returns the general purpose flags of the central directory header of the named entry.
+	 */
+	private int getCentralDirectoryFlags(byte[] zip, String name) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN);
+		byte[] bytes = name.getBytes("UTF-8");
+		for (int i = 0; i < zip.length - 46 - bytes.length; i++) {
+			if (buffer.getInt(i) == 0x02014b50 && buffer.getShort(i + 28) == bytes.length
+					&& Arrays.equals(bytes, Arrays.copyOfRange(zip, i + 46, i + 46 + bytes.length))) {
+				return buffer.getShort(i + 8);
+			}
+		}
+		fail(name);
+		return 0;
+	}
+
+	private String read(ZipInputStream in) throws IOException {
+		return new String(readBytes(in), "UTF-8");
+	}
+
+	private byte[] readBytes(ZipInputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int length;
+		while ((length = in.read(buffer)) > 0) {
+			out.write(buffer, 0, length);
+		}
+		return out.toByteArray();
+	}
+}
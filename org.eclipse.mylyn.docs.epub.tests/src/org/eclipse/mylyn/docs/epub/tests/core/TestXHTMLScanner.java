@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Torkild U. Resheim.
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Torkild U. Resheim - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.docs.epub.tests.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.docs.epub.opf.Item;
+import org.eclipse.mylyn.docs.epub.opf.OPFFactory;
+import org.eclipse.mylyn.internal.docs.epub.core.TOCGenerator.Header;
+import org.eclipse.mylyn.internal.docs.epub.core.XHTMLScanner;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+/**
+ * Tests for the combined XHTML scanner.
+ *
+ * @author Torkild U. Resheim
+ */
+@SuppressWarnings({ "restriction", "nls" })
+public class TestXHTMLScanner extends TestCase {
+
+	@Test
+	public void testHeaders() throws ParserConfigurationException, SAXException, IOException {
+		XHTMLScanner scanner = XHTMLScanner.scan(createItem("plain-page_warnings.xhtml"));
+		List<Header> headers = scanner.getHeaders();
+		assertEquals(4, headers.size());
+		assertEquals(1, headers.get(0).getLevel());
+		assertEquals("h1_1", headers.get(0).getId());
+		assertEquals("First item", headers.get(0).getTitle());
+		assertEquals(2, headers.get(1).getLevel());
+		assertEquals(2, headers.get(2).getLevel());
+		assertEquals(1, headers.get(3).getLevel());
+		assertEquals("Second item", headers.get(3).getTitle());
+	}
+
+	@Test
+	public void testValidationMessages() throws ParserConfigurationException, SAXException, IOException {
+		XHTMLScanner scanner = XHTMLScanner.scan(createItem("plain-page_warnings.xhtml"));
+		assertEquals(1, scanner.getValidationMessages().size());
+		assertTrue(scanner.getValidationMessages().get(0).getMessage().contains("\"bad\""));
+	}
+
+	@Test
+	public void testReferencedFiles() throws ParserConfigurationException, SAXException, IOException {
+		XHTMLScanner scanner = XHTMLScanner.scan(createItem("plain-page_link.xhtml"));
+		List<File> files = scanner.getReferencedFiles();
+		assertEquals(4, files.size());
+		assertEquals("drawing.svg", files.get(0).getName());
+		assertEquals("subfolder-drawing.svg", files.get(1).getName());
+		assertEquals("plain-page_no-header.xhtml", files.get(2).getName());
+		assertEquals("plain-page.xhtml", files.get(3).getName());
+	}
+
+	@Test
+	public void testScanItems() throws ParserConfigurationException, SAXException, IOException {
+		List<Item> items = new ArrayList<Item>();
+		for (int i = 0; i < 8; i++) {
+			items.add(createItem(i % 2 == 0 ? "plain-page_warnings.xhtml" : "plain-page_link.xhtml"));
+		}
+		Map<Item, XHTMLScanner> scanners = XHTMLScanner.scan(items);
+		assertEquals(new ArrayList<Item>(items), new ArrayList<Item>(scanners.keySet()));
+		for (int i = 0; i < items.size(); i++) {
+			XHTMLScanner scanner = scanners.get(items.get(i));
+			assertEquals(4, scanner.getHeaders().size());
+			assertEquals(i % 2 == 0 ? 1 : 0, scanner.getValidationMessages().size());
+			assertEquals(i % 2 == 0 ? 0 : 4, scanner.getReferencedFiles().size());
+		}
+	}
+
+	private Item createItem(String name) {
+		Item item = OPFFactory.eINSTANCE.createItem();
+		item.setHref(name);
+		item.setFile(new File("testdata", name).getAbsolutePath());
+		return item;
+	}
+}
@@ -12,50 +12,18 @@
 
 package org.eclipse.mylyn.internal.wikitext.asciidoc.core.util;
 
-import java.io.IOException;
-import java.io.StringReader;
-
 import org.eclipse.mylyn.wikitext.core.parser.markup.ContentState;
-import org.eclipse.mylyn.wikitext.core.util.LocationTrackingReader;
 
 public class LookAheadReader {
 
 	private ContentState state;
 
-	private LocationTrackingReader reader;
-
 	public void setContentState(ContentState state) {
-		if (mustInitReader(state)) {
-			this.state = state;
-			this.reader = new LocationTrackingReader(new StringReader(state.getMarkupContent()));
-		}
-	}
-
-	private boolean mustInitReader(ContentState newState) {
-		if (state != newState) {
-			return true;
-		}
-		if (reader == null) {
-			return true;
-		}
-		if (reader.getLineNumber() >= state.getLineNumber()) {
-			return true;
-		}
-		return false;
+		this.state = state;
 	}
 
 	public String lookAhead() {
-		int lineNumber = state.getLineNumber();
-		String nextLine = null;
-		while (reader.getLineNumber() < lineNumber) {
-			try {
-				nextLine = reader.readLine();
-			} catch (IOException e) {
-				throw new RuntimeException(e);
-			}
-		}
-
-		return nextLine;
+		return state.getNextLine();
 	}
 
 }
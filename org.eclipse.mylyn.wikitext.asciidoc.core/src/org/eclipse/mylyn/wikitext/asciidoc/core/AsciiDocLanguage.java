@@ -77,6 +77,14 @@ public class AsciiDocLanguage extends AbstractMarkupLanguage {
 		super.processContent(parser, markupContent, asDocument);
 	}
 
+	/**
+	 * content can only be processed as it is read if it need not be preprocessed.
+	 */
+	@Override
+	protected boolean isStreamingSupported() {
+		return !isEnableMacros();
+	}
+
 	/**
 	 * preprocess content, which involves attribute substitution.
 	 */
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.io.Writer;
+
+import org.eclipse.mylyn.internal.wikitext.core.parser.builder.DitaTopicDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.DocBookDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.XslfoDocumentBuilder;
+
+/**
+ * The document builders that are benchmarked.
+ */
+public enum BenchmarkDocumentBuilder {
+	HTML {
+		@Override
+		public DocumentBuilder create(Writer out) {
+			return new HtmlDocumentBuilder(out);
+		}
+	},
+	DOCBOOK {
+		@Override
+		public DocumentBuilder create(Writer out) {
+			return new DocBookDocumentBuilder(out);
+		}
+	},
+	XSLFO {
+		@Override
+		public DocumentBuilder create(Writer out) {
+			return new XslfoDocumentBuilder(out);
+		}
+	},
+	DITA {
+		@Override
+		public DocumentBuilder create(Writer out) {
+			return new DitaTopicDocumentBuilder(out);
+		}
+	},
+	NOOP {
+		@Override
+		public DocumentBuilder create(Writer out) {
+			return new NoOpDocumentBuilder();
+		}
+	};
+
+	/**
+	 * create a new document builder that writes its output to the given writer
+	 */
+	public abstract DocumentBuilder create(Writer out);
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import org.eclipse.mylyn.wikitext.asciidoc.core.AsciiDocLanguage;
+import org.eclipse.mylyn.wikitext.commonmark.CommonMarkLanguage;
+import org.eclipse.mylyn.wikitext.confluence.core.ConfluenceLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.creole.core.CreoleLanguage;
+import org.eclipse.mylyn.wikitext.markdown.core.MarkdownLanguage;
+import org.eclipse.mylyn.wikitext.mediawiki.core.MediaWikiLanguage;
+import org.eclipse.mylyn.wikitext.textile.core.TextileLanguage;
+import org.eclipse.mylyn.wikitext.tracwiki.core.TracWikiLanguage;
+import org.eclipse.mylyn.wikitext.twiki.core.TWikiLanguage;
+
+/**
+ * The markup languages that are benchmarked, each associated with the sample document that is used to build its
+ * corpus.
+ */
+public enum BenchmarkLanguage {
+	TEXTILE("sample.textile") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage create() {
+			return new TextileLanguage();
+		}
+	},
+	MARKDOWN("sample.md") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage create() {
+			return new MarkdownLanguage();
+		}
+	},
+	COMMONMARK("sample.md") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage create() {
+			return new CommonMarkLanguage();
+		}
+	},
+	MEDIAWIKI("sample.mediawiki") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage create() {
+			return new MediaWikiLanguage();
+		}
+	},
+	CONFLUENCE("sample.confluence") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage create() {
+			return new ConfluenceLanguage();
+		}
+	},
+	TRACWIKI("sample.tracwiki") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage create() {
+			return new TracWikiLanguage();
+		}
+	},
+	TWIKI("sample.twiki") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage create() {
+			return new TWikiLanguage();
+		}
+	},
+	CREOLE("sample.creole") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage create() {
+			return new CreoleLanguage();
+		}
+	},
+	ASCIIDOC("sample.asciidoc") { //$NON-NLS-1$
+		@Override
+		public MarkupLanguage create() {
+			return new AsciiDocLanguage();
+		}
+	};
+
+	private final String sampleResourceName;
+
+	private BenchmarkLanguage(String sampleResourceName) {
+		this.sampleResourceName = sampleResourceName;
+	}
+
+	/**
+	 * the name of the sample document resource, relative to the {@code corpus} folder
+	 */
+	public String getSampleResourceName() {
+		return sampleResourceName;
+	}
+
+	/**
+	 * create a new instance of the markup language
+	 */
+	public abstract MarkupLanguage create();
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.net.URL;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+
+/**
+ * Provides the documents that are parsed by the benchmarks. Documents are created by repeating a realistic sample
+ * document until the requested {@link CorpusSize size} is reached.
+ */
+public class Corpus {
+
+	public static String create(BenchmarkLanguage language, CorpusSize size) {
+		checkNotNull(language);
+		checkNotNull(size);
+
+		String sample = readSample(language.getSampleResourceName());
+		StringBuilder buf = new StringBuilder(Math.max(sample.length(), size.getMinimumLength() + sample.length()));
+		do {
+			buf.append(sample);
+		} while (buf.length() < size.getMinimumLength());
+		return buf.toString();
+	}
+
+	private static String readSample(String resourceName) {
+		URL resource = Corpus.class.getResource("corpus/" + resourceName); //$NON-NLS-1$
+		checkNotNull(resource, "Missing corpus resource %s", resourceName); //$NON-NLS-1$
+		try {
+			return Resources.toString(resource, Charsets.UTF_8);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Corpus() {
+		// prevent instantiation
+	}
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+/**
+ * The sizes of documents that are benchmarked.
+ */
+public enum CorpusSize {
+	/**
+	 * a single copy of the sample document, typical of a wiki page or a README
+	 */
+	SMALL(0),
+	/**
+	 * approximately 256 KB, typical of a chapter of a user guide
+	 */
+	MEDIUM(256 * 1024),
+	/**
+	 * approximately 10 MB, typical of a large exported wiki or a complete manual
+	 */
+	LARGE(10 * 1024 * 1024);
+
+	private final int minimumLength;
+
+	private CorpusSize(int minimumLength) {
+		this.minimumLength = minimumLength;
+	}
+
+	/**
+	 * the minimum number of characters of a document of this size
+	 */
+	public int getMinimumLength() {
+		return minimumLength;
+	}
+}
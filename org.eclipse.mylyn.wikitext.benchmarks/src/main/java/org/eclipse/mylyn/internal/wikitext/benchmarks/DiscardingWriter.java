@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.io.Writer;
+
+/**
+ * A writer that discards its output, counting the number of characters written. Used so that the cost of buffering
+ * output is not attributed to the document builders being measured.
+ */
+class DiscardingWriter extends Writer {
+
+	private long count;
+
+	@Override
+	public void write(int c) {
+		++count;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+		count += len;
+	}
+
+	@Override
+	public void write(String str, int off, int len) {
+		count += len;
+	}
+
+	@Override
+	public Writer append(CharSequence csq) {
+		count += csq == null ? 4 : csq.length();
+		return this;
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void close() {
+	}
+
+	public long getCount() {
+		return count;
+	}
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the WikiText benchmarks, reporting throughput together with allocation rates as measured by the
+ * {@link GCProfiler}. Standard JMH command-line options are supported, for example:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar -p language=TEXTILE,MARKDOWN -p size=LARGE -p builder=HTML -rf json
+ * </pre>
+ */
+public class Main {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		OptionsBuilder optionsBuilder = new OptionsBuilder();
+		optionsBuilder.parent(commandLineOptions);
+		if (commandLineOptions.getIncludes().isEmpty()) {
+			optionsBuilder.include(MarkupParserBenchmark.class.getSimpleName());
+		}
+		if (commandLineOptions.getProfilers().isEmpty()) {
+			optionsBuilder.addProfiler(GCProfiler.class);
+		}
+		Options options = optionsBuilder.build();
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link MarkupParser#parse(String) parsing} a document of a given size and markup
+ * language into a given document builder. Each invocation parses using a {@link MarkupLanguage#clone() clone} of the
+ * markup language, as the Ant tasks and the editor do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class MarkupParserBenchmark {
+
+	@Param
+	public BenchmarkLanguage language;
+
+	@Param
+	public CorpusSize size;
+
+	@Param
+	public BenchmarkDocumentBuilder builder;
+
+	private MarkupLanguage markupLanguage;
+
+	private String content;
+
+	@Setup
+	public void setup() {
+		markupLanguage = language.create();
+		content = Corpus.create(language, size);
+	}
+
+	@Benchmark
+	public long parse() {
+		DiscardingWriter out = new DiscardingWriter();
+		MarkupParser parser = new MarkupParser(markupLanguage.clone(), builder.create(out));
+		parser.parse(content);
+		return out.getCount();
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.TemplateProcessor;
+import org.eclipse.mylyn.wikitext.mediawiki.core.MediaWikiLanguage;
+import org.eclipse.mylyn.wikitext.mediawiki.core.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link TemplateProcessor#processTemplates(String) expanding templates} of a
+ * template-heavy page, such as an article with an infobox and navboxes whose templates are nested to a given depth.
+ * Run with:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar TemplateProcessorBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class TemplateProcessorBenchmark {
+
+	private static final int ROW_COUNT = 40;
+
+	private static final int NAVBOX_COUNT = 10;
+
+	@Param({ "1", "8", "32" })
+	public int nesting;
+
+	private MediaWikiLanguage markupLanguage;
+
+	private String content;
+
+	@Setup
+	public void setup() {
+		markupLanguage = new MediaWikiLanguage();
+		markupLanguage.getTemplates().add(new Template("Infobox", //$NON-NLS-1$
+				"{| class=\"infobox\"\n|+ {{{title|{{PAGENAME}}}}}\n{{{rows}}}\n|}")); //$NON-NLS-1$
+		markupLanguage.getTemplates().add(new Template("Infobox row", //$NON-NLS-1$
+				"|-\n! {{{label}}}\n| {{Nest0|{{{data}}}}}\n")); //$NON-NLS-1$
+		markupLanguage.getTemplates().add(new Template("Navbox", //$NON-NLS-1$
+				"{| class=\"navbox\"\n! {{Nest0|{{{name}}}}}\n|-\n| {{Nest0|{{{list1}}}}} &middot; {{Nest0|{{{list2}}}}}\n|}")); //$NON-NLS-1$
+		markupLanguage.getTemplates().add(new Template("PAGENAME", "Benchmark")); //$NON-NLS-1$ //$NON-NLS-2$
+		for (int x = 0; x < nesting; ++x) {
+			markupLanguage.getTemplates().add(new Template("Nest" + x, //$NON-NLS-1$
+					"<span class=\"n" + x + "\">{{Nest" + (x + 1) + "|{{{1|}}}}}</span>")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		markupLanguage.getTemplates().add(new Template("Nest" + nesting, "{{{1|}}}")); //$NON-NLS-1$ //$NON-NLS-2$
+
+		StringBuilder page = new StringBuilder();
+		page.append("{{Infobox\n|rows=\n"); //$NON-NLS-1$
+		for (int x = 0; x < ROW_COUNT; ++x) {
+			page.append("{{Infobox row|label=Label ").append(x).append("|data=Value ").append(x % 8).append("}}\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		page.append("}}\n\n"); //$NON-NLS-1$
+		for (int x = 0; x < NAVBOX_COUNT; ++x) {
+			page.append("== Section ").append(x).append(" ==\n\nSome text with {{Nest0|inline ").append(x % 3).append( //$NON-NLS-1$ //$NON-NLS-2$
+					"}} templates.\n\n"); //$NON-NLS-1$
+			page.append("{{Navbox|name=Navbox ").append(x).append("|list1=First|list2=Second}}\n\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		content = page.toString();
+	}
+
+	@Benchmark
+	public String processTemplates() {
+		return new TemplateProcessor(markupLanguage).processTemplates(content);
+	}
+}
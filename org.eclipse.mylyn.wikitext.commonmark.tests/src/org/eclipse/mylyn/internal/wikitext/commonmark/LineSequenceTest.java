@@ -147,6 +147,39 @@ public class LineSequenceTest {
 		assertLookAheadFailsFast(LineSequence.create("a\nb\nc"));
 	}
 
+	@Test
+	public void indexedLookAhead() {
+		assertLookAhead(indexedLineSequence("x\na\nb\nc\nd", 1, 4));
+	}
+
+	@Test
+	public void indexedLookAheadFailsFast() {
+		assertLookAheadFailsFast(indexedLineSequence("a\nb\nc", 0, 3));
+	}
+
+	@Test
+	public void indexedRange() {
+		IndexedLineSequence lineSequence = indexedLineSequence("a\nb\nc\nd", 1, 3);
+		assertEquals(1, lineSequence.getIndex());
+		assertEquals("b", lineSequence.getCurrentLine().getText());
+		assertEquals("c", lineSequence.getNextLine().getText());
+		lineSequence.advance();
+		assertEquals(2, lineSequence.getIndex());
+		assertNull(lineSequence.getNextLine());
+		assertAdvance(lineSequence);
+		assertEquals(3, lineSequence.getIndex());
+	}
+
+	@Test
+	public void indexedRangeOutOfBounds() {
+		thrown.expect(IndexOutOfBoundsException.class);
+		indexedLineSequence("a\nb", 1, 3);
+	}
+
+	private IndexedLineSequence indexedLineSequence(String content, int start, int end) {
+		return new IndexedLineSequence(ImmutableList.copyOf(LineSequence.create(content)), start, end);
+	}
+
 	private void assertLookAheadFailsFast(LineSequence lineSequence) {
 		LineSequence lookAhead = lineSequence.lookAhead();
 		lineSequence.advance();
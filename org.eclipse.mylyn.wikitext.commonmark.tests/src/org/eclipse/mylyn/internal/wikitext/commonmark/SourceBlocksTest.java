@@ -13,10 +13,12 @@ package org.eclipse.mylyn.internal.wikitext.commonmark;
 
 import static com.google.common.base.Predicates.not;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
 
+import org.eclipse.mylyn.internal.wikitext.commonmark.BlockStructure.BlockRange;
 import org.eclipse.mylyn.wikitext.core.parser.Attributes;
 import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.BlockType;
@@ -81,6 +83,30 @@ public class SourceBlocksTest {
 				builder.getDocumentBuilderEvents().getEvents());
 	}
 
+	@Test
+	public void createContextRecordsBlockStructure() {
+		String content = "one\nb2\nmore\n\nb1 and\n\n\nb2";
+		BlockStructure blockStructure = sourceBlocks.createContext(ProcessingContext.builder(), content);
+
+		assertEquals(8, blockStructure.getLines().size());
+		assertEquals(3, blockStructure.getBlocks().size());
+		assertBlockRange(blockStructure.getBlocks().get(0), block2, 1, 3);
+		assertBlockRange(blockStructure.getBlocks().get(1), block1, 4, 5);
+		assertBlockRange(blockStructure.getBlocks().get(2), block2, 7, 8);
+
+		EventDocumentBuilder expected = new EventDocumentBuilder();
+		sourceBlocks.process(ProcessingContext.builder().build(), expected, LineSequence.create(content));
+		EventDocumentBuilder builder = new EventDocumentBuilder();
+		blockStructure.process(ProcessingContext.builder().build(), builder);
+		assertEquals(expected.getDocumentBuilderEvents().getEvents(), builder.getDocumentBuilderEvents().getEvents());
+	}
+
+	private void assertBlockRange(BlockRange range, SourceBlock block, int start, int end) {
+		assertSame(block, range.getBlock());
+		assertEquals(start, range.getStart());
+		assertEquals(end, range.getEnd());
+	}
+
 	private SourceBlock mockBlock(final BlockType blockType, final String startString) {
 		return new SourceBlock() {
 
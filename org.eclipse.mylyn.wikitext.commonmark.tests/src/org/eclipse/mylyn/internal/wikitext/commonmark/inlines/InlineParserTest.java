@@ -25,6 +25,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import com.google.common.base.Optional;
+
 public class InlineParserTest {
 
 	@Rule
@@ -61,6 +63,26 @@ public class InlineParserTest {
 		assertEquals("one two three", stringContent);
 	}
 
+	@Test
+	public void parseConsultsOnlySpansThatCanStart() {
+		SourceSpan span = new SourceSpan() {
+
+			@Override
+			public Optional<? extends Inline> createInline(Cursor cursor) {
+				throw new IllegalStateException();
+			}
+
+			@Override
+			public boolean canStart(char c) {
+				return c == '@';
+			}
+		};
+		InlineParser parser = new InlineParser(span, new AllCharactersSpan());
+		List<Inline> inlines = parser.parse(ProcessingContext.builder().build(),
+				new TextSegment(Collections.singletonList(new Line(1, 0, "one \u00e9"))));
+		assertEquals(Arrays.asList(new Characters(line, 0, 5, "one \u00e9")), inlines);
+	}
+
 	private void assertParse(String content, Inline... inlines) {
 		List<Inline> expected = Arrays.asList(inlines);
 		List<Inline> actual = createInlines().parse(ProcessingContext.builder().build(),
@@ -18,6 +18,7 @@ import org.eclipse.mylyn.internal.wikitext.commonmark.Line;
 import org.eclipse.mylyn.internal.wikitext.commonmark.TextSegment;
 import org.junit.Test;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 
 public class PotentialEmphasisSpanTest extends AbstractSourceSpanTest {
@@ -37,6 +38,20 @@ public class PotentialEmphasisSpanTest extends AbstractSourceSpanTest {
 		assertParseToHtml("*<em>one</em>", "**one*");
 	}
 
+	@Test
+	public void nestedEmphasis() {
+		assertParseToHtml("<em>one <em>two</em> three</em>", "*one _two_ three*");
+		assertParseToHtml("<strong><em>one</em> two</strong>", "***one* two**");
+		assertParseToHtml("*<em>one <strong>two</strong></em>", "**one **two***");
+	}
+
+	@Test
+	public void manyDelimiters() {
+		String closers = Strings.repeat("a* ", 5000);
+		assertParseToHtml(closers, closers);
+		assertParseToHtml(Strings.repeat("<em>a</em> ", 5000), Strings.repeat("*a* ", 5000));
+	}
+
 	@Test
 	public void strongEmphasis() {
 		assertParseToHtml("** one**", "** one**");
@@ -34,5 +34,8 @@ public class StringCharactersSpanTest extends AbstractSourceSpanTest {
 		assertInline(Characters.class, 0, 8, createCursor(" one two \\[ab"));
 		assertInline(Characters.class, 0, 8, createCursor(" one two !"));
 		assertInline(Characters.class, 0, 8, createCursor(" one two <"));
+		assertInline(Characters.class, 0, 10, createCursor("hash three"));
+		assertInline(Characters.class, 0, 8, createCursor("the hash http://example.com"));
+		assertNoInline(createCursor("http://example.com"));
 	}
 }
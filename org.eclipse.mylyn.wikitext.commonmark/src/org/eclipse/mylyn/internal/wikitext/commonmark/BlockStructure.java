@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2016 David Green.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.commonmark;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The top-level blocks of a document as selected while creating the {@link ProcessingContext}, each with the range of
+ * lines that it consumed. Processing the structure emits each block over its own lines without splitting the content
+ * or selecting top-level blocks again.
+ */
+public class BlockStructure {
+
+	static class BlockRange {
+
+		private final SourceBlock block;
+
+		private final int start;
+
+		private final int end;
+
+		BlockRange(SourceBlock block, int start, int end) {
+			this.block = checkNotNull(block);
+			this.start = start;
+			this.end = end;
+		}
+
+		SourceBlock getBlock() {
+			return block;
+		}
+
+		int getStart() {
+			return start;
+		}
+
+		int getEnd() {
+			return end;
+		}
+	}
+
+	private final List<Line> lines;
+
+	private final List<BlockRange> blocks;
+
+	BlockStructure(List<Line> lines, List<BlockRange> blocks) {
+		this.lines = ImmutableList.copyOf(lines);
+		this.blocks = ImmutableList.copyOf(blocks);
+	}
+
+	public void process(ProcessingContext context, DocumentBuilder builder) {
+		checkNotNull(context);
+		checkNotNull(builder);
+		for (BlockRange range : blocks) {
+			range.getBlock().process(context, builder,
+					new IndexedLineSequence(lines, range.getStart(), range.getEnd()));
+		}
+	}
+
+	List<Line> getLines() {
+		return lines;
+	}
+
+	List<BlockRange> getBlocks() {
+		return blocks;
+	}
+}
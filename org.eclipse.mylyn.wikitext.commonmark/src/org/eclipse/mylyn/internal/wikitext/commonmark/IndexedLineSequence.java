@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2016 David Green.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.commonmark;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import java.util.List;
+
+import org.eclipse.mylyn.internal.wikitext.commonmark.LineSequence.ForwardLineSequence;
+
+class IndexedLineSequence extends ForwardLineSequence {
+
+	private final List<Line> lines;
+
+	private final int end;
+
+	private int index;
+
+	IndexedLineSequence(List<Line> lines, int start, int end) {
+		this.lines = checkNotNull(lines);
+		checkPositionIndexes(start, end, lines.size());
+		this.index = start;
+		this.end = end;
+	}
+
+	int getIndex() {
+		return index;
+	}
+
+	@Override
+	public Line getCurrentLine() {
+		return index < end ? lines.get(index) : null;
+	}
+
+	@Override
+	public Line getNextLine() {
+		return getNextLine(0);
+	}
+
+	@Override
+	Line getNextLine(int offset) {
+		checkArgument(offset >= 0);
+		int nextIndex = index + 1 + offset;
+		return nextIndex < end ? lines.get(nextIndex) : null;
+	}
+
+	@Override
+	public void advance() {
+		if (index < end) {
+			++index;
+		}
+	}
+
+	@Override
+	public LineSequence lookAhead() {
+		return new LookAheadLineSequence(this);
+	}
+}
@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.eclipse.mylyn.internal.wikitext.commonmark.BlockStructure.BlockRange;
 import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
 
@@ -84,6 +85,32 @@ public class SourceBlocks extends SourceBlock {
 		createContext(contextBuilder, lineSequence, Predicates.<BlockContext> alwaysTrue());
 	}
 
+	public BlockStructure createContext(final ProcessingContextBuilder contextBuilder, String content) {
+		final List<Line> lines = readLines(content);
+		final List<BlockRange> blocks = new ArrayList<>();
+		final IndexedLineSequence lineSequence = new IndexedLineSequence(lines, 0, lines.size());
+		process(lineSequence, new SourceBlockRunnable() {
+
+			@Override
+			public void run(LineSequence blockLineSequence, SourceBlock sourceBlock) {
+				int start = lineSequence.getIndex();
+				sourceBlock.createContext(contextBuilder, blockLineSequence);
+				blocks.add(new BlockRange(sourceBlock, start, lineSequence.getIndex()));
+			}
+		}, Predicates.<BlockContext> alwaysTrue());
+		return new BlockStructure(lines, blocks);
+	}
+
+	private List<Line> readLines(String content) {
+		List<Line> lines = new ArrayList<>();
+		LineSequence lineSequence = LineSequence.create(content);
+		for (Line line = lineSequence.getCurrentLine(); line != null; line = lineSequence.getCurrentLine()) {
+			lines.add(line);
+			lineSequence.advance();
+		}
+		return lines;
+	}
+
 	@Override
 	public void process(final ProcessingContext context, final DocumentBuilder builder, LineSequence lineSequence) {
 		process(context, builder, lineSequence, Predicates.<BlockContext> alwaysTrue());
@@ -85,4 +85,9 @@ public class AutoLinkSpan extends SourceSpan {
 		regex += "):[^\\s>]+)|(" + EMAIL_REGEX + "))(>).*";
 		return Pattern.compile(regex, Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
 	}
+
+	@Override
+	public boolean canStart(char c) {
+		return c == '<';
+	}
 }
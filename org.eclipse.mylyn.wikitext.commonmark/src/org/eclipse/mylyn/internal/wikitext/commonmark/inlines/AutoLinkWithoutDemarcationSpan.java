@@ -45,4 +45,9 @@ public class AutoLinkWithoutDemarcationSpan extends SourceSpan {
 	private String escapeUri(String link) {
 		return UrlEscapers.urlFragmentEscaper().escape(link).replace("%23", "#").replace("%25", "%");
 	}
+
+	@Override
+	public boolean canStart(char c) {
+		return c == 'h';
+	}
 }
@@ -31,4 +31,9 @@ public class BackslashEscapeSpan extends SourceSpan {
 		return Optional.absent();
 	}
 
+	@Override
+	public boolean canStart(char c) {
+		return c == '\\';
+	}
+
 }
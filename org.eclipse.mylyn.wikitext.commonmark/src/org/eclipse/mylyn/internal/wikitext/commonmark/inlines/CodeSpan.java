@@ -44,4 +44,9 @@ public class CodeSpan extends SourceSpan {
 		}
 		return Optional.absent();
 	}
+
+	@Override
+	public boolean canStart(char c) {
+		return c == '`';
+	}
 }
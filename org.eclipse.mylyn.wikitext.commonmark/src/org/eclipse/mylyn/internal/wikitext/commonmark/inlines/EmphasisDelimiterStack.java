@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2016 David Green.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.commonmark.inlines;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Resolves {@link PotentialEmphasisDelimiter emphasis delimiters} in a single left-to-right pass. Inlines are pushed in
+ * document order; a closing delimiter is matched with the nearest preceding opening delimiter of the same character,
+ * and the inlines between them, which are already resolved, become the contents of the emphasis. For each delimiter
+ * character the position below which no opening delimiter remains is tracked, so that each inline is visited a bounded
+ * number of times.
+ */
+class EmphasisDelimiterStack {
+
+	private final List<Inline> inlines;
+
+	private int asteriskOpenersBottom;
+
+	private int underscoreOpenersBottom;
+
+	EmphasisDelimiterStack(int expectedSize) {
+		inlines = new ArrayList<>(expectedSize);
+	}
+
+	void push(Inline inline) {
+		if (inline instanceof PotentialEmphasisDelimiter) {
+			pushDelimiter((PotentialEmphasisDelimiter) inline);
+		} else {
+			inlines.add(inline);
+		}
+	}
+
+	List<Inline> getInlines() {
+		return ImmutableList.copyOf(inlines);
+	}
+
+	private void pushDelimiter(PotentialEmphasisDelimiter delimiter) {
+		PotentialEmphasisDelimiter closingDelimiter = delimiter;
+		while (closingDelimiter != null && closingDelimiter.canClose()) {
+			char c = closingDelimiter.getDelimiterCharacter();
+			int indexOfOpener = indexOfOpener(c);
+			if (indexOfOpener == -1) {
+				setOpenersBottom(c, inlines.size());
+				break;
+			}
+			PotentialEmphasisDelimiter openingDelimiter = (PotentialEmphasisDelimiter) inlines.get(indexOfOpener);
+			List<Inline> tail = inlines.subList(indexOfOpener, inlines.size());
+			List<Inline> contents = ImmutableList.copyOf(tail.subList(1, tail.size()));
+			tail.clear();
+
+			asteriskOpenersBottom = Math.min(asteriskOpenersBottom, indexOfOpener);
+			underscoreOpenersBottom = Math.min(underscoreOpenersBottom, indexOfOpener);
+
+			closingDelimiter = closingDelimiter.close(openingDelimiter, contents, inlines);
+		}
+		if (closingDelimiter != null) {
+			inlines.add(closingDelimiter);
+		}
+	}
+
+	private int indexOfOpener(char c) {
+		for (int index = inlines.size() - 1; index >= getOpenersBottom(c); --index) {
+			Inline inline = inlines.get(index);
+			if (inline instanceof PotentialEmphasisDelimiter) {
+				PotentialEmphasisDelimiter delimiter = (PotentialEmphasisDelimiter) inline;
+				if (delimiter.canOpen() && delimiter.getDelimiterCharacter() == c) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private int getOpenersBottom(char c) {
+		return c == '*' ? asteriskOpenersBottom : underscoreOpenersBottom;
+	}
+
+	private void setOpenersBottom(char c, int bottom) {
+		if (c == '*') {
+			asteriskOpenersBottom = bottom;
+		} else {
+			underscoreOpenersBottom = bottom;
+		}
+	}
+}
@@ -61,4 +61,9 @@ public class HtmlEntitySpan extends SourceSpan {
 		}
 		return false;
 	}
+
+	@Override
+	public boolean canStart(char c) {
+		return c == '&';
+	}
 }
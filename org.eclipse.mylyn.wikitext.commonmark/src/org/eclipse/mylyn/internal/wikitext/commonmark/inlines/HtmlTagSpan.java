@@ -60,4 +60,9 @@ public class HtmlTagSpan extends SourceSpan {
 		return Optional.absent();
 	}
 
+	@Override
+	public boolean canStart(char c) {
+		return c == '<';
+	}
+
 }
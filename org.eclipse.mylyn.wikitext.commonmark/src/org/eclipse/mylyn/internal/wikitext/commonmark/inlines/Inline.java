@@ -24,8 +24,6 @@ import org.eclipse.mylyn.internal.wikitext.commonmark.SimpleLocator;
 import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.Locator;
 
-import com.google.common.base.Optional;
-
 public abstract class Inline {
 
 	private final Line line;
@@ -66,10 +64,6 @@ public abstract class Inline {
 		inlines.add(this);
 	}
 
-	Optional<InlinesSubstitution> secondPass(List<Inline> inlines) {
-		return Optional.absent();
-	}
-
 	public void createContext(ProcessingContextBuilder contextBuilder) {
 		// nothing to do
 	}
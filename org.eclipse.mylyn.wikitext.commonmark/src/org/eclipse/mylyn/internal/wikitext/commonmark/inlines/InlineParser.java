@@ -26,14 +26,20 @@ import com.google.common.collect.ImmutableList;
 
 public class InlineParser {
 
-	private final List<SourceSpan> spans;
+	private static final int DISPATCH_TABLE_SIZE = 128;
+
+	private final SourceSpan[] allSpans;
+
+	private final SourceSpan[][] spansByCharacter;
 
 	InlineParser(SourceSpan... spans) {
 		this(Arrays.asList(spans));
 	}
 
 	public InlineParser(List<SourceSpan> spans) {
-		this.spans = ImmutableList.copyOf(spans);
+		List<SourceSpan> spansCopy = ImmutableList.copyOf(spans);
+		this.allSpans = spansCopy.toArray(new SourceSpan[spansCopy.size()]);
+		this.spansByCharacter = createDispatchTable(spansCopy);
 	}
 
 	public void emit(ProcessingContext context, DocumentBuilder builder, TextSegment textSegment) {
@@ -71,18 +77,11 @@ public class InlineParser {
 	}
 
 	static List<Inline> secondPass(List<Inline> inlines) {
-		List<Inline> processedInlines = ImmutableList.copyOf(inlines);
-		Optional<InlinesSubstitution> substitution = Optional.absent();
-		do {
-			for (Inline inline : processedInlines) {
-				substitution = inline.secondPass(processedInlines);
-				if (substitution.isPresent()) {
-					processedInlines = substitution.get().apply(processedInlines);
-					break;
-				}
-			}
-		} while (substitution.isPresent());
-		return processedInlines;
+		EmphasisDelimiterStack delimiterStack = new EmphasisDelimiterStack(inlines.size());
+		for (Inline inline : inlines) {
+			delimiterStack.push(inline);
+		}
+		return delimiterStack.getInlines();
 	}
 
 	static String toStringContent(List<Inline> contents) {
@@ -106,14 +105,33 @@ public class InlineParser {
 	}
 
 	private void consumeOne(ProcessingContext context, List<Inline> inlines, Cursor cursor) {
-		for (SourceSpan span : spans) {
-			Optional<? extends Inline> inline = span.createInline(cursor);
-			if (inline.isPresent()) {
-				inline.get().apply(context, inlines, cursor);
-				return;
+		char c = cursor.getChar();
+		boolean dispatched = c < DISPATCH_TABLE_SIZE;
+		for (SourceSpan span : dispatched ? spansByCharacter[c] : allSpans) {
+			if (dispatched || span.canStart(c)) {
+				Optional<? extends Inline> inline = span.createInline(cursor);
+				if (inline.isPresent()) {
+					inline.get().apply(context, inlines, cursor);
+					return;
+				}
 			}
 		}
 		throw new IllegalStateException();
 	}
 
+	private static SourceSpan[][] createDispatchTable(List<SourceSpan> spans) {
+		SourceSpan[][] table = new SourceSpan[DISPATCH_TABLE_SIZE][];
+		List<SourceSpan> candidates = new ArrayList<>(spans.size());
+		for (char c = 0; c < DISPATCH_TABLE_SIZE; ++c) {
+			candidates.clear();
+			for (SourceSpan span : spans) {
+				if (span.canStart(c)) {
+					candidates.add(span);
+				}
+			}
+			table[c] = candidates.toArray(new SourceSpan[candidates.size()]);
+		}
+		return table;
+	}
+
 }
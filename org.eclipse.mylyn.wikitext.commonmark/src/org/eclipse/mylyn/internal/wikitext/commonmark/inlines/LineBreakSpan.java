@@ -36,4 +36,9 @@ public class LineBreakSpan extends SourceSpan {
 		return Optional.absent();
 	}
 
+	@Override
+	public boolean canStart(char c) {
+		return c == '\n' || c == ' ';
+	}
+
 }
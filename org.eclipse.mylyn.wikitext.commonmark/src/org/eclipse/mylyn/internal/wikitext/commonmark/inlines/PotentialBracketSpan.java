@@ -32,4 +32,9 @@ public class PotentialBracketSpan extends SourceSpan {
 		return Optional.absent();
 	}
 
+	@Override
+	public boolean canStart(char c) {
+		return c == '!' || c == '[' || c == ']';
+	}
+
 }
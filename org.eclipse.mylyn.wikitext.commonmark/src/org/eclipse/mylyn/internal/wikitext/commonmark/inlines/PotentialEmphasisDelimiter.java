@@ -16,9 +16,6 @@ import java.util.List;
 import org.eclipse.mylyn.internal.wikitext.commonmark.Line;
 import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
 
-import com.google.common.base.Optional;
-import com.google.common.collect.ImmutableList;
-
 class PotentialEmphasisDelimiter extends InlineWithText {
 
 	private final boolean canOpen;
@@ -36,40 +33,44 @@ class PotentialEmphasisDelimiter extends InlineWithText {
 		builder.characters(text);
 	}
 
-	@Override
-	Optional<InlinesSubstitution> secondPass(List<Inline> inlines) {
-		if (!canClose) {
-			return Optional.absent();
+	boolean canOpen() {
+		return canOpen;
+	}
+
+	boolean canClose() {
+		return canClose;
+	}
+
+	char getDelimiterCharacter() {
+		return getText().charAt(0);
+	}
+
+	/**
+	 * Closes emphasis opened by the given delimiter, appending the emphasis to the given inlines along with any unused
+	 * part of the opening delimiter. The given contents must be the inlines between the two delimiters, which are
+	 * already processed.
+	 * 
+	 * @return the unused part of this delimiter, or null if it was consumed entirely
+	 */
+	PotentialEmphasisDelimiter close(PotentialEmphasisDelimiter openingDelimiter, List<Inline> contents,
+			List<Inline> inlines) {
+		int delimiterSize = delimiterSize(openingDelimiter);
+
+		int spanOffset = openingDelimiter.getOffset();
+		int spanLength = getOffset() + getLength() - openingDelimiter.getOffset();
+		Inline emphasis = createEmphasis(openingDelimiter.getLine(), spanOffset, spanLength, delimiterSize, contents);
+
+		if (delimiterSize < openingDelimiter.getLength()) {
+			inlines.add(createPotentialOpeningDelimiter(openingDelimiter, delimiterSize));
 		}
-		int indexOfThis = inlines.indexOf(this);
-		Optional<PotentialEmphasisDelimiter> opener = previousOpener(inlines, indexOfThis);
-		if (opener.isPresent()) {
-			PotentialEmphasisDelimiter openingDelimiter = opener.get();
-			int delimiterSize = delimiterSize(openingDelimiter);
-			int indexOfOpeningDelimiter = inlines.indexOf(openingDelimiter);
-
-			List<Inline> contents = InlineParser.secondPass(inlines.subList(indexOfOpeningDelimiter + 1, indexOfThis));
-
-			int spanOffset = openingDelimiter.getOffset();
-			int spanLength = getOffset() + getLength() - openingDelimiter.getOffset();
-			Inline emphasis = createEmphasis(openingDelimiter.getLine(), spanOffset, spanLength, delimiterSize,
-					contents);
-
-			ImmutableList.Builder<Inline> substitutionInlines = ImmutableList.builder();
-			if (delimiterSize < openingDelimiter.getLength()) {
-				substitutionInlines.add(createPotentialOpeningDelimiter(openingDelimiter, delimiterSize));
-			}
-			substitutionInlines.add(emphasis);
-			if (delimiterSize < getLength()) {
-				substitutionInlines.add(createPotentialClosingDelimiter(delimiterSize));
-			}
-
-			return Optional.of(new InlinesSubstitution(openingDelimiter, this, substitutionInlines.build()));
+		inlines.add(emphasis);
+		if (delimiterSize < getLength()) {
+			return createPotentialClosingDelimiter(delimiterSize);
 		}
-		return Optional.absent();
+		return null;
 	}
 
-	private Inline createPotentialClosingDelimiter(int delimiterSize) {
+	private PotentialEmphasisDelimiter createPotentialClosingDelimiter(int delimiterSize) {
 		return new PotentialEmphasisDelimiter(getLine(), getOffset() + delimiterSize, getLength() - delimiterSize,
 				getText().substring(0 + delimiterSize, getText().length()), canOpen, canClose);
 	}
@@ -96,18 +97,4 @@ class PotentialEmphasisDelimiter extends InlineWithText {
 		}
 		return getLength() % 2 == 0 ? 2 : 1;
 	}
-
-	private Optional<PotentialEmphasisDelimiter> previousOpener(List<Inline> inlines, int indexOfThis) {
-		char c = getText().charAt(0);
-		for (int index = indexOfThis - 1; index >= 0; --index) {
-			Inline inline = inlines.get(index);
-			if (inline instanceof PotentialEmphasisDelimiter) {
-				PotentialEmphasisDelimiter previousDelimiter = (PotentialEmphasisDelimiter) inline;
-				if (previousDelimiter.canOpen && previousDelimiter.getText().charAt(0) == c) {
-					return Optional.of(previousDelimiter);
-				}
-			}
-		}
-		return Optional.absent();
-	}
 }
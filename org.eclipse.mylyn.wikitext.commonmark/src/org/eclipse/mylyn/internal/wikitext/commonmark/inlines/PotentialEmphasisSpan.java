@@ -89,4 +89,9 @@ public class PotentialEmphasisSpan extends SourceSpan {
 		return (previous >= '0' && previous <= '9') || (previous >= 'A' && previous <= 'Z')
 				|| (previous >= 'a' && previous <= 'z');
 	}
+
+	@Override
+	public boolean canStart(char c) {
+		return c == '_' || c == '*';
+	}
 }
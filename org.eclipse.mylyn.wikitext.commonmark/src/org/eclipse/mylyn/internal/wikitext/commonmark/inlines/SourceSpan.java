@@ -17,4 +17,16 @@ public abstract class SourceSpan {
 
 	public abstract Optional<? extends Inline> createInline(Cursor cursor);
 
+	/**
+	 * Indicates whether this span can create an inline at a cursor positioned on the given character. Spans that
+	 * cannot are not consulted for that character.
+	 * 
+	 * @param c
+	 *            the character at the cursor
+	 * @return true if this span can start with the given character, otherwise false
+	 */
+	public boolean canStart(char c) {
+		return true;
+	}
+
 }
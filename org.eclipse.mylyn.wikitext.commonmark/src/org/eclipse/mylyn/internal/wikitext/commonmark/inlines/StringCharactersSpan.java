@@ -11,24 +11,65 @@
 
 package org.eclipse.mylyn.internal.wikitext.commonmark.inlines;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import com.google.common.base.Optional;
 
 public class StringCharactersSpan extends SourceSpan {
 
-	private final Pattern pattern = Pattern.compile("((?: *[^\n `\\[\\]\\\\!<&*_h]+)+).*", Pattern.DOTALL);
+	private static final String SPECIAL_CHARACTERS = "\n `[]\\!<&*_";
+
+	private static final String HTTP = "http";
 
 	@Override
 	public Optional<? extends Inline> createInline(Cursor cursor) {
-		Matcher matcher = cursor.matcher(pattern);
-		if (matcher.matches()) {
-			String group = matcher.group(1);
-			int length = cursor.getOffset(matcher.end(1)) - cursor.getOffset();
-			return Optional.of(new Characters(cursor.getLineAtOffset(), cursor.getOffset(), length, group));
+		int length = 0;
+		for (;;) {
+			int index = length;
+			while (hasChar(cursor, index) && charAt(cursor, index) == ' ') {
+				++index;
+			}
+			int textStart = index;
+			while (hasChar(cursor, index) && isStringCharacter(cursor, index)) {
+				++index;
+			}
+			if (index == textStart) {
+				break;
+			}
+			length = index;
+		}
+		if (length > 0) {
+			return Optional.of(new Characters(cursor.getLineAtOffset(), cursor.getOffset(), length,
+					cursor.getTextAtOffset(length)));
 		}
 		return Optional.absent();
 	}
 
+	@Override
+	public boolean canStart(char c) {
+		return c == ' ' || SPECIAL_CHARACTERS.indexOf(c) == -1;
+	}
+
+	private boolean isStringCharacter(Cursor cursor, int index) {
+		char c = charAt(cursor, index);
+		if (c == 'h') {
+			return !startsWith(cursor, index, HTTP);
+		}
+		return SPECIAL_CHARACTERS.indexOf(c) == -1;
+	}
+
+	private boolean startsWith(Cursor cursor, int index, String text) {
+		for (int x = 0; x < text.length(); ++x) {
+			if (!hasChar(cursor, index + x) || charAt(cursor, index + x) != text.charAt(x)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean hasChar(Cursor cursor, int index) {
+		return index == 0 ? cursor.hasChar() : cursor.hasNext(index);
+	}
+
+	private char charAt(Cursor cursor, int index) {
+		return index == 0 ? cursor.getChar() : cursor.getNext(index);
+	}
 }
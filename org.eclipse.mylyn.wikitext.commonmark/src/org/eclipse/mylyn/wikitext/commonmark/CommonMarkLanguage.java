@@ -12,10 +12,10 @@ package org.eclipse.mylyn.wikitext.commonmark;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import org.eclipse.mylyn.internal.wikitext.commonmark.BlockStructure;
 import org.eclipse.mylyn.internal.wikitext.commonmark.CommonMark;
 import org.eclipse.mylyn.internal.wikitext.commonmark.CommonMarkIdGenerationStrategy;
 import org.eclipse.mylyn.internal.wikitext.commonmark.InlineContent;
-import org.eclipse.mylyn.internal.wikitext.commonmark.LineSequence;
 import org.eclipse.mylyn.internal.wikitext.commonmark.ProcessingContext;
 import org.eclipse.mylyn.internal.wikitext.commonmark.ProcessingContextBuilder;
 import org.eclipse.mylyn.internal.wikitext.commonmark.SourceBlocks;
@@ -44,9 +44,10 @@ public class CommonMarkLanguage extends MarkupLanguage {
 
 		SourceBlocks sourceBlocks = CommonMark.sourceBlocks();
 
-		ProcessingContext context = createContext(sourceBlocks, markupContent);
+		ProcessingContextBuilder contextBuilder = createContextBuilder();
+		BlockStructure blockStructure = sourceBlocks.createContext(contextBuilder, markupContent);
 
-		sourceBlocks.process(context, builder, LineSequence.create(markupContent));
+		blockStructure.process(contextBuilder.build(), builder);
 
 		if (asDocument) {
 			builder.endDocument();
@@ -58,14 +59,13 @@ public class CommonMarkLanguage extends MarkupLanguage {
 		return isStrictlyConforming() ? null : new CommonMarkIdGenerationStrategy();
 	}
 
-	private ProcessingContext createContext(SourceBlocks sourceBlocks, String markupContent) {
+	private ProcessingContextBuilder createContextBuilder() {
 		ProcessingContextBuilder contextBuilder = ProcessingContext.builder()
 				.idGenerationStrategy(getIdGenerationStrategy());
 		if (!strictlyConforming) {
 			contextBuilder.inlineParser(InlineContent.markdown());
 		}
-		sourceBlocks.createContext(contextBuilder, LineSequence.create(markupContent));
-		return contextBuilder.build();
+		return contextBuilder;
 	}
 
 	public void setStrictlyConforming(boolean strictlyConforming) {
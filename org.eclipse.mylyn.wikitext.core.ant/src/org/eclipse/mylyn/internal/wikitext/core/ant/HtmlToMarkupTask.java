@@ -26,7 +26,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.tools.ant.BuildException;
-import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.types.FileSet;
 import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
@@ -50,6 +49,8 @@ public class HtmlToMarkupTask extends MarkupTask {
 
 	protected boolean overwrite = true;
 
+	protected boolean streaming = false;
+
 	@Override
 	public void execute() throws BuildException {
 		if (file == null && filesets.isEmpty()) {
@@ -69,28 +70,14 @@ public class HtmlToMarkupTask extends MarkupTask {
 		}
 		MarkupLanguage markupLanguage = createMarkupLanguage();
 
-		for (FileSet fileset : filesets) {
-
-			File filesetBaseDir = fileset.getDir(getProject());
-			DirectoryScanner ds = fileset.getDirectoryScanner(getProject());
+		String failureMessage = Messages.getString("MarkupToHtmlTask.11"); //$NON-NLS-1$
+		processFileSets(markupLanguage, filesets, failureMessage, new SourceFileProcessor() {
 
-			String[] files = ds.getIncludedFiles();
-			if (files != null) {
-				File baseDir = ds.getBasedir();
-				for (String file : files) {
-					File inputFile = new File(baseDir, file);
-					try {
-						processFile(markupLanguage, filesetBaseDir, inputFile);
-					} catch (BuildException e) {
-						throw e;
-					} catch (Exception e) {
-						throw new BuildException(MessageFormat.format(
-								Messages.getString("MarkupToHtmlTask.11"), inputFile, //$NON-NLS-1$
-								e.getMessage()), e);
-					}
-				}
+			@Override
+			public void process(MarkupLanguage markupLanguage, File baseDir, File source) throws Exception {
+				processFile(markupLanguage, baseDir, source);
 			}
-		}
+		});
 		if (file != null) {
 			try {
 				processFile(markupLanguage, file.getParentFile(), file);
@@ -140,7 +127,8 @@ public class HtmlToMarkupTask extends MarkupTask {
 							Messages.getString("MarkupTask.cannotReadSource"), source, e.getMessage()), e); //$NON-NLS-1$
 				}
 				try {
-					new HtmlParser().parse(new InputSource(input), builder);
+					HtmlParser parser = streaming ? HtmlParser.streamingInstance() : new HtmlParser();
+					parser.parse(new InputSource(input), builder);
 				} catch (Exception e) {
 					throw new BuildException(MessageFormat.format(
 							Messages.getString("HtmlToMarkupTask.failedToProcessContent"), source, e.getMessage()), e); //$NON-NLS-1$
@@ -196,6 +184,26 @@ public class HtmlToMarkupTask extends MarkupTask {
 		this.overwrite = overwrite;
 	}
 
+	/**
+	 * indicate if HTML is converted as it is read, without first parsing each file into a document. Streaming bounds
+	 * the memory used to convert large files. Default value is <code>false</code>.
+	 *
+	 * @since 2.9
+	 */
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	/**
+	 * indicate if HTML is converted as it is read, without first parsing each file into a document. Streaming bounds
+	 * the memory used to convert large files. Default value is <code>false</code>.
+	 *
+	 * @since 2.9
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
 	public File getFile() {
 		return file;
 	}
@@ -18,11 +18,14 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.Task;
+import org.apache.tools.ant.types.FileSet;
 import org.eclipse.mylyn.internal.wikitext.core.validation.StandaloneMarkupValidator;
 import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
@@ -52,6 +55,107 @@ public abstract class MarkupTask extends Task {
 
 	private String sourceEncoding;
 
+	private int threads = 1;
+
+	private final ThreadLocal<List<LogMessage>> deferredLogMessages = new ThreadLocal<List<LogMessage>>();
+
+	/**
+	 * A source file to be processed.
+	 * 
+	 * @since 2.9
+	 */
+	protected static class SourceFile {
+
+		private final File baseDir;
+
+		private final File file;
+
+		public SourceFile(File baseDir, File file) {
+			this.baseDir = baseDir;
+			this.file = file;
+		}
+
+		/**
+		 * the base directory of the fileset that contains the file
+		 */
+		public File getBaseDir() {
+			return baseDir;
+		}
+
+		/**
+		 * the file to process
+		 */
+		public File getFile() {
+			return file;
+		}
+	}
+
+	/**
+	 * Processes a single {@link SourceFile}. Implementations are invoked concurrently if the task is configured to use
+	 * more than one {@link MarkupTask#getThreads() thread}.
+	 * 
+	 * @since 2.9
+	 */
+	protected interface SourceFileProcessor {
+
+		/**
+		 * process the given file
+		 * 
+		 * @param markupLanguage
+		 *            the markup language to use, which is not shared with other threads
+		 * @param baseDir
+		 *            the base directory of the fileset that contains the file
+		 * @param source
+		 *            the file to process
+		 * @throws Exception
+		 *             if the file cannot be processed, which is reported as a {@link BuildException} unless it
+		 *             already is one
+		 */
+		void process(MarkupLanguage markupLanguage, File baseDir, File source) throws Exception;
+	}
+
+	/**
+	 * Processes a single item, such as a {@link SourceFile}. Implementations are invoked concurrently if items are
+	 * {@link MarkupTask#processItems(MarkupLanguage, List, int, ItemProcessor) processed} using more than one thread.
+	 * 
+	 * @param <T>
+	 *            the type of item
+	 * @since 2.9
+	 */
+	protected interface ItemProcessor<T> {
+
+		/**
+		 * process the given item
+		 * 
+		 * @param markupLanguage
+		 *            the markup language to use, which is not shared with other threads
+		 * @param item
+		 *            the item to process
+		 * @throws Exception
+		 *             if the item cannot be processed, which is reported as a {@link BuildException} unless it is a
+		 *             runtime exception
+		 */
+		void process(MarkupLanguage markupLanguage, T item) throws Exception;
+	}
+
+	/**
+	 * A log message that is deferred until it can be logged in the order of processed items.
+	 */
+	static class LogMessage {
+
+		final String message;
+
+		final Throwable throwable;
+
+		final int level;
+
+		LogMessage(String message, Throwable throwable, int level) {
+			this.message = message;
+			this.throwable = throwable;
+			this.level = level;
+		}
+	}
+
 	/**
 	 * The markup language to use. Should correspond to a {@link MarkupLanguage#getName() markup language name}.
 	 */
@@ -194,6 +298,178 @@ public abstract class MarkupTask extends Task {
 		this.sourceEncoding = sourceEncoding;
 	}
 
+	/**
+	 * The number of threads used to process the files of filesets. The default is 1, which processes files
+	 * sequentially.
+	 * 
+	 * @since 2.9
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * The number of threads used to process the files of filesets. Each thread uses its own copy of the markup
+	 * language, and messages logged while processing a file are logged in the order of the files.
+	 * 
+	 * @param threads
+	 *            the number of threads, which must be at least 1
+	 * @since 2.9
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new BuildException(
+					MessageFormat.format(Messages.getString("MarkupTask.invalidThreads"), threads)); //$NON-NLS-1$
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * Get the files included by the given filesets, in order.
+	 * 
+	 * @param filesets
+	 *            the filesets
+	 * @return the files of the filesets
+	 * @since 2.9
+	 */
+	protected List<SourceFile> getSourceFiles(List<FileSet> filesets) {
+		List<SourceFile> sourceFiles = new ArrayList<SourceFile>();
+		for (FileSet fileset : filesets) {
+
+			File filesetBaseDir = fileset.getDir(getProject());
+			DirectoryScanner ds = fileset.getDirectoryScanner(getProject());
+
+			String[] files = ds.getIncludedFiles();
+			if (files != null) {
+				File baseDir = ds.getBasedir();
+				for (String file : files) {
+					sourceFiles.add(new SourceFile(filesetBaseDir, new File(baseDir, file)));
+				}
+			}
+		}
+		return sourceFiles;
+	}
+
+	/**
+	 * Process the files included by the given filesets in order.
+	 * 
+	 * @see #processFiles(MarkupLanguage, List, String, SourceFileProcessor)
+	 * @since 2.9
+	 */
+	protected void processFileSets(MarkupLanguage markupLanguage, List<FileSet> filesets, String failureMessage,
+			SourceFileProcessor processor) throws BuildException {
+		processFiles(markupLanguage, getSourceFiles(filesets), failureMessage, processor);
+	}
+
+	/**
+	 * Process the given files in order, using {@link #getThreads() multiple threads} if so configured. When processing
+	 * a file fails no further files are started, and the failure of the first file in order is thrown once files that
+	 * are being processed have completed.
+	 * 
+	 * @param markupLanguage
+	 *            the markup language, which is cloned for each thread if files are processed concurrently
+	 * @param sourceFiles
+	 *            the files to process
+	 * @param failureMessage
+	 *            the message of the {@link BuildException} thrown when a file cannot be processed, where <code>{0}</code>
+	 *            is the file and <code>{1}</code> the message of the cause
+	 * @param processor
+	 *            the processor that processes each file
+	 * @since 2.9
+	 */
+	protected void processFiles(MarkupLanguage markupLanguage, List<SourceFile> sourceFiles,
+			final String failureMessage, final SourceFileProcessor processor) throws BuildException {
+		processItems(markupLanguage, sourceFiles, threads, new ItemProcessor<SourceFile>() {
+
+			@Override
+			public void process(MarkupLanguage markupLanguage, SourceFile sourceFile) {
+				processSourceFile(markupLanguage, sourceFile, failureMessage, processor);
+			}
+		});
+	}
+
+	/**
+	 * Process the given items in order using up to the given number of threads. When processing an item fails no
+	 * further items are started, and the failure of the first item in order is thrown once items that are being
+	 * processed have completed. Messages {@link #log(String, int) logged} by this task while processing items
+	 * concurrently are deferred and logged in the order of the items.
+	 * 
+	 * @param markupLanguage
+	 *            the markup language, which is cloned for each thread if items are processed concurrently
+	 * @param items
+	 *            the items to process
+	 * @param threads
+	 *            the maximum number of threads to use
+	 * @param processor
+	 *            the processor that processes each item
+	 * @since 2.9
+	 */
+	protected <T> void processItems(MarkupLanguage markupLanguage, List<T> items, int threads,
+			ItemProcessor<T> processor) throws BuildException {
+		if (threads > 1 && items.size() > 1) {
+			new ParallelItemProcessor(this, threads).process(markupLanguage, items, processor);
+		} else {
+			for (T item : items) {
+				try {
+					processor.process(markupLanguage, item);
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new BuildException(e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Process a single file, reporting failures as a {@link BuildException}.
+	 * 
+	 * @see #processFiles(MarkupLanguage, List, String, SourceFileProcessor)
+	 * @since 2.9
+	 */
+	protected void processSourceFile(MarkupLanguage markupLanguage, SourceFile sourceFile, String failureMessage,
+			SourceFileProcessor processor) throws BuildException {
+		try {
+			processor.process(markupLanguage, sourceFile.getBaseDir(), sourceFile.getFile());
+		} catch (BuildException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new BuildException(MessageFormat.format(failureMessage, sourceFile.getFile(), e.getMessage()), e);
+		}
+	}
+
+	@Override
+	public void log(String msg, int msgLevel) {
+		List<LogMessage> messages = deferredLogMessages.get();
+		if (messages != null) {
+			messages.add(new LogMessage(msg, null, msgLevel));
+		} else {
+			super.log(msg, msgLevel);
+		}
+	}
+
+	@Override
+	public void log(String msg, Throwable t, int msgLevel) {
+		List<LogMessage> messages = deferredLogMessages.get();
+		if (messages != null) {
+			messages.add(new LogMessage(msg, t, msgLevel));
+		} else {
+			super.log(msg, t, msgLevel);
+		}
+	}
+
+	/**
+	 * Defer messages logged by the current thread by adding them to the given list, or stop deferring messages if the
+	 * list is null.
+	 */
+	void setDeferredLogMessages(List<LogMessage> messages) {
+		if (messages == null) {
+			deferredLogMessages.remove();
+		} else {
+			deferredLogMessages.set(messages);
+		}
+	}
+
 	protected void performValidation(File source, String markupContent) {
 		if (!validate) {
 			return;
@@ -21,7 +21,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.tools.ant.BuildException;
-import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.types.FileSet;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.DitaTopicDocumentBuilder;
@@ -113,28 +112,14 @@ public class MarkupToDitaTask extends MarkupTask {
 
 		MarkupLanguage markupLanguage = createMarkupLanguage();
 
-		for (FileSet fileset : filesets) {
+		String failureMessage = Messages.getString("MarkupToDitaTask.6"); //$NON-NLS-1$
+		processFileSets(markupLanguage, filesets, failureMessage, new SourceFileProcessor() {
 
-			File filesetBaseDir = fileset.getDir(getProject());
-			DirectoryScanner ds = fileset.getDirectoryScanner(getProject());
-
-			String[] files = ds.getIncludedFiles();
-			if (files != null) {
-				File baseDir = ds.getBasedir();
-				for (String file : files) {
-					File inputFile = new File(baseDir, file);
-					try {
-						processFile(markupLanguage, filesetBaseDir, inputFile);
-					} catch (BuildException e) {
-						throw e;
-					} catch (Exception e) {
-						throw new BuildException(MessageFormat.format(
-								Messages.getString("MarkupToDitaTask.6"), inputFile, //$NON-NLS-1$
-								e.getMessage()), e);
-					}
-				}
+			@Override
+			public void process(MarkupLanguage markupLanguage, File baseDir, File source) throws Exception {
+				processFile(markupLanguage, baseDir, source);
 			}
-		}
+		});
 
 		if (file != null) {
 			try {
@@ -19,6 +19,9 @@ import java.io.Writer;
 import org.apache.tools.ant.BuildException;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplitOutlineItem;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingMarkupToEclipseToc;
+import org.eclipse.mylyn.internal.wikitext.core.util.BuildCache;
+import org.eclipse.mylyn.internal.wikitext.core.util.Fingerprint;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
 import org.eclipse.mylyn.wikitext.core.parser.util.MarkupToEclipseToc;
 
 /**
@@ -45,7 +48,8 @@ public class MarkupToEclipseHelpTask extends MarkupToHtmlTask {
 		}
 
 		File tocOutputFile = computeTocFile(source, name);
-		if (!tocOutputFile.exists() || overwrite || tocOutputFile.lastModified() < source.lastModified()) {
+		if (getBuildCache() != null || !tocOutputFile.exists() || overwrite
+				|| tocOutputFile.lastModified() < source.lastModified()) {
 			File htmlOutputFile = computeHtmlFile(source, name);
 
 			Writer writer;
@@ -98,6 +102,18 @@ public class MarkupToEclipseHelpTask extends MarkupToHtmlTask {
 		}
 	}
 
+	@Override
+	boolean isUpToDate(BuildCache cache, byte[] fingerprint, File source, String name) {
+		return super.isUpToDate(cache, fingerprint, source, name) && computeTocFile(source, name).exists();
+	}
+
+	@Override
+	protected Fingerprint computeConfigurationFingerprint(MarkupLanguage markupLanguage) throws BuildException {
+		return super.computeConfigurationFingerprint(markupLanguage).add(xmlFilenameFormat)
+				.add(helpPrefix)
+				.add(tocAnchorLevel);
+	}
+
 	private File computeTocFile(File source, String name) {
 		return new File(source.getParentFile(), xmlFilenameFormat.replace("$1", name)); //$NON-NLS-1$
 	}
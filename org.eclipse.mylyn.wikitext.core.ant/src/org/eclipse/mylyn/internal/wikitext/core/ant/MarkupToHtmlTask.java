@@ -15,6 +15,7 @@ package org.eclipse.mylyn.internal.wikitext.core.ant;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.text.MessageFormat;
@@ -24,20 +25,27 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.tools.ant.BuildException;
-import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.types.FileSet;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.DefaultSplittingStrategy;
+import org.eclipse.mylyn.internal.wikitext.core.parser.builder.EventRecordingDocumentBuilder;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.NoSplittingStrategy;
+import org.eclipse.mylyn.internal.wikitext.core.parser.builder.RecordedDocument;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplitOutlineItem;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingHtmlDocumentBuilder;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingOutlineParser;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingStrategy;
+import org.eclipse.mylyn.internal.wikitext.core.util.BuildCache;
+import org.eclipse.mylyn.internal.wikitext.core.util.Fingerprint;
 import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
 import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.Block;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguageConfiguration;
+import org.eclipse.mylyn.wikitext.core.parser.markup.PatternBasedElement;
 
 /**
  * An Ant task for converting lightweight markup to HTML format.
@@ -83,6 +91,12 @@ public class MarkupToHtmlTask extends MarkupTask {
 
 	private String copyrightNotice = null;
 
+	private File buildCache;
+
+	private BuildCache cache;
+
+	private byte[] configurationFingerprint;
+
 	@Override
 	public void execute() throws BuildException {
 		if (file == null && filesets.isEmpty()) {
@@ -123,31 +137,41 @@ public class MarkupToHtmlTask extends MarkupTask {
 			}
 		}
 
-		Set<File> outputFolders = new HashSet<File>();
-
-		for (FileSet fileset : filesets) {
-
-			File filesetBaseDir = fileset.getDir(getProject());
-			DirectoryScanner ds = fileset.getDirectoryScanner(getProject());
-
-			String[] files = ds.getIncludedFiles();
-			if (files != null) {
-				File baseDir = ds.getBasedir();
-				for (String file : files) {
-					File inputFile = new File(baseDir, file);
-					testForOutputFolderConflict(outputFolders, inputFile);
-					try {
-						processFile(markupLanguage, filesetBaseDir, inputFile);
-					} catch (BuildException e) {
-						throw e;
-					} catch (Exception e) {
-						throw new BuildException(MessageFormat.format(
-								Messages.getString("MarkupToHtmlTask.11"), inputFile, //$NON-NLS-1$
-								e.getMessage()), e);
-					}
+		if (buildCache != null) {
+			cache = BuildCache.load(buildCache);
+			configurationFingerprint = computeConfigurationFingerprint(markupLanguage).toByteArray();
+		}
+		try {
+			processSourceFiles(markupLanguage);
+		} finally {
+			configurationFingerprint = null;
+			if (cache != null) {
+				try {
+					cache.save();
+				} catch (IOException e) {
+					log(MessageFormat.format(Messages.getString("MarkupToHtmlTask.19"), buildCache, e.getMessage()), //$NON-NLS-1$
+							Project.MSG_WARN);
 				}
+				cache = null;
 			}
 		}
+	}
+
+	private void processSourceFiles(MarkupLanguage markupLanguage) {
+		Set<File> outputFolders = new HashSet<File>();
+
+		List<SourceFile> sourceFiles = getSourceFiles(filesets);
+		for (SourceFile sourceFile : sourceFiles) {
+			testForOutputFolderConflict(outputFolders, sourceFile.getFile());
+		}
+		String failureMessage = Messages.getString("MarkupToHtmlTask.11"); //$NON-NLS-1$
+		processFiles(markupLanguage, sourceFiles, failureMessage, new SourceFileProcessor() {
+
+			@Override
+			public void process(MarkupLanguage markupLanguage, File baseDir, File source) throws Exception {
+				processFile(markupLanguage, baseDir, source);
+			}
+		});
 		if (file != null) {
 			testForOutputFolderConflict(outputFolders, file);
 			try {
@@ -191,7 +215,17 @@ public class MarkupToHtmlTask extends MarkupTask {
 		}
 
 		File htmlOutputFile = computeHtmlFile(source, name);
-		if (!htmlOutputFile.exists() || overwrite || htmlOutputFile.lastModified() < source.lastModified()) {
+		byte[] fingerprint = null;
+		if (cache != null) {
+			markupContent = readFully(source);
+			fingerprint = new Fingerprint().add(configurationFingerprint).add(markupContent).toByteArray();
+			if (isUpToDate(cache, fingerprint, source, name)) {
+				log(MessageFormat.format(Messages.getString("MarkupToHtmlTask.20"), source), Project.MSG_VERBOSE); //$NON-NLS-1$
+				return null;
+			}
+		}
+		if (cache != null || !htmlOutputFile.exists() || overwrite
+				|| htmlOutputFile.lastModified() < source.lastModified()) {
 
 			if (markupContent == null) {
 				markupContent = readFully(source);
@@ -199,6 +233,7 @@ public class MarkupToHtmlTask extends MarkupTask {
 
 			performValidation(source, markupContent);
 
+			SplitOutlineItem item;
 			Writer writer;
 			try {
 				writer = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(htmlOutputFile)), "utf-8"); //$NON-NLS-1$
@@ -242,10 +277,17 @@ public class MarkupToHtmlTask extends MarkupTask {
 				SplittingStrategy splittingStrategy = multipleOutputFiles
 						? new DefaultSplittingStrategy()
 						: new NoSplittingStrategy();
+				EventRecordingDocumentBuilder recordingBuilder = new EventRecordingDocumentBuilder();
+				MarkupParser parser = new MarkupParser();
+				parser.setMarkupLanguage(markupLanguage);
+				parser.setBuilder(recordingBuilder);
+				parser.parse(markupContent);
+				RecordedDocument document = recordingBuilder.getRecordedDocument();
+
 				SplittingOutlineParser outlineParser = new SplittingOutlineParser();
-				outlineParser.setMarkupLanguage(markupLanguage.clone());
+				outlineParser.setMarkupLanguage(markupLanguage);
 				outlineParser.setSplittingStrategy(splittingStrategy);
-				SplitOutlineItem item = outlineParser.parse(markupContent);
+				item = outlineParser.parse(document, markupContent.length());
 				item.setSplitTarget(htmlOutputFile.getName());
 				SplittingHtmlDocumentBuilder splittingBuilder = new SplittingHtmlDocumentBuilder();
 				splittingBuilder.setRootBuilder(builder);
@@ -254,11 +296,7 @@ public class MarkupToHtmlTask extends MarkupTask {
 				splittingBuilder.setNavigationImages(navigationImages);
 				splittingBuilder.setFormatting(formatOutput);
 
-				MarkupParser parser = new MarkupParser();
-				parser.setMarkupLanguage(markupLanguage);
-				parser.setBuilder(splittingBuilder);
-
-				parser.parse(markupContent);
+				document.applyTo(splittingBuilder);
 
 				processed(markupContent, item, baseDir, source);
 			} finally {
@@ -270,6 +308,9 @@ public class MarkupToHtmlTask extends MarkupTask {
 							e.getMessage()), e);
 				}
 			}
+			if (cache != null) {
+				cache.update(htmlOutputFile, fingerprint, computeSplitFiles(item, htmlOutputFile));
+			}
 		}
 		return markupContent;
 	}
@@ -277,6 +318,92 @@ public class MarkupToHtmlTask extends MarkupTask {
 	void processed(String markupContent, SplitOutlineItem item, final File baseDir, final File source) {
 	}
 
+	/**
+	 * Provides the files other than the given HTML file that were generated for the pages of the given outline.
+	 */
+	private List<File> computeSplitFiles(SplitOutlineItem item, File htmlOutputFile) {
+		List<File> splitFiles = new ArrayList<File>();
+		for (SplitOutlineItem page : item.getPageOrder()) {
+			if (!page.getSplitTarget().equals(htmlOutputFile.getName())) {
+				splitFiles.add(new File(htmlOutputFile.getParentFile(), page.getSplitTarget()));
+			}
+		}
+		return splitFiles;
+	}
+
+	/**
+	 * Indicates whether the output of the given source file, including the pages of a document that was split into
+	 * multiple files, was generated from inputs having the given fingerprint.
+	 */
+	boolean isUpToDate(BuildCache cache, byte[] fingerprint, File source, String name) {
+		return cache.isUpToDate(computeHtmlFile(source, name), fingerprint);
+	}
+
+	/**
+	 * Computes the fingerprint of all inputs other than the markup that affect the generated output: the markup
+	 * language and the settings of this task, including the content of stylesheets. The fingerprint is computed once
+	 * per execution of the task and combined with the markup of each source file. Subclasses having settings that
+	 * affect their output should extend this method.
+	 * 
+	 * @param markupLanguage
+	 *            the markup language
+	 * @return the fingerprint
+	 * @throws BuildException
+	 *             if a stylesheet cannot be read
+	 * @since 2.9
+	 */
+	protected Fingerprint computeConfigurationFingerprint(MarkupLanguage markupLanguage) throws BuildException {
+		Fingerprint fingerprint = new Fingerprint();
+		fingerprint.add(markupLanguage.getClass().getName()).add(markupLanguage.getName());
+		fingerprint.add(getInternalLinkPattern());
+		MarkupLanguageConfiguration configuration = getMarkupLanguageConfiguration();
+		if (configuration != null) {
+			fingerprint.add(configuration.isEscapingHtmlAndXml())
+					.add(configuration.isEnableUnwrappedParagraphs())
+					.add(configuration.isNewlinesMustCauseLineBreak())
+					.add(configuration.isOptimizeForRepositoryUsage())
+					.add(String.valueOf(configuration.isWikiWordLinking()))
+					.add(String.valueOf(configuration.getLocale()));
+			for (Block block : configuration.getBlocks()) {
+				fingerprint.add(block.getClass().getName());
+			}
+			for (PatternBasedElement element : configuration.getPhraseModifiers()) {
+				fingerprint.add(element.getClass().getName());
+			}
+			for (PatternBasedElement element : configuration.getTokens()) {
+				fingerprint.add(element.getClass().getName());
+			}
+		}
+		fingerprint.add(htmlFilenameFormat)
+				.add(title)
+				.add(linkRel)
+				.add(multipleOutputFiles)
+				.add(formatOutput)
+				.add(navigationImages)
+				.add(prependImagePrefix)
+				.add(useInlineCssStyles)
+				.add(suppressBuiltInCssStyles)
+				.add(defaultAbsoluteLinkTarget)
+				.add(xhtmlStrict)
+				.add(emitDoctype)
+				.add(htmlDoctype)
+				.add(copyrightNotice);
+		for (Stylesheet stylesheet : stylesheets) {
+			fingerprint.add(stylesheet.url);
+			if (stylesheet.file != null) {
+				fingerprint.add(stylesheet.file.getPath());
+				try {
+					fingerprint.addContent(stylesheet.file);
+				} catch (IOException e) {
+					throw new BuildException(MessageFormat.format(
+							Messages.getString("MarkupToHtmlTask.18"), stylesheet.file, e.getMessage()), e); //$NON-NLS-1$
+				}
+			}
+			fingerprint.add(new TreeMap<String, String>(stylesheet.attributes).toString());
+		}
+		return fingerprint;
+	}
+
 	protected File computeHtmlFile(final File source, String name) {
 		return new File(source.getParentFile(), htmlFilenameFormat.replace("$1", name)); //$NON-NLS-1$
 	}
@@ -607,4 +734,27 @@ public class MarkupToHtmlTask extends MarkupTask {
 		this.copyrightNotice = copyrightNotice;
 	}
 
+	/**
+	 * the file in which fingerprints of generated files are stored
+	 * 
+	 * @since 2.9
+	 */
+	public File getBuildCache() {
+		return buildCache;
+	}
+
+	/**
+	 * Specifies a file in which to store fingerprints of generated files. When specified, a file is generated only if
+	 * its output is missing or if the content of the file, the markup language or the settings of this task have
+	 * changed since it was last generated. File timestamps and {@link #setOverwrite(boolean) overwrite} are not
+	 * considered, so that unchanged files are not generated again after a fresh checkout of the source files.
+	 * 
+	 * @param buildCache
+	 *            the file, or null if the build cache should not be used
+	 * @since 2.9
+	 */
+	public void setBuildCache(File buildCache) {
+		this.buildCache = buildCache;
+	}
+
 }
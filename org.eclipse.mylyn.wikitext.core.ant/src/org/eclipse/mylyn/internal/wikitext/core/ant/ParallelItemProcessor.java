@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.ant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
+import org.eclipse.mylyn.internal.wikitext.core.ant.MarkupTask.ItemProcessor;
+import org.eclipse.mylyn.internal.wikitext.core.ant.MarkupTask.LogMessage;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+
+/**
+ * Processes items of a {@link MarkupTask}, such as source files, concurrently using a bounded number of threads. Each
+ * thread uses its own clone of the markup language. Messages logged through the task while processing an item are
+ * deferred and logged in the order of the items.
+ * 
+ * @author David Green
+ */
+class ParallelItemProcessor {
+
+	private static class Result {
+
+		private final List<LogMessage> logMessages = new ArrayList<LogMessage>();
+
+		private Throwable failure;
+	}
+
+	private final MarkupTask task;
+
+	private final int threads;
+
+	ParallelItemProcessor(MarkupTask task, int threads) {
+		this.task = task;
+		this.threads = threads;
+	}
+
+	<T> void process(final MarkupLanguage markupLanguage, List<T> items, final ItemProcessor<T> processor)
+			throws BuildException {
+		final AtomicBoolean failed = new AtomicBoolean();
+		final ThreadLocal<MarkupLanguage> threadMarkupLanguage = new ThreadLocal<MarkupLanguage>() {
+			@Override
+			protected MarkupLanguage initialValue() {
+				synchronized (markupLanguage) {
+					return markupLanguage.clone();
+				}
+			}
+		};
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, items.size()));
+		try {
+			List<Future<Result>> futures = new ArrayList<Future<Result>>(items.size());
+			for (final T item : items) {
+				futures.add(executor.submit(new Callable<Result>() {
+
+					@Override
+					public Result call() {
+						if (failed.get()) {
+							return null;
+						}
+						Result result = new Result();
+						task.setDeferredLogMessages(result.logMessages);
+						try {
+							processor.process(threadMarkupLanguage.get(), item);
+						} catch (Throwable t) {
+							result.failure = t;
+							failed.set(true);
+						} finally {
+							task.setDeferredLogMessages(null);
+						}
+						return result;
+					}
+				}));
+			}
+
+			Throwable failure = null;
+			for (Future<Result> future : futures) {
+				Result result = getResult(future);
+				if (result == null) {
+					continue;
+				}
+				for (LogMessage message : result.logMessages) {
+					if (message.throwable == null) {
+						task.log(message.message, message.level);
+					} else {
+						task.log(message.message, message.throwable, message.level);
+					}
+				}
+				if (result.failure != null) {
+					if (failure == null) {
+						failure = result.failure;
+					} else {
+						task.log(result.failure.getMessage(), Project.MSG_ERR);
+					}
+				}
+			}
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			} else if (failure instanceof Error) {
+				throw (Error) failure;
+			} else if (failure != null) {
+				throw new BuildException(failure.getMessage(), failure);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Result getResult(Future<Result> future) {
+		boolean interrupted = false;
+		try {
+			for (;;) {
+				try {
+					return future.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					throw new BuildException(e.getCause().getMessage(), e.getCause());
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
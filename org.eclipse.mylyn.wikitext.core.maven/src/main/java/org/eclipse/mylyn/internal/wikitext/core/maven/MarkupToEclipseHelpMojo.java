@@ -24,7 +24,10 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -37,12 +40,15 @@ import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingHtmlDocu
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingMarkupToEclipseToc;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingOutlineParser;
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingStrategy;
+import org.eclipse.mylyn.internal.wikitext.core.util.BuildCache;
+import org.eclipse.mylyn.internal.wikitext.core.util.Fingerprint;
 import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
 import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
 import org.eclipse.mylyn.wikitext.core.parser.util.MarkupToEclipseToc;
 import org.eclipse.mylyn.wikitext.core.util.ServiceLocator;
 
+import com.google.common.base.Throwables;
 import com.google.common.io.Files;
 
 /**
@@ -219,7 +225,55 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 	 */
 	protected boolean embeddedTableOfContents = false;
 
+	/**
+	 * A file in which fingerprints of generated files are stored. When specified, a markup file is processed only if
+	 * its output is missing or if the content of the file, its markup language or the configuration of this goal have
+	 * changed since it was last processed. File timestamps are not considered, so that unchanged files are not
+	 * processed again after a fresh checkout of the sources.
+	 *
+	 * @parameter
+	 */
+	protected File buildCache;
+
+	/**
+	 * The number of threads used to process source files. When not specified, the thread count of the Maven build is
+	 * used, so that a parallel build ({@code -T 4} or {@code -T 1C}) also processes the source files of each module
+	 * concurrently, while a build without {@code -T} processes them sequentially. Specify 1 to always process source
+	 * files sequentially. Output is the same regardless of the number of threads.
+	 *
+	 * @parameter expression="${wikitext.threads}"
+	 */
+	protected Integer threads;
+
+	/**
+	 * The thread count of the Maven build as given with {@code -T}, or null if the build is not parallel.
+	 *
+	 * @parameter expression="${session.request.threadCount}"
+	 * @readonly
+	 */
+	protected String sessionThreadCount;
+
+	private BuildCache cache;
+
+	private byte[] configurationFingerprint;
+
+	private static class SourceFile {
+
+		private final String relativePath;
+
+		private final File file;
+
+		SourceFile(String relativePath, File file) {
+			this.relativePath = relativePath;
+			this.file = file;
+		}
+	}
+
 	public void execute() throws MojoExecutionException, MojoFailureException {
+		if (buildCache != null) {
+			cache = BuildCache.load(buildCache);
+			configurationFingerprint = computeConfigurationFingerprint().toByteArray();
+		}
 		try {
 			ensureOutputFolderExists();
 			ensureSourceFolderExists();
@@ -233,22 +287,99 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 			getLog().info(
 					format("Generating Eclipse help content from sources: {0} -> {1}", sourceFolder, outputFolder));
 
-			final FileToMarkupLanguage fileToMarkupLanguage = new FileToMarkupLanguage(markupLanguages);
+			FileToMarkupLanguage fileToMarkupLanguage = new FileToMarkupLanguage(markupLanguages);
 			SourceFileTraversal fileTraversal = new SourceFileTraversal(sourceFolder);
 
-			final AtomicInteger fileCount = new AtomicInteger();
+			final List<SourceFile> sourceFiles = new ArrayList<>();
 			fileTraversal.traverse(new Visitor() {
 				@Override
 				public void accept(String relativePath, File sourceFile) {
-					fileCount.incrementAndGet();
-
-					process(sourceFile, relativePath, fileToMarkupLanguage.get(sourceFile));
+					sourceFiles.add(new SourceFile(relativePath, sourceFile));
 				}
 			});
-			getLog().info(format("Processed {0} files", fileCount.get()));
+			int threadCount = getThreadCount();
+			if (threadCount > 1 && sourceFiles.size() > 1) {
+				processConcurrently(sourceFiles, fileToMarkupLanguage, threadCount);
+			} else {
+				for (SourceFile sourceFile : sourceFiles) {
+					process(sourceFile.file, sourceFile.relativePath, fileToMarkupLanguage.get(sourceFile.file));
+				}
+			}
+			getLog().info(format("Processed {0} files", sourceFiles.size()));
 		} catch (BuildFailureException e) {
 			getLog().error(e.getMessage(), e);
 			throw new MojoFailureException(e.getMessage(), e.getCause());
+		} finally {
+			saveBuildCache();
+		}
+	}
+
+	/**
+	 * Provides the number of threads used to process source files: the configured {@link #threads}, otherwise the
+	 * thread count of the Maven build, which is either a number or a multiple of the available processors such as
+	 * {@code 1.5C}.
+	 */
+	int getThreadCount() {
+		if (threads != null) {
+			return Math.max(1, threads);
+		}
+		if (sessionThreadCount == null || sessionThreadCount.trim().isEmpty()) {
+			return 1;
+		}
+		String threadCount = sessionThreadCount.trim();
+		try {
+			if (threadCount.endsWith("C") || threadCount.endsWith("c")) {
+				float perProcessor = Float.parseFloat(threadCount.substring(0, threadCount.length() - 1));
+				return Math.max(1, (int) (perProcessor * Runtime.getRuntime().availableProcessors()));
+			}
+			return Math.max(1, Integer.parseInt(threadCount));
+		} catch (NumberFormatException e) {
+			getLog().warn(format("Ignoring thread count of the build: {0}", sessionThreadCount));
+			return 1;
+		}
+	}
+
+	private void processConcurrently(List<SourceFile> sourceFiles, final FileToMarkupLanguage fileToMarkupLanguage,
+			int threadCount) {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, sourceFiles.size()));
+		try {
+			List<Future<?>> futures = new ArrayList<>(sourceFiles.size());
+			for (final SourceFile sourceFile : sourceFiles) {
+				futures.add(executor.submit(new Runnable() {
+
+					@Override
+					public void run() {
+						MarkupLanguage markupLanguage = fileToMarkupLanguage.get(sourceFile.file);
+						process(sourceFile.file, sourceFile.relativePath,
+								markupLanguage == null ? null : markupLanguage.clone());
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					Throwables.propagateIfPossible(e.getCause());
+					throw new BuildFailureException(e.getCause().getMessage(), e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new BuildFailureException("Interrupted while processing source files", e);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void saveBuildCache() {
+		if (cache != null) {
+			try {
+				cache.save();
+			} catch (IOException e) {
+				getLog().warn(format("Cannot save build cache {0}: {1}", buildCache, e.getMessage()), e);
+			}
+			cache = null;
+			configurationFingerprint = null;
 		}
 	}
 
@@ -280,15 +411,34 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 			name = name.substring(0, name.lastIndexOf('.'));
 		}
 		File htmlOutputFile = computeHtmlFile(relativePath, name);
-		if (!htmlOutputFile.exists() || htmlOutputFile.lastModified() < sourceFile.lastModified()) {
-			String markupContent = readFully(sourceFile);
+		String markupContent = null;
+		byte[] fingerprint = null;
+		if (cache != null) {
+			markupContent = readFully(sourceFile);
+			fingerprint = new Fingerprint().add(configurationFingerprint)
+					.add(markupContent)
+					.add(markupLanguage.getClass().getName())
+					.add(markupLanguage.getName())
+					.add(relativePath)
+					.toByteArray();
+			if (cache.isUpToDate(htmlOutputFile, fingerprint)
+					&& computeTocFile(htmlOutputFile, name).exists()) {
+				getLog().debug(format("Skipping markup file: {0}", sourceFile));
+				return;
+			}
+		}
+		if (cache != null || !htmlOutputFile.exists() || htmlOutputFile.lastModified() < sourceFile.lastModified()) {
+			if (markupContent == null) {
+				markupContent = readFully(sourceFile);
+			}
 
 			if (!htmlOutputFile.getParentFile().exists()) {
-				if (!htmlOutputFile.getParentFile().mkdirs()) {
+				if (!htmlOutputFile.getParentFile().mkdirs() && !htmlOutputFile.getParentFile().isDirectory()) {
 					throw new BuildFailureException(format("Cannot create folder {0}", htmlOutputFile.getParentFile()));
 				}
 			}
 
+			SplitOutlineItem rootTocItem;
 			Writer writer = createWriter(htmlOutputFile);
 			try {
 				HtmlDocumentBuilder builder = createRootBuilder(writer, name, relativePath);
@@ -296,7 +446,7 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 				SplittingStrategy splittingStrategy = createSplittingStrategy();
 				SplittingOutlineParser outlineParser = createOutlineParser(markupLanguage, splittingStrategy);
 
-				SplitOutlineItem rootTocItem = outlineParser.parse(markupContent);
+				rootTocItem = outlineParser.parse(markupContent);
 				rootTocItem.setSplitTarget(htmlOutputFile.getName());
 
 				SplittingHtmlDocumentBuilder splittingBuilder = createSplittingBuilder(builder, rootTocItem,
@@ -312,7 +462,54 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 			} finally {
 				close(writer, htmlOutputFile);
 			}
+			if (cache != null) {
+				cache.update(htmlOutputFile, fingerprint, computeSplitFiles(rootTocItem, htmlOutputFile));
+			}
+		}
+	}
+
+	/**
+	 * Provides the files other than the given HTML file that were generated for the pages of the given outline.
+	 */
+	private List<File> computeSplitFiles(SplitOutlineItem rootTocItem, File htmlOutputFile) {
+		List<File> splitFiles = new ArrayList<>();
+		for (SplitOutlineItem page : rootTocItem.getPageOrder()) {
+			if (!page.getSplitTarget().equals(htmlOutputFile.getName())) {
+				splitFiles.add(new File(htmlOutputFile.getParentFile(), page.getSplitTarget()));
+			}
+		}
+		return splitFiles;
+	}
+
+	/**
+	 * Computes the fingerprint of the configuration of this goal, which affects the output generated from every source
+	 * file. The fingerprint is computed once per execution and combined with the markup, markup language and path of
+	 * each source file.
+	 */
+	protected Fingerprint computeConfigurationFingerprint() {
+		Fingerprint fingerprint = new Fingerprint();
+		fingerprint.add(htmlFilenameFormat)
+				.add(xmlFilenameFormat)
+				.add(title)
+				.add(linkRel)
+				.add(multipleOutputFiles)
+				.add(formatOutput)
+				.add(navigationImages)
+				.add(prependImagePrefix)
+				.add(useInlineCssStyles)
+				.add(suppressBuiltInCssStyles)
+				.add(defaultAbsoluteLinkTarget)
+				.add(xhtmlStrict)
+				.add(emitDoctype)
+				.add(htmlDoctype)
+				.add(copyrightNotice)
+				.add(helpPrefix)
+				.add(tocAnchorLevel)
+				.add(embeddedTableOfContents);
+		for (String stylesheetUrl : stylesheetUrls) {
+			fingerprint.add(stylesheetUrl);
 		}
+		return fingerprint;
 	}
 
 	private void close(Writer writer, File file) {
@@ -326,7 +523,7 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 	private void createEclipseHelpToc(SplitOutlineItem rootTocItem, File sourceFile, String relativePath,
 			File htmlOutputFile, String name) {
 		File tocOutputFile = computeTocFile(htmlOutputFile, name);
-		if (!tocOutputFile.exists() || tocOutputFile.lastModified() < sourceFile.lastModified()) {
+		if (cache != null || !tocOutputFile.exists() || tocOutputFile.lastModified() < sourceFile.lastModified()) {
 			Writer writer = createWriter(tocOutputFile);
 			try {
 				MarkupToEclipseToc toEclipseToc = createMarkupToEclipseToc(relativePath, htmlOutputFile, name);
@@ -483,7 +680,7 @@ public class MarkupToEclipseHelpMojo extends AbstractMojo {
 		if (!createIfMissing) {
 			throw new BuildFailureException(format("{0} does not exist: {1}", name, folder));
 		}
-		if (!folder.mkdirs()) {
+		if (!folder.mkdirs() && !folder.isDirectory()) {
 			throw new BuildFailureException(format("Cannot create {0}: {1}", name, folder));
 		}
 	}
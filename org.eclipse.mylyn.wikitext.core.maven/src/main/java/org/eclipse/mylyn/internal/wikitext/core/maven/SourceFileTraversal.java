@@ -15,9 +15,19 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
 
 public class SourceFileTraversal {
 
+	private static final Comparator<File> BY_NAME = new Comparator<File>() {
+
+		@Override
+		public int compare(File o1, File o2) {
+			return o1.getName().compareTo(o2.getName());
+		}
+	};
+
 	public interface Visitor {
 		public void accept(String relativePath, File sourceFile);
 	}
@@ -40,6 +50,7 @@ public class SourceFileTraversal {
 		} else if (file.isDirectory()) {
 			File[] children = file.listFiles();
 			if (children != null) {
+				Arrays.sort(children, BY_NAME);
 				String childRelativePath = file.equals(root) ? "" : file.getName();
 				if (relativePath.length() > 0) {
 					childRelativePath = relativePath + File.separator + childRelativePath;
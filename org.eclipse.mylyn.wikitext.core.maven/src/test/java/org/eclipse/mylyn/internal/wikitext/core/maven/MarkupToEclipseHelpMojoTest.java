@@ -144,6 +144,86 @@ public class MarkupToEclipseHelpMojoTest {
 		assertHasContent("Top-Level-Heading-3.html", "<h1 id=\"TopLevelHeading3\">Top Level Heading 3</h1>");
 	}
 
+	@Test
+	public void executeWithBuildCache() throws Exception {
+		markupToEclipseHelp.buildCache = new File(temporaryFolder.newFolder("cache"), "wikitext.cache");
+		markupToEclipseHelp.execute();
+		assertTrue(markupToEclipseHelp.buildCache.isFile());
+		assertHasContent("test.html", "<title>test</title>");
+
+		File htmlFile = computeOutputFile("test.html");
+		Files.write("unchanged", htmlFile, Charsets.UTF_8);
+		assertTrue(htmlFile.setLastModified(0));
+		markupToEclipseHelp.execute();
+		assertHasContent("test.html", "unchanged");
+
+		markupToEclipseHelp.title = "Changed Title";
+		markupToEclipseHelp.execute();
+		assertHasContent("test.html", "<title>Changed Title</title>");
+		assertHasContent("test-toc.xml", "label=\"Changed Title\"");
+	}
+
+	@Test
+	public void executeWithBuildCacheMultipleOutputFiles() throws Exception {
+		markupToEclipseHelp.buildCache = new File(temporaryFolder.newFolder("cache"), "wikitext.cache");
+		markupToEclipseHelp.multipleOutputFiles = true;
+		markupToEclipseHelp.execute();
+
+		File htmlFile = computeOutputFile("test.html");
+		Files.write("unchanged", htmlFile, Charsets.UTF_8);
+		markupToEclipseHelp.execute();
+		assertHasContent("test.html", "unchanged");
+
+		assertTrue(computeOutputFile("Top-Level-Heading-2.html").delete());
+		markupToEclipseHelp.execute();
+		assertHasContent("Top-Level-Heading-2.html", "<h1 id=\"TopLevelHeading2\">Top Level Heading 2</h1>");
+		assertHasContent("test.html", "<title>test</title>");
+	}
+
+	@Test
+	public void executeWithThreads() throws Exception {
+		markupToEclipseHelp.multipleOutputFiles = true;
+		markupToEclipseHelp.execute();
+
+		File sequentialOutputFolder = markupToEclipseHelp.outputFolder;
+		markupToEclipseHelp.outputFolder = temporaryFolder.newFolder("parallel");
+		markupToEclipseHelp.threads = 4;
+		markupToEclipseHelp.execute();
+
+		for (String path : Arrays.asList("test.html", "test-toc.xml", "Top-Level-Heading-2.html",
+				"Top-Level-Heading-3.html", "images/wikitext-32.gif")) {
+			assertEquals(path, Files.toString(new File(sequentialOutputFolder, path), Charsets.UTF_8),
+					Files.toString(new File(markupToEclipseHelp.outputFolder, path), Charsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void threadCountDefaultsToSequential() {
+		assertEquals(1, markupToEclipseHelp.getThreadCount());
+	}
+
+	@Test
+	public void threadCountFromParallelBuild() {
+		markupToEclipseHelp.sessionThreadCount = "3";
+		assertEquals(3, markupToEclipseHelp.getThreadCount());
+
+		markupToEclipseHelp.sessionThreadCount = "1C";
+		assertEquals(Runtime.getRuntime().availableProcessors(), markupToEclipseHelp.getThreadCount());
+
+		markupToEclipseHelp.sessionThreadCount = "unknown";
+		assertEquals(1, markupToEclipseHelp.getThreadCount());
+	}
+
+	@Test
+	public void threadCountConfigured() {
+		markupToEclipseHelp.sessionThreadCount = "3";
+		markupToEclipseHelp.threads = 1;
+		assertEquals(1, markupToEclipseHelp.getThreadCount());
+
+		markupToEclipseHelp.threads = 4;
+		assertEquals(4, markupToEclipseHelp.getThreadCount());
+	}
+
 	@Test
 	public void configureStylesheetUrls() {
 		markupToEclipseHelp.stylesheetUrls = Arrays.asList("test/foo.css", "bar.css");
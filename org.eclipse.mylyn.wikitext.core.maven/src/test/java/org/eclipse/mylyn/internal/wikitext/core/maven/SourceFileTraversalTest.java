@@ -14,6 +14,7 @@ package org.eclipse.mylyn.internal.wikitext.core.maven;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -24,6 +25,7 @@ import org.eclipse.mylyn.internal.wikitext.core.maven.SourceFileTraversal.Visito
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.InOrder;
 
 public class SourceFileTraversalTest {
 
@@ -57,6 +59,21 @@ public class SourceFileTraversalTest {
 		verifyNoMoreInteractions(visitor);
 	}
 
+	@Test
+	public void traverseInNameOrder() {
+		File b = mockFile("b.Test");
+		File a = mockFile("a.Test");
+		File c = mockFile("c.Test");
+		SourceFileTraversal traversal = new SourceFileTraversal(mockFolder("test", b, c, a));
+		Visitor visitor = mock(Visitor.class);
+		traversal.traverse(visitor);
+		InOrder inOrder = inOrder(visitor);
+		inOrder.verify(visitor).accept(eq(""), same(a));
+		inOrder.verify(visitor).accept(eq(""), same(b));
+		inOrder.verify(visitor).accept(eq(""), same(c));
+		verifyNoMoreInteractions(visitor);
+	}
+
 	private File mockFolder(String name, File... children) {
 		File mock = mock(File.class);
 		doReturn(name).when(mock).getName();
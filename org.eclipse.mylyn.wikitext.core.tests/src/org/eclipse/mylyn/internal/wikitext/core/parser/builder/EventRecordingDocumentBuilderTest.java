@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.builder;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.mylyn.internal.wikitext.MockMarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.Attributes;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.SpanType;
+import org.eclipse.mylyn.wikitext.core.parser.Locator;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.event.BeginDocumentEvent;
+import org.eclipse.mylyn.wikitext.core.parser.builder.event.CharactersEvent;
+import org.eclipse.mylyn.wikitext.core.parser.builder.event.EndDocumentEvent;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class EventRecordingDocumentBuilderTest {
+
+	private static class TestLocator implements Locator {
+
+		private int documentOffset;
+
+		@Override
+		public int getLineNumber() {
+			return 1;
+		}
+
+		@Override
+		public int getLineDocumentOffset() {
+			return 2;
+		}
+
+		@Override
+		public int getDocumentOffset() {
+			return documentOffset;
+		}
+
+		@Override
+		public int getLineLength() {
+			return 3;
+		}
+
+		@Override
+		public int getLineCharacterOffset() {
+			return 4;
+		}
+
+		@Override
+		public int getLineSegmentEndOffset() {
+			return 5;
+		}
+	}
+
+	private static class LocationBuilder extends NoOpDocumentBuilder {
+
+		private final List<String> locations = new ArrayList<String>();
+
+		@Override
+		public void beginDocument() {
+			record();
+		}
+
+		@Override
+		public void characters(String text) {
+			record();
+		}
+
+		@Override
+		public void endDocument() {
+			record();
+		}
+
+		private void record() {
+			Locator locator = getLocator();
+			locations.add(String.format("%s:%s:%s:%s:%s:%s", locator.getLineNumber(), //$NON-NLS-1$
+					locator.getLineDocumentOffset(), locator.getDocumentOffset(), locator.getLineLength(),
+					locator.getLineCharacterOffset(), locator.getLineSegmentEndOffset()));
+		}
+	}
+
+	private final EventRecordingDocumentBuilder builder = new EventRecordingDocumentBuilder();
+
+	@Test
+	public void recordsEvents() {
+		builder.beginDocument();
+		builder.characters("test"); //$NON-NLS-1$
+		builder.endDocument();
+
+		assertEquals(ImmutableList.of(new BeginDocumentEvent(), new CharactersEvent("test"), new EndDocumentEvent()), //$NON-NLS-1$
+				builder.getRecordedDocument().getEvents().getEvents());
+	}
+
+	@Test
+	public void applyToProvidesRecordedLocations() {
+		TestLocator locator = new TestLocator();
+		builder.setLocator(locator);
+		builder.beginDocument();
+		locator.documentOffset = 7;
+		builder.characters("test"); //$NON-NLS-1$
+		locator.documentOffset = 11;
+		builder.endDocument();
+
+		LocationBuilder locationBuilder = new LocationBuilder();
+		builder.getRecordedDocument().applyTo(locationBuilder);
+		assertEquals(ImmutableList.of("1:2:0:3:4:5", "1:2:7:3:4:5", "1:2:11:3:4:5"), locationBuilder.locations); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	@Test
+	public void applyToWithoutRecordedLocator() {
+		builder.beginDocument();
+
+		LocationBuilder locationBuilder = new LocationBuilder();
+		builder.getRecordedDocument().applyTo(locationBuilder);
+		assertEquals(ImmutableList.of("-1:-1:-1:-1:-1:-1"), locationBuilder.locations); //$NON-NLS-1$
+	}
+
+	@Test
+	public void applyToManyEvents() {
+		TestLocator locator = new TestLocator();
+		builder.setLocator(locator);
+		for (int x = 0; x < 1000; ++x) {
+			locator.documentOffset = x;
+			builder.characters("a"); //$NON-NLS-1$
+		}
+		final List<Integer> offsets = new ArrayList<Integer>();
+		builder.getRecordedDocument().applyTo(new NoOpDocumentBuilder() {
+			@Override
+			public void characters(String text) {
+				offsets.add(getLocator().getDocumentOffset());
+			}
+		});
+		assertEquals(1000, offsets.size());
+		for (int x = 0; x < 1000; ++x) {
+			assertEquals(Integer.valueOf(x), offsets.get(x));
+		}
+	}
+
+	@Test
+	public void splittingOutlineParserParseRecordedDocument() {
+		TestLocator locator = new TestLocator();
+		builder.setLocator(locator);
+		builder.beginDocument();
+		locator.documentOffset = 10;
+		builder.beginHeading(1, new Attributes("first", null, null, null)); //$NON-NLS-1$
+		builder.characters("First"); //$NON-NLS-1$
+		builder.endHeading();
+		locator.documentOffset = 20;
+		builder.beginHeading(2, new Attributes());
+		builder.characters("Second Heading"); //$NON-NLS-1$
+		builder.endHeading();
+		builder.endDocument();
+
+		SplittingOutlineParser outlineParser = new SplittingOutlineParser();
+		outlineParser.setMarkupLanguage(new MockMarkupLanguage());
+		outlineParser.setSplittingStrategy(new NoSplittingStrategy());
+		SplitOutlineItem root = outlineParser.parse(builder.getRecordedDocument(), 40);
+
+		assertEquals(40, root.getLength());
+		assertEquals("First", root.getLabel()); //$NON-NLS-1$
+		assertEquals(1, root.getChildren().size());
+		SplitOutlineItem first = (SplitOutlineItem) root.getChildren().get(0);
+		assertEquals("first", first.getId()); //$NON-NLS-1$
+		assertEquals(10, first.getOffset());
+		assertEquals(1, first.getChildren().size());
+		SplitOutlineItem second = (SplitOutlineItem) first.getChildren().get(0);
+		assertEquals("Second Heading", second.getLabel()); //$NON-NLS-1$
+		assertEquals(20, second.getOffset());
+		assertEquals(2, second.getLevel());
+	}
+
+	@Test
+	public void splittingOutlineParserLabelsFromRecordedDocumentAreRenderedText() {
+		builder.beginDocument();
+		builder.beginHeading(1, new Attributes("fish", null, null, null)); //$NON-NLS-1$
+		builder.beginSpan(SpanType.BOLD, new Attributes());
+		builder.characters("Fish"); //$NON-NLS-1$
+		builder.endSpan();
+		builder.characters(" "); //$NON-NLS-1$
+		builder.entityReference("amp"); //$NON-NLS-1$
+		builder.characters(" "); //$NON-NLS-1$
+		builder.link(new Attributes(), "http://example.com", "chips"); //$NON-NLS-1$ //$NON-NLS-2$
+		builder.characters(" "); //$NON-NLS-1$
+		builder.entityReference("#169"); //$NON-NLS-1$
+		builder.entityReference("#x2122"); //$NON-NLS-1$
+		builder.entityReference("unknown"); //$NON-NLS-1$
+		builder.endHeading();
+		builder.endDocument();
+
+		SplittingOutlineParser outlineParser = new SplittingOutlineParser();
+		outlineParser.setMarkupLanguage(new MockMarkupLanguage());
+		outlineParser.setSplittingStrategy(new NoSplittingStrategy());
+		SplitOutlineItem root = outlineParser.parse(builder.getRecordedDocument(), 40);
+
+		SplitOutlineItem heading = (SplitOutlineItem) root.getChildren().get(0);
+		assertEquals("fish", heading.getId()); //$NON-NLS-1$
+		assertEquals("Fish & chips \u00a9\u2122", heading.getLabel()); //$NON-NLS-1$
+	}
+}
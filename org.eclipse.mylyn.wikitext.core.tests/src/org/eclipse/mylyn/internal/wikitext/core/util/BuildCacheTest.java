@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+public class BuildCacheTest {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void loadMissing() throws IOException {
+		BuildCache cache = BuildCache.load(new File(temporaryFolder.getRoot(), "missing.cache")); //$NON-NLS-1$
+		assertFalse(cache.isUpToDate(temporaryFolder.newFile("out.html"), fingerprint("a"))); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Test
+	public void loadCorrupt() throws IOException {
+		File file = temporaryFolder.newFile("build.cache"); //$NON-NLS-1$
+		Files.write("not a cache", file, Charsets.UTF_8); //$NON-NLS-1$
+		BuildCache cache = BuildCache.load(file);
+		assertFalse(cache.isUpToDate(temporaryFolder.newFile("out.html"), fingerprint("a"))); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Test
+	public void isUpToDate() throws IOException {
+		BuildCache cache = BuildCache.load(new File(temporaryFolder.getRoot(), "build.cache")); //$NON-NLS-1$
+		File outputFile = temporaryFolder.newFile("out.html"); //$NON-NLS-1$
+		cache.update(outputFile, fingerprint("a")); //$NON-NLS-1$
+
+		assertTrue(cache.isUpToDate(outputFile, fingerprint("a"))); //$NON-NLS-1$
+		assertFalse(cache.isUpToDate(outputFile, fingerprint("b"))); //$NON-NLS-1$
+		assertFalse(cache.isUpToDate(new File(temporaryFolder.getRoot(), "other.html"), fingerprint("a"))); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Test
+	public void isUpToDateOutputMissing() throws IOException {
+		BuildCache cache = BuildCache.load(new File(temporaryFolder.getRoot(), "build.cache")); //$NON-NLS-1$
+		File outputFile = temporaryFolder.newFile("out.html"); //$NON-NLS-1$
+		cache.update(outputFile, fingerprint("a")); //$NON-NLS-1$
+		assertTrue(outputFile.delete());
+
+		assertFalse(cache.isUpToDate(outputFile, fingerprint("a"))); //$NON-NLS-1$
+	}
+
+	@Test
+	public void saveAndLoad() throws IOException {
+		File file = new File(temporaryFolder.getRoot(), "cache/build.cache"); //$NON-NLS-1$
+		File outputFile = temporaryFolder.newFile("out.html"); //$NON-NLS-1$
+		File otherOutputFile = temporaryFolder.newFile("other.html"); //$NON-NLS-1$
+		BuildCache cache = BuildCache.load(file);
+		cache.update(outputFile, fingerprint("a")); //$NON-NLS-1$
+		cache.update(otherOutputFile, fingerprint("b")); //$NON-NLS-1$
+		cache.save();
+		assertTrue(file.isFile());
+
+		BuildCache loaded = BuildCache.load(file);
+		assertTrue(loaded.isUpToDate(outputFile, fingerprint("a"))); //$NON-NLS-1$
+		assertTrue(loaded.isUpToDate(otherOutputFile, fingerprint("b"))); //$NON-NLS-1$
+		assertFalse(loaded.isUpToDate(outputFile, fingerprint("b"))); //$NON-NLS-1$
+	}
+
+	@Test
+	public void isUpToDateAdditionalOutputMissing() throws IOException {
+		File file = new File(temporaryFolder.getRoot(), "build.cache"); //$NON-NLS-1$
+		File outputFile = temporaryFolder.newFile("out.html"); //$NON-NLS-1$
+		File pageFile = temporaryFolder.newFile("page.html"); //$NON-NLS-1$
+		BuildCache cache = BuildCache.load(file);
+		cache.update(outputFile, fingerprint("a"), Arrays.asList(pageFile)); //$NON-NLS-1$
+		assertTrue(cache.isUpToDate(outputFile, fingerprint("a"))); //$NON-NLS-1$
+		cache.save();
+
+		assertTrue(pageFile.delete());
+		assertFalse(cache.isUpToDate(outputFile, fingerprint("a"))); //$NON-NLS-1$
+		assertFalse(BuildCache.load(file).isUpToDate(outputFile, fingerprint("a"))); //$NON-NLS-1$
+
+		cache.update(outputFile, fingerprint("a")); //$NON-NLS-1$
+		assertTrue(cache.isUpToDate(outputFile, fingerprint("a"))); //$NON-NLS-1$
+	}
+
+	@Test
+	public void saveUnmodified() throws IOException {
+		File file = new File(temporaryFolder.getRoot(), "build.cache"); //$NON-NLS-1$
+		BuildCache.load(file).save();
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void fingerprintDistinguishesValues() {
+		assertArrayEquals(fingerprint("a"), fingerprint("a")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse(Arrays.equals(new Fingerprint().add("ab").add("c").toByteArray(), //$NON-NLS-1$ //$NON-NLS-2$
+				new Fingerprint().add("a").add("bc").toByteArray())); //$NON-NLS-1$ //$NON-NLS-2$
+		assertFalse(Arrays.equals(new Fingerprint().add((String) null).toByteArray(),
+				new Fingerprint().add("").toByteArray())); //$NON-NLS-1$
+	}
+
+	@Test
+	public void fingerprintFileContent() throws IOException {
+		File file = temporaryFolder.newFile("styles.css"); //$NON-NLS-1$
+		Files.write("body {}", file, Charsets.UTF_8); //$NON-NLS-1$
+		byte[] first = new Fingerprint().addContent(file).toByteArray();
+		assertArrayEquals(first, new Fingerprint().addContent(file).toByteArray());
+
+		Files.write("body { color: red; }", file, Charsets.UTF_8); //$NON-NLS-1$
+		assertFalse(Arrays.equals(first, new Fingerprint().addContent(file).toByteArray()));
+	}
+
+	private byte[] fingerprint(String value) {
+		return new Fingerprint().add(value).toByteArray();
+	}
+}
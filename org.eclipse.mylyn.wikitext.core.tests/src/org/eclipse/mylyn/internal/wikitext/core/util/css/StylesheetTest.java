@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.util.css;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.mylyn.internal.wikitext.core.util.css.Stylesheet.Receiver;
+import org.junit.Test;
+
+public class StylesheetTest {
+
+	private static class TestElementInfo implements ElementInfo {
+
+		private final TestElementInfo parent;
+
+		private final String localName;
+
+		private final String id;
+
+		private final List<String> cssClasses;
+
+		TestElementInfo(TestElementInfo parent, String localName, String id, String... cssClasses) {
+			this.parent = parent;
+			this.localName = localName;
+			this.id = id;
+			this.cssClasses = Arrays.asList(cssClasses);
+		}
+
+		@Override
+		public String getLocalName() {
+			return localName;
+		}
+
+		@Override
+		public ElementInfo getParent() {
+			return parent;
+		}
+
+		@Override
+		public boolean hasCssClass(String cssClass) {
+			return cssClasses.contains(cssClass);
+		}
+
+		@Override
+		public boolean hasId(String id) {
+			return id.equals(this.id);
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public List<String> getCssClasses() {
+			return cssClasses;
+		}
+	}
+
+	private final Stylesheet stylesheet = new CssParser().parse("p { a: 1; }\n.note { a: 2; }\n#main { a: 3; }\n"
+			+ "* { a: 4; }\nP.note { a: 5; }\nh1, .note, p { a: 6; }\ndiv p { a: 7; }\ndiv#main { a: 8; }");
+
+	@Test
+	public void appliesBlocksInStylesheetOrder() {
+		assertEquals("1 2 3 4 5 6", apply(new TestElementInfo(null, "p", "main", "other", "note")));
+	}
+
+	@Test
+	public void appliesMatchingBlocksOnly() {
+		assertEquals("4", apply(new TestElementInfo(null, "span", null)));
+		assertEquals("4 6", apply(new TestElementInfo(null, "h1", null)));
+		assertEquals("2 4 6", apply(new TestElementInfo(null, "span", "other", "note")));
+		assertEquals("2 3 4 6 8", apply(new TestElementInfo(null, "div", "main", "note")));
+	}
+
+	@Test
+	public void matchesElementNamesIgnoringCase() {
+		assertEquals("1 4 6", apply(new TestElementInfo(null, "P", null)));
+	}
+
+	@Test
+	public void appliesDescendantSelectorsForEachElement() {
+		TestElementInfo div = new TestElementInfo(null, "div", null);
+		TestElementInfo span = new TestElementInfo(null, "span", null);
+		assertEquals("1 4 6 7", apply(new TestElementInfo(div, "p", null)));
+		assertEquals("1 4 6", apply(new TestElementInfo(span, "p", null)));
+		assertEquals("1 4 6 7", apply(new TestElementInfo(new TestElementInfo(div, "span", null), "p", null)));
+	}
+
+	private String apply(ElementInfo elementInfo) {
+		final List<String> values = new ArrayList<String>();
+		stylesheet.applyTo(elementInfo, new Receiver() {
+
+			@Override
+			public void apply(CssRule rule) {
+				values.add(rule.value);
+			}
+		});
+		StringBuilder result = new StringBuilder();
+		for (String value : values) {
+			if (result.length() > 0) {
+				result.append(' ');
+			}
+			result.append(value);
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class AbstractMarkupLanguageTest {
+
+	private static final String CONTENT = "one\r\ntwo\n\nfour"; //$NON-NLS-1$
+
+	private static class RecordingBlock extends Block {
+
+		private final List<String> lines;
+
+		RecordingBlock(List<String> lines) {
+			this.lines = lines;
+		}
+
+		@Override
+		protected int processLineContent(String line, int offset) {
+			ContentState state = getState();
+			lines.add(String.format("%s:%s:%s:%s:%s", state.getLineNumber(), state.getLineOffset(), line, //$NON-NLS-1$
+					state.getNextLine(), state.getMarkupContent() != null));
+			setClosed(true);
+			return -1;
+		}
+
+		@Override
+		public boolean canStart(String line, int lineOffset) {
+			return true;
+		}
+	}
+
+	private static class TestMarkupLanguage extends AbstractMarkupLanguage {
+
+		private final List<String> lines = new ArrayList<String>();
+
+		private final boolean streaming;
+
+		TestMarkupLanguage(boolean streaming) {
+			this.streaming = streaming;
+		}
+
+		@Override
+		protected void addStandardBlocks(List<Block> blocks, List<Block> paragraphBreakingBlocks) {
+		}
+
+		@Override
+		protected void addStandardPhraseModifiers(PatternBasedSyntax phraseModifierSyntax) {
+		}
+
+		@Override
+		protected void addStandardTokens(PatternBasedSyntax tokenSyntax) {
+		}
+
+		@Override
+		protected Block createParagraphBlock() {
+			return new RecordingBlock(lines);
+		}
+
+		@Override
+		protected boolean isStreamingSupported() {
+			return streaming;
+		}
+	}
+
+	@Test
+	public void processContentString() {
+		TestMarkupLanguage language = new TestMarkupLanguage(true);
+		new MarkupParser(language, new NoOpDocumentBuilder()).parse(CONTENT);
+		assertEquals(ImmutableList.of("1:0:one:two:true", "2:5:two::true", "4:10:four:null:true"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				language.lines);
+	}
+
+	@Test
+	public void processContentReaderStreaming() throws IOException {
+		TestMarkupLanguage language = new TestMarkupLanguage(true);
+		new MarkupParser(language, new NoOpDocumentBuilder()).parse(new StringReader(CONTENT));
+		assertEquals(
+				ImmutableList.of("1:0:one:two:false", "2:5:two::false", "4:10:four:null:false"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				language.lines);
+	}
+
+	@Test
+	public void processContentReaderNotStreaming() throws IOException {
+		TestMarkupLanguage language = new TestMarkupLanguage(false);
+		new MarkupParser(language, new NoOpDocumentBuilder()).parse(new StringReader(CONTENT));
+		assertEquals(ImmutableList.of("1:0:one:two:true", "2:5:two::true", "4:10:four:null:true"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				language.lines);
+	}
+
+	@Test
+	public void processContentReaderEmpty() throws IOException {
+		TestMarkupLanguage language = new TestMarkupLanguage(true);
+		new MarkupParser(language, new NoOpDocumentBuilder()).parse(new StringReader("")); //$NON-NLS-1$
+		assertEquals(ImmutableList.of(), language.lines);
+	}
+
+	@Test
+	public void nextLineUnknownOutsideOfProcessing() {
+		assertNull(new ContentState().getNextLine());
+	}
+}
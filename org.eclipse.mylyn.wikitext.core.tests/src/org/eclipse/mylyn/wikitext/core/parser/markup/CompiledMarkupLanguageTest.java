@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.mylyn.wikitext.core.parser.Attributes;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.BlockType;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder.SpanType;
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage.PatternBasedSyntax;
+import org.eclipse.mylyn.wikitext.core.parser.markup.CompiledMarkupLanguage.Session;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class CompiledMarkupLanguageTest {
+
+	private static final String CONTENT = "one *two* three\nfour *five*"; //$NON-NLS-1$
+
+	private static final String EXPECTED_HTML = "<p>one <strong>two</strong> three</p><p>four <strong>five</strong></p>"; //$NON-NLS-1$
+
+	private static class LineParagraphBlock extends Block {
+
+		@Override
+		protected int processLineContent(String line, int offset) {
+			builder.beginBlock(BlockType.PARAGRAPH, new Attributes());
+			markupLanguage.emitMarkupLine(parser, state, line, offset);
+			builder.endBlock();
+			setClosed(true);
+			return -1;
+		}
+
+		@Override
+		public boolean canStart(String line, int lineOffset) {
+			return true;
+		}
+	}
+
+	private static class StrongPhraseModifier extends PatternBasedElement {
+
+		@Override
+		protected String getPattern(int groupOffset) {
+			return "\\*(\\w+)\\*"; //$NON-NLS-1$
+		}
+
+		@Override
+		protected int getPatternGroupCount() {
+			return 1;
+		}
+
+		@Override
+		protected PatternBasedElementProcessor newProcessor() {
+			return new PatternBasedElementProcessor() {
+
+				@Override
+				public void emit() {
+					builder.beginSpan(SpanType.STRONG, new Attributes());
+					builder.characters(group(1));
+					builder.endSpan();
+				}
+			};
+		}
+	}
+
+	public static class TestMarkupLanguage extends AbstractMarkupLanguage {
+
+		static final AtomicInteger instances = new AtomicInteger();
+
+		public TestMarkupLanguage() {
+			setName("Test"); //$NON-NLS-1$
+			instances.incrementAndGet();
+		}
+
+		@Override
+		protected void addStandardBlocks(List<Block> blocks, List<Block> paragraphBreakingBlocks) {
+		}
+
+		@Override
+		protected void addStandardPhraseModifiers(PatternBasedSyntax phraseModifierSyntax) {
+			phraseModifierSyntax.add(new StrongPhraseModifier());
+		}
+
+		@Override
+		protected void addStandardTokens(PatternBasedSyntax tokenSyntax) {
+		}
+
+		@Override
+		protected Block createParagraphBlock() {
+			return new LineParagraphBlock();
+		}
+	}
+
+	@Rule
+	public final ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void compileRequiresMarkupLanguage() {
+		thrown.expect(NullPointerException.class);
+		CompiledMarkupLanguage.compile(null);
+	}
+
+	@Test
+	public void parse() throws IOException {
+		CompiledMarkupLanguage language = CompiledMarkupLanguage.compile(new TestMarkupLanguage());
+		assertEquals("Test", language.getName()); //$NON-NLS-1$
+		assertEquals(EXPECTED_HTML, parseToHtml(language, CONTENT));
+
+		StringWriter out = new StringWriter();
+		HtmlDocumentBuilder builder = new HtmlDocumentBuilder(out);
+		language.parse(new StringReader(CONTENT), builder, false);
+		assertEquals(EXPECTED_HTML, out.toString());
+	}
+
+	@Test
+	public void parseMatchesMarkupParser() {
+		StringWriter out = new StringWriter();
+		new MarkupParser(new TestMarkupLanguage(), new HtmlDocumentBuilder(out)).parse(CONTENT, false);
+		assertEquals(out.toString(), parseToHtml(CompiledMarkupLanguage.compile(new TestMarkupLanguage()), CONTENT));
+	}
+
+	@Test
+	public void compileCopiesMarkupLanguage() {
+		TestMarkupLanguage markupLanguage = new TestMarkupLanguage();
+		markupLanguage.setBlocksOnly(true);
+		CompiledMarkupLanguage language = CompiledMarkupLanguage.compile(markupLanguage);
+		markupLanguage.setBlocksOnly(false);
+
+		assertEquals("<p>one *two* three</p><p>four *five*</p>", parseToHtml(language, CONTENT)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void sessionsReuseMarkupLanguage() {
+		CompiledMarkupLanguage language = CompiledMarkupLanguage.compile(new TestMarkupLanguage());
+		int instancesBefore = TestMarkupLanguage.instances.get();
+		for (int x = 0; x < 5; ++x) {
+			assertEquals(EXPECTED_HTML, parseToHtml(language, CONTENT));
+		}
+		assertEquals(instancesBefore + 1, TestMarkupLanguage.instances.get());
+	}
+
+	@Test
+	public void sessionParsesMultipleDocuments() {
+		CompiledMarkupLanguage language = CompiledMarkupLanguage.compile(new TestMarkupLanguage());
+		try (Session session = language.openSession()) {
+			for (int x = 0; x < 3; ++x) {
+				StringWriter out = new StringWriter();
+				session.parse(CONTENT, new HtmlDocumentBuilder(out), false);
+				assertEquals(EXPECTED_HTML, out.toString());
+			}
+		}
+	}
+
+	@Test
+	public void closedSession() {
+		Session session = CompiledMarkupLanguage.compile(new TestMarkupLanguage()).openSession();
+		session.close();
+		session.close();
+		thrown.expect(IllegalStateException.class);
+		session.parse(CONTENT, new HtmlDocumentBuilder(new StringWriter()), false);
+	}
+
+	@Test
+	public void parseConcurrently() throws Exception {
+		final CompiledMarkupLanguage language = CompiledMarkupLanguage.compile(new TestMarkupLanguage());
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int x = 0; x < 200; ++x) {
+				final String content = CONTENT + "\nsix *x" + x + "*"; //$NON-NLS-1$ //$NON-NLS-2$
+				results.add(executor.submit(new Callable<String>() {
+
+					@Override
+					public String call() {
+						return parseToHtml(language, content);
+					}
+				}));
+			}
+			for (int x = 0; x < results.size(); ++x) {
+				assertEquals(EXPECTED_HTML + "<p>six <strong>x" + x + "</strong></p>", results.get(x).get()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static String parseToHtml(CompiledMarkupLanguage language, String content) {
+		StringWriter out = new StringWriter();
+		language.parse(content, new HtmlDocumentBuilder(out), false);
+		return out.toString();
+	}
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage.PatternBasedSyntax;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PatternBasedSyntaxTest {
+
+	private static class TestProcessor extends PatternBasedElementProcessor {
+
+		private final String name;
+
+		TestProcessor(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void emit() {
+		}
+	}
+
+	private static class TestElement extends PatternBasedElement {
+
+		private final String name;
+
+		private final String pattern;
+
+		private final int groupCount;
+
+		TestElement(String name, String pattern, int groupCount) {
+			this.name = name;
+			this.pattern = pattern;
+			this.groupCount = groupCount;
+		}
+
+		@Override
+		protected String getPattern(int groupOffset) {
+			return pattern;
+		}
+
+		@Override
+		protected int getPatternGroupCount() {
+			return groupCount;
+		}
+
+		@Override
+		protected PatternBasedElementProcessor newProcessor() {
+			return new TestProcessor(name);
+		}
+	}
+
+	private PatternBasedSyntax syntax;
+
+	@Before
+	public void before() {
+		syntax = new PatternBasedSyntax();
+		syntax.add(new TestElement("bold", "\\*(\\w+)\\*", 1)); //$NON-NLS-1$ //$NON-NLS-2$
+		syntax.add(new TestElement("link", "\\[(\\w+)(?:\\|(\\w+))?\\]", 2)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Test
+	public void findPatternBasedElementEmptySyntax() {
+		assertNull(new PatternBasedSyntax().findPatternBasedElement("text", 0)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void findPatternBasedElementNoMatch() {
+		assertNull(syntax.findPatternBasedElement("no markup here", 0)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void findPatternBasedElement() {
+		TestProcessor processor = (TestProcessor) syntax.findPatternBasedElement("a [target] b", 0); //$NON-NLS-1$
+		assertEquals("link", processor.name); //$NON-NLS-1$
+		assertEquals(2, processor.getLineStartOffset());
+		assertEquals(10, processor.getLineEndOffset());
+		assertEquals("[target]", processor.group(0)); //$NON-NLS-1$
+		assertEquals("target", processor.group(1)); //$NON-NLS-1$
+		assertEquals(3, processor.start(1));
+		assertEquals(9, processor.end(1));
+		assertNull(processor.group(2));
+		assertEquals(-1, processor.start(2));
+		assertEquals(-1, processor.end(2));
+		assertNull(processor.group(3));
+		assertEquals(-1, processor.start(3));
+	}
+
+	@Test
+	public void findPatternBasedElementWithOffset() {
+		String text = "*one* and *two*"; //$NON-NLS-1$
+		TestProcessor processor = (TestProcessor) syntax.findPatternBasedElement(text, 0);
+		assertEquals("one", processor.group(1)); //$NON-NLS-1$
+
+		processor = (TestProcessor) syntax.findPatternBasedElement(text, processor.getLineEndOffset());
+		assertEquals("bold", processor.name); //$NON-NLS-1$
+		assertEquals(10, processor.getLineStartOffset());
+		assertEquals("two", processor.group(1)); //$NON-NLS-1$
+		assertEquals(11, processor.start(1));
+
+		assertNull(syntax.findPatternBasedElement(text, processor.getLineEndOffset()));
+	}
+
+	@Test
+	public void findPatternBasedElementSameFirstCharacter() {
+		syntax = new PatternBasedSyntax();
+		syntax.add(new TestElement("strong", "\\*\\*(\\w+)\\*\\*", 1)); //$NON-NLS-1$ //$NON-NLS-2$
+		syntax.add(new TestElement("bold", "\\*(\\w+)\\*", 1)); //$NON-NLS-1$ //$NON-NLS-2$
+		String text = "**a** *b* **c** *d*"; //$NON-NLS-1$
+		String[] expected = { "strong", "bold", "strong", "bold" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		int offset = 0;
+		for (String name : expected) {
+			TestProcessor processor = (TestProcessor) syntax.findPatternBasedElement(text, offset);
+			assertEquals(name, processor.name);
+			offset = processor.getLineEndOffset();
+		}
+		assertNull(syntax.findPatternBasedElement(text, offset));
+	}
+
+	@Test
+	public void groupByIndexPopulated() {
+		PatternBasedElementProcessor processor = syntax.findPatternBasedElement("a [x|y] b", 0); //$NON-NLS-1$
+		assertEquals(3, processor.groupByIndex.size());
+		assertTrue(processor.groupByIndex.containsKey(0));
+		assertTrue(processor.groupByIndex.containsKey(2));
+	}
+
+	@Test
+	public void processorReusedAfterRelease() {
+		PatternBasedElementProcessor processor = syntax.findPatternBasedElement("*one*", 0); //$NON-NLS-1$
+		syntax.releaseProcessor(processor);
+		assertNull(processor.group(0));
+
+		PatternBasedElementProcessor second = syntax.findPatternBasedElement("x *two* [y|z]", 0); //$NON-NLS-1$
+		assertSame(processor, second);
+		assertEquals("two", second.group(1)); //$NON-NLS-1$
+		assertEquals(3, second.start(1));
+	}
+
+	@Test
+	public void processorNotReusedWithoutRelease() {
+		PatternBasedElementProcessor processor = syntax.findPatternBasedElement("*one*", 0); //$NON-NLS-1$
+		PatternBasedElementProcessor second = syntax.findPatternBasedElement("*two*", 0); //$NON-NLS-1$
+		assertNotSame(processor, second);
+		assertEquals("one", processor.group(1)); //$NON-NLS-1$
+		assertEquals("two", second.group(1)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void processorNotReusedAcrossElements() {
+		PatternBasedElementProcessor processor = syntax.findPatternBasedElement("*one*", 0); //$NON-NLS-1$
+		syntax.releaseProcessor(processor);
+		TestProcessor link = (TestProcessor) syntax.findPatternBasedElement("[a|b]", 0); //$NON-NLS-1$
+		assertNotSame(processor, link);
+		assertEquals("b", link.group(2)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void syntaxModifiedAfterMatch() {
+		assertNull(syntax.findPatternBasedElement("@code@", 0)); //$NON-NLS-1$
+		syntax.add(new TestElement("code", "@(\\w+)@", 1)); //$NON-NLS-1$ //$NON-NLS-2$
+		TestProcessor processor = (TestProcessor) syntax.findPatternBasedElement("@code@", 0); //$NON-NLS-1$
+		assertEquals("code", processor.name); //$NON-NLS-1$
+		assertEquals("code", processor.group(1)); //$NON-NLS-1$
+	}
+
+	@Test
+	public void setGroup() {
+		TestProcessor processor = new TestProcessor("test"); //$NON-NLS-1$
+		assertNull(processor.group(0));
+		assertEquals(-1, processor.start(0));
+
+		processor.setGroup(2, "two", 4, 7); //$NON-NLS-1$
+		assertEquals("two", processor.group(2)); //$NON-NLS-1$
+		assertEquals(4, processor.start(2));
+		assertEquals(7, processor.end(2));
+		assertNull(processor.group(1));
+		assertEquals(-1, processor.start(1));
+		assertEquals(-1, processor.end(1));
+	}
+
+	@Test
+	public void cloneHasIndependentGroups() {
+		PatternBasedElementProcessor processor = syntax.findPatternBasedElement("*one*", 0); //$NON-NLS-1$
+		PatternBasedElementProcessor copy = processor.clone();
+		syntax.releaseProcessor(processor);
+		assertNull(processor.group(1));
+		assertEquals("one", copy.group(1)); //$NON-NLS-1$
+		assertTrue(syntax.findPatternBasedElement("*two*", 0) != copy); //$NON-NLS-1$
+	}
+}
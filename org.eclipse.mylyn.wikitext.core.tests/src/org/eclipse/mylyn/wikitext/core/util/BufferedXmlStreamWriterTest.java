@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import com.google.common.base.Strings;
+
+public class BufferedXmlStreamWriterTest {
+
+	private static final String SPECIAL_CHARACTERS = "a&b<c>d\"e'f\tg\nh\ri\u0000j\u0001k\u001Fl\u007Fm\u0085n\u2028o\uFFFEp\uFFFFq\uFFFDr\u00E9s\u4E2Dt\uD83D\uDE00u";
+
+	@Test
+	public void elements() throws IOException {
+		assertSameOutput(new Content() {
+
+			@Override
+			public void write(XmlStreamWriter writer) {
+				writer.setPrefix("pf", "uri:urn:test");
+				writer.writeStartDocument("utf-8", "1.1");
+				writer.writeStartElement("test");
+				writer.writeNamespace("pf", "uri:urn:test");
+				writer.writeAttribute("uri:urn:test", "a", "testv");
+				writer.writeAttribute("px", "uri:urn:test2", "a", "testv");
+				writer.writeStartElement("uri:urn:test", "child");
+				writer.writeEmptyElement("p", "empty", "uri:urn:p");
+				writer.writeEmptyElement("uri:urn:test", "empty");
+				writer.writeEmptyElement("empty");
+				writer.writeComment("comment");
+				writer.writeCData("one\ntwo");
+				writer.writeEntityRef("#xa");
+				writer.writeLiteral("<literal/>");
+				writer.writeProcessingInstruction("target", "data");
+				writer.writeEndElement();
+				writer.writeEndElement();
+				writer.writeEndDocument();
+			}
+		});
+	}
+
+	@Test
+	public void escaping() throws IOException {
+		assertSameOutput(new Content() {
+
+			@Override
+			public void write(XmlStreamWriter writer) {
+				writer.writeStartElement("test");
+				writer.writeAttribute("a", SPECIAL_CHARACTERS);
+				writer.writeAttribute("b", null);
+				writer.writeCharacters(SPECIAL_CHARACTERS);
+				char[] characters = ("xx" + SPECIAL_CHARACTERS + "xx").toCharArray();
+				writer.writeCharacters(characters, 2, characters.length - 4);
+				writer.writeCharacters(null);
+				writer.writeEndElement();
+			}
+		});
+	}
+
+	@Test
+	public void contentLargerThanBuffer() throws IOException {
+		final String text = Strings.repeat("0123456789<\u00E9\uD83D\uDE00", 5000);
+		assertSameOutput(new Content() {
+
+			@Override
+			public void write(XmlStreamWriter writer) {
+				writer.writeStartElement("test");
+				writer.writeAttribute("a", text);
+				writer.writeCharacters(text);
+				writer.writeLiteral(text);
+				writer.writeEndElement();
+			}
+		});
+	}
+
+	@Test
+	public void surrogatePairAtBufferBoundary() throws IOException {
+		for (int length = 8180; length < 8200; ++length) {
+			final String text = Strings.repeat("x", length) + "\uD83D\uDE00";
+			assertSameOutput(new Content() {
+
+				@Override
+				public void write(XmlStreamWriter writer) {
+					writer.writeLiteral(text);
+				}
+			});
+		}
+	}
+
+	@Test
+	public void unpairedSurrogates() throws IOException {
+		assertSameOutput(new Content() {
+
+			@Override
+			public void write(XmlStreamWriter writer) {
+				writer.writeLiteral("a\uD83Db\uDE00c\uD83D");
+			}
+		});
+	}
+
+	@Test
+	public void xmlHeaderQuoteChar() {
+		StringWriter out = new StringWriter();
+		BufferedXmlStreamWriter writer = new BufferedXmlStreamWriter(out, '"');
+		writer.writeStartDocument("utf-8", "1.0");
+		writer.close();
+		assertEquals("<?xml version=\"1.0\" encoding=\"utf-8\" ?>", out.toString());
+	}
+
+	@Test
+	public void endElementWithoutStartElement() {
+		BufferedXmlStreamWriter writer = new BufferedXmlStreamWriter(new StringWriter());
+		try {
+			writer.writeEndElement();
+			fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void endDocumentWithUnclosedElements() {
+		BufferedXmlStreamWriter writer = new BufferedXmlStreamWriter(new StringWriter());
+		writer.writeStartElement("test");
+		try {
+			writer.writeEndDocument();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("1 elements not closed", e.getMessage());
+		}
+	}
+
+	@Test
+	public void closeMultipleTimes() {
+		StringWriter out = new StringWriter();
+		BufferedXmlStreamWriter writer = new BufferedXmlStreamWriter(out);
+		writer.writeStartDocument();
+		writer.close();
+		writer.close();
+		writer.flush();
+		assertEquals("<?xml version='1.0' ?>", out.toString());
+	}
+
+	private interface Content {
+		void write(XmlStreamWriter writer);
+	}
+
+	private void assertSameOutput(Content content) throws IOException {
+		StringWriter expected = new StringWriter();
+		DefaultXmlStreamWriter defaultWriter = new DefaultXmlStreamWriter(expected);
+		content.write(defaultWriter);
+		defaultWriter.close();
+
+		StringWriter actual = new StringWriter();
+		BufferedXmlStreamWriter writer = new BufferedXmlStreamWriter(actual);
+		content.write(writer);
+		writer.close();
+
+		assertEquals(expected.toString(), actual.toString());
+
+		ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+		defaultWriter = new DefaultXmlStreamWriter(expectedBytes);
+		content.write(defaultWriter);
+		defaultWriter.close();
+
+		ByteArrayOutputStream actualBytes = new ByteArrayOutputStream();
+		writer = new BufferedXmlStreamWriter(actualBytes);
+		content.write(writer);
+		writer.close();
+
+		assertArrayEquals(expectedBytes.toByteArray(), actualBytes.toByteArray());
+	}
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.builder;
+
+import java.util.Arrays;
+
+import org.eclipse.mylyn.wikitext.core.parser.Attributes;
+import org.eclipse.mylyn.wikitext.core.parser.Locator;
+import org.eclipse.mylyn.wikitext.core.parser.builder.EventDocumentBuilder;
+
+/**
+ * An {@link EventDocumentBuilder} that also records the {@link Locator location} of each event, enabling the result of
+ * a single parse to be applied to several builders that depend on the location of events in the markup, such as an
+ * outline builder and a document builder.
+ * 
+ * @author David Green
+ * @see RecordedDocument
+ */
+public class EventRecordingDocumentBuilder extends EventDocumentBuilder {
+
+	private int[] locations = new int[RecordedDocument.LOCATION_SIZE * 256];
+
+	private int size;
+
+	/**
+	 * Provides the events and locations that were recorded as a result of using this builder.
+	 * 
+	 * @return the recorded document
+	 */
+	public RecordedDocument getRecordedDocument() {
+		return new RecordedDocument(getDocumentBuilderEvents(), Arrays.copyOf(locations, size));
+	}
+
+	private void recordLocation() {
+		if (size + RecordedDocument.LOCATION_SIZE > locations.length) {
+			locations = Arrays.copyOf(locations, locations.length * 2);
+		}
+		Locator locator = getLocator();
+		if (locator == null) {
+			Arrays.fill(locations, size, size + RecordedDocument.LOCATION_SIZE, -1);
+		} else {
+			locations[size] = locator.getLineNumber();
+			locations[size + 1] = locator.getLineDocumentOffset();
+			locations[size + 2] = locator.getDocumentOffset();
+			locations[size + 3] = locator.getLineLength();
+			locations[size + 4] = locator.getLineCharacterOffset();
+			locations[size + 5] = locator.getLineSegmentEndOffset();
+		}
+		size += RecordedDocument.LOCATION_SIZE;
+	}
+
+	@Override
+	public void beginDocument() {
+		recordLocation();
+		super.beginDocument();
+	}
+
+	@Override
+	public void endDocument() {
+		recordLocation();
+		super.endDocument();
+	}
+
+	@Override
+	public void beginBlock(BlockType type, Attributes attributes) {
+		recordLocation();
+		super.beginBlock(type, attributes);
+	}
+
+	@Override
+	public void endBlock() {
+		recordLocation();
+		super.endBlock();
+	}
+
+	@Override
+	public void beginSpan(SpanType type, Attributes attributes) {
+		recordLocation();
+		super.beginSpan(type, attributes);
+	}
+
+	@Override
+	public void endSpan() {
+		recordLocation();
+		super.endSpan();
+	}
+
+	@Override
+	public void beginHeading(int level, Attributes attributes) {
+		recordLocation();
+		super.beginHeading(level, attributes);
+	}
+
+	@Override
+	public void endHeading() {
+		recordLocation();
+		super.endHeading();
+	}
+
+	@Override
+	public void characters(String text) {
+		recordLocation();
+		super.characters(text);
+	}
+
+	@Override
+	public void entityReference(String entity) {
+		recordLocation();
+		super.entityReference(entity);
+	}
+
+	@Override
+	public void image(Attributes attributes, String url) {
+		recordLocation();
+		super.image(attributes, url);
+	}
+
+	@Override
+	public void link(Attributes attributes, String hrefOrHashName, String text) {
+		recordLocation();
+		super.link(attributes, hrefOrHashName, text);
+	}
+
+	@Override
+	public void imageLink(Attributes linkAttributes, Attributes imageAttributes, String href, String imageUrl) {
+		recordLocation();
+		super.imageLink(linkAttributes, imageAttributes, href, imageUrl);
+	}
+
+	@Override
+	public void acronym(String text, String definition) {
+		recordLocation();
+		super.acronym(text, definition);
+	}
+
+	@Override
+	public void lineBreak() {
+		recordLocation();
+		super.lineBreak();
+	}
+
+	@Override
+	public void horizontalRule() {
+		recordLocation();
+		super.horizontalRule();
+	}
+
+	@Override
+	public void charactersUnescaped(String literal) {
+		recordLocation();
+		super.charactersUnescaped(literal);
+	}
+}
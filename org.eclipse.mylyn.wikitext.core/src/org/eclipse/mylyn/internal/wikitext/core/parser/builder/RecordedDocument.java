@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.builder;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.Locator;
+import org.eclipse.mylyn.wikitext.core.parser.builder.event.DocumentBuilderEvent;
+import org.eclipse.mylyn.wikitext.core.parser.builder.event.DocumentBuilderEvents;
+
+/**
+ * The result of a single parse of a document as recorded by a {@link EventRecordingDocumentBuilder}: the
+ * {@link DocumentBuilderEvents events} together with the location of each event in the markup. Can be applied to any
+ * number of builders, including those that make use of the {@link DocumentBuilder#getLocator() locator}.
+ * 
+ * @author David Green
+ * @see EventRecordingDocumentBuilder
+ */
+public class RecordedDocument {
+
+	static final int LOCATION_SIZE = 6;
+
+	private final DocumentBuilderEvents events;
+
+	private final int[] locations;
+
+	RecordedDocument(DocumentBuilderEvents events, int[] locations) {
+		this.events = checkNotNull(events);
+		this.locations = checkNotNull(locations);
+	}
+
+	public DocumentBuilderEvents getEvents() {
+		return events;
+	}
+
+	/**
+	 * Invokes the {@link #getEvents() events} on the given {@code builder}, providing the builder with a locator that
+	 * reflects the location of each event as it was recorded.
+	 * 
+	 * @param builder
+	 *            the builder
+	 */
+	public void applyTo(DocumentBuilder builder) {
+		checkNotNull(builder, "Must provide a builder"); //$NON-NLS-1$
+		RecordedLocator locator = new RecordedLocator();
+		builder.setLocator(locator);
+
+		List<DocumentBuilderEvent> eventList = events.getEvents();
+		for (int x = 0; x < eventList.size(); ++x) {
+			locator.offset = x * LOCATION_SIZE;
+			eventList.get(x).invoke(builder);
+		}
+	}
+
+	private class RecordedLocator implements Locator {
+
+		private int offset;
+
+		@Override
+		public int getLineNumber() {
+			return locations[offset];
+		}
+
+		@Override
+		public int getLineDocumentOffset() {
+			return locations[offset + 1];
+		}
+
+		@Override
+		public int getDocumentOffset() {
+			return locations[offset + 2];
+		}
+
+		@Override
+		public int getLineLength() {
+			return locations[offset + 3];
+		}
+
+		@Override
+		public int getLineCharacterOffset() {
+			return locations[offset + 4];
+		}
+
+		@Override
+		public int getLineSegmentEndOffset() {
+			return locations[offset + 5];
+		}
+	}
+}
@@ -26,9 +26,9 @@ public class SplitOutlineItem extends OutlineItem {
 
 	private String splitTarget;
 
-	private Map<String, SplitOutlineItem> outlineItemById;
+	private volatile Map<String, SplitOutlineItem> outlineItemById;
 
-	private List<SplitOutlineItem> pages;
+	private volatile List<SplitOutlineItem> pages;
 
 	public SplitOutlineItem(OutlineItem parent, int level, String id, int offset, int length, String label) {
 		super(parent, level, id, offset, length, label);
@@ -51,7 +51,7 @@ public class SplitOutlineItem extends OutlineItem {
 		}
 		if (pages == null) {
 			final Set<String> pageTargets = new HashSet<String>();
-			pages = new ArrayList<SplitOutlineItem>();
+			final List<SplitOutlineItem> pages = new ArrayList<SplitOutlineItem>();
 			accept(new Visitor() {
 				public boolean visit(OutlineItem item) {
 					SplitOutlineItem split = (SplitOutlineItem) item;
@@ -61,6 +61,7 @@ public class SplitOutlineItem extends OutlineItem {
 					return true;
 				}
 			});
+			this.pages = pages;
 		}
 		return pages;
 	}
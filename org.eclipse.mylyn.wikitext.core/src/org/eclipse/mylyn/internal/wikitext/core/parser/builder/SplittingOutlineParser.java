@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.mylyn.internal.wikitext.core.parser.builder;
 
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.MultiplexingDocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineItem;
 import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineParser;
 
@@ -47,6 +49,37 @@ public class SplittingOutlineParser extends OutlineParser {
 	@Override
 	public SplitOutlineItem parse(String markup) {
 		SplitOutlineItem rootItem = (SplitOutlineItem) super.parse(markup);
+		updateRootLabel(rootItem);
+		return rootItem;
+	}
+
+	/**
+	 * Creates an outline from a document that was previously parsed with the {@link #getMarkupLanguage() markup
+	 * language}, avoiding the need to parse the markup again.
+	 * <p>
+	 * Since the document was parsed in full rather than with blocks only, the labels of the outline items are the
+	 * rendered text of the headings: inline markup such as <code>*bold*</code> or links is not part of the label, only
+	 * the text it renders, and entity references are decoded. The ids, offsets and levels of the items are the same as
+	 * those produced by {@link #parse(String)}.
+	 * </p>
+	 * 
+	 * @param document
+	 *            the recorded document
+	 * @param markupLength
+	 *            the length of the markup from which the document was parsed
+	 * @return the root item of the outline
+	 */
+	public SplitOutlineItem parse(RecordedDocument document, int markupLength) {
+		if (getMarkupLanguage() == null) {
+			throw new IllegalStateException();
+		}
+		SplitOutlineItem rootItem = (SplitOutlineItem) createRootItem();
+		document.applyTo(new EntityDecodingBuilder(createOutlineBuilder(rootItem, markupLength, getMarkupLanguage())));
+		updateRootLabel(rootItem);
+		return rootItem;
+	}
+
+	private void updateRootLabel(SplitOutlineItem rootItem) {
 		if (!rootItem.getChildren().isEmpty()) {
 			SplitOutlineItem firstChild = (SplitOutlineItem) rootItem.getChildren().get(0);
 			if (firstChild.getSplitTarget() == null || firstChild.getSplitTarget().equals(rootItem.getSplitTarget())) {
@@ -55,6 +88,59 @@ public class SplittingOutlineParser extends OutlineParser {
 				rootItem.setLabel(""); //$NON-NLS-1$
 			}
 		}
-		return rootItem;
+	}
+
+	/**
+	 * Passes the events of a recorded document to the outline builder, providing entity references as the text that
+	 * they render so that they appear in labels. Outlines parsed from markup are not affected.
+	 */
+	private static class EntityDecodingBuilder extends MultiplexingDocumentBuilder {
+
+		EntityDecodingBuilder(DocumentBuilder outlineBuilder) {
+			super(outlineBuilder);
+		}
+
+		@Override
+		public void entityReference(String entity) {
+			String text = decodeEntityReference(entity);
+			if (text == null) {
+				super.entityReference(entity);
+			} else {
+				characters(text);
+			}
+		}
+
+		/**
+		 * Decodes numeric entity references and the predefined XML entities. Returns <code>null</code> for other
+		 * entities, which are not included in labels.
+		 */
+		private static String decodeEntityReference(String entity) {
+			if (entity.startsWith("#")) { //$NON-NLS-1$
+				try {
+					int codePoint;
+					if (entity.length() > 1 && (entity.charAt(1) == 'x' || entity.charAt(1) == 'X')) {
+						codePoint = Integer.parseInt(entity.substring(2), 16);
+					} else {
+						codePoint = Integer.parseInt(entity.substring(1));
+					}
+					return new String(Character.toChars(codePoint));
+				} catch (IllegalArgumentException e) {
+					return null;
+				}
+			} else if (entity.equals("amp")) { //$NON-NLS-1$
+				return "&"; //$NON-NLS-1$
+			} else if (entity.equals("lt")) { //$NON-NLS-1$
+				return "<"; //$NON-NLS-1$
+			} else if (entity.equals("gt")) { //$NON-NLS-1$
+				return ">"; //$NON-NLS-1$
+			} else if (entity.equals("quot")) { //$NON-NLS-1$
+				return "\""; //$NON-NLS-1$
+			} else if (entity.equals("apos")) { //$NON-NLS-1$
+				return "'"; //$NON-NLS-1$
+			} else if (entity.equals("nbsp")) { //$NON-NLS-1$
+				return " "; //$NON-NLS-1$
+			}
+			return null;
+		}
 	}
 }
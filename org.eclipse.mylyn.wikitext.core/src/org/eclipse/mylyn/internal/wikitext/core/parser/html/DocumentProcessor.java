@@ -19,6 +19,7 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
+import org.xml.sax.ContentHandler;
 
 /**
  * @author David Green
@@ -26,6 +27,18 @@ import org.jsoup.nodes.TextNode;
 public abstract class DocumentProcessor {
 	public abstract void process(Document document);
 
+	/**
+	 * Creates a filter that applies this processor to the SAX events of a document as it is parsed, for use with a
+	 * {@link StreamingHtmlParser}. The default implementation returns null.
+	 *
+	 * @param contentHandler
+	 *            the handler to which filtered events are passed
+	 * @return the filter, or null if this processor can only process a {@link Document}
+	 */
+	public ContentHandler createStreamingFilter(ContentHandler contentHandler) {
+		return null;
+	}
+
 	/**
 	 * normalize text node children of the given parent element. Ensures that adjacent text nodes are combined into a
 	 * single text node, and whitespace is normalized.
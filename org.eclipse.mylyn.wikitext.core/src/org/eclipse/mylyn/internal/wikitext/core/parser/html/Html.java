@@ -46,11 +46,20 @@ class Html {
 	 * indicate if this is a span element - in that it's inline content rather than block content.
 	 */
 	public static boolean isSpanElement(Element element) {
-		return spanElements.contains(element.tagName().toLowerCase());
+		return isSpanElement(element.tagName());
+	}
+
+	/**
+	 * indicate if the element with the given name is a span element
+	 *
+	 * @see #isSpanElement(Element)
+	 */
+	public static boolean isSpanElement(String elementName) {
+		return spanElements.contains(elementName.toLowerCase());
 	}
 
 	public static boolean isWhitespacePreserve(Element element) {
-		if (element.tagName().equalsIgnoreCase("pre") || element.tagName().equalsIgnoreCase("code")) { //$NON-NLS-1$ //$NON-NLS-2$
+		if (isWhitespacePreserveElement(element.tagName())) {
 			return true;
 		}
 		if (element.parent() != null) {
@@ -59,4 +68,11 @@ class Html {
 		return false;
 	}
 
+	/**
+	 * indicate if whitespace is preserved within the element with the given name, not considering its ancestors
+	 */
+	public static boolean isWhitespacePreserveElement(String elementName) {
+		return elementName.equalsIgnoreCase("pre") || elementName.equalsIgnoreCase("code"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
 }
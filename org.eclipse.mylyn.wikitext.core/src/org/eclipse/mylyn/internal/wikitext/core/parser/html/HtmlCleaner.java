@@ -36,6 +36,10 @@ public class HtmlCleaner {
 		parser.getProcessors().addAll(processors);
 	}
 
+	public void configure(StreamingHtmlParser parser) {
+		parser.getProcessors().addAll(processors);
+	}
+
 	public void apply(Document document) {
 		for (DocumentProcessor processor : processors) {
 			processor.process(document);
@@ -183,30 +183,36 @@ public class HtmlParser extends AbstractSaxHtmlParser {
 	}
 
 	private String readContent(InputSource input) throws IOException {
-		Reader reader = input.getCharacterStream();
+		Reader reader = openReader(input);
 		try {
-			if (reader == null) {
-				InputStream bytes = input.getByteStream();
-				if (bytes == null) {
-					String systemId = input.getSystemId();
-					if (systemId != null) {
-						bytes = new BufferedInputStream(new FileInputStream(systemId));
-					}
-					if (bytes == null) {
-						throw new IllegalArgumentException();
-					}
-				}
-				reader = new InputStreamReader(bytes, input.getEncoding() == null ? "utf-8" : input.getEncoding()); //$NON-NLS-1$
-			}
 			StringWriter writer = new StringWriter(2048);
 			for (int i = reader.read(); i != -1; i = reader.read()) {
 				writer.write(i);
 			}
 			return writer.toString();
 		} finally {
-			if (reader != null) {
-				reader.close();
+			reader.close();
+		}
+	}
+
+	/**
+	 * Opens a reader for the character stream, byte stream or system id of the given input.
+	 */
+	static Reader openReader(InputSource input) throws IOException {
+		Reader reader = input.getCharacterStream();
+		if (reader == null) {
+			InputStream bytes = input.getByteStream();
+			if (bytes == null) {
+				String systemId = input.getSystemId();
+				if (systemId != null) {
+					bytes = new BufferedInputStream(new FileInputStream(systemId));
+				}
+				if (bytes == null) {
+					throw new IllegalArgumentException();
+				}
 			}
+			reader = new InputStreamReader(bytes, input.getEncoding() == null ? "utf-8" : input.getEncoding()); //$NON-NLS-1$
 		}
+		return reader;
 	}
 }
@@ -0,0 +1,348 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.html;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.jsoup.nodes.Entities;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Splits HTML read from a {@link Reader} into text, start tags and end tags as it is read, so that only a bounded
+ * amount of the input is held in memory. Character references are decoded; comments, doctypes and processing
+ * instructions are skipped. The content of <code>script</code>, <code>style</code>, <code>title</code> and
+ * <code>textarea</code> elements is tokenized as text.
+ *
+ * @author David Green
+ * @see StreamingHtmlParser
+ */
+class HtmlTokenizer {
+
+	interface Handler {
+
+		void text(char[] text, int start, int length) throws SAXException;
+
+		/**
+		 * @param name
+		 *            the lower-case element name
+		 * @param attributes
+		 *            the attributes, which the handler may retain
+		 */
+		void startTag(String name, AttributesImpl attributes, boolean selfClosing) throws SAXException;
+
+		void endTag(String name) throws SAXException;
+	}
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final int MAXIMUM_CHARACTER_REFERENCE_LENGTH = 32;
+
+	private final Reader reader;
+
+	private final Handler handler;
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int position;
+
+	private int limit;
+
+	private final StringBuilder text = new StringBuilder();
+
+	private char[] textBuffer = new char[0];
+
+	/**
+	 * the name of the element whose content is tokenized as text, or null
+	 */
+	private String rawTextElement;
+
+	private boolean decodeRawText;
+
+	HtmlTokenizer(Reader reader, Handler handler) {
+		this.reader = reader;
+		this.handler = handler;
+	}
+
+	void tokenize() throws IOException, SAXException {
+		for (int c = read(); c != -1; c = read()) {
+			if (c == '<') {
+				if (rawTextElement == null) {
+					readMarkup();
+				} else {
+					readRawTextMarkup();
+				}
+			} else if (c == '&' && (rawTextElement == null || decodeRawText)) {
+				readCharacterReference(text, false);
+			} else {
+				text.append((char) c);
+			}
+			if (text.length() >= BUFFER_SIZE) {
+				flushText();
+			}
+		}
+		flushText();
+	}
+
+	private void readMarkup() throws IOException, SAXException {
+		int c = peek();
+		if (isLetter(c)) {
+			readStartTag();
+		} else if (c == '/') {
+			read();
+			c = peek();
+			if (isLetter(c)) {
+				String name = readName();
+				skipTo('>');
+				flushText();
+				handler.endTag(name);
+			} else if (c == '>') {
+				read();
+			} else {
+				skipTo('>');
+			}
+		} else if (c == '!') {
+			read();
+			if (peek() == '-') {
+				read();
+				if (peek() == '-') {
+					read();
+					skipComment();
+					return;
+				}
+			}
+			skipTo('>');
+		} else if (c == '?') {
+			skipTo('>');
+		} else {
+			text.append('<');
+		}
+	}
+
+	private void readRawTextMarkup() throws IOException, SAXException {
+		if (peek() == '/') {
+			read();
+			int nameStart = text.length();
+			text.append("</"); //$NON-NLS-1$
+			while (isLetter(peek()) || isDigit(peek())) {
+				text.append((char) read());
+			}
+			String name = text.substring(nameStart + 2);
+			int c = peek();
+			if (name.equalsIgnoreCase(rawTextElement) && (c == -1 || c == '>' || c == '/' || isWhitespace(c))) {
+				text.setLength(nameStart);
+				skipTo('>');
+				flushText();
+				rawTextElement = null;
+				handler.endTag(name.toLowerCase());
+			}
+		} else {
+			text.append('<');
+		}
+	}
+
+	private void readStartTag() throws IOException, SAXException {
+		String name = readName();
+		AttributesImpl attributes = new AttributesImpl();
+		boolean selfClosing = false;
+		for (;;) {
+			skipWhitespace();
+			int c = peek();
+			if (c == -1) {
+				// an unterminated tag is not emitted
+				return;
+			} else if (c == '>') {
+				read();
+				break;
+			} else if (c == '/') {
+				read();
+				selfClosing = peek() == '>';
+			} else {
+				selfClosing = false;
+				readAttribute(attributes);
+			}
+		}
+		flushText();
+		if (name.equals("script") || name.equals("style")) { //$NON-NLS-1$ //$NON-NLS-2$
+			rawTextElement = name;
+			decodeRawText = false;
+		} else if (name.equals("title") || name.equals("textarea")) { //$NON-NLS-1$ //$NON-NLS-2$
+			rawTextElement = name;
+			decodeRawText = true;
+		}
+		handler.startTag(name, attributes, selfClosing);
+	}
+
+	private void readAttribute(AttributesImpl attributes) throws IOException {
+		StringBuilder name = new StringBuilder();
+		for (int c = peek(); c != -1 && c != '>' && c != '/' && (c != '=' || name.length() == 0)
+				&& !isWhitespace(c); c = peek()) {
+			name.append(Character.toLowerCase((char) read()));
+		}
+		skipWhitespace();
+		StringBuilder value = new StringBuilder();
+		if (peek() == '=') {
+			read();
+			skipWhitespace();
+			int quote = peek();
+			if (quote == '"' || quote == '\'') {
+				read();
+				for (int c = read(); c != -1 && c != quote; c = read()) {
+					appendAttributeCharacter(value, c);
+				}
+			} else {
+				for (int c = peek(); c != -1 && c != '>' && !isWhitespace(c); c = peek()) {
+					appendAttributeCharacter(value, read());
+				}
+			}
+		}
+		String localName = name.toString();
+		if (attributes.getIndex(localName) == -1) {
+			attributes.addAttribute("", localName, localName, "CDATA", value.toString()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private void appendAttributeCharacter(StringBuilder value, int c) throws IOException {
+		if (c == '&') {
+			readCharacterReference(value, true);
+		} else {
+			value.append((char) c);
+		}
+	}
+
+	/**
+	 * Reads a character reference following a '&amp;', appending the referenced character or the unmodified source
+	 * if it is not a known reference.
+	 */
+	private void readCharacterReference(StringBuilder output, boolean inAttribute) throws IOException {
+		StringBuilder reference = new StringBuilder();
+		if (peek() == '#') {
+			read();
+			boolean hex = false;
+			if (peek() == 'x' || peek() == 'X') {
+				reference.append((char) read());
+				hex = true;
+			}
+			int digitsStart = reference.length();
+			while (reference.length() < MAXIMUM_CHARACTER_REFERENCE_LENGTH
+					&& (isDigit(peek()) || (hex && Character.digit(peek(), 16) != -1))) {
+				reference.append((char) read());
+			}
+			if (reference.length() == digitsStart) {
+				output.append("&#").append(reference); //$NON-NLS-1$
+				return;
+			}
+			if (peek() == ';') {
+				read();
+			}
+			int codePoint;
+			try {
+				codePoint = Integer.parseInt(reference.substring(digitsStart), hex ? 16 : 10);
+			} catch (NumberFormatException e) {
+				codePoint = -1;
+			}
+			if (codePoint <= 0 || codePoint > Character.MAX_CODE_POINT || (codePoint >= 0xD800 && codePoint <= 0xDFFF)) {
+				output.append('\uFFFD');
+			} else {
+				output.appendCodePoint(codePoint);
+			}
+		} else {
+			while (reference.length() < MAXIMUM_CHARACTER_REFERENCE_LENGTH && (isLetter(peek()) || isDigit(peek()))) {
+				reference.append((char) read());
+			}
+			String name = reference.toString();
+			if (peek() == ';' && Entities.isNamedEntity(name)) {
+				read();
+				output.append(Entities.getCharacterByName(name).charValue());
+			} else if (name.length() > 0 && Entities.isBaseNamedEntity(name) && !(inAttribute && peek() == '=')) {
+				output.append(Entities.getCharacterByName(name).charValue());
+			} else {
+				output.append('&').append(name);
+			}
+		}
+	}
+
+	private String readName() throws IOException {
+		StringBuilder name = new StringBuilder();
+		for (int c = peek(); c != -1 && c != '>' && c != '/' && !isWhitespace(c); c = peek()) {
+			name.append(Character.toLowerCase((char) read()));
+		}
+		return name.toString();
+	}
+
+	private void skipComment() throws IOException {
+		int dashes = 0;
+		for (int c = read(); c != -1; c = read()) {
+			if (c == '>' && dashes >= 2) {
+				return;
+			}
+			dashes = c == '-' ? dashes + 1 : 0;
+		}
+	}
+
+	private void skipTo(char terminator) throws IOException {
+		for (int c = read(); c != -1 && c != terminator; c = read()) {
+			// skip
+		}
+	}
+
+	private void skipWhitespace() throws IOException {
+		while (isWhitespace(peek())) {
+			read();
+		}
+	}
+
+	private void flushText() throws SAXException {
+		int length = text.length();
+		if (length > 0) {
+			if (textBuffer.length < length) {
+				textBuffer = new char[Math.max(length, BUFFER_SIZE)];
+			}
+			text.getChars(0, length, textBuffer, 0);
+			text.setLength(0);
+			handler.text(textBuffer, 0, length);
+		}
+	}
+
+	private int read() throws IOException {
+		int c = peek();
+		if (c != -1) {
+			++position;
+		}
+		return c;
+	}
+
+	private int peek() throws IOException {
+		if (position == limit) {
+			limit = reader.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return -1;
+			}
+		}
+		return buffer[position];
+	}
+
+	private static boolean isLetter(int c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	private static boolean isDigit(int c) {
+		return c >= '0' && c <= '9';
+	}
+
+	static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+	}
+}
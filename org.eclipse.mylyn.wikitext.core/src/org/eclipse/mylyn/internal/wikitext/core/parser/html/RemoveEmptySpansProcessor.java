@@ -11,12 +11,17 @@
 
 package org.eclipse.mylyn.internal.wikitext.core.parser.html;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 
 /**
  * @author David Green
@@ -77,4 +82,157 @@ class RemoveEmptySpansProcessor extends DocumentProcessor {
 		} while (modifiedOne);
 	}
 
+	@Override
+	public ContentHandler createStreamingFilter(ContentHandler contentHandler) {
+		return new Filter(contentHandler);
+	}
+
+	/**
+	 * Applies the rules of this processor to a stream of events. Start tags of span elements are held until their
+	 * content is known, so that spans that are empty or contain only whitespace can be removed, and a <code>br</code>
+	 * that is the first child of held spans is emitted before them. A <code>br</code> is held after it is parsed so
+	 * that it can be moved after the end of spans of which it is the last child.
+	 */
+	private static class Filter extends StreamingHtmlFilter {
+
+		private static class OpenElement {
+
+			final String name;
+
+			final Attributes attributes;
+
+			boolean started;
+
+			OpenElement(String name, Attributes attributes) {
+				this.name = name;
+				this.attributes = attributes;
+			}
+		}
+
+		private static final String BR = "br"; //$NON-NLS-1$
+
+		private final List<OpenElement> openElements = new ArrayList<OpenElement>();
+
+		/**
+		 * the index of the outermost span whose start tag is held, or -1
+		 */
+		private int firstPendingIndex = -1;
+
+		/**
+		 * whitespace held within the innermost held span
+		 */
+		private final StringBuilder pendingText = new StringBuilder();
+
+		private final List<Attributes> pendingBreaks = new ArrayList<Attributes>();
+
+		private boolean inBreak;
+
+		Filter(ContentHandler contentHandler) {
+			super(contentHandler);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+			if (localName.equals(BR)) {
+				inBreak = true;
+				if (firstPendingIndex != -1 && pendingText.length() == 0) {
+					// first child of held spans
+					emitEmptyElement(BR, atts);
+				} else {
+					emitPendingBreaks();
+					flushPending();
+					pendingBreaks.add(new AttributesImpl(atts));
+				}
+				return;
+			}
+			emitPendingBreaks();
+			if (Html.isSpanElement(localName) && !openElements.isEmpty()) {
+				if (pendingText.length() > 0) {
+					flushPending();
+				}
+				if (firstPendingIndex == -1) {
+					firstPendingIndex = openElements.size();
+				}
+				openElements.add(new OpenElement(localName, new AttributesImpl(atts)));
+			} else {
+				flushPending();
+				OpenElement element = new OpenElement(localName, atts);
+				element.started = true;
+				openElements.add(element);
+				super.startElement(uri, localName, qName, atts);
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			if (inBreak) {
+				inBreak = false;
+				return;
+			}
+			OpenElement element = openElements.remove(openElements.size() - 1);
+			if (!element.started) {
+				// the span is empty or contains only whitespace, so it is removed
+				if (firstPendingIndex == openElements.size()) {
+					firstPendingIndex = -1;
+					emitPendingText();
+				}
+				return;
+			}
+			if (!Html.isSpanElement(element.name)) {
+				emitPendingBreaks();
+			}
+			super.endElement(uri, localName, qName);
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			emitPendingBreaks();
+			if (firstPendingIndex != -1) {
+				int x = 0;
+				while (x < length && isWhitespace(ch[start + x])) {
+					++x;
+				}
+				if (x == length) {
+					pendingText.append(ch, start, length);
+					return;
+				}
+				flushPending();
+			}
+			super.characters(ch, start, length);
+		}
+
+		@Override
+		public void endDocument() throws SAXException {
+			emitPendingBreaks();
+			super.endDocument();
+		}
+
+		private void flushPending() throws SAXException {
+			if (firstPendingIndex != -1) {
+				for (int x = firstPendingIndex; x < openElements.size(); ++x) {
+					OpenElement element = openElements.get(x);
+					emitStartElement(element.name, element.attributes);
+					element.started = true;
+				}
+				firstPendingIndex = -1;
+				emitPendingText();
+			}
+		}
+
+		private void emitPendingText() throws SAXException {
+			if (pendingText.length() > 0) {
+				emitCharacters(pendingText.toString());
+				pendingText.setLength(0);
+			}
+		}
+
+		private void emitPendingBreaks() throws SAXException {
+			if (!pendingBreaks.isEmpty()) {
+				for (Attributes attributes : pendingBreaks) {
+					emitEmptyElement(BR, attributes);
+				}
+				pendingBreaks.clear();
+			}
+		}
+	}
 }
@@ -21,6 +21,10 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.select.Selector;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 
 /**
  * Removes excessive inline styles from HTML,
@@ -29,6 +33,11 @@ import org.jsoup.select.Selector;
  */
 public class RemoveExcessiveStylesProcessor extends DocumentProcessor {
 
+	@Override
+	public ContentHandler createStreamingFilter(ContentHandler contentHandler) {
+		return new Filter(contentHandler);
+	}
+
 	@Override
 	public void process(Document document) {
 		Element body = document.body();
@@ -36,55 +45,11 @@ public class RemoveExcessiveStylesProcessor extends DocumentProcessor {
 		CssParser cssParser = new CssParser();
 
 		for (Element element : Selector.select("[style], font, span", body)) { //$NON-NLS-1$
-			String style = element.attr("style"); //$NON-NLS-1$
-
-			String newStyle = ""; //$NON-NLS-1$
-			List<CssRule> rules = null;
-
-			if (style != null && style.length() > 0) {
-				rules = cssParser.parseBlockContent(style);
-
-				Iterator<CssRule> ruleIt = rules.iterator();
-				while (ruleIt.hasNext()) {
-					CssRule rule = ruleIt.next();
-					if ("color".equals(rule.name)) { //$NON-NLS-1$
-						if (!(rule.value.equalsIgnoreCase("black") || rule.value.equals("#010101"))) { //$NON-NLS-1$//$NON-NLS-2$
-							continue;
-						}
-					} else if ("font-weight".equals(rule.name)) { //$NON-NLS-1$
-						if (rule.value.equalsIgnoreCase("bold") || rule.value.equalsIgnoreCase("bolder")) { //$NON-NLS-1$ //$NON-NLS-2$
-							continue;
-						}
-					} else if ("font-style".equals(rule.name)) { //$NON-NLS-1$
-						if (rule.value.equalsIgnoreCase("bold") || rule.value.equalsIgnoreCase("italic")) { //$NON-NLS-1$ //$NON-NLS-2$
-							continue;
-						}
-					} else if ("text-decoration".equals(rule.name)) { //$NON-NLS-1$
-						if (rule.value.equalsIgnoreCase("underline") || rule.value.equalsIgnoreCase("line-through")) { //$NON-NLS-1$ //$NON-NLS-2$
-							continue;
-						}
-					}
-					ruleIt.remove();
-				}
-			}
-			if ("font".equalsIgnoreCase(element.nodeName())) { //$NON-NLS-1$
-				String color = element.attr("color"); //$NON-NLS-1$
-				if (color != null && color.trim().length() > 0) {
-					if (rules == null) {
-						rules = new ArrayList<CssRule>(1);
-					}
-					rules.add(new CssRule("color", color.trim(), 0, 0, 0, 0)); //$NON-NLS-1$
-				}
-			}
-
-			if (rules != null) {
-				for (CssRule rule : rules) {
-					newStyle += rule.name + ": " + rule.value + ";"; //$NON-NLS-1$ //$NON-NLS-2$
-				}
-			}
+			boolean font = "font".equalsIgnoreCase(element.nodeName()); //$NON-NLS-1$
+			String newStyle = computeStyle(cssParser, element.attr("style"), font ? element.attr("color") : null); //$NON-NLS-1$ //$NON-NLS-2$
 
 			if (newStyle.length() > 0) {
-				if ("font".equalsIgnoreCase(element.nodeName())) { //$NON-NLS-1$
+				if (font) {
 					Element spanElement = document.createElement("span"); //$NON-NLS-1$
 					for (Node child : new ArrayList<Node>(element.childNodes())) {
 						child.remove();
@@ -100,13 +65,65 @@ public class RemoveExcessiveStylesProcessor extends DocumentProcessor {
 				element.removeAttr("style"); //$NON-NLS-1$
 
 				if (("span".equalsIgnoreCase(element.nodeName()) && (element.attr("class").trim().isEmpty())) //$NON-NLS-1$//$NON-NLS-2$
-						|| "font".equalsIgnoreCase(element.nodeName())) { //$NON-NLS-1$
+						|| font) {
 					removeElementPreserveChildren(element);
 				}
 			}
 		}
 	}
 
+	/**
+	 * Computes the style that is retained from the given style.
+	 *
+	 * @param fontColor
+	 *            the color attribute of a font element, or null
+	 * @return the retained style, or an empty string if no style is retained
+	 */
+	static String computeStyle(CssParser cssParser, String style, String fontColor) {
+		String newStyle = ""; //$NON-NLS-1$
+		List<CssRule> rules = null;
+
+		if (style != null && style.length() > 0) {
+			rules = cssParser.parseBlockContent(style);
+
+			Iterator<CssRule> ruleIt = rules.iterator();
+			while (ruleIt.hasNext()) {
+				CssRule rule = ruleIt.next();
+				if ("color".equals(rule.name)) { //$NON-NLS-1$
+					if (!(rule.value.equalsIgnoreCase("black") || rule.value.equals("#010101"))) { //$NON-NLS-1$//$NON-NLS-2$
+						continue;
+					}
+				} else if ("font-weight".equals(rule.name)) { //$NON-NLS-1$
+					if (rule.value.equalsIgnoreCase("bold") || rule.value.equalsIgnoreCase("bolder")) { //$NON-NLS-1$ //$NON-NLS-2$
+						continue;
+					}
+				} else if ("font-style".equals(rule.name)) { //$NON-NLS-1$
+					if (rule.value.equalsIgnoreCase("bold") || rule.value.equalsIgnoreCase("italic")) { //$NON-NLS-1$ //$NON-NLS-2$
+						continue;
+					}
+				} else if ("text-decoration".equals(rule.name)) { //$NON-NLS-1$
+					if (rule.value.equalsIgnoreCase("underline") || rule.value.equalsIgnoreCase("line-through")) { //$NON-NLS-1$ //$NON-NLS-2$
+						continue;
+					}
+				}
+				ruleIt.remove();
+			}
+		}
+		if (fontColor != null && fontColor.trim().length() > 0) {
+			if (rules == null) {
+				rules = new ArrayList<CssRule>(1);
+			}
+			rules.add(new CssRule("color", fontColor.trim(), 0, 0, 0, 0)); //$NON-NLS-1$
+		}
+
+		if (rules != null) {
+			for (CssRule rule : rules) {
+				newStyle += rule.name + ": " + rule.value + ";"; //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		return newStyle;
+	}
+
 	private void removeElementPreserveChildren(Element element) {
 		final Element parent = element.parent();
 		for (Node child : new ArrayList<Node>(element.childNodes())) {
@@ -119,4 +136,66 @@ public class RemoveExcessiveStylesProcessor extends DocumentProcessor {
 			normalizeTextNodes(parent);
 		}
 	}
+
+	/**
+	 * Applies the rules of this processor to each start tag as it is parsed.
+	 */
+	private static class Filter extends StreamingHtmlFilter {
+
+		private final CssParser cssParser = new CssParser();
+
+		/**
+		 * the names of emitted open elements, with null for elements that are removed
+		 */
+		private final List<String> openElements = new ArrayList<String>();
+
+		Filter(ContentHandler contentHandler) {
+			super(contentHandler);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+			int styleIndex = indexOf(atts, "style"); //$NON-NLS-1$
+			boolean font = "font".equalsIgnoreCase(localName); //$NON-NLS-1$
+			if (openElements.isEmpty() || (styleIndex == -1 && !font && !"span".equalsIgnoreCase(localName))) { //$NON-NLS-1$
+				openElements.add(localName);
+				super.startElement(uri, localName, qName, atts);
+				return;
+			}
+			String newStyle = computeStyle(cssParser, styleIndex == -1 ? null : atts.getValue(styleIndex),
+					font ? getValue(atts, "color") : null); //$NON-NLS-1$
+			AttributesImpl attributes;
+			String name = localName;
+			if (newStyle.length() > 0) {
+				if (font) {
+					name = "span"; //$NON-NLS-1$
+					attributes = new AttributesImpl();
+					attributes.addAttribute("", "style", "style", "CDATA", newStyle); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				} else {
+					attributes = new AttributesImpl(atts);
+					attributes.setValue(styleIndex, newStyle);
+				}
+			} else {
+				attributes = new AttributesImpl(atts);
+				if (styleIndex != -1) {
+					attributes.removeAttribute(styleIndex);
+				}
+				String cssClass = getValue(attributes, "class"); //$NON-NLS-1$
+				if (font || (localName.equalsIgnoreCase("span") && (cssClass == null || cssClass.trim().isEmpty()))) { //$NON-NLS-1$
+					openElements.add(null);
+					return;
+				}
+			}
+			openElements.add(name);
+			emitStartElement(name, attributes);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			String name = openElements.remove(openElements.size() - 1);
+			if (name != null) {
+				emitEndElement(name);
+			}
+		}
+	}
 }
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.html;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * A filter of the SAX events of an HTML document, used to apply a {@link DocumentProcessor} while the document is
+ * being parsed. Events are passed on to the next handler unless a subclass overrides them.
+ *
+ * @author David Green
+ * @see DocumentProcessor#createStreamingFilter(ContentHandler)
+ */
+abstract class StreamingHtmlFilter extends XMLFilterImpl {
+
+	protected StreamingHtmlFilter(ContentHandler contentHandler) {
+		setContentHandler(contentHandler);
+	}
+
+	protected void emitStartElement(String name, Attributes attributes) throws SAXException {
+		super.startElement(null, name, name, attributes);
+	}
+
+	protected void emitEndElement(String name) throws SAXException {
+		super.endElement(null, name, name);
+	}
+
+	protected void emitCharacters(String text) throws SAXException {
+		super.characters(text.toCharArray(), 0, text.length());
+	}
+
+	protected void emitEmptyElement(String name, Attributes attributes) throws SAXException {
+		emitStartElement(name, attributes);
+		emitEndElement(name);
+	}
+
+	/**
+	 * Provides the index of the attribute with the given local name.
+	 *
+	 * @return the index, or -1 if there is no such attribute
+	 */
+	protected static int indexOf(Attributes attributes, String localName) {
+		for (int x = 0; x < attributes.getLength(); ++x) {
+			if (localName.equals(attributes.getLocalName(x))) {
+				return x;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Provides the value of the attribute with the given local name.
+	 *
+	 * @return the value, or null if there is no such attribute
+	 */
+	protected static String getValue(Attributes attributes, String localName) {
+		int index = indexOf(attributes, localName);
+		return index == -1 ? null : attributes.getValue(index);
+	}
+
+	protected static boolean isWhitespace(char c) {
+		return HtmlTokenizer.isWhitespace(c);
+	}
+}
@@ -0,0 +1,495 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.html;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.jsoup.parser.Tag;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * An HTML parser that emits SAX events while the input is read, without building a document in memory. Memory use is
+ * bounded by the nesting depth of the document rather than its size, which makes it suitable for converting large
+ * documents. Like {@link HtmlParser} it tolerates malformed HTML, closing elements that are implicitly ended such as
+ * paragraphs, list items and table cells, and reopening misnested formatting elements. Unlike {@link HtmlParser},
+ * formatting elements that are left open at the end of a block do not continue into following blocks.
+ * {@link DocumentProcessor Processors} are applied as {@link DocumentProcessor#createStreamingFilter(ContentHandler)
+ * streaming filters}, and text that the filters emit in adjacent chunks is passed on as a single chunk, as the text of
+ * a DOM node would be.
+ *
+ * @author David Green
+ * @see HtmlTokenizer
+ */
+public class StreamingHtmlParser extends AbstractSaxHtmlParser {
+
+	private static final Set<String> VOID_ELEMENTS = ImmutableSet.of("area", "base", "basefont", "bgsound", "br", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			"col", "embed", "hr", "img", "input", "keygen", "link", "meta", "param", "source", "track", "wbr"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$
+
+	/**
+	 * elements whose content is not part of the body
+	 */
+	private static final Set<String> SKIPPED_ELEMENTS = ImmutableSet.of("script", "style", "title"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private static final Set<String> HEAD_ELEMENTS = ImmutableSet.of("base", "basefont", "bgsound", "link", "meta", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			"noscript", "script", "style", "title"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+	/**
+	 * elements that implicitly end an open paragraph
+	 */
+	private static final Set<String> PARAGRAPH_CLOSING_ELEMENTS = ImmutableSet.of("address", "article", "aside", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"blockquote", "center", "dd", "details", "dir", "div", "dl", "dt", "fieldset", "figcaption", "figure", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$
+			"footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header", "hgroup", "hr", "li", "listing", "menu", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$ //$NON-NLS-13$ //$NON-NLS-14$
+			"nav", "ol", "p", "plaintext", "pre", "section", "summary", "table", "ul"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$
+
+	/**
+	 * inline elements that are reopened when they are implicitly closed by the end tag of a misnested inline element
+	 */
+	private static final Set<String> FORMATTING_ELEMENTS = ImmutableSet.of("a", "b", "big", "code", "em", "font", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+			"i", "nobr", "s", "small", "strike", "strong", "tt", "u"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+
+	private static final Set<String> HEADING_ELEMENTS = ImmutableSet.of("h1", "h2", "h3", "h4", "h5", "h6"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+	/**
+	 * elements that limit the scope in which an open element is found
+	 */
+	private static final Set<String> SCOPE_ELEMENTS = ImmutableSet.of("applet", "caption", "html", "marquee", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			"object", "table", "td", "th"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+
+	private static final Set<String> LIST_SCOPE_ELEMENTS = ImmutableSet.<String> builder()
+			.addAll(SCOPE_ELEMENTS)
+			.add("ol", "ul") //$NON-NLS-1$ //$NON-NLS-2$
+			.build();
+
+	private static final Set<String> DEFINITION_SCOPE_ELEMENTS = ImmutableSet.<String> builder()
+			.addAll(SCOPE_ELEMENTS)
+			.add("dl") //$NON-NLS-1$
+			.build();
+
+	private static final Set<String> TABLE_SCOPE_ELEMENTS = ImmutableSet.of("html", "table"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final Set<String> ROW_SCOPE_ELEMENTS = ImmutableSet.of("html", "table", "tbody", "tfoot", "thead"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+	private static final Set<String> CELL_SCOPE_ELEMENTS = ImmutableSet.of("html", "table", "tr"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private static final Set<String> TABLE_SECTION_ELEMENTS = ImmutableSet.of("tbody", "tfoot", "thead"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private static final Set<String> TABLE_CELL_ELEMENTS = ImmutableSet.of("td", "th"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final Set<String> DEFINITION_ELEMENTS = ImmutableSet.of("dd", "dt"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final String BODY = "body"; //$NON-NLS-1$
+
+	private List<DocumentProcessor> processors = new ArrayList<DocumentProcessor>();
+
+	@Override
+	protected void parse(InputSource input, DocumentBuilder builder, ContentHandler contentHandler) throws IOException,
+			SAXException {
+		ContentHandler handler = new TextCoalescingFilter(contentHandler);
+		for (int x = processors.size() - 1; x >= 0; --x) {
+			DocumentProcessor processor = processors.get(x);
+			handler = processor.createStreamingFilter(handler);
+			if (handler == null) {
+				throw new IllegalStateException(MessageFormat.format("{0} does not support streaming", //$NON-NLS-1$
+						processor.getClass().getName()));
+			}
+		}
+		Reader reader = HtmlParser.openReader(input);
+		try {
+			TreeBuilder treeBuilder = new TreeBuilder(handler);
+			treeBuilder.start();
+			new HtmlTokenizer(reader, treeBuilder).tokenize();
+			treeBuilder.end();
+		} finally {
+			reader.close();
+		}
+	}
+
+	public List<DocumentProcessor> getProcessors() {
+		return processors;
+	}
+
+	public void setProcessors(List<DocumentProcessor> processors) {
+		this.processors = checkNotNull(processors);
+	}
+
+	/**
+	 * Balances the tokens of an HTML document into SAX events of a body element, using the stack of open elements to
+	 * determine which elements are implicitly closed.
+	 */
+	private static class TreeBuilder implements HtmlTokenizer.Handler {
+
+		private final ContentHandler contentHandler;
+
+		private final List<String> openElements = new ArrayList<String>();
+
+		private final List<Attributes> openElementAttributes = new ArrayList<Attributes>();
+
+		/**
+		 * formatting elements that were closed by the end tag of an enclosing formatting element, which are reopened
+		 * before subsequent inline content
+		 */
+		private final List<String> closedFormattingElements = new ArrayList<String>();
+
+		private final List<Attributes> closedFormattingElementAttributes = new ArrayList<Attributes>();
+
+		private int preformattedDepth;
+
+		/**
+		 * the element whose content is being skipped, or null
+		 */
+		private String skippedElement;
+
+		private boolean inHead;
+
+		private boolean inBody;
+
+		private boolean previousWhitespace;
+
+		private char[] normalizedText = new char[0];
+
+		TreeBuilder(ContentHandler contentHandler) {
+			this.contentHandler = contentHandler;
+		}
+
+		void start() throws SAXException {
+			contentHandler.startDocument();
+			contentHandler.startElement(null, BODY, BODY, new AttributesImpl());
+		}
+
+		void end() throws SAXException {
+			closeTo(0);
+			contentHandler.endElement(null, BODY, BODY);
+			contentHandler.endDocument();
+		}
+
+		@Override
+		public void text(char[] text, int start, int length) throws SAXException {
+			if (skippedElement != null) {
+				return;
+			}
+			if (inHead) {
+				if (isWhitespace(text, start, length)) {
+					return;
+				}
+				inHead = false;
+			}
+			inBody = true;
+			reopenFormattingElements();
+			if (preformattedDepth > 0) {
+				contentHandler.characters(text, start, length);
+			} else {
+				if (normalizedText.length < length) {
+					normalizedText = new char[length];
+				}
+				int normalizedLength = 0;
+				for (int x = start; x < start + length; ++x) {
+					char c = text[x];
+					if (HtmlTokenizer.isWhitespace(c)) {
+						if (previousWhitespace) {
+							continue;
+						}
+						previousWhitespace = true;
+						c = ' ';
+					} else {
+						previousWhitespace = false;
+					}
+					normalizedText[normalizedLength++] = c;
+				}
+				if (normalizedLength > 0) {
+					contentHandler.characters(normalizedText, 0, normalizedLength);
+				}
+			}
+		}
+
+		@Override
+		public void startTag(String name, AttributesImpl attributes, boolean selfClosing) throws SAXException {
+			previousWhitespace = false;
+			if (skippedElement != null) {
+				return;
+			}
+			if (name.equals("html")) { //$NON-NLS-1$
+				return;
+			}
+			if (name.equals(BODY)) {
+				inHead = false;
+				inBody = true;
+				return;
+			}
+			if (name.equals("head")) { //$NON-NLS-1$
+				inHead = !inBody;
+				return;
+			}
+			if (inHead && !HEAD_ELEMENTS.contains(name)) {
+				inHead = false;
+			}
+			if (SKIPPED_ELEMENTS.contains(name) && (inHead || !name.equals("title"))) { //$NON-NLS-1$
+				skippedElement = name;
+				return;
+			}
+			if (inHead) {
+				return;
+			}
+			inBody = true;
+			closeImpliedElements(name);
+			if (PARAGRAPH_CLOSING_ELEMENTS.contains(name) || ROW_SCOPE_ELEMENTS.contains(name)
+					|| TABLE_CELL_ELEMENTS.contains(name) || name.equals("tr")) { //$NON-NLS-1$
+				clearClosedFormattingElements();
+			} else {
+				reopenFormattingElements();
+			}
+
+			contentHandler.startElement(null, name, name, attributes);
+			if (VOID_ELEMENTS.contains(name) || (selfClosing && !Tag.isKnownTag(name))) {
+				contentHandler.endElement(null, name, name);
+			} else {
+				openElements.add(name);
+				openElementAttributes.add(attributes);
+				if (name.equals("pre") || name.equals("textarea")) { //$NON-NLS-1$ //$NON-NLS-2$
+					++preformattedDepth;
+				}
+			}
+		}
+
+		@Override
+		public void endTag(String name) throws SAXException {
+			previousWhitespace = false;
+			if (skippedElement != null) {
+				if (skippedElement.equals(name)) {
+					skippedElement = null;
+				}
+				return;
+			}
+			if (name.equals("head")) { //$NON-NLS-1$
+				inHead = false;
+				return;
+			}
+			if (inHead || name.equals("html") || name.equals(BODY)) { //$NON-NLS-1$
+				return;
+			}
+			if (name.equals("br")) { //$NON-NLS-1$
+				startTag(name, new AttributesImpl(), false);
+				return;
+			}
+			int index;
+			if (HEADING_ELEMENTS.contains(name)) {
+				index = lastIndexOf(HEADING_ELEMENTS, SCOPE_ELEMENTS);
+			} else if (name.equals("li")) { //$NON-NLS-1$
+				index = lastIndexOf(name, LIST_SCOPE_ELEMENTS);
+			} else if (TABLE_CELL_ELEMENTS.contains(name)) {
+				index = lastIndexOf(name, CELL_SCOPE_ELEMENTS);
+			} else if (name.equals("tr")) { //$NON-NLS-1$
+				index = lastIndexOf(name, ROW_SCOPE_ELEMENTS);
+			} else if (TABLE_SECTION_ELEMENTS.contains(name) || name.equals("caption")) { //$NON-NLS-1$
+				index = lastIndexOf(name, TABLE_SCOPE_ELEMENTS);
+			} else if (name.equals("table")) { //$NON-NLS-1$
+				index = lastIndexOf(name, ImmutableSet.<String> of());
+			} else {
+				index = lastIndexOf(name, SCOPE_ELEMENTS);
+			}
+			if (FORMATTING_ELEMENTS.contains(name)) {
+				if (index == -1) {
+					int closedIndex = closedFormattingElements.lastIndexOf(name);
+					if (closedIndex != -1) {
+						closedFormattingElements.remove(closedIndex);
+						closedFormattingElementAttributes.remove(closedIndex);
+					}
+				} else {
+					for (int x = index + 1; x < openElements.size(); ++x) {
+						if (FORMATTING_ELEMENTS.contains(openElements.get(x))) {
+							closedFormattingElements.add(openElements.get(x));
+							closedFormattingElementAttributes.add(openElementAttributes.get(x));
+						}
+					}
+					closeTo(index);
+				}
+			} else if (index != -1) {
+				clearClosedFormattingElements();
+				closeTo(index);
+			}
+		}
+
+		private void reopenFormattingElements() throws SAXException {
+			if (!closedFormattingElements.isEmpty()) {
+				for (int x = 0; x < closedFormattingElements.size(); ++x) {
+					String name = closedFormattingElements.get(x);
+					Attributes attributes = closedFormattingElementAttributes.get(x);
+					contentHandler.startElement(null, name, name, attributes);
+					openElements.add(name);
+					openElementAttributes.add(attributes);
+				}
+				clearClosedFormattingElements();
+			}
+		}
+
+		private void clearClosedFormattingElements() {
+			closedFormattingElements.clear();
+			closedFormattingElementAttributes.clear();
+		}
+
+		private void closeImpliedElements(String name) throws SAXException {
+			if (PARAGRAPH_CLOSING_ELEMENTS.contains(name)) {
+				closeIfOpen("p", SCOPE_ELEMENTS); //$NON-NLS-1$
+			}
+			if (name.equals("li")) { //$NON-NLS-1$
+				closeIfOpen(name, LIST_SCOPE_ELEMENTS);
+			} else if (DEFINITION_ELEMENTS.contains(name)) {
+				int index = lastIndexOf(DEFINITION_ELEMENTS, DEFINITION_SCOPE_ELEMENTS);
+				if (index != -1) {
+					closeTo(index);
+				}
+			} else if (HEADING_ELEMENTS.contains(name)) {
+				if (!openElements.isEmpty() && HEADING_ELEMENTS.contains(openElements.get(openElements.size() - 1))) {
+					closeTo(openElements.size() - 1);
+				}
+			} else if (TABLE_CELL_ELEMENTS.contains(name)) {
+				int index = lastIndexOf(TABLE_CELL_ELEMENTS, CELL_SCOPE_ELEMENTS);
+				if (index != -1) {
+					closeTo(index);
+				}
+			} else if (name.equals("tr")) { //$NON-NLS-1$
+				closeIfOpen(name, ROW_SCOPE_ELEMENTS);
+			} else if (TABLE_SECTION_ELEMENTS.contains(name)) {
+				int index = lastIndexOf(TABLE_SECTION_ELEMENTS, TABLE_SCOPE_ELEMENTS);
+				if (index != -1) {
+					closeTo(index);
+				}
+			} else if (name.equals("a") || name.equals("option")) { //$NON-NLS-1$ //$NON-NLS-2$
+				closeIfOpen(name, SCOPE_ELEMENTS);
+			}
+		}
+
+		private void closeIfOpen(String name, Set<String> scope) throws SAXException {
+			int index = lastIndexOf(name, scope);
+			if (index != -1) {
+				closeTo(index);
+			}
+		}
+
+		/**
+		 * Provides the index of the innermost open element with the given name, searching outwards until an element
+		 * that limits the scope.
+		 *
+		 * @return the index, or -1 if there is no such element in scope
+		 */
+		private int lastIndexOf(String name, Set<String> scope) {
+			for (int x = openElements.size() - 1; x >= 0; --x) {
+				String openElement = openElements.get(x);
+				if (openElement.equals(name)) {
+					return x;
+				}
+				if (scope.contains(openElement)) {
+					break;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Provides the index of the innermost open element having one of the given names.
+		 *
+		 * @see #lastIndexOf(String, Set)
+		 */
+		private int lastIndexOf(Set<String> names, Set<String> scope) {
+			for (int x = openElements.size() - 1; x >= 0; --x) {
+				String openElement = openElements.get(x);
+				if (names.contains(openElement)) {
+					return x;
+				}
+				if (scope.contains(openElement)) {
+					break;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Closes the open element at the given index and all elements within it.
+		 */
+		private void closeTo(int index) throws SAXException {
+			for (int x = openElements.size() - 1; x >= index; --x) {
+				String name = openElements.remove(x);
+				openElementAttributes.remove(x);
+				if (name.equals("pre") || name.equals("textarea")) { //$NON-NLS-1$ //$NON-NLS-2$
+					--preformattedDepth;
+				}
+				contentHandler.endElement(null, name, name);
+			}
+		}
+
+		private static boolean isWhitespace(char[] text, int start, int length) {
+			for (int x = start; x < start + length; ++x) {
+				if (!HtmlTokenizer.isWhitespace(text[x])) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Joins adjacent {@link ContentHandler#characters(char[], int, int) characters} events into one, so that whitespace
+	 * which a filter emits separately from the text around it is not taken as whitespace between elements.
+	 */
+	private static class TextCoalescingFilter extends StreamingHtmlFilter {
+
+		private final StringBuilder text = new StringBuilder();
+
+		TextCoalescingFilter(ContentHandler contentHandler) {
+			super(contentHandler);
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			text.append(ch, start, length);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+			flushText();
+			super.startElement(uri, localName, qName, atts);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			flushText();
+			super.endElement(uri, localName, qName);
+		}
+
+		@Override
+		public void endDocument() throws SAXException {
+			flushText();
+			super.endDocument();
+		}
+
+		private void flushText() throws SAXException {
+			if (text.length() > 0) {
+				String chunk = text.toString();
+				text.setLength(0);
+				emitCharacters(chunk);
+			}
+		}
+	}
+}
@@ -21,6 +21,10 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
 import org.jsoup.nodes.TextNode;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 
 import com.google.common.collect.ImmutableSet;
 
@@ -29,7 +33,7 @@ import com.google.common.collect.ImmutableSet;
  */
 class WhitespaceCleanupProcessor extends DocumentProcessor {
 
-	private final Set<String> CHILD_TAGS = ImmutableSet.of("li", "th", "tr", "td"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	private static final Set<String> CHILD_TAGS = ImmutableSet.of("li", "th", "tr", "td"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 
 	@Override
 	public void process(Document document) {
@@ -39,6 +43,11 @@ class WhitespaceCleanupProcessor extends DocumentProcessor {
 		removeWhitespaceImmeditatelyPrecedingBrTags(body);
 	}
 
+	@Override
+	public ContentHandler createStreamingFilter(ContentHandler contentHandler) {
+		return new Filter(contentHandler);
+	}
+
 	private void moveLeadingOrTrailingSpaceOutOfElements(Element body) {
 		Set<Node> affectedParents = new HashSet<Node>();
 		for (Element element : body.getAllElements()) {
@@ -204,4 +213,188 @@ class WhitespaceCleanupProcessor extends DocumentProcessor {
 		return -1;
 	}
 
+	/**
+	 * Applies the whitespace rules of this processor to a stream of events. Start tags are held until their content is
+	 * known, and whitespace is held until the next event, so that whitespace at the start or end of an element can be
+	 * moved out of it:
+	 * <ul>
+	 * <li>whitespace that follows start tags and precedes text is moved before the start tags</li>
+	 * <li>whitespace that is the only text before the first child element or end of an element is moved after the
+	 * element</li>
+	 * <li>whitespace that precedes end tags is moved after the end tags</li>
+	 * <li>whitespace that precedes a <code>br</code>, or separates equal list item, row or cell siblings, is removed</li>
+	 * <li>whitespace at the start or end of the body is removed</li>
+	 * </ul>
+	 */
+	private static class Filter extends StreamingHtmlFilter {
+
+		private static class OpenElement {
+
+			final String name;
+
+			final Attributes attributes;
+
+			boolean started;
+
+			boolean whitespaceAfter;
+
+			OpenElement(String name, Attributes attributes) {
+				this.name = name;
+				this.attributes = attributes;
+			}
+		}
+
+		private final List<OpenElement> openElements = new ArrayList<OpenElement>();
+
+		/**
+		 * the index of the outermost open element whose start tag is held, or -1
+		 */
+		private int firstPendingIndex = -1;
+
+		/**
+		 * indicates that whitespace is held at the current position, which is before held start tags if there are any
+		 */
+		private boolean whitespace;
+
+		/**
+		 * indicates that whitespace is held after held start tags
+		 */
+		private boolean leadingWhitespace;
+
+		private boolean hasContent;
+
+		private String lastEndedElement;
+
+		private int preserveDepth;
+
+		Filter(ContentHandler contentHandler) {
+			super(contentHandler);
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+			if (openElements.isEmpty() || preserveDepth > 0) {
+				OpenElement element = new OpenElement(localName, atts);
+				element.started = true;
+				openElements.add(element);
+				if (Html.isWhitespacePreserveElement(localName)) {
+					++preserveDepth;
+				}
+				super.startElement(uri, localName, qName, atts);
+				return;
+			}
+			if (leadingWhitespace) {
+				openElements.get(openElements.size() - 1).whitespaceAfter = true;
+				leadingWhitespace = false;
+			}
+			if (whitespace && firstPendingIndex == -1) {
+				if (localName.equals("br") //$NON-NLS-1$
+						|| (localName.equals(lastEndedElement) && CHILD_TAGS.contains(localName))) {
+					whitespace = false;
+				}
+			}
+			lastEndedElement = null;
+			if (firstPendingIndex == -1) {
+				firstPendingIndex = openElements.size();
+			}
+			openElements.add(new OpenElement(localName, new AttributesImpl(atts)));
+			if (Html.isWhitespacePreserveElement(localName)) {
+				flushPending();
+				++preserveDepth;
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			OpenElement element = openElements.get(openElements.size() - 1);
+			if (preserveDepth > 0) {
+				if (Html.isWhitespacePreserveElement(element.name)) {
+					--preserveDepth;
+				}
+				if (preserveDepth > 0) {
+					openElements.remove(openElements.size() - 1);
+					super.endElement(uri, localName, qName);
+					return;
+				}
+			}
+			if (openElements.size() == 1) {
+				// whitespace at the end of the body is removed
+				openElements.clear();
+				whitespace = false;
+				leadingWhitespace = false;
+				super.endElement(uri, localName, qName);
+				return;
+			}
+			if (!element.started) {
+				if (leadingWhitespace) {
+					element.whitespaceAfter = true;
+					leadingWhitespace = false;
+				}
+				flushPending();
+			}
+			openElements.remove(openElements.size() - 1);
+			emitEndElement(element.name);
+			if (element.whitespaceAfter) {
+				whitespace = true;
+			}
+			lastEndedElement = element.name;
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) throws SAXException {
+			if (preserveDepth > 0 || openElements.isEmpty()) {
+				super.characters(ch, start, length);
+				return;
+			}
+			int end = start + length;
+			int contentStart = start;
+			while (contentStart < end && isWhitespace(ch[contentStart])) {
+				++contentStart;
+			}
+			if (contentStart == end) {
+				if (length > 0) {
+					if (firstPendingIndex == -1) {
+						whitespace = true;
+					} else {
+						leadingWhitespace = true;
+					}
+				}
+				return;
+			}
+			int contentEnd = end;
+			while (isWhitespace(ch[contentEnd - 1])) {
+				--contentEnd;
+			}
+			if (contentStart > start || leadingWhitespace) {
+				whitespace = true;
+				leadingWhitespace = false;
+			}
+			flushPending();
+			super.characters(ch, contentStart, contentEnd - contentStart);
+			hasContent = true;
+			whitespace = contentEnd < end;
+			lastEndedElement = null;
+		}
+
+		/**
+		 * Emits held whitespace and start tags.
+		 */
+		private void flushPending() throws SAXException {
+			if (whitespace) {
+				if (hasContent) {
+					emitCharacters(" "); //$NON-NLS-1$
+				}
+				whitespace = false;
+			}
+			if (firstPendingIndex != -1) {
+				for (int x = firstPendingIndex; x < openElements.size(); ++x) {
+					OpenElement element = openElements.get(x);
+					emitStartElement(element.name, element.attributes);
+					element.started = true;
+				}
+				firstPendingIndex = -1;
+				hasContent = true;
+			}
+		}
+	}
 }
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A persistent index of the {@link Fingerprint fingerprints} of generated files, used to determine whether a generated
+ * file is up to date without relying on file timestamps. Timestamps are unreliable for this purpose since a fresh
+ * checkout of sources makes every file appear to be modified.
+ * <p>
+ * Generated files are identified by their path relative to the folder containing the index file where possible, so
+ * that the index remains valid when the workspace is moved. A generated file may have additional generated files, such
+ * as the pages of a document that is split into multiple files, which must also exist for it to be up to date.
+ * Instances are safe for use by multiple threads.
+ * </p>
+ * 
+ * @author David Green
+ */
+public class BuildCache {
+
+	private static final int MAGIC = 0x57544263;
+
+	private static final int VERSION = 2;
+
+	private final File file;
+
+	private final Map<String, byte[]> fingerprints = new TreeMap<String, byte[]>();
+
+	private final Map<String, List<String>> additionalOutputs = new TreeMap<String, List<String>>();
+
+	private boolean modified;
+
+	private BuildCache(File file) {
+		this.file = checkNotNull(file);
+	}
+
+	/**
+	 * Loads the cache from the given file. A cache that does not exist or that cannot be read is treated as empty.
+	 * 
+	 * @param file
+	 *            the index file
+	 * @return the cache
+	 */
+	public static BuildCache load(File file) {
+		BuildCache cache = new BuildCache(file);
+		if (file.isFile()) {
+			try {
+				cache.read();
+			} catch (IOException e) {
+				cache.fingerprints.clear();
+				cache.additionalOutputs.clear();
+			}
+		}
+		return cache;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Indicates whether the given generated file and its additional generated files exist and were last generated with
+	 * the given fingerprint.
+	 * 
+	 * @param outputFile
+	 *            the generated file
+	 * @param fingerprint
+	 *            the fingerprint of the inputs to the generated file
+	 * @return true if the file need not be generated again
+	 */
+	public synchronized boolean isUpToDate(File outputFile, byte[] fingerprint) {
+		String key = key(outputFile);
+		if (!outputFile.exists() || !Arrays.equals(fingerprints.get(key), fingerprint)) {
+			return false;
+		}
+		List<String> additionalKeys = additionalOutputs.get(key);
+		if (additionalKeys != null) {
+			for (String additionalKey : additionalKeys) {
+				if (!file(additionalKey).exists()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Records the fingerprint with which the given file was generated.
+	 * 
+	 * @param outputFile
+	 *            the generated file
+	 * @param fingerprint
+	 *            the fingerprint of the inputs to the generated file
+	 */
+	public void update(File outputFile, byte[] fingerprint) {
+		update(outputFile, fingerprint, Collections.<File> emptyList());
+	}
+
+	/**
+	 * Records the fingerprint with which the given file and its additional generated files were generated.
+	 * 
+	 * @param outputFile
+	 *            the generated file
+	 * @param fingerprint
+	 *            the fingerprint of the inputs to the generated file
+	 * @param additionalOutputFiles
+	 *            the other files that were generated with the given file, which must exist for it to be
+	 *            {@link #isUpToDate(File, byte[]) up to date}
+	 */
+	public synchronized void update(File outputFile, byte[] fingerprint, Collection<File> additionalOutputFiles) {
+		String key = key(outputFile);
+		byte[] previous = fingerprints.put(key, checkNotNull(fingerprint).clone());
+		modified |= !Arrays.equals(previous, fingerprint);
+
+		List<String> additionalKeys = new ArrayList<String>(additionalOutputFiles.size());
+		for (File additionalOutputFile : additionalOutputFiles) {
+			additionalKeys.add(key(additionalOutputFile));
+		}
+		List<String> previousAdditionalKeys = additionalKeys.isEmpty()
+				? additionalOutputs.remove(key)
+				: additionalOutputs.put(key, additionalKeys);
+		if (previousAdditionalKeys == null) {
+			previousAdditionalKeys = Collections.emptyList();
+		}
+		modified |= !previousAdditionalKeys.equals(additionalKeys);
+	}
+
+	/**
+	 * Writes the cache to its {@link #getFile() file} if it was modified since it was loaded.
+	 * 
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public synchronized void save() throws IOException {
+		if (!modified) {
+			return;
+		}
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (!parent.exists() && !parent.mkdirs()) {
+			throw new IOException(String.format("Cannot create folder %s", parent)); //$NON-NLS-1$
+		}
+		File tempFile = new File(parent, file.getName() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(fingerprints.size());
+			for (Map.Entry<String, byte[]> entry : fingerprints.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeByte(entry.getValue().length);
+				out.write(entry.getValue());
+				List<String> additionalKeys = additionalOutputs.get(entry.getKey());
+				if (additionalKeys == null) {
+					out.writeInt(0);
+				} else {
+					out.writeInt(additionalKeys.size());
+					for (String additionalKey : additionalKeys) {
+						out.writeUTF(additionalKey);
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+		if (file.exists() && !file.delete()) {
+			throw new IOException(String.format("Cannot replace %s", file)); //$NON-NLS-1$
+		}
+		if (!tempFile.renameTo(file)) {
+			throw new IOException(String.format("Cannot rename %s to %s", tempFile, file)); //$NON-NLS-1$
+		}
+		modified = false;
+	}
+
+	private void read() throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return;
+			}
+			int size = in.readInt();
+			for (int x = 0; x < size; ++x) {
+				String key = in.readUTF();
+				byte[] fingerprint = new byte[in.readUnsignedByte()];
+				in.readFully(fingerprint);
+				fingerprints.put(key, fingerprint);
+				int additionalSize = in.readInt();
+				if (additionalSize > 0) {
+					List<String> additionalKeys = new ArrayList<String>(additionalSize);
+					for (int y = 0; y < additionalSize; ++y) {
+						additionalKeys.add(in.readUTF());
+					}
+					additionalOutputs.put(key, additionalKeys);
+				}
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	private String key(File outputFile) {
+		String path = outputFile.getAbsolutePath();
+		String base = file.getAbsoluteFile().getParent() + File.separator;
+		if (path.startsWith(base)) {
+			path = path.substring(base.length());
+		}
+		return path.replace(File.separatorChar, '/');
+	}
+
+	private File file(String key) {
+		File keyFile = new File(key);
+		if (keyFile.isAbsolute()) {
+			return keyFile;
+		}
+		return new File(file.getAbsoluteFile().getParentFile(), key);
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * Computes a hash of everything that contributes to a generated document, such as the source content, the markup
+ * language and the settings of the builder. Values are added in order, and two fingerprints are equal only if the same
+ * values were added in the same order.
+ * 
+ * @author David Green
+ * @see BuildCache
+ */
+public class Fingerprint {
+
+	private final Hasher hasher = Hashing.sha1().newHasher();
+
+	public Fingerprint add(String value) {
+		if (value == null) {
+			hasher.putInt(-1);
+		} else {
+			hasher.putInt(value.length());
+			hasher.putString(value, Charsets.UTF_8);
+		}
+		return this;
+	}
+
+	public Fingerprint add(boolean value) {
+		hasher.putBoolean(value);
+		return this;
+	}
+
+	public Fingerprint add(int value) {
+		hasher.putInt(value);
+		return this;
+	}
+
+	/**
+	 * Adds the given bytes, such as the {@link #toByteArray() hash} of another fingerprint.
+	 * 
+	 * @param value
+	 *            the bytes
+	 * @return this fingerprint
+	 */
+	public Fingerprint add(byte[] value) {
+		hasher.putInt(value.length);
+		hasher.putBytes(value);
+		return this;
+	}
+
+	/**
+	 * Adds the content of the given file.
+	 * 
+	 * @param file
+	 *            the file
+	 * @return this fingerprint
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	public Fingerprint addContent(File file) throws IOException {
+		return add(Files.hash(file, Hashing.sha1()).asBytes());
+	}
+
+	/**
+	 * Provides the hash of the values that were added. May only be called once.
+	 * 
+	 * @return the hash
+	 */
+	public byte[] toByteArray() {
+		return hasher.hash().asBytes();
+	}
+}
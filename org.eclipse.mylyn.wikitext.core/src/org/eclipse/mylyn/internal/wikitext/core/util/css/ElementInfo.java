@@ -11,6 +11,8 @@
 
 package org.eclipse.mylyn.internal.wikitext.core.util.css;
 
+import java.util.List;
+
 /**
  * An interface to XML element information
  * 
@@ -38,4 +40,18 @@ public interface ElementInfo {
 	 * indicate if the element has the given id
 	 */
 	public boolean hasId(String id);
+
+	/**
+	 * get the id of the element
+	 * 
+	 * @return the id, or null if the element has no id
+	 */
+	public String getId();
+
+	/**
+	 * get the CSS classes of the element
+	 * 
+	 * @return the CSS classes, or an empty list if the element has none
+	 */
+	public List<String> getCssClasses();
 }
@@ -13,16 +13,44 @@ package org.eclipse.mylyn.internal.wikitext.core.util.css;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * An abstraction for a CSS stylesheet.
+ * An abstraction for a CSS stylesheet. Blocks are indexed by the id, CSS class or element name that their selector
+ * requires, so that only the blocks that may apply to an element are considered. The candidate blocks for elements
+ * having the same name, id and CSS classes are computed once and reused.
  * 
  * @author David Green
  */
 public class Stylesheet {
+
+	private static final int MAXIMUM_CACHED_SIGNATURES = 1000;
+
+	private static final Comparator<IndexedBlock> POSITION_ORDER = new Comparator<IndexedBlock>() {
+
+		public int compare(IndexedBlock o1, IndexedBlock o2) {
+			return o1.position - o2.position;
+		}
+	};
+
 	private final List<Block> blocks = new ArrayList<Block>();
 
+	private final Map<String, List<IndexedBlock>> blocksById = new HashMap<String, List<IndexedBlock>>();
+
+	private final Map<String, List<IndexedBlock>> blocksByCssClass = new HashMap<String, List<IndexedBlock>>();
+
+	private final Map<String, List<IndexedBlock>> blocksByName = new HashMap<String, List<IndexedBlock>>();
+
+	private final List<IndexedBlock> universalBlocks = new ArrayList<IndexedBlock>();
+
+	private final Map<String, List<IndexedBlock>> candidatesBySignature = new ConcurrentHashMap<String, List<IndexedBlock>>(
+			16, 0.75f, 1);
+
 	public List<Block> getBlocks() {
 		return Collections.unmodifiableList(blocks);
 	}
@@ -34,9 +62,9 @@ public class Stylesheet {
 	}
 
 	public void applyTo(ElementInfo context, Receiver receiver) {
-		for (Block block : blocks) {
-			if (block.getSelector().select(context)) {
-				for (CssRule rule : block.getRules()) {
+		for (IndexedBlock candidate : getCandidates(context)) {
+			if (candidate.contextFree || candidate.block.getSelector().select(context)) {
+				for (CssRule rule : candidate.block.getRules()) {
 					receiver.apply(rule);
 				}
 			}
@@ -44,6 +72,159 @@ public class Stylesheet {
 	}
 
 	void add(Block block) {
+		IndexedBlock indexedBlock = new IndexedBlock(block, blocks.size());
 		blocks.add(block);
+		index(indexedBlock, block.getSelector());
+		candidatesBySignature.clear();
+	}
+
+	/**
+	 * Provides the blocks that may apply to the given element in stylesheet order. Blocks whose selector depends only on
+	 * the element itself are included only if they apply.
+	 */
+	private List<IndexedBlock> getCandidates(ElementInfo context) {
+		String signature = computeSignature(context);
+		List<IndexedBlock> candidates = candidatesBySignature.get(signature);
+		if (candidates == null) {
+			candidates = computeCandidates(context);
+			if (candidatesBySignature.size() >= MAXIMUM_CACHED_SIGNATURES) {
+				candidatesBySignature.clear();
+			}
+			candidatesBySignature.put(signature, candidates);
+		}
+		return candidates;
+	}
+
+	private List<IndexedBlock> computeCandidates(ElementInfo context) {
+		List<IndexedBlock> indexedBlocks = new ArrayList<IndexedBlock>(universalBlocks);
+		String id = context.getId();
+		if (id != null) {
+			addAll(indexedBlocks, blocksById.get(id));
+		}
+		for (String cssClass : context.getCssClasses()) {
+			addAll(indexedBlocks, blocksByCssClass.get(cssClass));
+		}
+		String localName = context.getLocalName();
+		if (localName != null) {
+			addAll(indexedBlocks, blocksByName.get(localName.toLowerCase(Locale.ENGLISH)));
+		}
+		Collections.sort(indexedBlocks, POSITION_ORDER);
+
+		List<IndexedBlock> candidates = new ArrayList<IndexedBlock>(indexedBlocks.size());
+		IndexedBlock previous = null;
+		for (IndexedBlock indexedBlock : indexedBlocks) {
+			if (indexedBlock != previous
+					&& (!indexedBlock.contextFree || indexedBlock.block.getSelector().select(context))) {
+				candidates.add(indexedBlock);
+			}
+			previous = indexedBlock;
+		}
+		return candidates;
+	}
+
+	private String computeSignature(ElementInfo context) {
+		StringBuilder signature = new StringBuilder();
+		signature.append(context.getLocalName()).append('\n').append(context.getId());
+		for (String cssClass : context.getCssClasses()) {
+			signature.append('\n').append(cssClass);
+		}
+		return signature.toString();
+	}
+
+	private void index(IndexedBlock indexedBlock, Selector selector) {
+		if (selector instanceof CompositeSelector && !((CompositeSelector) selector).isAnd()) {
+			for (Selector alternative : ((CompositeSelector) selector).getComponents()) {
+				index(indexedBlock, alternative);
+			}
+			return;
+		}
+		Selector keySelector = findKeySelector(selector);
+		if (keySelector instanceof IdSelector) {
+			add(blocksById, ((IdSelector) keySelector).getId(), indexedBlock);
+		} else if (keySelector instanceof CssClassSelector) {
+			add(blocksByCssClass, ((CssClassSelector) keySelector).getCssClass(), indexedBlock);
+		} else if (keySelector instanceof NameSelector) {
+			add(blocksByName, ((NameSelector) keySelector).getName().toLowerCase(Locale.ENGLISH), indexedBlock);
+		} else {
+			universalBlocks.add(indexedBlock);
+		}
+	}
+
+	/**
+	 * Finds the most selective condition that an element must satisfy to be selected by the given selector.
+	 * 
+	 * @return an id, CSS class or name selector, or null if there is no such condition
+	 */
+	private Selector findKeySelector(Selector selector) {
+		if (selector instanceof CompositeSelector) {
+			Selector keySelector = null;
+			if (((CompositeSelector) selector).isAnd()) {
+				for (Selector component : ((CompositeSelector) selector).getComponents()) {
+					Selector componentKeySelector = findKeySelector(component);
+					if (rank(componentKeySelector) > rank(keySelector)) {
+						keySelector = componentKeySelector;
+					}
+				}
+			}
+			return keySelector;
+		}
+		return rank(selector) > 0 ? selector : null;
+	}
+
+	private int rank(Selector selector) {
+		if (selector instanceof IdSelector) {
+			return 3;
+		} else if (selector instanceof CssClassSelector) {
+			return 2;
+		} else if (selector instanceof NameSelector) {
+			return 1;
+		}
+		return 0;
+	}
+
+	private static boolean isContextFree(Selector selector) {
+		if (selector instanceof CompositeSelector) {
+			for (Selector component : ((CompositeSelector) selector).getComponents()) {
+				if (!isContextFree(component)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return selector instanceof IdSelector || selector instanceof CssClassSelector
+				|| selector instanceof NameSelector || selector instanceof AnySelector;
+	}
+
+	private static void add(Map<String, List<IndexedBlock>> blocksByKey, String key, IndexedBlock indexedBlock) {
+		List<IndexedBlock> indexedBlocks = blocksByKey.get(key);
+		if (indexedBlocks == null) {
+			indexedBlocks = new ArrayList<IndexedBlock>(2);
+			blocksByKey.put(key, indexedBlocks);
+		}
+		indexedBlocks.add(indexedBlock);
+	}
+
+	private static void addAll(List<IndexedBlock> indexedBlocks, List<IndexedBlock> blocksToAdd) {
+		if (blocksToAdd != null) {
+			indexedBlocks.addAll(blocksToAdd);
+		}
+	}
+
+	private static class IndexedBlock {
+
+		final Block block;
+
+		final int position;
+
+		/**
+		 * indicates whether the selector of the block depends only on the element itself, not on its ancestors
+		 */
+		final boolean contextFree;
+
+		IndexedBlock(Block block, int position) {
+			this.block = block;
+			this.position = position;
+			this.contextFree = isContextFree(block.getSelector());
+		}
 	}
 }
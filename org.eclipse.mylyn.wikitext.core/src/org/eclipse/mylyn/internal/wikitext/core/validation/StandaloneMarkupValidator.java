@@ -13,7 +13,6 @@ package org.eclipse.mylyn.internal.wikitext.core.validation;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
@@ -26,6 +25,7 @@ import java.util.logging.Logger;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.eclipse.mylyn.wikitext.core.validation.MarkupValidator;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationRule;
 import org.w3c.dom.Document;
@@ -42,7 +42,9 @@ public class StandaloneMarkupValidator {
 
 	private static Map<ClassLoader, Map<String, StandaloneMarkupValidator>> validatorCacheByClassLoader = new WeakHashMap<ClassLoader, Map<String, StandaloneMarkupValidator>>();
 
-	private List<ValidationRule> rules = new ArrayList<ValidationRule>();
+	private final MarkupValidator delegate = new MarkupValidator();
+
+	private List<ValidationRule> rules = delegate.getRules();
 
 	private ClassLoader classLoader;
 
@@ -98,19 +100,7 @@ public class StandaloneMarkupValidator {
 	}
 
 	public List<ValidationProblem> validate(String markup, int offset, int length) {
-		if (length == 0 || rules.isEmpty()) {
-			return Collections.emptyList();
-		}
-
-		List<ValidationProblem> problems = new ArrayList<ValidationProblem>();
-
-		for (ValidationRule rule : rules) {
-			problems.addAll(rule.findProblems(markup, offset, length));
-		}
-		if (!problems.isEmpty()) {
-			Collections.sort(problems);
-		}
-		return problems;
+		return delegate.validate(markup, offset, length);
 	}
 
 	public List<ValidationRule> getRules() {
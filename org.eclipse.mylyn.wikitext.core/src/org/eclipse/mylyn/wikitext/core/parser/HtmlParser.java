@@ -16,6 +16,7 @@ import java.io.IOException;
 
 import org.eclipse.mylyn.internal.wikitext.core.parser.html.AbstractSaxHtmlParser;
 import org.eclipse.mylyn.internal.wikitext.core.parser.html.HtmlCleaner;
+import org.eclipse.mylyn.internal.wikitext.core.parser.html.StreamingHtmlParser;
 import org.eclipse.mylyn.internal.wikitext.core.parser.html.XHtmlParser;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
@@ -69,6 +70,32 @@ public class HtmlParser {
 		return new HtmlParser();
 	}
 
+	/**
+	 * Provides a parser instance that converts HTML as it is read, without first parsing the whole input into a
+	 * document. Memory use is bounded by the nesting depth of the input rather than its size, which makes it suitable
+	 * for converting large documents. Malformed HTML is tolerated, though the result may differ from that of
+	 * {@link #instance()} for severely malformed input.
+	 *
+	 * @since 2.9
+	 * @see #streamingInstanceWithHtmlCleanupRules()
+	 */
+	public static HtmlParser streamingInstance() {
+		return new HtmlParser(new StreamingHtmlParser());
+	}
+
+	/**
+	 * Provides a {@link #streamingInstance() streaming parser} instance with cleanup rules that make the result more
+	 * suitable for generating wiki markup.
+	 *
+	 * @since 2.9
+	 * @see #instanceWithHtmlCleanupRules()
+	 */
+	public static HtmlParser streamingInstanceWithHtmlCleanupRules() {
+		StreamingHtmlParser parser = new StreamingHtmlParser();
+		new HtmlCleaner().configure(parser);
+		return new HtmlParser(parser);
+	}
+
 	AbstractSaxHtmlParser getDelegate() {
 		return delegate;
 	}
@@ -73,8 +73,19 @@ public class MarkupParser {
 		parse(markupContent, true);
 	}
 
+	/**
+	 * Parse the markup content read from the given reader. Markup languages that support it process content as it is
+	 * read, without reading the whole document into memory.
+	 * 
+	 * @param markupContent
+	 *            the reader from which content is read, which is not closed by this method
+	 * @param asDocument
+	 *            true if the content should be parsed as a document
+	 * @see MarkupLanguage#processContent(MarkupParser, Reader, boolean)
+	 */
 	public void parse(Reader markupContent, boolean asDocument) throws IOException {
-		parse(readFully(markupContent), asDocument);
+		checkConfigured();
+		markupLanguage.processContent(this, markupContent, asDocument);
 	}
 
 	public void parse(String markupContent) {
@@ -82,22 +93,17 @@ public class MarkupParser {
 	}
 
 	public void parse(String markupContent, boolean asDocument) {
+		checkConfigured();
+		markupLanguage.processContent(this, markupContent, asDocument);
+	}
+
+	private void checkConfigured() {
 		if (markupLanguage == null) {
 			throw new IllegalStateException("markup language is not set"); //$NON-NLS-1$
 		}
 		if (builder == null) {
 			throw new IllegalStateException("builder is not set"); //$NON-NLS-1$
 		}
-		markupLanguage.processContent(this, markupContent, asDocument);
-	}
-
-	private String readFully(Reader reader) throws IOException {
-		StringWriter writer = new StringWriter();
-		int c;
-		while ((c = reader.read()) != -1) {
-			writer.write(c);
-		}
-		return writer.toString();
 	}
 
 	/**
@@ -16,14 +16,14 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.Stack;
 
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.DitaTopicDocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.Attributes;
 import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineItem;
-import org.eclipse.mylyn.wikitext.core.util.DefaultXmlStreamWriter;
+import org.eclipse.mylyn.wikitext.core.util.BufferedXmlStreamWriter;
 import org.eclipse.mylyn.wikitext.core.util.FormattingXMLStreamWriter;
 import org.eclipse.mylyn.wikitext.core.util.XmlStreamWriter;
 
@@ -63,7 +63,9 @@ public class DitaBookMapDocumentBuilder extends AbstractXmlDocumentBuilder imple
 
 	private String titleText;
 
-	private Writer currentTopicOut;
+	private OutputStream currentTopicOut;
+
+	private XmlStreamWriter currentTopicWriter;
 
 	private OutlineItem outline;
 
@@ -181,8 +183,7 @@ public class DitaBookMapDocumentBuilder extends AbstractXmlDocumentBuilder imple
 		if (currentTopic == null) {
 			try {
 				currentTopicFile = computeFile(latestHeadingId);
-				currentTopicOut = new OutputStreamWriter(new BufferedOutputStream(
-						new FileOutputStream(currentTopicFile)), "utf-8"); //$NON-NLS-1$
+				currentTopicOut = new BufferedOutputStream(new FileOutputStream(currentTopicFile));
 			} catch (IOException e1) {
 				throw new IllegalStateException(e1);
 			}
@@ -197,8 +198,8 @@ public class DitaBookMapDocumentBuilder extends AbstractXmlDocumentBuilder imple
 			titleText = ""; //$NON-NLS-1$
 			mapEntryOpen = true;
 
-			currentTopic = new DitaTopicDocumentBuilder(new DefaultXmlStreamWriter(currentTopicOut),
-					formattingDependencies);
+			currentTopicWriter = new BufferedXmlStreamWriter(currentTopicOut);
+			currentTopic = new DitaTopicDocumentBuilder(currentTopicWriter, formattingDependencies);
 			if (topicDoctype != null) {
 				currentTopic.setDoctype(topicDoctype);
 			}
@@ -291,6 +292,8 @@ public class DitaBookMapDocumentBuilder extends AbstractXmlDocumentBuilder imple
 			currentTopic.endDocument();
 			currentTopic = null;
 			if (currentTopicOut != null) {
+				currentTopicWriter.close();
+				currentTopicWriter = null;
 				try {
 					currentTopicOut.close();
 				} catch (IOException e) {
@@ -350,6 +353,8 @@ public class DitaBookMapDocumentBuilder extends AbstractXmlDocumentBuilder imple
 	 */
 	public void close() throws IOException {
 		if (currentTopicOut != null) {
+			currentTopicWriter.close();
+			currentTopicWriter = null;
 			try {
 				currentTopicOut.close();
 			} catch (IOException e) {
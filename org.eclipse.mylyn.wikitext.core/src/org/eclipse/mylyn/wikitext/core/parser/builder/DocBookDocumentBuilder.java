@@ -78,8 +78,22 @@ public class DocBookDocumentBuilder extends AbstractXmlDocumentBuilder {
 		super(writer);
 	}
 
+	/**
+	 * @param writer
+	 *            the writer to which content is written
+	 * @param formatting
+	 *            indicate if the output should be formatted
+	 * @since 2.9
+	 */
+	public DocBookDocumentBuilder(XmlStreamWriter writer, boolean formatting) {
+		super(formatting ? wrapFormatting(writer) : writer);
+	}
+
 	protected XmlStreamWriter createFormattingXmlStreamWriter(Writer out) {
-		XmlStreamWriter writer = super.createXmlStreamWriter(out);
+		return wrapFormatting(super.createXmlStreamWriter(out));
+	}
+
+	private static XmlStreamWriter wrapFormatting(XmlStreamWriter writer) {
 		return new FormattingXMLStreamWriter(writer) {
 			@Override
 			protected boolean preserveWhitespace(String elementName) {
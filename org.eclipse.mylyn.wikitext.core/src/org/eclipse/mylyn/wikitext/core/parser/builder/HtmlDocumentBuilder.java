@@ -182,6 +182,19 @@ public class HtmlDocumentBuilder extends AbstractXmlDocumentBuilder {
 		super(writer);
 	}
 
+	/**
+	 * construct the HtmlDocumentBuilder.
+	 *
+	 * @param writer
+	 *            the writer to which content is written
+	 * @param formatting
+	 *            indicate if the output should be formatted
+	 * @since 2.9
+	 */
+	public HtmlDocumentBuilder(XmlStreamWriter writer, boolean formatting) {
+		super(formatting ? createFormattingXmlStreamWriter(writer) : writer);
+	}
+
 	/**
 	 * Copy the configuration of this builder to the provided one. After calling this method the configuration of the
 	 * other builder should be the same as this one, including stylesheets. Subclasses that have configurable settings
@@ -214,7 +227,14 @@ public class HtmlDocumentBuilder extends AbstractXmlDocumentBuilder {
 	}
 
 	protected static XmlStreamWriter createFormattingXmlStreamWriter(Writer out) {
-		return new FormattingXMLStreamWriter(new DefaultXmlStreamWriter(out)) {
+		return createFormattingXmlStreamWriter(new DefaultXmlStreamWriter(out));
+	}
+
+	/**
+	 * @since 2.9
+	 */
+	protected static XmlStreamWriter createFormattingXmlStreamWriter(XmlStreamWriter writer) {
+		return new FormattingXMLStreamWriter(writer) {
 			@Override
 			protected boolean preserveWhitespace(String elementName) {
 				return elementName.equals("pre") || elementName.equals("code"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -12,9 +12,11 @@
 package org.eclipse.mylyn.wikitext.core.parser.markup;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StringReader;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Stack;
@@ -27,6 +29,10 @@ import org.eclipse.mylyn.wikitext.core.parser.markup.token.ImpliedHyperlinkRepla
 import org.eclipse.mylyn.wikitext.core.parser.outline.OutlineParser;
 import org.eclipse.mylyn.wikitext.core.util.LocationTrackingReader;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 /**
  * a standard implementation of a markup language usually extends this class, which provides default support for common
  * functionality.
@@ -67,6 +73,20 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 	 * @since 2.0
 	 */
 	public static final class PatternBasedSyntax {
+
+		/**
+		 * compiled patterns shared by syntaxes with the same elements, such as those of copies of a markup language
+		 */
+		private static final LoadingCache<String, Pattern> COMPILED_PATTERNS = CacheBuilder.newBuilder()
+				.maximumSize(100)
+				.build(new CacheLoader<String, Pattern>() {
+
+					@Override
+					public Pattern load(String regex) {
+						return Pattern.compile(regex);
+					}
+				});
+
 		protected List<PatternBasedElement> elements = new ArrayList<PatternBasedElement>();
 
 		protected Pattern elementPattern;
@@ -82,12 +102,38 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 			groups.push(new Group());
 		}
 
+		/**
+		 * the matcher of the {@link #elementPattern}, reused for each search
+		 */
+		private Matcher elementMatcher;
+
+		/**
+		 * the {@link #elementGroup element groups} indexed by element
+		 */
+		private int[] elementGroupIndexes;
+
+		/**
+		 * the index of the element whose group starts at each group of the {@link #elementPattern}, or -1
+		 */
+		private int[] elementByGroup;
+
+		/**
+		 * the group of the element that last matched text starting with each ASCII character, or 0
+		 */
+		private final int[] groupByFirstCharacter = new int[128];
+
+		/**
+		 * released processors available for reuse, indexed by element
+		 */
+		private final List<List<PatternBasedElementProcessor>> freeProcessors = new ArrayList<List<PatternBasedElementProcessor>>();
+
 		public PatternBasedSyntax() {
 		}
 
 		public void add(PatternBasedElement element) {
 			elementPattern = null;
 			elements.add(element);
+			freeProcessors.add(new ArrayList<PatternBasedElementProcessor>(1));
 			if (groups.peek().count++ > 0) {
 				patternBuffer.append('|');
 			}
@@ -133,39 +179,99 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 		}
 
 		public PatternBasedElementProcessor findPatternBasedElement(String lineText, int offset) {
-			Matcher matcher = getPattern().matcher(lineText);
+			Matcher matcher = getMatcher();
+			if (matcher == null) {
+				return null;
+			}
+			matcher.reset(lineText);
 			if (offset > 0) {
 				matcher.region(offset, lineText.length());
 			}
 			if (matcher.find()) {
-				int size = elementGroup.size();
-				for (int x = 0; x < size; ++x) {
-					int group = elementGroup.get(x);
-					String value = matcher.group(group);
-					if (value != null) {
-						PatternBasedElement element = elements.get(x);
-						PatternBasedElementProcessor processor = element.newProcessor();
-						processor.setLineStartOffset(matcher.start());
-						processor.setLineEndOffset(matcher.end());
-						processor.setGroup(0, matcher.group(0), matcher.start(0), matcher.end(0));
-						for (int y = 0; y < element.getPatternGroupCount(); ++y) {
-							final int groupIndex = group + y + 1;
-							processor.setGroup(y + 1, matcher.group(groupIndex), matcher.start(groupIndex),
-									matcher.end(groupIndex));
-						}
-						return processor;
-					}
-				}
-				throw new IllegalStateException();
+				int group = findElementGroup(matcher, lineText);
+				int elementIndex = elementByGroup[group];
+				PatternBasedElement element = elements.get(elementIndex);
+				PatternBasedElementProcessor processor = acquireProcessor(elementIndex, element);
+				processor.setLineStartOffset(matcher.start());
+				processor.setLineEndOffset(matcher.end());
+				processor.setGroups(lineText, matcher, group, element.getPatternGroupCount());
+				return processor;
 			} else {
 				return null;
 			}
 		}
 
+		/**
+		 * Find the group of the element that matched. Since elements are usually recognized by the character they
+		 * start with, the group that last matched text starting with the same character is tried first, so that the
+		 * element groups only need to be searched when that guess is wrong.
+		 */
+		private int findElementGroup(Matcher matcher, String lineText) {
+			int start = matcher.start();
+			int firstCharacter = start < lineText.length() ? lineText.charAt(start) : 0;
+			if (firstCharacter < groupByFirstCharacter.length) {
+				int group = groupByFirstCharacter[firstCharacter];
+				if (group != 0 && matcher.start(group) != -1) {
+					return group;
+				}
+			}
+			for (int group : elementGroupIndexes) {
+				if (matcher.start(group) != -1) {
+					if (firstCharacter < groupByFirstCharacter.length) {
+						groupByFirstCharacter[firstCharacter] = group;
+					}
+					return group;
+				}
+			}
+			throw new IllegalStateException();
+		}
+
+		/**
+		 * Release a processor that was provided by {@link #findPatternBasedElement(String, int)}, making it available
+		 * for reuse. The caller must not use the processor after it is released. Processors that are not released are
+		 * simply not reused.
+		 */
+		void releaseProcessor(PatternBasedElementProcessor processor) {
+			if (processor.pool == this && processor.poolElementIndex < freeProcessors.size()) {
+				processor.reset();
+				freeProcessors.get(processor.poolElementIndex).add(processor);
+			}
+		}
+
+		private PatternBasedElementProcessor acquireProcessor(int elementIndex, PatternBasedElement element) {
+			List<PatternBasedElementProcessor> free = freeProcessors.get(elementIndex);
+			if (!free.isEmpty()) {
+				return free.remove(free.size() - 1);
+			}
+			PatternBasedElementProcessor processor = element.newProcessor();
+			processor.pool = this;
+			processor.poolElementIndex = elementIndex;
+			return processor;
+		}
+
+		private Matcher getMatcher() {
+			if (elementMatcher == null || elementMatcher.pattern() != elementPattern) {
+				Pattern pattern = getPattern();
+				if (pattern == null) {
+					return null;
+				}
+				elementMatcher = pattern.matcher(""); //$NON-NLS-1$
+				elementGroupIndexes = new int[elementGroup.size()];
+				elementByGroup = new int[elementMatcher.groupCount() + 1];
+				Arrays.fill(elementByGroup, -1);
+				Arrays.fill(groupByFirstCharacter, 0);
+				for (int x = 0; x < elementGroupIndexes.length; ++x) {
+					elementGroupIndexes[x] = elementGroup.get(x);
+					elementByGroup[elementGroupIndexes[x]] = x;
+				}
+			}
+			return elementMatcher;
+		}
+
 		public Pattern getPattern() {
 			if (elementPattern == null) {
 				if (patternBuffer.length() > 0) {
-					elementPattern = Pattern.compile(patternBuffer.toString());
+					elementPattern = COMPILED_PATTERNS.getUnchecked(patternBuffer.toString());
 				} else {
 					return null;
 				}
@@ -176,7 +282,11 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 		public void clear() {
 			elements.clear();
 			elementPattern = null;
+			elementMatcher = null;
+			elementGroupIndexes = null;
+			elementByGroup = null;
 			elementGroup.clear();
+			freeProcessors.clear();
 			patternBuffer.delete(0, patternBuffer.length());
 			patternGroup = 0;
 			groups.clear();
@@ -185,6 +295,65 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 
 	}
 
+	/**
+	 * Reads lines from a {@link LocationTrackingReader}, keeping the following line so that blocks may look ahead one
+	 * line.
+	 */
+	private static class LookAheadLineReader {
+		private final LocationTrackingReader reader;
+
+		private String nextLine;
+
+		private int nextLineNumber;
+
+		private int nextLineOffset;
+
+		private boolean nextLineRead;
+
+		private int lineNumber = -1;
+
+		private int lineOffset = -1;
+
+		LookAheadLineReader(LocationTrackingReader reader) {
+			this.reader = reader;
+		}
+
+		String readLine() throws IOException {
+			String line;
+			if (nextLineRead) {
+				line = nextLine;
+				lineNumber = nextLineNumber;
+				lineOffset = nextLineOffset;
+			} else {
+				line = reader.readLine();
+				lineNumber = reader.getLineNumber();
+				lineOffset = reader.getLineOffset();
+			}
+			if (line == null) {
+				nextLine = null;
+				nextLineRead = false;
+			} else {
+				nextLine = reader.readLine();
+				nextLineNumber = reader.getLineNumber();
+				nextLineOffset = reader.getLineOffset();
+				nextLineRead = true;
+			}
+			return line;
+		}
+
+		String getNextLine() {
+			return nextLine;
+		}
+
+		int getLineNumber() {
+			return lineNumber;
+		}
+
+		int getLineOffset() {
+			return lineOffset;
+		}
+	}
+
 	private static class LineState {
 		int lineOffset;
 
@@ -232,11 +401,51 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 		ContentState state = newContentState();
 		state.setMarkupContent(markupContent);
 
+		try {
+			processContent(parser, state, new StringReader(markupContent), asDocument);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Process content as it is read if {@link #isStreamingSupported() streaming is supported}, otherwise reads all of
+	 * the content and processes it with {@link #processContent(MarkupParser, String, boolean)}.
+	 */
+	@Override
+	public void processContent(MarkupParser parser, Reader markupContent, boolean asDocument) throws IOException {
+		if (!isStreamingSupported()) {
+			super.processContent(parser, markupContent, asDocument);
+			return;
+		}
+		initializeSyntax(false);
+		initProcessors();
+		ContentState state = newContentState();
+
+		processContent(parser, state, markupContent, asDocument);
+	}
+
+	/**
+	 * Indicate if this markup language is able to process content as it is read, without access to the whole document
+	 * via {@link ContentState#getMarkupContent()}. Blocks of a streaming markup language may look ahead at most one
+	 * line using {@link ContentState#getNextLine()}. Languages that preprocess content, that override
+	 * {@link #processContent(MarkupParser, String, boolean)} or that have blocks which require the whole document (for
+	 * example to produce a table of contents) must not enable streaming. The default is false.
+	 * 
+	 * @return true if content read by {@link #processContent(MarkupParser, Reader, boolean)} can be processed as it is
+	 *         read
+	 * @since 2.9
+	 */
+	protected boolean isStreamingSupported() {
+		return false;
+	}
+
+	private void processContent(MarkupParser parser, ContentState state, Reader markupContent, boolean asDocument)
+			throws IOException {
 		DocumentBuilder builder = parser.getBuilder();
 		builder.setLocator(state);
 
-		@SuppressWarnings("resource")
-		LocationTrackingReader reader = new LocationTrackingReader(new StringReader(markupContent));
+		LookAheadLineReader reader = new LookAheadLineReader(new LocationTrackingReader(markupContent));
 		try {
 			if (asDocument) {
 				builder.beginDocument();
@@ -245,95 +454,92 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 			Stack<LineState> lineStates = null;
 			String line;
 			Block currentBlock = null;
-			try {
-				line = reader.readLine();
-				int lineOffset = 0;
-				while (line != null) {
-
-					state.setLineNumber(reader.getLineNumber() + 1);
-					state.setLineOffset(reader.getLineOffset());
-					state.setLineCharacterOffset(lineOffset);
-					state.setLineSegmentEndOffset(0);
-					state.setLineLength(line.length());
+			line = reader.readLine();
+			int lineOffset = 0;
+			while (line != null) {
 
-					for (;;) {
-						popClosedBlocks(nestedBlocks);
+				state.setLineNumber(reader.getLineNumber() + 1);
+				state.setLineOffset(reader.getLineOffset());
+				state.setNextLine(reader.getNextLine());
+				state.setLineCharacterOffset(lineOffset);
+				state.setLineSegmentEndOffset(0);
+				state.setLineLength(line.length());
+
+				for (;;) {
+					popClosedBlocks(nestedBlocks);
+					if (nestedBlocks != null && !nestedBlocks.isEmpty()) {
+						Block nestedParent = nestedBlocks.peek();
+						int closeOffset = nestedParent.findCloseOffset(line, lineOffset);
+						if (closeOffset != -1) {
+							if (closeOffset > lineOffset) {
+								String truncatedLine = line.substring(0, closeOffset);
+								if (lineStates == null) {
+									lineStates = new Stack<LineState>();
+								}
+								lineStates.push(new LineState(line, closeOffset));
+								line = truncatedLine;
+							} else {
+								if (currentBlock != null) {
+									currentBlock.setClosed(true);
+									currentBlock = null;
+								}
+								currentBlock = nestedBlocks.pop();
+								lineOffset = closeOffset;
+								state.setLineCharacterOffset(lineOffset);
+							}
+						}
+					}
+					if (currentBlock == null) {
 						if (nestedBlocks != null && !nestedBlocks.isEmpty()) {
 							Block nestedParent = nestedBlocks.peek();
-							int closeOffset = nestedParent.findCloseOffset(line, lineOffset);
-							if (closeOffset != -1) {
-								if (closeOffset > lineOffset) {
-									String truncatedLine = line.substring(0, closeOffset);
-									if (lineStates == null) {
-										lineStates = new Stack<LineState>();
-									}
-									lineStates.push(new LineState(line, closeOffset));
-									line = truncatedLine;
-								} else {
-									if (currentBlock != null) {
-										currentBlock.setClosed(true);
-										currentBlock = null;
-									}
-									currentBlock = nestedBlocks.pop();
-									lineOffset = closeOffset;
-									state.setLineCharacterOffset(lineOffset);
-								}
+							if (nestedParent.canResume(line, lineOffset)) {
+								currentBlock = nestedParent;
 							}
 						}
 						if (currentBlock == null) {
-							if (nestedBlocks != null && !nestedBlocks.isEmpty()) {
-								Block nestedParent = nestedBlocks.peek();
-								if (nestedParent.canResume(line, lineOffset)) {
-									currentBlock = nestedParent;
-								}
-							}
+							currentBlock = startBlock(line, lineOffset);
 							if (currentBlock == null) {
-								currentBlock = startBlock(line, lineOffset);
-								if (currentBlock == null) {
-									break;
-								}
-								currentBlock.setMarkupLanguage(this);
-								currentBlock.setState(state);
-								currentBlock.setParser(parser);
+								break;
 							}
+							currentBlock.setMarkupLanguage(this);
+							currentBlock.setState(state);
+							currentBlock.setParser(parser);
 						}
-						lineOffset = currentBlock.processLineContent(line, lineOffset);
-						if (currentBlock.isClosed()) {
-							currentBlock = null;
-						} else if (currentBlock.beginNesting()) {
-							if (nestedBlocks == null) {
-								nestedBlocks = new Stack<Block>();
-							}
-							nestedBlocks.push(currentBlock);
-							currentBlock = null;
-						}
-						if (lineOffset < line.length() && lineOffset >= 0) {
-							if (currentBlock != null) {
-								throw new IllegalStateException(
-										String.format(
-												"if a block does not fully process a line then it must be closed, at or near line %s lineOffset %s, block %s", reader.getLineNumber(), lineOffset, currentBlock.getClass().getName())); //$NON-NLS-1$
-							}
-						} else {
-							break;
+					}
+					lineOffset = currentBlock.processLineContent(line, lineOffset);
+					if (currentBlock.isClosed()) {
+						currentBlock = null;
+					} else if (currentBlock.beginNesting()) {
+						if (nestedBlocks == null) {
+							nestedBlocks = new Stack<Block>();
 						}
+						nestedBlocks.push(currentBlock);
+						currentBlock = null;
 					}
-					if (lineStates != null && !lineStates.isEmpty()) {
-						LineState lineState = lineStates.pop();
-						line = lineState.line;
-						lineOffset = lineState.lineOffset;
+					if (lineOffset < line.length() && lineOffset >= 0) {
+						if (currentBlock != null) {
+							throw new IllegalStateException(
+									String.format(
+											"if a block does not fully process a line then it must be closed, at or near line %s lineOffset %s, block %s", reader.getLineNumber(), lineOffset, currentBlock.getClass().getName())); //$NON-NLS-1$
+						}
 					} else {
-						lineOffset = 0;
-						line = reader.readLine();
+						break;
 					}
 				}
-				state.setLineNumber(reader.getLineNumber() + 1);
-				state.setLineOffset(reader.getLineOffset());
-				state.setLineCharacterOffset(0);
-				state.setLineLength(0);
-
-			} catch (IOException e) {
-				throw new IllegalStateException(e);
+				if (lineStates != null && !lineStates.isEmpty()) {
+					LineState lineState = lineStates.pop();
+					line = lineState.line;
+					lineOffset = lineState.lineOffset;
+				} else {
+					lineOffset = 0;
+					line = reader.readLine();
+				}
 			}
+			state.setLineNumber(reader.getLineNumber() + 1);
+			state.setLineOffset(reader.getLineOffset());
+			state.setNextLine(null);
+			state.setLineCharacterOffset(0);
+			state.setLineLength(0);
 
 			if (currentBlock != null && !currentBlock.isClosed()) {
 				currentBlock.setClosed(true);
@@ -450,6 +656,7 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 				state.setLineSegmentEndOffset(state.getShift() + phraseModifier.getLineEndOffset());
 				phraseModifier.emit();
 				offset = phraseModifier.getLineEndOffset();
+				getPhraseModifierSyntax().releaseProcessor(phraseModifier);
 				if (offset >= line.length()) {
 					break;
 				}
@@ -506,6 +713,7 @@ public abstract class AbstractMarkupLanguage extends MarkupLanguage {
 
 				tokenReplacement.emit();
 				offset = tokenReplacement.getLineEndOffset();
+				getReplacementTokenSyntax().releaseProcessor(tokenReplacement);
 				if (offset >= text.length()) {
 					break;
 				}
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.parser.markup;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+
+/**
+ * A snapshot of a configured {@link MarkupLanguage} that may be used to parse content from many threads concurrently.
+ * <p>
+ * A {@link MarkupLanguage} holds state while it processes content and so may only be used by one thread at a time. A
+ * compiled markup language instead parses each document in a {@link Session session}, which owns a copy of the markup
+ * language whose syntax is initialized on first use and reused by later sessions. Changes made to the markup language
+ * after it is compiled do not affect the compiled markup language.
+ * </p>
+ * 
+ * <pre>
+ * CompiledMarkupLanguage language = CompiledMarkupLanguage.compile(new TextileLanguage());
+ * // from any thread:
+ * language.parse(markupContent, new HtmlDocumentBuilder(writer), true);
+ * </pre>
+ * 
+ * @author David Green
+ * @since 2.9
+ */
+public final class CompiledMarkupLanguage {
+
+	/**
+	 * The state of parsing content with a {@link CompiledMarkupLanguage}. A session is not thread-safe and must be used
+	 * by one thread at a time. Closing the session makes its resources available to other sessions, unless parsing
+	 * failed.
+	 */
+	public static final class Session implements Closeable {
+
+		private final CompiledMarkupLanguage compiledMarkupLanguage;
+
+		private MarkupLanguage markupLanguage;
+
+		private boolean reusable = true;
+
+		Session(CompiledMarkupLanguage compiledMarkupLanguage, MarkupLanguage markupLanguage) {
+			this.compiledMarkupLanguage = compiledMarkupLanguage;
+			this.markupLanguage = markupLanguage;
+		}
+
+		/**
+		 * Parses the given markup content, emitting it to the given builder.
+		 * 
+		 * @param markupContent
+		 *            the content to parse
+		 * @param builder
+		 *            the builder to which the parse results are emitted
+		 * @param asDocument
+		 *            true if the content should be parsed as a document
+		 * @see MarkupParser#parse(String, boolean)
+		 */
+		public void parse(String markupContent, DocumentBuilder builder, boolean asDocument) {
+			MarkupParser parser = createParser(builder);
+			boolean completed = false;
+			try {
+				parser.parse(checkNotNull(markupContent), asDocument);
+				completed = true;
+			} finally {
+				reusable &= completed;
+			}
+		}
+
+		/**
+		 * Parses the markup content read from the given reader, emitting it to the given builder.
+		 * 
+		 * @param markupContent
+		 *            the reader from which content is read, which is not closed by this method
+		 * @param builder
+		 *            the builder to which the parse results are emitted
+		 * @param asDocument
+		 *            true if the content should be parsed as a document
+		 * @see MarkupParser#parse(Reader, boolean)
+		 */
+		public void parse(Reader markupContent, DocumentBuilder builder, boolean asDocument) throws IOException {
+			MarkupParser parser = createParser(builder);
+			boolean completed = false;
+			try {
+				parser.parse(checkNotNull(markupContent), asDocument);
+				completed = true;
+			} finally {
+				reusable &= completed;
+			}
+		}
+
+		private MarkupParser createParser(DocumentBuilder builder) {
+			checkState(markupLanguage != null, "Session is closed"); //$NON-NLS-1$
+			return new MarkupParser(markupLanguage, checkNotNull(builder));
+		}
+
+		@Override
+		public void close() {
+			if (markupLanguage != null) {
+				if (reusable) {
+					compiledMarkupLanguage.release(markupLanguage);
+				}
+				markupLanguage = null;
+			}
+		}
+	}
+
+	/**
+	 * Compiles the given markup language. The markup language is copied, so it may be modified or discarded afterwards
+	 * without affecting the compiled markup language.
+	 * 
+	 * @param markupLanguage
+	 *            the configured markup language
+	 * @return the compiled markup language
+	 */
+	public static CompiledMarkupLanguage compile(MarkupLanguage markupLanguage) {
+		return new CompiledMarkupLanguage(copy(checkNotNull(markupLanguage, "Must provide a markupLanguage"))); //$NON-NLS-1$
+	}
+
+	/**
+	 * Copies the given markup language, including the {@link AbstractMarkupLanguage#isBlocksOnly() blocks only} and
+	 * {@link AbstractMarkupLanguage#isFilterGenerativeContents() filter generative contents} settings that are not
+	 * copied by {@link MarkupLanguage#clone()}.
+	 */
+	private static MarkupLanguage copy(MarkupLanguage markupLanguage) {
+		MarkupLanguage copy = markupLanguage.clone();
+		if (markupLanguage instanceof AbstractMarkupLanguage && copy instanceof AbstractMarkupLanguage) {
+			AbstractMarkupLanguage abstractMarkupLanguage = (AbstractMarkupLanguage) markupLanguage;
+			AbstractMarkupLanguage abstractCopy = (AbstractMarkupLanguage) copy;
+			abstractCopy.setBlocksOnly(abstractMarkupLanguage.isBlocksOnly());
+			abstractCopy.setFilterGenerativeContents(abstractMarkupLanguage.isFilterGenerativeContents());
+		}
+		return copy;
+	}
+
+	private final MarkupLanguage prototype;
+
+	private final Queue<MarkupLanguage> idleMarkupLanguages = new ConcurrentLinkedQueue<MarkupLanguage>();
+
+	private CompiledMarkupLanguage(MarkupLanguage prototype) {
+		this.prototype = prototype;
+	}
+
+	/**
+	 * Provides the name of the compiled markup language.
+	 * 
+	 * @see MarkupLanguage#getName()
+	 */
+	public String getName() {
+		return prototype.getName();
+	}
+
+	/**
+	 * Opens a session for parsing content. The session should be {@link Session#close() closed} when it is no longer
+	 * needed.
+	 * 
+	 * @return the session
+	 */
+	public Session openSession() {
+		MarkupLanguage markupLanguage = idleMarkupLanguages.poll();
+		if (markupLanguage == null) {
+			markupLanguage = newMarkupLanguage();
+		}
+		return new Session(this, markupLanguage);
+	}
+
+	/**
+	 * Parses the given markup content in a new session, emitting it to the given builder.
+	 * 
+	 * @see Session#parse(String, DocumentBuilder, boolean)
+	 */
+	public void parse(String markupContent, DocumentBuilder builder, boolean asDocument) {
+		Session session = openSession();
+		try {
+			session.parse(markupContent, builder, asDocument);
+		} finally {
+			session.close();
+		}
+	}
+
+	/**
+	 * Parses the markup content read from the given reader in a new session, emitting it to the given builder.
+	 * 
+	 * @see Session#parse(Reader, DocumentBuilder, boolean)
+	 */
+	public void parse(Reader markupContent, DocumentBuilder builder, boolean asDocument) throws IOException {
+		Session session = openSession();
+		try {
+			session.parse(markupContent, builder, asDocument);
+		} finally {
+			session.close();
+		}
+	}
+
+	/**
+	 * Provides a new copy of the compiled markup language, for use by callers that require a {@link MarkupLanguage}.
+	 * The copy is owned by the caller.
+	 * 
+	 * @return a new copy of the markup language
+	 */
+	public MarkupLanguage newMarkupLanguage() {
+		synchronized (prototype) {
+			return copy(prototype);
+		}
+	}
+
+	void release(MarkupLanguage markupLanguage) {
+		idleMarkupLanguages.add(markupLanguage);
+	}
+}
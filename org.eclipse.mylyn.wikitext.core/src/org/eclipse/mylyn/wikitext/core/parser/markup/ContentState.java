@@ -32,6 +32,8 @@ public class ContentState implements Locator {
 
 	private final IdGenerator idGenerator = new IdGenerator();
 
+	private String nextLine;
+
 	private int lineNumber = -1;
 
 	private int lineOffset = -1;
@@ -47,6 +49,12 @@ public class ContentState implements Locator {
 	public ContentState() {
 	}
 
+	/**
+	 * Get the markup content that is being processed.
+	 * 
+	 * @return the markup content, or null if the content is processed as it is read
+	 * @see AbstractMarkupLanguage#isStreamingSupported()
+	 */
 	public String getMarkupContent() {
 		return markupContent;
 	}
@@ -112,6 +120,24 @@ public class ContentState implements Locator {
 		this.lineNumber = lineNumber;
 	}
 
+	/**
+	 * Get the line that follows the current line, providing a look-ahead of one line for blocks that must inspect the
+	 * next line before processing the current line.
+	 * 
+	 * @return the next line, or null if the current line is the last line or if the next line is unknown
+	 * @since 2.9
+	 */
+	public String getNextLine() {
+		return nextLine;
+	}
+
+	/**
+	 * the line that follows the current line.
+	 */
+	void setNextLine(String nextLine) {
+		this.nextLine = nextLine;
+	}
+
 	/**
 	 * the 0-based character offset of the current line.
 	 * 
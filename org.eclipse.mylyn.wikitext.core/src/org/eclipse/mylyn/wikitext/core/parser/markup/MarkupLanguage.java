@@ -13,6 +13,8 @@ package org.eclipse.mylyn.wikitext.core.parser.markup;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
 import java.util.Collections;
 import java.util.Set;
@@ -154,6 +156,36 @@ public abstract class MarkupLanguage implements Cloneable {
 
 	public abstract void processContent(MarkupParser parser, String markupContent, boolean asDocument);
 
+	/**
+	 * Process the content read from the given reader. The default implementation reads all of the content and
+	 * delegates to {@link #processContent(MarkupParser, String, boolean)}. Markup languages that are able to do so
+	 * should override this method to process content as it is read, so that the whole document need not be held in
+	 * memory.
+	 * 
+	 * @param parser
+	 *            the parser that is processing the content
+	 * @param markupContent
+	 *            the reader from which markup content is read, which is not closed by this method
+	 * @param asDocument
+	 *            true if the content should be processed as a document
+	 * @throws IOException
+	 *             if the content could not be read
+	 * @since 2.9
+	 */
+	public void processContent(MarkupParser parser, Reader markupContent, boolean asDocument) throws IOException {
+		processContent(parser, readFully(markupContent), asDocument);
+	}
+
+	private static String readFully(Reader reader) throws IOException {
+		StringBuilder content = new StringBuilder();
+		char[] buffer = new char[8192];
+		int read;
+		while ((read = reader.read(buffer)) != -1) {
+			content.append(buffer, 0, read);
+		}
+		return content.toString();
+	}
+
 	/**
 	 * Creates a {@link DocumentBuilder} suitable for emitting content in this markup language. Equivalent to
 	 * {@code createDocumentBuilder(out,false)}.
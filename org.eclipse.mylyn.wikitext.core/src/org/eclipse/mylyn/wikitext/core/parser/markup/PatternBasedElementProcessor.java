@@ -28,18 +28,46 @@ public abstract class PatternBasedElementProcessor extends Processor implements
 
 	protected Map<Integer, Group> groupByIndex;
 
+	/**
+	 * the syntax that pooled this processor, or null if it is not pooled
+	 */
+	AbstractMarkupLanguage.PatternBasedSyntax pool;
+
+	/**
+	 * the index of the element in the {@link #pool} that created this processor
+	 */
+	int poolElementIndex;
+
 	private static class Group {
-		private final String text;
+		private String text;
+
+		private final String source;
 
 		private final int start;
 
 		private final int end;
 
 		public Group(String text, int start, int end) {
+			this(null, text, start, end);
+		}
+
+		/**
+		 * @param source
+		 *            the text from which the group text is computed on first access, or null if the text is given
+		 */
+		Group(String source, String text, int start, int end) {
+			this.source = source;
 			this.text = text;
 			this.start = start;
 			this.end = end;
 		}
+
+		String getText() {
+			if (text == null && source != null && start != -1) {
+				text = source.substring(start, end);
+			}
+			return text;
+		}
 	}
 
 	/**
@@ -58,6 +86,35 @@ public abstract class PatternBasedElementProcessor extends Processor implements
 		groupByIndex.put(group, new Group(capturedText, start, end));
 	}
 
+	/**
+	 * Set all groups from the given matcher without computing the captured text, which is only computed on demand.
+	 * Group 0 is set from the whole match and groups {@code 1..count} from the matcher groups following
+	 * {@code firstGroup}.
+	 */
+	void setGroups(String source, Matcher matcher, int firstGroup, int count) {
+		if (groupByIndex == null) {
+			groupByIndex = new HashMap<Integer, Group>();
+		} else {
+			groupByIndex.clear();
+		}
+		groupByIndex.put(0, new Group(source, null, matcher.start(), matcher.end()));
+		for (int y = 1; y <= count; ++y) {
+			final int groupIndex = firstGroup + y;
+			groupByIndex.put(y, new Group(source, null, matcher.start(groupIndex), matcher.end(groupIndex)));
+		}
+	}
+
+	/**
+	 * Clear all groups and references to parse state, so that this processor may be reused.
+	 */
+	void reset() {
+		if (groupByIndex != null) {
+			groupByIndex.clear();
+		}
+		setParser(null);
+		setState(null);
+	}
+
 	/**
 	 * Get the offset within the line at which this element was started
 	 * 
@@ -97,7 +154,7 @@ public abstract class PatternBasedElementProcessor extends Processor implements
 			return null;
 		}
 		Group group = groupByIndex.get(groupNumber);
-		return group == null ? null : group.text;
+		return group == null ? null : group.getText();
 	}
 
 	/**
@@ -132,6 +189,16 @@ public abstract class PatternBasedElementProcessor extends Processor implements
 		return group == null ? -1 : group.end;
 	}
 
+	@Override
+	public PatternBasedElementProcessor clone() {
+		PatternBasedElementProcessor copy = (PatternBasedElementProcessor) super.clone();
+		if (groupByIndex != null) {
+			copy.groupByIndex = new HashMap<Integer, Group>(groupByIndex);
+		}
+		copy.pool = null;
+		return copy;
+	}
+
 	/**
 	 * Emit the content of the element
 	 */
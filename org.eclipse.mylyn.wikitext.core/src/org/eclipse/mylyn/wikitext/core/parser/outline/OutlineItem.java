@@ -11,6 +11,8 @@
 package org.eclipse.mylyn.wikitext.core.parser.outline;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +50,13 @@ public class OutlineItem {
 
 	private Map<String, OutlineItem> itemsById;
 
+	private OffsetIndex offsetIndex;
+
+	/**
+	 * the end offset of the section, computed when the {@link OffsetIndex} of the root item is built
+	 */
+	private int sectionEnd;
+
 	private String resourcePath;
 
 	private int hash = -1;
@@ -90,13 +99,8 @@ public class OutlineItem {
 		if (parent == null) {
 			return length;
 		}
-		List<OutlineItem> siblings = getParent().getChildren();
-		int index = siblings.indexOf(this);
-		if (index < (siblings.size() - 1)) {
-			return siblings.get(index + 1).getOffset() - getOffset();
-		}
-		int parentRelativeOffset = getOffset() - parent.getOffset();
-		return parent.getSectionLength() - parentRelativeOffset;
+		computeRoot(this).getOffsetIndex();
+		return sectionEnd - getOffset();
 	}
 
 	public String getKind() {
@@ -135,6 +139,7 @@ public class OutlineItem {
 
 	void setLength(int length) {
 		this.length = length;
+		invalidateIndexes();
 	}
 
 	public void setLabel(String label) {
@@ -162,14 +167,30 @@ public class OutlineItem {
 		if (parent == null) {
 			return null;
 		}
-		List<OutlineItem> siblings = parent.getChildren();
-		int index = siblings.indexOf(this);
+		int index = parent.indexOfChild(this);
 		if (index > 0) {
-			return siblings.get(index - 1);
+			return parent.getChildren().get(index - 1);
 		}
 		return parent;
 	}
 
+	/**
+	 * the index of the given child, which is usually its position when it was added. Children are compared by identity
+	 * since {@link #equals(Object) equality} is based on position keys, which are not unique after
+	 * {@link #moveChildren(OutlineItem)}.
+	 */
+	private int indexOfChild(OutlineItem child) {
+		if (child.childOffset < children.size() && children.get(child.childOffset) == child) {
+			return child.childOffset;
+		}
+		for (int x = 0; x < children.size(); ++x) {
+			if (children.get(x) == child) {
+				return x;
+			}
+		}
+		return -1;
+	}
+
 	public List<OutlineItem> getChildren() {
 		return children;
 	}
@@ -225,6 +246,7 @@ public class OutlineItem {
 
 	public void clear() {
 		children.clear();
+		invalidateIndexes();
 	}
 
 	private String calculatePositionKey() {
@@ -241,13 +263,36 @@ public class OutlineItem {
 	private void addChild(OutlineItem outlineItem) {
 		outlineItem.childOffset = children.size();
 		children.add(outlineItem);
+		invalidateIndexes();
 	}
 
+	/**
+	 * Discards indexes of this item and its ancestors, which must be done whenever the items or offsets that they
+	 * cover change.
+	 */
+	private void invalidateIndexes() {
+		for (OutlineItem item = this; item != null; item = item.parent) {
+			item.itemsById = null;
+			item.offsetIndex = null;
+		}
+	}
+
+	/**
+	 * Find the item nearest to the given offset, which is the last item in document order that starts at or before the
+	 * given offset. Lookups use an index of offsets that is built on the first lookup, so that repeated lookups take
+	 * logarithmic time.
+	 *
+	 * @return the nearest item, or null if this item has no children
+	 */
 	public OutlineItem findNearestMatchingOffset(int offset) {
-		NearestItemVisitor visitor = new NearestItemVisitor(offset);
-		accept(visitor);
+		return getOffsetIndex().findNearest(offset);
+	}
 
-		return visitor.nearest;
+	private OffsetIndex getOffsetIndex() {
+		if (offsetIndex == null) {
+			offsetIndex = new OffsetIndex(this);
+		}
+		return offsetIndex;
 	}
 
 	public OutlineItem findItemById(String id) {
@@ -265,39 +310,88 @@ public class OutlineItem {
 		return itemsById.get(id);
 	}
 
-	private static class NearestItemVisitor implements Visitor {
+	/**
+	 * An index of the descendants of an item sorted by offset. The index of a root item also computes the section end
+	 * of every item.
+	 */
+	private static class OffsetIndex {
 
-		private OutlineItem nearest = null;
+		private static final Comparator<OutlineItem> OFFSET_ORDER = new Comparator<OutlineItem>() {
 
-		private final int offset;
+			@Override
+			public int compare(OutlineItem o1, OutlineItem o2) {
+				return Integer.compare(o1.getOffset(), o2.getOffset());
+			}
+		};
 
-		public NearestItemVisitor(int offset) {
-			this.offset = offset;
-		}
+		/**
+		 * the items in order of offset, and in document order for items having the same offset
+		 */
+		private final OutlineItem[] items;
 
-		public boolean visit(OutlineItem item) {
-			if (item.isRootItem()) {
-				return true;
+		private final int[] offsets;
+
+		/**
+		 * the first item in document order
+		 */
+		private final OutlineItem first;
+
+		OffsetIndex(OutlineItem owner) {
+			final List<OutlineItem> descendants = new ArrayList<OutlineItem>();
+			owner.accept(new Visitor() {
+				public boolean visit(OutlineItem item) {
+					descendants.add(item);
+					return true;
+				}
+			});
+			descendants.remove(0);
+
+			first = descendants.isEmpty() ? null : descendants.get(0);
+			items = descendants.toArray(new OutlineItem[descendants.size()]);
+			Arrays.sort(items, OFFSET_ORDER);
+			offsets = new int[items.length];
+			for (int x = 0; x < items.length; ++x) {
+				offsets[x] = items[x].getOffset();
 			}
-			if (nearest == null) {
-				nearest = item;
-				return true;
+			if (owner.isRootItem()) {
+				computeSectionEnds(owner, owner.getOffset() + owner.getLength());
 			}
-			int itemDistance = item.distance(offset);
-			if (itemDistance > 0) {
-				return true;
+		}
+
+		private static void computeSectionEnds(OutlineItem item, int sectionEnd) {
+			item.sectionEnd = sectionEnd;
+			List<OutlineItem> children = item.getChildren();
+			for (int x = 0; x < children.size(); ++x) {
+				OutlineItem child = children.get(x);
+				computeSectionEnds(child, x < children.size() - 1 ? children.get(x + 1).getOffset() : sectionEnd);
 			}
-			int nearestDistance = nearest.distance(offset);
-			nearestDistance = Math.abs(nearestDistance);
-			itemDistance = Math.abs(itemDistance);
-			if (itemDistance < nearestDistance) {
-				nearest = item;
-			} else if (itemDistance > nearestDistance) {
-				return false;
+		}
+
+		OutlineItem findNearest(int offset) {
+			int index = lastIndexAtOrBefore(offset);
+			if (index == -1) {
+				return first;
 			}
-			return true;
+			return items[lastIndexAtOrBefore(offsets[index] - 1) + 1];
 		}
 
+		/**
+		 * the index of the last item with an offset that is less than or equal to the given offset, or -1 if there is
+		 * no such item
+		 */
+		private int lastIndexAtOrBefore(int offset) {
+			int low = 0;
+			int high = offsets.length - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				if (offsets[middle] <= offset) {
+					low = middle + 1;
+				} else {
+					high = middle - 1;
+				}
+			}
+			return high;
+		}
 	}
 
 	public int distance(int offset) {
@@ -386,10 +480,10 @@ public class OutlineItem {
 			for (OutlineItem child : children) {
 				child.accept(visitor);
 			}
+			otherParent.invalidateIndexes();
 		} else {
 			children.clear();
 		}
-		itemsById = null;
 		setLength(otherParent.getLength());
 	}
 
@@ -70,7 +70,6 @@ public class OutlineParser {
 			root.setLength(markup == null ? 0 : markup.length());
 			return root;
 		}
-		root.setLength(markup.length());
 
 		MarkupLanguage markupLanguage = this.markupLanguage.clone();
 		if (markupLanguage instanceof AbstractMarkupLanguage) {
@@ -79,16 +78,35 @@ public class OutlineParser {
 			language.setBlocksOnly(isBlocksOnly());
 		}
 
-		OutlineBuilder outlineBuilder = (OutlineBuilder) createOutlineUpdater(root);
-		outlineBuilder.idGenerator.setGenerationStrategy(markupLanguage.getIdGenerationStrategy());
 		MarkupParser markupParser = new MarkupParser();
-		markupParser.setBuilder(outlineBuilder);
+		markupParser.setBuilder(createOutlineBuilder(root, markup.length(), markupLanguage));
 		markupParser.setMarkupLanguage(markupLanguage);
 		markupParser.parse(markup);
 
 		return root;
 	}
 
+	/**
+	 * Creates a builder that populates the given root item from the headings of the document that it builds, generating
+	 * ids using the strategy of the given markup language. Headings are located using the
+	 * {@link DocumentBuilder#getLocator() locator} of the builder, which must be provided before the document is built.
+	 * 
+	 * @param root
+	 *            the root item of the outline
+	 * @param markupLength
+	 *            the length of the markup of the document, which becomes the length of the root item
+	 * @param markupLanguage
+	 *            the markup language of the document
+	 * @return the builder
+	 * @since 2.9
+	 */
+	protected DocumentBuilder createOutlineBuilder(OutlineItem root, int markupLength, MarkupLanguage markupLanguage) {
+		root.setLength(markupLength);
+		OutlineBuilder outlineBuilder = (OutlineBuilder) createOutlineUpdater(root);
+		outlineBuilder.idGenerator.setGenerationStrategy(markupLanguage.getIdGenerationStrategy());
+		return outlineBuilder;
+	}
+
 	/**
 	 * normally outline parsing is performed only on blocks. Overriding classes may return false if they wish to process
 	 * all content.
@@ -0,0 +1,529 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.mylyn.wikitext.core.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An implementation of {@link XmlStreamWriter} that creates the same XML character output as
+ * {@link DefaultXmlStreamWriter}, intended for writing large documents. Output is collected in an unsynchronized buffer,
+ * characters are escaped as they are copied into the buffer, and output to an {@link OutputStream} is encoded as UTF-8
+ * without an intermediate {@link Writer}. Errors that occur while writing are thrown as {@link IllegalStateException}.
+ * <p>
+ * Closing the writer flushes its output, but does not close the underlying writer or output stream.
+ * </p>
+ *
+ * @author David Green
+ * @since 2.9
+ */
+public class BufferedXmlStreamWriter extends XmlStreamWriter {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
+	private Writer out;
+
+	private OutputStream outputStream;
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int position;
+
+	private byte[] bytes;
+
+	/**
+	 * a high surrogate at the end of the buffer that is encoded with the character that follows it
+	 */
+	private char pendingHighSurrogate;
+
+	private boolean closed;
+
+	private final Map<String, String> prefixToUri = new HashMap<String, String>();
+
+	private final Map<String, String> uriToPrefix = new HashMap<String, String>();
+
+	private boolean inEmptyElement = false;
+
+	private boolean inStartElement = false;
+
+	private final List<String> elements = new ArrayList<String>();
+
+	private char xmlHeaderQuoteChar = '\'';
+
+	/**
+	 * @param out
+	 *            the output stream to which UTF-8 encoded output is written
+	 */
+	public BufferedXmlStreamWriter(OutputStream out) {
+		if (out == null) {
+			throw new IllegalArgumentException();
+		}
+		this.outputStream = out;
+		this.bytes = new byte[BUFFER_SIZE * 3 + 4];
+	}
+
+	/**
+	 * @param out
+	 *            the writer to which output is written
+	 */
+	public BufferedXmlStreamWriter(Writer out) {
+		if (out == null) {
+			throw new IllegalArgumentException();
+		}
+		this.out = out;
+	}
+
+	public BufferedXmlStreamWriter(Writer out, char xmlHeaderQuoteChar) {
+		this(out);
+		this.xmlHeaderQuoteChar = xmlHeaderQuoteChar;
+	}
+
+	@Override
+	public void close() {
+		if (!closed) {
+			closeElement();
+			flush();
+		}
+		closed = true;
+	}
+
+	@Override
+	public void flush() {
+		if (closed) {
+			return;
+		}
+		try {
+			flushBuffer();
+			if (outputStream != null) {
+				outputStream.flush();
+			} else {
+				out.flush();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	public String getPrefix(String uri) {
+		return uriToPrefix.get(uri);
+	}
+
+	@Override
+	public String getNamespaceURI(String prefix) {
+		return prefixToUri.get(prefix);
+	}
+
+	@Override
+	public void setDefaultNamespace(String uri) {
+		setPrefix("", uri); //$NON-NLS-1$
+	}
+
+	@Override
+	public void setPrefix(String prefix, String uri) {
+		prefixToUri.put(prefix, uri);
+		uriToPrefix.put(uri, prefix);
+	}
+
+	@Override
+	public void writeAttribute(String localName, String value) {
+		write(' ');
+		write(localName);
+		write('=');
+		write('"');
+		if (value != null) {
+			writeEscaped(value, true);
+		}
+		write('"');
+	}
+
+	@Override
+	public void writeAttribute(String namespaceURI, String localName, String value) {
+		String prefix = uriToPrefix.get(namespaceURI);
+		writeAttribute(prefix, namespaceURI, localName, value);
+	}
+
+	@Override
+	public void writeAttribute(String prefix, String namespaceURI, String localName, String value) {
+		write(' ');
+		writeQualifiedName(prefix, localName);
+		write('=');
+		write('"');
+		if (value != null) {
+			writeEscaped(value, true);
+		}
+		write('"');
+	}
+
+	@Override
+	public void writeCData(String data) {
+		closeElement();
+		write("<![CDATA["); //$NON-NLS-1$
+		write(data);
+		write("]]>"); //$NON-NLS-1$
+	}
+
+	@Override
+	public void writeCharacters(String text) {
+		closeElement();
+		if (text != null) {
+			writeEscaped(text, false);
+		}
+	}
+
+	@Override
+	public void writeCharacters(char[] text, int start, int len) {
+		closeElement();
+		int end = start + len;
+		int unescapedStart = start;
+		for (int x = start; x < end; ++x) {
+			char c = text[x];
+			if (c <= '>' || c >= '\uFFFE') {
+				String replacement = replacementOf(c, false);
+				if (replacement != null) {
+					write(text, unescapedStart, x - unescapedStart);
+					write(replacement);
+					unescapedStart = x + 1;
+				}
+			}
+		}
+		write(text, unescapedStart, end - unescapedStart);
+	}
+
+	@Override
+	public void writeLiteral(String literal) {
+		closeElement();
+		write(literal);
+	}
+
+	@Override
+	public void writeComment(String data) {
+		closeElement();
+		write("<!-- "); //$NON-NLS-1$
+		write(data);
+		write(" -->"); //$NON-NLS-1$
+	}
+
+	@Override
+	public void writeDTD(String dtd) {
+		write(dtd);
+	}
+
+	@Override
+	public void writeDefaultNamespace(String namespaceURI) {
+		writeAttribute("xmlns", namespaceURI); //$NON-NLS-1$
+	}
+
+	@Override
+	public void writeEmptyElement(String localName) {
+		closeElement();
+		inEmptyElement = true;
+		write('<');
+		write(localName);
+	}
+
+	@Override
+	public void writeEmptyElement(String namespaceURI, String localName) {
+		closeElement();
+		inEmptyElement = true;
+		write('<');
+		writeQualifiedName(uriToPrefix.get(namespaceURI), localName);
+	}
+
+	@Override
+	public void writeEmptyElement(String prefix, String localName, String namespaceURI) {
+		closeElement();
+		inEmptyElement = true;
+		write('<');
+		writeQualifiedName(prefix, localName);
+	}
+
+	@Override
+	public void writeEndDocument() {
+		if (!elements.isEmpty()) {
+			throw new IllegalStateException(elements.size() + " elements not closed"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public void writeEndElement() {
+		closeElement();
+		if (elements.isEmpty()) {
+			throw new IllegalStateException();
+		}
+		String name = elements.remove(elements.size() - 1);
+		write('<');
+		write('/');
+		write(name);
+		write('>');
+	}
+
+	@Override
+	public void writeEntityRef(String name) {
+		closeElement();
+		write('&');
+		write(name);
+		write(';');
+	}
+
+	@Override
+	public void writeNamespace(String prefix, String namespaceURI) {
+		if (prefix == null || prefix.length() == 0 || prefix.equals("xmlns")) { //$NON-NLS-1$
+			writeDefaultNamespace(namespaceURI);
+		} else {
+			writeAttribute("xmlns:" + prefix, namespaceURI); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public void writeProcessingInstruction(String target) {
+		closeElement();
+	}
+
+	@Override
+	public void writeProcessingInstruction(String target, String data) {
+		closeElement();
+	}
+
+	@Override
+	public void writeStartDocument() {
+		write(processXmlHeader("<?xml version='1.0' ?>")); //$NON-NLS-1$
+	}
+
+	@Override
+	public void writeStartDocument(String version) {
+		write(processXmlHeader("<?xml version='" + version + "' ?>")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Override
+	public void writeStartDocument(String encoding, String version) {
+		write(processXmlHeader("<?xml version='" + version + "' encoding='" + encoding + "' ?>")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	@Override
+	public void writeStartElement(String localName) {
+		closeElement();
+		inStartElement = true;
+		elements.add(localName);
+		write('<');
+		write(localName);
+	}
+
+	@Override
+	public void writeStartElement(String namespaceURI, String localName) {
+		String prefix = uriToPrefix.get(namespaceURI);
+		writeStartElement(prefix, localName, namespaceURI);
+	}
+
+	@Override
+	public void writeStartElement(String prefix, String localName, String namespaceURI) {
+		closeElement();
+		inStartElement = true;
+		if (prefix != null && prefix.length() > 0) {
+			elements.add(prefix + ':' + localName);
+		} else {
+			elements.add(localName);
+		}
+		write('<');
+		writeQualifiedName(prefix, localName);
+	}
+
+	public char getXmlHeaderQuoteChar() {
+		return xmlHeaderQuoteChar;
+	}
+
+	public void setXmlHeaderQuoteChar(char xmlHeaderQuoteChar) {
+		this.xmlHeaderQuoteChar = xmlHeaderQuoteChar;
+	}
+
+	private String processXmlHeader(String header) {
+		return xmlHeaderQuoteChar == '\'' ? header : header.replace('\'', xmlHeaderQuoteChar);
+	}
+
+	private void closeElement() {
+		if (inEmptyElement) {
+			write('/');
+			write('>');
+			inEmptyElement = false;
+		} else if (inStartElement) {
+			write('>');
+			inStartElement = false;
+		}
+	}
+
+	private void writeQualifiedName(String prefix, String localName) {
+		if (prefix != null && prefix.length() > 0) {
+			write(prefix);
+			write(':');
+		}
+		write(localName);
+	}
+
+	/**
+	 * Writes the given text, escaping it in the same way as the Guava XML escapers used by
+	 * {@link DefaultXmlStreamWriter}. Runs of characters that need no escaping are copied to the buffer as they are.
+	 */
+	private void writeEscaped(String text, boolean attribute) {
+		int length = text.length();
+		int unescapedStart = 0;
+		for (int x = 0; x < length; ++x) {
+			char c = text.charAt(x);
+			if (c <= '>' || c >= '\uFFFE') {
+				String replacement = replacementOf(c, attribute);
+				if (replacement != null) {
+					write(text, unescapedStart, x - unescapedStart);
+					write(replacement);
+					unescapedStart = x + 1;
+				}
+			}
+		}
+		write(text, unescapedStart, length - unescapedStart);
+	}
+
+	/**
+	 * Provides the replacement of the given character, or null if it is written as it is.
+	 */
+	private static String replacementOf(char c, boolean attribute) {
+		switch (c) {
+		case '&':
+			return "&amp;"; //$NON-NLS-1$
+		case '<':
+			return "&lt;"; //$NON-NLS-1$
+		case '>':
+			return "&gt;"; //$NON-NLS-1$
+		case '"':
+			return attribute ? "&quot;" : null; //$NON-NLS-1$
+		case '\'':
+			return attribute ? "&apos;" : null; //$NON-NLS-1$
+		case '\t':
+			return attribute ? "&#x9;" : null; //$NON-NLS-1$
+		case '\n':
+			return attribute ? "&#xA;" : null; //$NON-NLS-1$
+		case '\r':
+			return attribute ? "&#xD;" : null; //$NON-NLS-1$
+		default:
+			if (c < ' ' || c >= '\uFFFE') {
+				return String.valueOf(REPLACEMENT_CHARACTER);
+			}
+			return null;
+		}
+	}
+
+	private void write(char c) {
+		if (position == BUFFER_SIZE) {
+			flushBufferUnchecked();
+		}
+		buffer[position++] = c;
+	}
+
+	private void write(String text) {
+		write(text, 0, text.length());
+	}
+
+	private void write(String text, int offset, int length) {
+		while (length > 0) {
+			if (position == BUFFER_SIZE) {
+				flushBufferUnchecked();
+			}
+			int count = Math.min(length, BUFFER_SIZE - position);
+			text.getChars(offset, offset + count, buffer, position);
+			position += count;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	private void write(char[] text, int offset, int length) {
+		while (length > 0) {
+			if (position == BUFFER_SIZE) {
+				flushBufferUnchecked();
+			}
+			int count = Math.min(length, BUFFER_SIZE - position);
+			System.arraycopy(text, offset, buffer, position, count);
+			position += count;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	private void flushBufferUnchecked() {
+		try {
+			flushBuffer();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (closed) {
+			throw new IllegalStateException();
+		}
+		if (outputStream == null) {
+			out.write(buffer, 0, position);
+		} else {
+			int byteCount = encodeUtf8();
+			outputStream.write(bytes, 0, byteCount);
+		}
+		position = 0;
+	}
+
+	/**
+	 * Encodes the buffer as UTF-8, replacing unpaired surrogates with '?' in the same way as an
+	 * {@link java.io.OutputStreamWriter}.
+	 *
+	 * @return the number of bytes
+	 */
+	private int encodeUtf8() {
+		int byteCount = 0;
+		for (int x = 0; x < position; ++x) {
+			char c = buffer[x];
+			if (pendingHighSurrogate != 0) {
+				char high = pendingHighSurrogate;
+				pendingHighSurrogate = 0;
+				if (Character.isLowSurrogate(c)) {
+					byteCount = encodeCodePoint(Character.toCodePoint(high, c), byteCount);
+					continue;
+				}
+				bytes[byteCount++] = '?';
+			}
+			if (c < 0x80) {
+				bytes[byteCount++] = (byte) c;
+			} else if (c < 0x800) {
+				bytes[byteCount++] = (byte) (0xC0 | (c >> 6));
+				bytes[byteCount++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isHighSurrogate(c)) {
+				pendingHighSurrogate = c;
+			} else if (Character.isLowSurrogate(c)) {
+				bytes[byteCount++] = '?';
+			} else {
+				bytes[byteCount++] = (byte) (0xE0 | (c >> 12));
+				bytes[byteCount++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				bytes[byteCount++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		return byteCount;
+	}
+
+	private int encodeCodePoint(int codePoint, int byteCount) {
+		bytes[byteCount++] = (byte) (0xF0 | (codePoint >> 18));
+		bytes[byteCount++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+		bytes[byteCount++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+		bytes[byteCount++] = (byte) (0x80 | (codePoint & 0x3F));
+		return byteCount;
+	}
+}
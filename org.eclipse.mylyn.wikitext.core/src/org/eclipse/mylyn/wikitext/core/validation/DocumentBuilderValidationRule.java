@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+
+/**
+ * A validation rule that finds problems from the events of a parse of the markup. When validating with a
+ * {@link MarkupValidator}, all such rules that {@link #createMarkupLanguage() use} a markup language with the same name
+ * share a single parse of the markup. The markup is parsed with {@link AbstractMarkupLanguage#isBlocksOnly() all
+ * content} and with {@link AbstractMarkupLanguage#isFilterGenerativeContents() generative contents filtered}.
+ *
+ * @author David Green
+ * @since 2.9
+ */
+public abstract class DocumentBuilderValidationRule extends ValidationRule {
+
+	/**
+	 * Creates the markup language with which the markup is parsed.
+	 */
+	protected abstract MarkupLanguage createMarkupLanguage();
+
+	/**
+	 * Creates a builder that finds problems from the events of a parse of the given markup. Problems are added to the
+	 * given list no later than when the builder receives {@link DocumentBuilder#endDocument()}.
+	 *
+	 * @param markupLanguage
+	 *            the markup language with which the markup is parsed
+	 * @param markup
+	 *            the markup content that is parsed
+	 * @param offset
+	 *            the offset at which to start looking for problems
+	 * @param length
+	 *            the length at which to stop looking for problems
+	 * @param problems
+	 *            the list to which problems are added
+	 * @return the builder
+	 */
+	public abstract DocumentBuilder createValidationBuilder(MarkupLanguage markupLanguage, String markup, int offset,
+			int length, List<ValidationProblem> problems);
+
+	/**
+	 * Indicates whether the problems found by the rule may change when a line of plain text is edited. A line of plain
+	 * text consists only of letters, digits and spaces, starts with a letter or digit and is not in the same block as a
+	 * heading. Rules whose problems only concern markup such as links, anchors and headings return <code>false</code>,
+	 * which allows an {@link IncrementalMarkupValidator} to retain their problems while such a line is edited instead
+	 * of parsing the document again. The default implementation returns <code>true</code>.
+	 *
+	 * @return <code>true</code> if editing plain text may change the problems found by the rule, otherwise
+	 *         <code>false</code>
+	 */
+	protected boolean isAffectedByPlainText() {
+		return true;
+	}
+
+	/**
+	 * Indicates whether the problems found by the rule may change when a line of plain text is edited in a block that
+	 * consists only of lines of plain text, such as a paragraph of words. Rules whose problems concern markup that may
+	 * span lines, such as the names of link definitions, return <code>false</code> here while being
+	 * {@link #isAffectedByPlainText() affected} by plain text in general. The default implementation returns the
+	 * value of {@link #isAffectedByPlainText()}.
+	 *
+	 * @return <code>true</code> if editing a block of plain text may change the problems found by the rule, otherwise
+	 *         <code>false</code>
+	 */
+	protected boolean isAffectedByPlainTextBlock() {
+		return isAffectedByPlainText();
+	}
+
+	/**
+	 * Finds the problems of the region with a parse of the markup, providing the first of them.
+	 */
+	@Override
+	public ValidationProblem findProblem(String markup, int offset, int length) {
+		List<ValidationProblem> problems = findProblems(markup, offset, length);
+		return problems.isEmpty() ? null : Collections.min(problems);
+	}
+
+	@Override
+	public List<ValidationProblem> findProblems(String markup, int offset, int length) {
+		List<ValidationProblem> problems = new ArrayList<ValidationProblem>();
+		ValidationPass.parse(Collections.singletonList(this), markup, offset, length, problems);
+		if (problems.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return problems;
+	}
+}
@@ -13,13 +13,11 @@ package org.eclipse.mylyn.wikitext.core.validation;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
 import org.eclipse.mylyn.wikitext.core.parser.Attributes;
 import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
-import org.eclipse.mylyn.wikitext.core.parser.IdGenerator;
 import org.eclipse.mylyn.wikitext.core.parser.LinkAttributes;
 import org.eclipse.mylyn.wikitext.core.parser.Locator;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
@@ -32,7 +30,7 @@ import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem.Severity;
  * 
  * @author David Green
  */
-public abstract class DocumentLocalReferenceValidationRule extends ValidationRule {
+public abstract class DocumentLocalReferenceValidationRule extends DocumentBuilderValidationRule {
 
 	private final class LocalReference {
 		public LocalReference(String name, int offset, int length) {
@@ -51,23 +49,23 @@ public abstract class DocumentLocalReferenceValidationRule extends ValidationRul
 	}
 
 	private final class OutlineParserExtension extends OutlineParser {
-		public IdGenerator idGenerator;
-
 		private final int offset;
 
 		private final int length;
 
+		private final List<ValidationProblem> problems;
+
 		private List<LocalReference> references;
 
-		private OutlineParserExtension(int offset, int length) {
+		private OutlineParserExtension(int offset, int length, List<ValidationProblem> problems) {
 			this.offset = offset;
 			this.length = length;
+			this.problems = problems;
 		}
 
 		private final class OutlineBuilderExtension extends OutlineBuilder {
 			private OutlineBuilderExtension(OutlineItem root, int labelMaxLength) {
 				super(root, labelMaxLength);
-				OutlineParserExtension.this.idGenerator = idGenerator;
 			}
 
 			@Override
@@ -92,11 +90,12 @@ public abstract class DocumentLocalReferenceValidationRule extends ValidationRul
 				super.imageLink(linkAttributes, ImageAttributes, href, imageUrl);
 				processLink(getLocator(), href);
 			}
-		}
 
-		@Override
-		protected boolean isBlocksOnly() {
-			return false;
+			@Override
+			public void endDocument() {
+				super.endDocument();
+				addProblems(idGenerator.getAnchorNames());
+			}
 		}
 
 		@Override
@@ -104,6 +103,10 @@ public abstract class DocumentLocalReferenceValidationRule extends ValidationRul
 			return new OutlineBuilderExtension(rootItem, getLabelMaxLength());
 		}
 
+		private DocumentBuilder createBuilder(String markup, MarkupLanguage markupLanguage) {
+			return createOutlineBuilder(createRootItem(), markup.length(), markupLanguage);
+		}
+
 		public void processLink(Locator locator, String href) {
 			if ((locator.getDocumentOffset() < offset) || (locator.getDocumentOffset() >= (offset + length))) {
 				return;
@@ -117,43 +120,33 @@ public abstract class DocumentLocalReferenceValidationRule extends ValidationRul
 				references.add(new LocalReference(name, locator.getDocumentOffset(), length));
 			}
 		}
-	}
 
-	protected abstract MarkupLanguage createMarkupLanguage();
+		private void addProblems(Set<String> anchorNames) {
+			if (references != null) {
+				for (LocalReference reference : references) {
+					if (!anchorNames.contains(reference.name)) {
+						problems.add(new ValidationProblem(Severity.ERROR, MessageFormat.format(
+								Messages.getString("DocumentLocalReferenceValidationRule.0"), reference.name), //$NON-NLS-1$
+								reference.offset, reference.length));
+					}
+				}
+			}
+		}
+	}
 
+	/**
+	 * Local references are found in links and resolved against the ids of headings and anchors, none of which can be
+	 * changed by editing plain text.
+	 */
 	@Override
-	public ValidationProblem findProblem(String markup, int offset, int length) {
-		throw new UnsupportedOperationException();
+	protected boolean isAffectedByPlainText() {
+		return false;
 	}
 
 	@Override
-	public List<ValidationProblem> findProblems(String markup, int offset, int length) {
-		MarkupLanguage markupLanguage = createMarkupLanguage();
-
-		OutlineParserExtension outlineParser = new OutlineParserExtension(offset, length);
-		outlineParser.setMarkupLanguage(markupLanguage);
-		outlineParser.parse(markup);
-
-		List<ValidationProblem> problems = null;
-		if (outlineParser.references != null) {
-			Set<String> anchorNames = outlineParser.idGenerator.getAnchorNames();
-			for (LocalReference reference : outlineParser.references) {
-				if (!anchorNames.contains(reference.name)) {
-					if (problems == null) {
-						problems = new ArrayList<ValidationProblem>();
-					}
-					problems.add(new ValidationProblem(
-							Severity.ERROR,
-							MessageFormat.format(
-									Messages.getString("DocumentLocalReferenceValidationRule.0"), reference.name), reference.offset, //$NON-NLS-1$
-							reference.length));
-				}
-			}
-		}
-		if (problems == null) {
-			return Collections.emptyList();
-		}
-		return problems;
+	public DocumentBuilder createValidationBuilder(MarkupLanguage markupLanguage, String markup, int offset,
+			int length, List<ValidationProblem> problems) {
+		return new OutlineParserExtension(offset, length, problems).createBuilder(markup, markupLanguage);
 	}
 
 }
@@ -0,0 +1,485 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.mylyn.wikitext.core.parser.Attributes;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+
+/**
+ * Validates successive versions of a document, re-validating only the parts of the document that changed since the
+ * previous version. The document is divided into blocks, each of which is a run of non-blank lines together with the
+ * blank lines that follow it. The problems found by rules in each block are retained, so that after a change only the
+ * blocks touched by the change are validated again, while the problems of the other blocks are moved to their new
+ * offsets.
+ * <p>
+ * Rules other than {@link DocumentBuilderValidationRule document builder rules} must only examine the region that they
+ * are asked to validate. Document builder rules find problems that may depend on any part of the document, such as
+ * references to headings, so they are applied to the whole document with a single parse. The problems found by that
+ * parse are retained while edits are confined to a line of plain text outside of the blocks of headings, provided that
+ * none of the document builder rules is {@link DocumentBuilderValidationRule#isAffectedByPlainText() affected} by plain
+ * text, which is the case for the reference rules of the markup languages. Rules such as the Markdown rule for link
+ * definitions, whose names may span lines, are only
+ * {@link DocumentBuilderValidationRule#isAffectedByPlainTextBlock() unaffected} while the edited block consists only of
+ * plain text. Typing words into a paragraph therefore only validates the changed block. Any other edit, such as one
+ * that adds or removes markup characters or line breaks, or changes the text of a heading, still costs a parse of the
+ * whole document.
+ * </p>
+ * <p>
+ * Instances are not thread-safe. The rules of the {@link MarkupValidator} must not change between validations unless
+ * the validator is {@link #reset() reset}.
+ * </p>
+ *
+ * @author David Green
+ * @since 2.9
+ */
+public class IncrementalMarkupValidator {
+
+	private static class Block {
+
+		int offset;
+
+		final int length;
+
+		/**
+		 * the problems of the block, with offsets relative to the block
+		 */
+		final List<ValidationProblem> problems;
+
+		Block(int offset, int length, List<ValidationProblem> problems) {
+			this.offset = offset;
+			this.length = length;
+			this.problems = problems;
+		}
+
+		int getEnd() {
+			return offset + length;
+		}
+	}
+
+	private final MarkupValidator validator;
+
+	private String markup;
+
+	private final List<Block> blocks = new ArrayList<Block>();
+
+	/**
+	 * the problems found by the document builder rules in the current markup, or null if they must be found again
+	 */
+	private List<ValidationProblem> documentProblems;
+
+	/**
+	 * the offsets of headings in the current markup, as found by the parse of the document builder rules
+	 */
+	private final List<Integer> headingOffsets = new ArrayList<Integer>();
+
+	public IncrementalMarkupValidator(MarkupValidator validator) {
+		if (validator == null) {
+			throw new IllegalArgumentException();
+		}
+		this.validator = validator;
+	}
+
+	/**
+	 * Validates the given version of the document.
+	 *
+	 * @param markup
+	 *            the content of the document
+	 * @return the problems of the document sorted by offset, or an empty list if there are none
+	 */
+	public List<ValidationProblem> validate(String markup) {
+		return validate(markup, 0, markup.length());
+	}
+
+	/**
+	 * Validates the given version of the document, providing only the problems within the given region. Problems of the
+	 * whole document are retained for subsequent validations.
+	 *
+	 * @param markup
+	 *            the content of the document
+	 * @param offset
+	 *            the offset of the region for which problems are provided
+	 * @param length
+	 *            the length of the region for which problems are provided
+	 * @return the problems within the region sorted by offset, or an empty list if there are none
+	 */
+	public List<ValidationProblem> validate(String markup, int offset, int length) {
+		List<ValidationRule> localRules = new ArrayList<ValidationRule>();
+		List<DocumentBuilderValidationRule> documentRules = new ArrayList<DocumentBuilderValidationRule>();
+		for (ValidationRule rule : validator.getRules()) {
+			if (rule instanceof DocumentBuilderValidationRule) {
+				documentRules.add((DocumentBuilderValidationRule) rule);
+			} else {
+				localRules.add(rule);
+			}
+		}
+		if (!documentRules.isEmpty() && !retainDocumentProblems(documentRules, markup)) {
+			parseDocument(documentRules, markup);
+		}
+		update(localRules, markup);
+
+		int end = offset + length;
+		List<ValidationProblem> problems = new ArrayList<ValidationProblem>();
+		for (Block block : blocks) {
+			if (block.getEnd() <= offset) {
+				continue;
+			} else if (block.offset >= end) {
+				break;
+			}
+			for (ValidationProblem problem : block.problems) {
+				int problemOffset = block.offset + problem.getOffset();
+				if (problemOffset >= offset && problemOffset < end) {
+					problems.add(copy(problem, problemOffset));
+				}
+			}
+		}
+		if (!documentRules.isEmpty()) {
+			for (ValidationProblem problem : documentProblems) {
+				if (problem.getOffset() >= offset && problem.getOffset() < end) {
+					problems.add(copy(problem, problem.getOffset()));
+				}
+			}
+		}
+		if (problems.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Collections.sort(problems);
+		return problems;
+	}
+
+	/**
+	 * Discards the retained problems, so that the next validation examines the whole document.
+	 */
+	public void reset() {
+		markup = null;
+		blocks.clear();
+		documentProblems = null;
+		headingOffsets.clear();
+	}
+
+	/**
+	 * Parses the whole document with the document builder rules, retaining their problems and the offsets of headings.
+	 */
+	private void parseDocument(List<DocumentBuilderValidationRule> documentRules, String newMarkup) {
+		documentProblems = new ArrayList<ValidationProblem>();
+		headingOffsets.clear();
+		if (newMarkup.length() == 0) {
+			return;
+		}
+		List<DocumentBuilderValidationRule> rules = new ArrayList<DocumentBuilderValidationRule>(documentRules);
+		Set<String> languageNames = new HashSet<String>();
+		for (DocumentBuilderValidationRule rule : documentRules) {
+			// the headings are recorded once for each parse
+			if (languageNames.add(rule.createMarkupLanguage().getName())) {
+				rules.add(new HeadingRecorder(rule));
+			}
+		}
+		ValidationPass.parse(rules, newMarkup, 0, newMarkup.length(), documentProblems);
+	}
+
+	/**
+	 * Moves the retained problems of the document builder rules to the given markup if the change from the current
+	 * markup cannot affect them.
+	 *
+	 * @return true if the problems were retained, or false if the document must be parsed again
+	 */
+	private boolean retainDocumentProblems(List<DocumentBuilderValidationRule> documentRules, String newMarkup) {
+		if (documentProblems == null || markup == null) {
+			return false;
+		}
+		if (newMarkup.equals(markup)) {
+			return true;
+		}
+		boolean affectedByPlainText = false;
+		for (DocumentBuilderValidationRule rule : documentRules) {
+			if (rule.isAffectedByPlainTextBlock()) {
+				return false;
+			}
+			affectedByPlainText |= rule.isAffectedByPlainText();
+		}
+		int prefixLength = commonPrefixLength(markup, newMarkup);
+		int suffixLength = commonSuffixLength(markup, newMarkup, prefixLength);
+		int oldChangeEnd = markup.length() - suffixLength;
+		int newChangeEnd = newMarkup.length() - suffixLength;
+		if (containsLineDelimiter(markup, prefixLength, oldChangeEnd)
+				|| containsLineDelimiter(newMarkup, prefixLength, newChangeEnd)) {
+			return false;
+		}
+		int lineOffset = prefixLength;
+		while (lineOffset > 0 && !isLineDelimiter(markup.charAt(lineOffset - 1))) {
+			--lineOffset;
+		}
+		int oldLineEnd = lineEnd(markup, oldChangeEnd);
+		if (!isPlainTextLine(markup, lineOffset, oldLineEnd)
+				|| !isPlainTextLine(newMarkup, lineOffset, lineEnd(newMarkup, newChangeEnd))) {
+			return false;
+		}
+		Block block = blocks.get(indexOfBlock(lineOffset));
+		if (affectedByPlainText && !isPlainTextBlock(markup, block)) {
+			return false;
+		}
+		for (Integer headingOffset : headingOffsets) {
+			if (headingOffset >= block.offset && headingOffset < block.getEnd()) {
+				return false;
+			}
+		}
+		for (ValidationProblem problem : documentProblems) {
+			if (problem.getOffset() <= oldLineEnd && problem.getOffset() + problem.getLength() >= lineOffset) {
+				return false;
+			}
+		}
+		int delta = newMarkup.length() - markup.length();
+		for (int x = 0; x < documentProblems.size(); ++x) {
+			ValidationProblem problem = documentProblems.get(x);
+			if (problem.getOffset() > oldLineEnd) {
+				documentProblems.set(x, copy(problem, problem.getOffset() + delta));
+			}
+		}
+		for (int x = 0; x < headingOffsets.size(); ++x) {
+			if (headingOffsets.get(x) > oldLineEnd) {
+				headingOffsets.set(x, headingOffsets.get(x) + delta);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Brings the blocks up to date with the given markup, validating the blocks that changed.
+	 */
+	private void update(List<ValidationRule> localRules, String newMarkup) {
+		if (newMarkup.equals(markup)) {
+			return;
+		}
+		String oldMarkup = markup == null ? "" : markup; //$NON-NLS-1$
+		int prefixLength = commonPrefixLength(oldMarkup, newMarkup);
+		int suffixLength = commonSuffixLength(oldMarkup, newMarkup, prefixLength);
+		int delta = newMarkup.length() - oldMarkup.length();
+		int changeEnd = newMarkup.length() - suffixLength;
+
+		// validation starts with the block containing the character preceding the change, since the change may
+		// determine where that block ends
+		int firstBlockIndex = markup == null ? 0 : indexOfBlock(Math.max(0, prefixLength - 1));
+		int lastBlockIndex = firstBlockIndex;
+		int blockOffset = firstBlockIndex < blocks.size() ? blocks.get(firstBlockIndex).offset : 0;
+
+		List<Block> newBlocks = new ArrayList<Block>();
+		while (blockOffset < newMarkup.length()) {
+			int blockEnd = nextBlockOffset(newMarkup, blockOffset);
+			List<ValidationProblem> problems = ValidationPass.validate(localRules, newMarkup, blockOffset, blockEnd
+					- blockOffset);
+			newBlocks.add(new Block(blockOffset, blockEnd - blockOffset, relativeTo(problems, blockOffset)));
+			blockOffset = blockEnd;
+
+			if (blockOffset >= changeEnd) {
+				// blocks following an unchanged block boundary are unchanged
+				while (lastBlockIndex < blocks.size() && blocks.get(lastBlockIndex).offset + delta < blockOffset) {
+					++lastBlockIndex;
+				}
+				if (lastBlockIndex < blocks.size() && blocks.get(lastBlockIndex).offset + delta == blockOffset) {
+					break;
+				}
+			}
+		}
+		if (blockOffset >= newMarkup.length()) {
+			lastBlockIndex = blocks.size();
+		}
+		for (int x = lastBlockIndex; x < blocks.size(); ++x) {
+			blocks.get(x).offset += delta;
+		}
+		blocks.subList(firstBlockIndex, lastBlockIndex).clear();
+		blocks.addAll(firstBlockIndex, newBlocks);
+		markup = newMarkup;
+	}
+
+	private static int commonPrefixLength(String oldMarkup, String newMarkup) {
+		int prefixLength = 0;
+		int maximumPrefixLength = Math.min(oldMarkup.length(), newMarkup.length());
+		while (prefixLength < maximumPrefixLength
+				&& oldMarkup.charAt(prefixLength) == newMarkup.charAt(prefixLength)) {
+			++prefixLength;
+		}
+		return prefixLength;
+	}
+
+	/**
+	 * the length of the common suffix of the given markup that does not overlap the common prefix
+	 */
+	private static int commonSuffixLength(String oldMarkup, String newMarkup, int prefixLength) {
+		int suffixLength = 0;
+		int maximumSuffixLength = Math.min(oldMarkup.length(), newMarkup.length()) - prefixLength;
+		while (suffixLength < maximumSuffixLength
+				&& oldMarkup.charAt(oldMarkup.length() - 1 - suffixLength) == newMarkup.charAt(newMarkup.length() - 1
+						- suffixLength)) {
+			++suffixLength;
+		}
+		return suffixLength;
+	}
+
+	/**
+	 * the index of the block containing the given offset
+	 */
+	private int indexOfBlock(int offset) {
+		int low = 0;
+		int high = blocks.size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			Block block = blocks.get(middle);
+			if (offset < block.offset) {
+				high = middle - 1;
+			} else if (offset >= block.getEnd()) {
+				low = middle + 1;
+			} else {
+				return middle;
+			}
+		}
+		return Math.min(low, blocks.size());
+	}
+
+	/**
+	 * Provides the offset of the block following the block at the given offset, which is the offset of the first
+	 * non-blank line that follows a blank line.
+	 */
+	static int nextBlockOffset(String markup, int blockOffset) {
+		boolean followsBlankLine = false;
+		int lineOffset = blockOffset;
+		while (lineOffset < markup.length()) {
+			int lineEnd = lineOffset;
+			while (lineEnd < markup.length() && !isLineDelimiter(markup.charAt(lineEnd))) {
+				++lineEnd;
+			}
+			boolean blank = lineEnd == lineOffset;
+			if (!blank && followsBlankLine) {
+				return lineOffset;
+			}
+			followsBlankLine = blank;
+			lineOffset = lineEnd + 1;
+			if (lineEnd + 1 < markup.length() && markup.charAt(lineEnd) == '\r' && markup.charAt(lineEnd + 1) == '\n') {
+				++lineOffset;
+			}
+		}
+		return markup.length();
+	}
+
+	/**
+	 * Provides copies of the given problems with offsets relative to the given offset, omitting any problem that
+	 * precedes it.
+	 */
+	private static List<ValidationProblem> relativeTo(List<ValidationProblem> problems, int offset) {
+		if (problems.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<ValidationProblem> relativeProblems = new ArrayList<ValidationProblem>(problems.size());
+		for (ValidationProblem problem : problems) {
+			if (problem.getOffset() >= offset) {
+				relativeProblems.add(copy(problem, problem.getOffset() - offset));
+			}
+		}
+		return relativeProblems;
+	}
+
+	private static ValidationProblem copy(ValidationProblem problem, int offset) {
+		ValidationProblem copy = new ValidationProblem(problem.getSeverity(), problem.getMessage(), offset,
+				problem.getLength());
+		copy.setMarkerId(problem.getMarkerId());
+		return copy;
+	}
+
+	private static boolean containsLineDelimiter(String markup, int offset, int end) {
+		for (int x = offset; x < end; ++x) {
+			if (isLineDelimiter(markup.charAt(x))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * the offset of the end of the line containing the given offset
+	 */
+	private static int lineEnd(String markup, int offset) {
+		int lineEnd = offset;
+		while (lineEnd < markup.length() && !isLineDelimiter(markup.charAt(lineEnd))) {
+			++lineEnd;
+		}
+		return lineEnd;
+	}
+
+	/**
+	 * Indicates whether the given line consists only of letters, digits and spaces, starting with a letter or digit.
+	 */
+	private static boolean isPlainTextLine(String markup, int lineOffset, int lineEnd) {
+		if (lineOffset == lineEnd || !Character.isLetterOrDigit(markup.charAt(lineOffset))) {
+			return false;
+		}
+		for (int x = lineOffset + 1; x < lineEnd; ++x) {
+			char c = markup.charAt(x);
+			if (c != ' ' && !Character.isLetterOrDigit(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Indicates whether each non-blank line of the given block is a line of plain text.
+	 */
+	private static boolean isPlainTextBlock(String markup, Block block) {
+		int lineOffset = block.offset;
+		while (lineOffset < block.getEnd()) {
+			int lineEnd = lineEnd(markup, lineOffset);
+			if (lineEnd > lineOffset && !isPlainTextLine(markup, lineOffset, lineEnd)) {
+				return false;
+			}
+			lineOffset = lineEnd + 1;
+		}
+		return true;
+	}
+
+	private static boolean isLineDelimiter(char c) {
+		return c == '\n' || c == '\r';
+	}
+
+	/**
+	 * Records the offsets of the headings found by the parse of a document builder rule, without finding problems.
+	 */
+	private class HeadingRecorder extends DocumentBuilderValidationRule {
+
+		private final DocumentBuilderValidationRule rule;
+
+		HeadingRecorder(DocumentBuilderValidationRule rule) {
+			this.rule = rule;
+		}
+
+		@Override
+		protected MarkupLanguage createMarkupLanguage() {
+			return rule.createMarkupLanguage();
+		}
+
+		@Override
+		public DocumentBuilder createValidationBuilder(MarkupLanguage markupLanguage, String markup, int offset,
+				int length, List<ValidationProblem> problems) {
+			return new NoOpDocumentBuilder() {
+				@Override
+				public void beginHeading(int level, Attributes attributes) {
+					headingOffsets.add(getLocator().getDocumentOffset());
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A validation rule that finds problems within single lines of the markup. When validating with a
+ * {@link MarkupValidator}, the validated region is split into lines once for all such rules.
+ *
+ * @author David Green
+ * @since 2.9
+ */
+public abstract class LineValidationRule extends ValidationRule {
+
+	/**
+	 * Finds the problems within a line of the validated region. A line is terminated by a line delimiter or by the end
+	 * of the region, which means that the first line of a region may start in the middle of a line of the markup.
+	 *
+	 * @param markup
+	 *            the markup content in which problems should be found
+	 * @param lineOffset
+	 *            the offset of the line
+	 * @param lineLength
+	 *            the length of the line, excluding its line delimiter
+	 * @param problems
+	 *            the list to which problems are added
+	 */
+	public abstract void validateLine(String markup, int lineOffset, int lineLength, List<ValidationProblem> problems);
+
+	@Override
+	public ValidationProblem findProblem(String markup, int offset, int length) {
+		List<ValidationProblem> problems = findProblems(markup, offset, length);
+		return problems.isEmpty() ? null : problems.get(0);
+	}
+
+	@Override
+	public List<ValidationProblem> findProblems(String markup, int offset, int length) {
+		List<ValidationProblem> problems = new ArrayList<ValidationProblem>();
+		ValidationPass.validateLines(Collections.singletonList(this), markup, offset, length, problems);
+		if (problems.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return problems;
+	}
+}
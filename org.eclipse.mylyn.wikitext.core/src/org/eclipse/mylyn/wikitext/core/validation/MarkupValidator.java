@@ -11,13 +11,14 @@
 package org.eclipse.mylyn.wikitext.core.validation;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.mylyn.internal.wikitext.core.validation.StandaloneMarkupValidator;
 
 /**
- * Validates markup given a set of rules
+ * Validates markup given a set of rules. {@link LineValidationRule Line rules} share a single pass over the lines of the
+ * markup, and {@link DocumentBuilderValidationRule document builder rules} share a single parse of the markup for each
+ * markup language.
  * 
  * @author David Green
  * @see StandaloneMarkupValidator
@@ -48,19 +49,7 @@ public class MarkupValidator {
 	 * @since 2.0
 	 */
 	public List<ValidationProblem> validate(String markup, int offset, int length) {
-		if (length == 0 || rules.isEmpty()) {
-			return Collections.emptyList();
-		}
-
-		List<ValidationProblem> problems = new ArrayList<ValidationProblem>();
-
-		for (ValidationRule rule : rules) {
-			problems.addAll(rule.findProblems(markup, offset, length));
-		}
-		if (!problems.isEmpty()) {
-			Collections.sort(problems);
-		}
-		return problems;
+		return ValidationPass.validate(rules, markup, offset, length);
 	}
 
 	public List<ValidationRule> getRules() {
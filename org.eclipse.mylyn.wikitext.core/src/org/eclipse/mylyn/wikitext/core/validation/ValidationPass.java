@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.MultiplexingDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+
+/**
+ * Validates a region of markup with a set of rules in as few passes over the markup as possible: the region is split
+ * into lines once for all {@link LineValidationRule line rules}, and the markup is parsed once for each markup language
+ * of the {@link DocumentBuilderValidationRule document builder rules}. Other rules examine the region on their own.
+ *
+ * @author David Green
+ */
+class ValidationPass {
+
+	private ValidationPass() {
+	}
+
+	/**
+	 * Validates the given region of markup.
+	 *
+	 * @return the problems sorted by offset, or an empty list if there are none
+	 */
+	static List<ValidationProblem> validate(List<ValidationRule> rules, String markup, int offset, int length) {
+		if (length == 0 || rules.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<LineValidationRule> lineRules = new ArrayList<LineValidationRule>();
+		List<DocumentBuilderValidationRule> builderRules = new ArrayList<DocumentBuilderValidationRule>();
+		List<ValidationProblem> problems = new ArrayList<ValidationProblem>();
+		for (ValidationRule rule : rules) {
+			if (rule instanceof LineValidationRule) {
+				lineRules.add((LineValidationRule) rule);
+			} else if (rule instanceof DocumentBuilderValidationRule) {
+				builderRules.add((DocumentBuilderValidationRule) rule);
+			} else {
+				problems.addAll(rule.findProblems(markup, offset, length));
+			}
+		}
+		validateLines(lineRules, markup, offset, length, problems);
+		parse(builderRules, markup, offset, length, problems);
+
+		if (!problems.isEmpty()) {
+			Collections.sort(problems);
+		}
+		return problems;
+	}
+
+	/**
+	 * Splits the given region of markup into lines, passing each line to all of the given rules.
+	 */
+	static void validateLines(List<LineValidationRule> rules, String markup, int offset, int length,
+			List<ValidationProblem> problems) {
+		if (rules.isEmpty()) {
+			return;
+		}
+		int end = Math.min(offset + length, markup.length());
+		int lineOffset = offset;
+		while (lineOffset < end) {
+			int lineEnd = lineOffset;
+			while (lineEnd < end && !isLineDelimiter(markup.charAt(lineEnd))) {
+				++lineEnd;
+			}
+			for (LineValidationRule rule : rules) {
+				rule.validateLine(markup, lineOffset, lineEnd - lineOffset, problems);
+			}
+			lineOffset = lineEnd + 1;
+			if (lineOffset < end && markup.charAt(lineEnd) == '\r' && markup.charAt(lineOffset) == '\n') {
+				++lineOffset;
+			}
+		}
+	}
+
+	/**
+	 * Parses the markup once for each markup language of the given rules, passing the events of the parse to the
+	 * builders of all rules having that markup language.
+	 */
+	static void parse(List<DocumentBuilderValidationRule> rules, String markup, int offset, int length,
+			List<ValidationProblem> problems) {
+		Map<String, List<DocumentBuilderValidationRule>> rulesByLanguageName = new LinkedHashMap<String, List<DocumentBuilderValidationRule>>();
+		Map<String, MarkupLanguage> languageByName = new LinkedHashMap<String, MarkupLanguage>();
+		for (DocumentBuilderValidationRule rule : rules) {
+			MarkupLanguage markupLanguage = rule.createMarkupLanguage();
+			List<DocumentBuilderValidationRule> languageRules = rulesByLanguageName.get(markupLanguage.getName());
+			if (languageRules == null) {
+				languageRules = new ArrayList<DocumentBuilderValidationRule>();
+				rulesByLanguageName.put(markupLanguage.getName(), languageRules);
+				languageByName.put(markupLanguage.getName(), markupLanguage);
+			}
+			languageRules.add(rule);
+		}
+		for (Map.Entry<String, List<DocumentBuilderValidationRule>> entry : rulesByLanguageName.entrySet()) {
+			MarkupLanguage markupLanguage = languageByName.get(entry.getKey());
+			if (markupLanguage instanceof AbstractMarkupLanguage) {
+				AbstractMarkupLanguage language = (AbstractMarkupLanguage) markupLanguage;
+				language.setFilterGenerativeContents(true);
+				language.setBlocksOnly(false);
+			}
+			List<DocumentBuilder> builders = new ArrayList<DocumentBuilder>();
+			for (DocumentBuilderValidationRule rule : entry.getValue()) {
+				builders.add(rule.createValidationBuilder(markupLanguage, markup, offset, length, problems));
+			}
+			MarkupParser markupParser = new MarkupParser(markupLanguage);
+			markupParser.setBuilder(builders.size() == 1 ? builders.get(0) : new MultiplexingDocumentBuilder(
+					builders.toArray(new DocumentBuilder[builders.size()])));
+			markupParser.parse(markup);
+		}
+	}
+
+	private static boolean isLineDelimiter(char c) {
+		return c == '\n' || c == '\r';
+	}
+}
@@ -114,4 +114,9 @@ public class CreoleLanguage extends AbstractMarkupLanguage {
 		return new ParagraphBlock();
 	}
 
+	@Override
+	protected boolean isStreamingSupported() {
+		return true;
+	}
+
 }
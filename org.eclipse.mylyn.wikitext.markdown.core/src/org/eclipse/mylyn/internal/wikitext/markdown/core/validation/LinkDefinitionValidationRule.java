@@ -12,15 +12,16 @@
 package org.eclipse.mylyn.internal.wikitext.markdown.core.validation;
 
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.mylyn.internal.wikitext.markdown.core.LinkDefinitionUsageTracker;
 import org.eclipse.mylyn.internal.wikitext.markdown.core.LinkDefinitionUsageTracker.Position;
 import org.eclipse.mylyn.internal.wikitext.markdown.core.MarkdownContentState;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.Locator;
-import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
 import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.validation.DocumentBuilderValidationRule;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem.Severity;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationRule;
@@ -31,50 +32,42 @@ import org.eclipse.mylyn.wikitext.markdown.core.MarkdownLanguage;
  * 
  * @author Stefan Seelmann
  */
-public class LinkDefinitionValidationRule extends ValidationRule {
+public class LinkDefinitionValidationRule extends DocumentBuilderValidationRule {
 
 	@Override
-	public ValidationProblem findProblem(String markup, int offset, int length) {
-		throw new UnsupportedOperationException();
+	protected MarkupLanguage createMarkupLanguage() {
+		return new MarkdownLanguage();
 	}
 
+	/**
+	 * The names of link definitions and references may span lines, but not blocks, and contain brackets, which a
+	 * block of plain text does not.
+	 */
 	@Override
-	public List<ValidationProblem> findProblems(String markup, int offset, int length) {
-
-		MarkupParser parser = new MarkupParser(new MarkdownLanguage());
-		MarkdownContentStateDocumentBuilder builder = new MarkdownContentStateDocumentBuilder();
-		parser.setBuilder(builder);
-		parser.parse(markup);
-
-		MarkdownContentState markdownContentState = builder.markdownContentState;
-		LinkDefinitionUsageTracker linkDefinitionUsageTracker = markdownContentState.getLinkDefinitionUsageTracker();
-
-		List<ValidationProblem> problems = new ArrayList<ValidationProblem>();
-
-		List<Position> missingLinkDefinitionPositions = linkDefinitionUsageTracker.getMissingLinkDefinitionPositions();
-		for (Position position : missingLinkDefinitionPositions) {
-			problems.add(new ValidationProblem(Severity.ERROR, MessageFormat.format(
-					Messages.getString("LinkDefinitionValidationRule.missing"), //$NON-NLS-1$
-					position.getId()), position.getOffset(), position.getLength()));
-		}
-
-		List<Position> unusedLinkDefinitionPositions = linkDefinitionUsageTracker.getUnusedLinkDefinitionPositions();
-		for (Position position : unusedLinkDefinitionPositions) {
-			problems.add(new ValidationProblem(Severity.WARNING, MessageFormat.format(
-					Messages.getString("LinkDefinitionValidationRule.unused"),//$NON-NLS-1$
-					position.getId()), position.getOffset(), position.getLength()));
-		}
+	protected boolean isAffectedByPlainTextBlock() {
+		return false;
+	}
 
-		return problems;
+	@Override
+	public DocumentBuilder createValidationBuilder(MarkupLanguage markupLanguage, String markup, int offset,
+			int length, List<ValidationProblem> problems) {
+		return new MarkdownContentStateDocumentBuilder(problems);
 	}
 
 	/**
-	 * Document builder that keeps a reference to the set {@link MarkdownContentState}.
+	 * Document builder that keeps a reference to the set {@link MarkdownContentState}, from which problems are found
+	 * at the end of the document.
 	 */
 	private class MarkdownContentStateDocumentBuilder extends NoOpDocumentBuilder {
 
+		private final List<ValidationProblem> problems;
+
 		MarkdownContentState markdownContentState;
 
+		MarkdownContentStateDocumentBuilder(List<ValidationProblem> problems) {
+			this.problems = problems;
+		}
+
 		@Override
 		public void setLocator(Locator locator) {
 			if (locator != null) {
@@ -82,5 +75,24 @@ public class LinkDefinitionValidationRule extends ValidationRule {
 			}
 			super.setLocator(locator);
 		}
+
+		@Override
+		public void endDocument() {
+			LinkDefinitionUsageTracker linkDefinitionUsageTracker = markdownContentState.getLinkDefinitionUsageTracker();
+
+			List<Position> missingLinkDefinitionPositions = linkDefinitionUsageTracker.getMissingLinkDefinitionPositions();
+			for (Position position : missingLinkDefinitionPositions) {
+				problems.add(new ValidationProblem(Severity.ERROR, MessageFormat.format(
+						Messages.getString("LinkDefinitionValidationRule.missing"), //$NON-NLS-1$
+						position.getId()), position.getOffset(), position.getLength()));
+			}
+
+			List<Position> unusedLinkDefinitionPositions = linkDefinitionUsageTracker.getUnusedLinkDefinitionPositions();
+			for (Position position : unusedLinkDefinitionPositions) {
+				problems.add(new ValidationProblem(Severity.WARNING, MessageFormat.format(
+						Messages.getString("LinkDefinitionValidationRule.unused"),//$NON-NLS-1$
+						position.getId()), position.getOffset(), position.getLength()));
+			}
+		}
 	}
 }
@@ -11,12 +11,16 @@
 
 package org.eclipse.mylyn.internal.wikitext.markdown.tests;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.io.StringWriter;
 
 import org.eclipse.mylyn.internal.wikitext.markdown.core.GfmIdGenerationStrategy;
 import org.eclipse.mylyn.internal.wikitext.markdown.core.MarkdownDocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.osgi.OsgiServiceLocator;
 import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
+import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
 import org.eclipse.mylyn.wikitext.core.parser.markup.AbstractMarkupLanguage;
 import org.eclipse.mylyn.wikitext.core.parser.markup.IdGenerationStrategy;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
@@ -36,6 +40,31 @@ public class MarkdownLanguageTest extends MarkdownLanguageTestBase {
 		assertTrue(language instanceof MarkdownLanguage);
 	}
 
+	public void testParseReader() throws IOException {
+		String markup = "Header 1\n========\n\n* List item 1\n  continued\n* List item 2\n\nHeader 2\n--------\nText\n";
+
+		StringWriter out = new StringWriter();
+		HtmlDocumentBuilder builder = new HtmlDocumentBuilder(out);
+		builder.setEmitAsDocument(false);
+		new MarkupParser(new MarkdownLanguage(), builder).parse(new StringReader(markup));
+
+		assertEquals(parseToHtml(markup), out.toString());
+		assertTrue(out.toString().contains("<h1 id=\"header-1\">Header 1</h1>"));
+		assertTrue(out.toString().contains("<h2 id=\"header-2\">Header 2</h2>"));
+	}
+
+	public void testParseReaderWithReferenceStyleLink() throws IOException {
+		String markup = "See [the site][site] now.\n\n[site]: http://example.com\n";
+
+		StringWriter out = new StringWriter();
+		HtmlDocumentBuilder builder = new HtmlDocumentBuilder(out);
+		builder.setEmitAsDocument(false);
+		new MarkupParser(new MarkdownLanguage(), builder).parse(new StringReader(markup));
+
+		assertEquals(parseToHtml(markup), out.toString());
+		assertTrue(out.toString().contains("<a href=\"http://example.com\">the site</a>"));
+	}
+
 	public void testFullExample() {
 
 		StringBuilder text = new StringBuilder();
@@ -0,0 +1,396 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core.ant.tasks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
+
+/**
+ * Downloads images to a folder using a bounded number of threads. The HTTP validators of each downloaded image are
+ * recorded in a manifest in the folder, so that an image that was previously downloaded is requested conditionally and
+ * is not transferred again unless it has changed. Images served without an ETag or Last-Modified header cannot be
+ * requested conditionally and are not recorded.
+ * <p>
+ * Downloaders of the same folder, such as those of pages that are rendered concurrently, share a single manifest and
+ * transfer an image that they both need only once. The manifest file is replaced atomically when it is written.
+ * </p>
+ *
+ * @author David Green
+ */
+class ImageDownloader {
+
+	static final String MANIFEST_FILE_NAME = ".images.properties"; //$NON-NLS-1$
+
+	private static final String LENGTH_SUFFIX = ".length"; //$NON-NLS-1$
+
+	private static final String ETAG_SUFFIX = ".etag"; //$NON-NLS-1$
+
+	private static final String LAST_MODIFIED_SUFFIX = ".lastModified"; //$NON-NLS-1$
+
+	private final ImageFetchingStrategy strategy;
+
+	private final File dest;
+
+	private final int threads;
+
+	/**
+	 * the manifests of the folders that are being downloaded to, by canonical folder
+	 */
+	private static final Map<File, Manifest> manifests = new HashMap<File, Manifest>();
+
+	ImageDownloader(ImageFetchingStrategy strategy, File dest, int threads) {
+		this.strategy = strategy;
+		this.dest = dest;
+		this.threads = threads;
+	}
+
+	/**
+	 * Downloads the given images.
+	 *
+	 * @param nameToUrl
+	 *            the file names of the images in the folder, and the URLs from which they are downloaded
+	 * @return the number of images that were transferred
+	 */
+	int download(Map<String, URL> nameToUrl) throws BuildException {
+		if (nameToUrl.isEmpty()) {
+			return 0;
+		}
+		final Manifest manifest = acquireManifest();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, nameToUrl.size())));
+		try {
+			List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(nameToUrl.size());
+			for (final Map.Entry<String, URL> entry : nameToUrl.entrySet()) {
+				futures.add(executor.submit(new Callable<Boolean>() {
+
+					@Override
+					public Boolean call() throws IOException {
+						return download(manifest, entry.getKey(), entry.getValue());
+					}
+				}));
+			}
+			int transferCount = 0;
+			for (Future<Boolean> future : futures) {
+				if (getResult(future)) {
+					++transferCount;
+				}
+			}
+			return transferCount;
+		} finally {
+			executor.shutdownNow();
+			releaseManifest(manifest);
+		}
+	}
+
+	/**
+	 * Downloads the given image unless another downloader of the folder is already doing so, in which case its
+	 * download is waited for.
+	 *
+	 * @return true if the image was transferred by this call
+	 */
+	private boolean download(final Manifest manifest, final String name, final URL url) throws IOException {
+		FutureTask<Boolean> download = new FutureTask<Boolean>(new Callable<Boolean>() {
+
+			@Override
+			public Boolean call() throws IOException {
+				return transferIfModified(manifest, name, url);
+			}
+		});
+		FutureTask<Boolean> current;
+		synchronized (manifest) {
+			current = manifest.downloads.get(name);
+			if (current == null) {
+				manifest.downloads.put(name, download);
+			}
+		}
+		if (current != null) {
+			strategy.log("Already fetching " + url, Project.MSG_VERBOSE); //$NON-NLS-1$
+			getDownloadResult(current);
+			return false;
+		}
+		try {
+			download.run();
+			return getDownloadResult(download);
+		} finally {
+			synchronized (manifest) {
+				manifest.downloads.remove(name);
+			}
+		}
+	}
+
+	private boolean transferIfModified(Manifest manifest, String name, URL url) throws IOException {
+		File target = new File(dest, name);
+		URLConnection connection = url.openConnection();
+		synchronized (manifest) {
+			Properties properties = manifest.properties;
+			if (target.isFile()
+					&& String.valueOf(target.length()).equals(properties.getProperty(name + LENGTH_SUFFIX))) {
+				String etag = properties.getProperty(name + ETAG_SUFFIX);
+				if (etag != null) {
+					connection.setRequestProperty("If-None-Match", etag); //$NON-NLS-1$
+				}
+				String lastModified = properties.getProperty(name + LAST_MODIFIED_SUFFIX);
+				if (lastModified != null) {
+					connection.setRequestProperty("If-Modified-Since", lastModified); //$NON-NLS-1$
+				}
+			}
+		}
+		if (connection instanceof HttpURLConnection) {
+			HttpURLConnection httpConnection = (HttpURLConnection) connection;
+			int responseCode = httpConnection.getResponseCode();
+			if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+				strategy.log("Not modified: " + url, Project.MSG_VERBOSE); //$NON-NLS-1$
+				httpConnection.disconnect();
+				return false;
+			}
+			if (responseCode != HttpURLConnection.HTTP_OK) {
+				httpConnection.disconnect();
+				throw new IOException(String.format("Cannot fetch %s: %s %s", url, responseCode, //$NON-NLS-1$
+						httpConnection.getResponseMessage()));
+			}
+		}
+		strategy.log("Fetching " + url, Project.MSG_INFO); //$NON-NLS-1$
+		long length = transfer(connection, target);
+
+		String etag = connection.getHeaderField("ETag"); //$NON-NLS-1$
+		String lastModified = connection.getHeaderField("Last-Modified"); //$NON-NLS-1$
+		synchronized (manifest) {
+			Properties properties = manifest.properties;
+			if (etag == null && lastModified == null) {
+				// the image cannot be requested conditionally
+				properties.remove(name + LENGTH_SUFFIX);
+			} else {
+				properties.setProperty(name + LENGTH_SUFFIX, String.valueOf(length));
+			}
+			setOrRemove(properties, name + ETAG_SUFFIX, etag);
+			setOrRemove(properties, name + LAST_MODIFIED_SUFFIX, lastModified);
+			manifest.modified = true;
+		}
+		return true;
+	}
+
+	private long transfer(URLConnection connection, File target) throws IOException {
+		File partFile = File.createTempFile(target.getName(), ".part", dest); //$NON-NLS-1$
+		try {
+			long length = 0;
+			InputStream in = new BufferedInputStream(connection.getInputStream());
+			try {
+				OutputStream out = new FileOutputStream(partFile);
+				try {
+					byte[] buffer = new byte[1024 * 16];
+					int count;
+					while ((count = in.read(buffer)) != -1) {
+						out.write(buffer, 0, count);
+						length += count;
+					}
+				} finally {
+					out.close();
+				}
+			} finally {
+				in.close();
+			}
+			if (!partFile.renameTo(target)) {
+				if (!target.delete() || !partFile.renameTo(target)) {
+					throw new IOException(String.format("Cannot write %s", target)); //$NON-NLS-1$
+				}
+			}
+			return length;
+		} finally {
+			if (partFile.exists()) {
+				partFile.delete();
+			}
+		}
+	}
+
+	private static void setOrRemove(Properties properties, String key, String value) {
+		if (value == null) {
+			properties.remove(key);
+		} else {
+			properties.setProperty(key, value);
+		}
+	}
+
+	/**
+	 * Provides the manifest of the folder, reading it unless it is already in use by another downloader.
+	 */
+	private Manifest acquireManifest() {
+		File folder = canonicalFile(dest);
+		synchronized (manifests) {
+			Manifest manifest = manifests.get(folder);
+			if (manifest == null) {
+				manifest = new Manifest(folder);
+				readManifest(manifest);
+				manifests.put(folder, manifest);
+			}
+			++manifest.users;
+			return manifest;
+		}
+	}
+
+	/**
+	 * Writes the manifest if it was modified, and forgets it once it is no longer in use so that it is read again by
+	 * subsequent downloaders.
+	 */
+	private void releaseManifest(Manifest manifest) {
+		synchronized (manifests) {
+			synchronized (manifest) {
+				if (manifest.modified) {
+					writeManifest(manifest);
+					manifest.modified = false;
+				}
+			}
+			if (--manifest.users == 0) {
+				manifests.remove(manifest.folder);
+			}
+		}
+	}
+
+	private void readManifest(Manifest manifest) {
+		File manifestFile = new File(manifest.folder, MANIFEST_FILE_NAME);
+		if (manifestFile.isFile()) {
+			try {
+				InputStream in = new BufferedInputStream(new FileInputStream(manifestFile));
+				try {
+					manifest.properties.load(in);
+				} finally {
+					in.close();
+				}
+			} catch (IOException e) {
+				strategy.log(String.format("Ignoring unreadable %s: %s", manifestFile, e.getMessage()), //$NON-NLS-1$
+						Project.MSG_WARN);
+				manifest.properties.clear();
+			}
+		}
+	}
+
+	/**
+	 * Writes the manifest to a temporary file that then replaces the manifest file, so that the manifest file is never
+	 * seen partially written.
+	 */
+	private void writeManifest(Manifest manifest) {
+		File manifestFile = new File(manifest.folder, MANIFEST_FILE_NAME);
+		try {
+			File partFile = File.createTempFile(MANIFEST_FILE_NAME, ".part", manifest.folder); //$NON-NLS-1$
+			try {
+				OutputStream out = new BufferedOutputStream(new FileOutputStream(partFile));
+				try {
+					manifest.properties.store(out, null);
+				} finally {
+					out.close();
+				}
+				try {
+					Files.move(partFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+							StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(partFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				if (partFile.exists()) {
+					partFile.delete();
+				}
+			}
+		} catch (IOException e) {
+			strategy.log(String.format("Cannot write %s: %s", manifestFile, e.getMessage()), Project.MSG_WARN); //$NON-NLS-1$
+		}
+	}
+
+	private static File canonicalFile(File file) {
+		try {
+			return file.getCanonicalFile();
+		} catch (IOException e) {
+			return file.getAbsoluteFile();
+		}
+	}
+
+	private static boolean getDownloadResult(Future<Boolean> download) throws IOException {
+		try {
+			return download.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private boolean getResult(Future<Boolean> future) {
+		boolean interrupted = false;
+		try {
+			for (;;) {
+				try {
+					return future.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					throw new BuildException(e.getCause().getMessage(), e.getCause(), strategy.getLocation());
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * The manifest of a folder, shared by the downloaders of the folder.
+	 */
+	private static class Manifest {
+
+		final File folder;
+
+		final Properties properties = new Properties();
+
+		/**
+		 * the downloads in progress, by image file name
+		 */
+		final Map<String, FutureTask<Boolean>> downloads = new HashMap<String, FutureTask<Boolean>>();
+
+		boolean modified;
+
+		int users;
+
+		Manifest(File folder) {
+			this.folder = folder;
+		}
+	}
+}
@@ -12,7 +12,6 @@
 package org.eclipse.mylyn.internal.wikitext.mediawiki.core.ant.tasks;
 
 import java.io.BufferedInputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -22,6 +21,7 @@ import java.net.URL;
 import java.net.URLEncoder;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -33,7 +33,6 @@ import javax.xml.parsers.SAXParserFactory;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Project;
-import org.apache.tools.ant.taskdefs.Get;
 import org.eclipse.mylyn.wikitext.core.util.IgnoreDtdEntityResolver;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
@@ -50,6 +49,8 @@ class MediaWikiApiImageFetchingStrategy extends ImageFetchingStrategy {
 
 	private String pageName;
 
+	private int threads = 1;
+
 	@Override
 	public Set<String> fetchImages() {
 		if (pageName == null || pageName.length() == 0) {
@@ -125,7 +126,7 @@ class MediaWikiApiImageFetchingStrategy extends ImageFetchingStrategy {
 			}
 
 		} while (gimcontinue != null && maxloop-- > 0);
-		int fileCount = 0;
+		Map<String, URL> nameToUrl = new LinkedHashMap<String, URL>();
 		for (Map.Entry<String, String> ent : contentHandler.imageTitleToUrl.entrySet()) {
 			String title = ent.getKey();
 			String imageUrl = ent.getValue();
@@ -144,26 +145,20 @@ class MediaWikiApiImageFetchingStrategy extends ImageFetchingStrategy {
 					}
 				}
 
-				log("Fetching " + qualifiedUrl, Project.MSG_INFO); //$NON-NLS-1$
-				Get get = new Get();
-				get.setProject(getProject());
-				get.setLocation(getLocation());
 				try {
-					get.setSrc(new URL(qualifiedUrl));
+					nameToUrl.put(name, new URL(qualifiedUrl));
 				} catch (MalformedURLException e) {
 					log("Skipping " + url + ": " + e.getMessage(), Project.MSG_WARN); //$NON-NLS-1$ //$NON-NLS-2$
 					continue;
 				}
-				get.setDest(new File(dest, name));
-				get.execute();
-
 				filenames.add(name);
-				++fileCount;
 			} else {
 				log(String.format("Unexpected title format: %s", title), Project.MSG_WARN); //$NON-NLS-1$
 			}
 		}
-		log("Fetched " + fileCount + " image files for " + pageName, Project.MSG_INFO); //$NON-NLS-1$ //$NON-NLS-2$
+		int fileCount = new ImageDownloader(this, dest, threads).download(nameToUrl);
+		log("Fetched " + fileCount + " image files for " + pageName + " (" + (nameToUrl.size() - fileCount) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ " unchanged)", Project.MSG_INFO); //$NON-NLS-1$
 
 		return filenames;
 	}
@@ -184,6 +179,17 @@ class MediaWikiApiImageFetchingStrategy extends ImageFetchingStrategy {
 		this.pageName = pageName;
 	}
 
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * The number of images that are downloaded concurrently.
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
 	private class ImageFetchingContentHandler implements ContentHandler {
 
 		private final Map<String, String> imageTitleToUrl = new HashMap<String, String>();
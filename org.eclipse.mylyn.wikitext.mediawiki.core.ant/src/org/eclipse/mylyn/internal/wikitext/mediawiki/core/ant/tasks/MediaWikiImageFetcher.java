@@ -21,7 +21,7 @@ import org.apache.tools.ant.Task;
  * Fetch images from a MediaWiki-generated HTML page source. Usage:
  *
  * <pre>
- * &lt;mediawiki-fetch-images dest="tmp" url="http://wiki.eclipse.org/" pageName="Mylyn/User_Guide"/&gt;
+ * &lt;mediawiki-fetch-images dest="tmp" url="http://wiki.eclipse.org/" pageName="Mylyn/User_Guide" threads="4"/&gt;
  * </pre>
  *
  * @author David Green
@@ -38,6 +38,8 @@ public class MediaWikiImageFetcher extends Task {
 
 	private String pageName;
 
+	private int threads = 1;
+
 	@Override
 	public void execute() throws BuildException {
 		if (dest == null) {
@@ -49,6 +51,9 @@ public class MediaWikiImageFetcher extends Task {
 		if (!dest.isDirectory()) {
 			throw new BuildException("@dest is not a directory: " + dest); //$NON-NLS-1$
 		}
+		if (threads < 1) {
+			throw new BuildException("@threads must be at least 1"); //$NON-NLS-1$
+		}
 		if (src == null && url == null) {
 			throw new BuildException("Must specify @src or @url"); //$NON-NLS-1$
 		}
@@ -66,6 +71,7 @@ public class MediaWikiImageFetcher extends Task {
 			MediaWikiApiImageFetchingStrategy apiStrategy = new MediaWikiApiImageFetchingStrategy();
 			apiStrategy.setUrl(url);
 			apiStrategy.setPageName(pageName);
+			apiStrategy.setThreads(threads);
 			strategy = apiStrategy;
 		}
 		strategy.setDest(dest);
@@ -144,4 +150,23 @@ public class MediaWikiImageFetcher extends Task {
 	public void setPageName(String pageName) {
 		this.pageName = pageName;
 	}
+
+	/**
+	 * The number of images that are downloaded concurrently, defaults to 1. Images that were downloaded previously to
+	 * {@link #getDest() dest} are only downloaded again if they have changed.
+	 *
+	 * @since 2.9
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * The number of images that are downloaded concurrently, defaults to 1.
+	 *
+	 * @since 2.9
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
 }
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core.ant.tasks;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.net.URL;
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tools.ant.Project;
+
+/**
+ * Fetches the raw content of wiki pages for a {@link WikiToDocTask}. A page fetcher may be used by many threads
+ * concurrently. Failed requests are retried, and requests to the same host are spaced apart by a minimum delay.
+ *
+ * @author David Green
+ */
+class PageFetcher {
+
+	private final WikiToDocTask task;
+
+	private final int retries;
+
+	private final long throttleDelayNanos;
+
+	private final Map<String, Long> nextRequestTimeByHost = new HashMap<String, Long>();
+
+	PageFetcher(WikiToDocTask task, int retries, long throttleDelayMillis) {
+		this.task = task;
+		this.retries = retries;
+		this.throttleDelayNanos = TimeUnit.MILLISECONDS.toNanos(throttleDelayMillis);
+	}
+
+	String fetch(URL url) throws IOException {
+		for (int attempt = 0;; ++attempt) {
+			awaitTurn(url.getHost());
+			try {
+				Reader input = task.createInputReader(url);
+				try {
+					return readFully(input);
+				} finally {
+					input.close();
+				}
+			} catch (InterruptedIOException e) {
+				throw e;
+			} catch (IOException e) {
+				if (attempt >= retries) {
+					throw e;
+				}
+				task.log(MessageFormat.format(Messages.getString("WikiToDocTask_retrying_fetch"), url, //$NON-NLS-1$
+						e.getMessage()), Project.MSG_WARN);
+			}
+		}
+	}
+
+	private void awaitTurn(String host) throws InterruptedIOException {
+		if (throttleDelayNanos <= 0) {
+			return;
+		}
+		long delay;
+		synchronized (nextRequestTimeByHost) {
+			long now = System.nanoTime();
+			Long nextRequestTime = nextRequestTimeByHost.get(host);
+			long requestTime = nextRequestTime == null ? now : Math.max(now, nextRequestTime);
+			nextRequestTimeByHost.put(host, requestTime + throttleDelayNanos);
+			delay = requestTime - now;
+		}
+		if (delay > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+	}
+
+	private static String readFully(Reader input) throws IOException {
+		StringWriter content = new StringWriter(1024 * 8);
+		char[] buffer = new char[1024 * 8];
+		int length;
+		while ((length = input.read(buffer)) != -1) {
+			content.write(buffer, 0, length);
+		}
+		return content.toString();
+	}
+}
@@ -19,7 +19,6 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -32,6 +31,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -47,6 +48,8 @@ import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingOutlineP
 import org.eclipse.mylyn.internal.wikitext.core.parser.builder.SplittingStrategy;
 import org.eclipse.mylyn.internal.wikitext.core.validation.StandaloneMarkupValidator;
 import org.eclipse.mylyn.internal.wikitext.mediawiki.core.PageMapping;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.TemplateCache;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.TemplateProcessor;
 import org.eclipse.mylyn.internal.wikitext.mediawiki.core.WikiTemplateResolver;
 import org.eclipse.mylyn.wikitext.core.parser.MarkupParser;
 import org.eclipse.mylyn.wikitext.core.parser.builder.HtmlDocumentBuilder;
@@ -87,6 +90,8 @@ import org.eclipse.mylyn.wikitext.mediawiki.core.MediaWikiLanguage;
  * @author David Green
  */
 public class WikiToDocTask extends MarkupTask {
+	private static final int TEMPLATE_CACHE_SIZE = 1000;
+
 	protected String htmlFilenameFormat = "$1.html"; //$NON-NLS-1$
 
 	private String wikiBaseUrl;
@@ -135,6 +140,14 @@ public class WikiToDocTask extends MarkupTask {
 
 	private boolean titleParameter;
 
+	private int connections = 1;
+
+	private int retries = 0;
+
+	private long throttleDelay = 0L;
+
+	private File templateCacheDir;
+
 	public WikiToDocTask() {
 	}
 
@@ -183,6 +196,10 @@ public class WikiToDocTask extends MarkupTask {
 		MediaWikiLanguage markupLanguage = (MediaWikiLanguage) createMarkupLanguage();
 		WikiTemplateResolver templateResolver = new WikiTemplateResolver();
 		templateResolver.setWikiBaseUrl(wikiBaseUrl);
+		// templates are not expected to change while the pages are converted
+		TemplateCache templateCache = new TemplateCache(TEMPLATE_CACHE_SIZE, TimeUnit.HOURS.toMillis(1));
+		templateCache.setStoreDirectory(templateCacheDir);
+		templateResolver.setTemplateCache(templateCache);
 		markupLanguage.getTemplateProviders().add(templateResolver);
 		markupLanguage.setTemplateExcludes(templateExcludes);
 
@@ -221,55 +238,60 @@ public class WikiToDocTask extends MarkupTask {
 			tocFile = new File(dest, "toc.xml"); //$NON-NLS-1$
 		}
 
-		Map<String, String> pathNameToContent = new HashMap<String, String>();
-		Map<String, SplitOutlineItem> pathNameToOutline = new HashMap<String, SplitOutlineItem>();
-		for (Path path : paths) {
-			getProject().log(
-					MessageFormat.format(Messages.getString("WikiToDocTask_fetching_content_for_page"), path.name), //$NON-NLS-1$
-					Project.MSG_VERBOSE);
-			URL pathUrl = computeRawUrl(path.name);
-			try {
-				Reader input = createInputReader(pathUrl);
+		final Map<String, String> pathNameToContent = new ConcurrentHashMap<String, String>();
+		final Map<String, SplitOutlineItem> pathNameToOutline = new ConcurrentHashMap<String, SplitOutlineItem>();
+		final PageFetcher pageFetcher = new PageFetcher(this, retries, throttleDelay);
+		processItems(markupLanguage, paths, connections, new ItemProcessor<Path>() {
+
+			@Override
+			public void process(MarkupLanguage markupLanguage, Path path) {
+				log(MessageFormat.format(Messages.getString("WikiToDocTask_fetching_content_for_page"), path.name), //$NON-NLS-1$
+						Project.MSG_VERBOSE);
+				URL pathUrl = computeRawUrl(path.name);
+				String content;
 				try {
-					String content = readFully(input);
-					content = preprocessMarkup(path, content);
-					pathNameToContent.put(path.name, content);
-					final File targetFile = computeHtmlOutputFile(path);
-					SplitOutlineItem outline = computeOutline(path, markupLanguage, targetFile, content);
-					outline.setResourcePath(targetFile.getAbsolutePath());
-					pathNameToOutline.put(path.name, outline);
-				} finally {
-					input.close();
+					content = pageFetcher.fetch(pathUrl);
+				} catch (final IOException e) {
+					final String message = MessageFormat.format("Cannot read from {0}: {1}", pathUrl, e.getMessage()); //$NON-NLS-1$
+					throw new BuildException(message, e);
 				}
-			} catch (final IOException e) {
-				final String message = MessageFormat.format("Cannot read from {0}: {1}", pathUrl, e.getMessage()); //$NON-NLS-1$
-				throw new BuildException(message, e);
+				content = preprocessMarkup(path, content);
+				pathNameToContent.put(path.name, content);
+				final File targetFile = computeHtmlOutputFile(path);
+				SplitOutlineItem outline = computeOutline(path, markupLanguage, targetFile, content);
+				outline.setResourcePath(targetFile.getAbsolutePath());
+				pathNameToOutline.put(path.name, outline);
 			}
-
+		});
+		if (markupLanguage.isEnableMacros()) {
+			new TemplateProcessor(markupLanguage).prefetchTemplates(pathNameToContent.values(), connections);
 		}
-		for (Path path : paths) {
-			getProject().log(MessageFormat.format(Messages.getString("WikiToDocTask_processing_page"), path.name), //$NON-NLS-1$
-					Project.MSG_DEBUG);
+		processItems(markupLanguage, paths, getThreads(), new ItemProcessor<Path>() {
 
-			String markupContent = pathNameToContent.get(path.name);
-			if (isValidate()) {
-				performValidation(markupLanguage, path, markupContent);
-			}
+			@Override
+			public void process(MarkupLanguage markupLanguage, Path path) {
+				log(MessageFormat.format(Messages.getString("WikiToDocTask_processing_page"), path.name), //$NON-NLS-1$
+						Project.MSG_DEBUG);
 
-			Set<String> imageFilenames = null;
-			if (!fetchImages) {
-				getProject().log(Messages.getString("WikiToDocTask_skipping_images"), Project.MSG_WARN); //$NON-NLS-1$
-			} else {
-				imageFilenames = fetchImages(markupLanguage, path);
-			}
+				String markupContent = pathNameToContent.get(path.name);
+				if (isValidate()) {
+					performValidation(markupLanguage, path, markupContent);
+				}
 
-			markupToDoc(markupLanguage, path, markupContent, pathNameToOutline, imageFilenames);
+				Set<String> imageFilenames = null;
+				if (!fetchImages) {
+					log(Messages.getString("WikiToDocTask_skipping_images"), Project.MSG_WARN); //$NON-NLS-1$
+				} else {
+					imageFilenames = fetchImages(markupLanguage, path);
+				}
 
-			if (path.isGenerateToc()) {
-				createToc(path, pathNameToOutline.get(path.name));
-			}
+				markupToDoc(markupLanguage, path, markupContent, pathNameToOutline, imageFilenames);
 
-		}
+				if (path.isGenerateToc()) {
+					createToc(path, pathNameToOutline.get(path.name));
+				}
+			}
+		});
 		if (generateUnifiedToc) {
 			createToc(paths, pathNameToOutline);
 		}
@@ -280,7 +302,7 @@ public class WikiToDocTask extends MarkupTask {
 	}
 
 	protected void performValidation(MarkupLanguage markupLanguage, Path path, String markupContent) {
-		getProject().log(MessageFormat.format("Validating {0}", path.name), Project.MSG_VERBOSE); //$NON-NLS-1$
+		log(MessageFormat.format("Validating {0}", path.name), Project.MSG_VERBOSE); //$NON-NLS-1$
 
 		StandaloneMarkupValidator markupValidator = StandaloneMarkupValidator.getValidator(markupLanguage.getName());
 
@@ -379,7 +401,7 @@ public class WikiToDocTask extends MarkupTask {
 	}
 
 	private void createToc(List<Path> paths, final Map<String, SplitOutlineItem> pathNameToOutline) {
-		getProject().log(MessageFormat.format(Messages.getString("WikiToDocTask_writing_toc"), tocFile), //$NON-NLS-1$
+		log(MessageFormat.format(Messages.getString("WikiToDocTask_writing_toc"), tocFile), //$NON-NLS-1$
 				Project.MSG_VERBOSE);
 		final OutlineItem rootItem = new OutlineItem(null, 0, "<root>", 0, -1, //$NON-NLS-1$
 				title == null ? computeTitle(paths.get(0)) : title);
@@ -458,18 +480,19 @@ public class WikiToDocTask extends MarkupTask {
 		if (prependImagePrefix != null) {
 			dest = new File(dest, prependImagePrefix);
 			if (!dest.exists()) {
-				if (!dest.mkdirs()) {
+				if (!dest.mkdirs() && !dest.isDirectory()) {
 					throw new BuildException(
 							MessageFormat.format("Cannot create images folder: {0}", dest.getAbsolutePath())); //$NON-NLS-1$
 				}
 			}
 		}
-		getProject().log(MessageFormat.format(Messages.getString("WikiToDocTask_fetching_images_for_page"), path.name), //$NON-NLS-1$
+		log(MessageFormat.format(Messages.getString("WikiToDocTask_fetching_images_for_page"), path.name), //$NON-NLS-1$
 				Project.MSG_VERBOSE);
 		MediaWikiApiImageFetchingStrategy imageFetchingStrategy = new MediaWikiApiImageFetchingStrategy();
 		imageFetchingStrategy.setTask(this);
 		imageFetchingStrategy.setDest(dest);
 		imageFetchingStrategy.setPageName(path.name);
+		imageFetchingStrategy.setThreads(connections);
 		try {
 			imageFetchingStrategy.setUrl(new URL(wikiBaseUrl));
 		} catch (MalformedURLException e) {
@@ -486,9 +509,8 @@ public class WikiToDocTask extends MarkupTask {
 			appendum = appendum.replace("{name}", path.name); //$NON-NLS-1$
 			appendum = appendum.replace("{title}", computeTitle(path)); //$NON-NLS-1$
 			content += appendum;
-			getProject()
-					.log(MessageFormat.format(Messages.getString("WikiToDocTask_appending_markup_to_page"), path.name, //$NON-NLS-1$
-							appendum), Project.MSG_VERBOSE);
+			log(MessageFormat.format(Messages.getString("WikiToDocTask_appending_markup_to_page"), path.name, //$NON-NLS-1$
+					appendum), Project.MSG_VERBOSE);
 		}
 		return content;
 	}
@@ -498,7 +520,7 @@ public class WikiToDocTask extends MarkupTask {
 		File htmlOutputFile = computeHtmlOutputFile(path);
 		File pathDir = htmlOutputFile.getParentFile();
 		if (!pathDir.exists()) {
-			if (!pathDir.mkdirs()) {
+			if (!pathDir.mkdirs() && !pathDir.isDirectory()) {
 				throw new BuildException(
 						MessageFormat.format(Messages.getString("WikiToDocTask_cannot_create_dest_folder"), //$NON-NLS-1$
 								pathDir.getAbsolutePath()));
@@ -633,15 +655,6 @@ public class WikiToDocTask extends MarkupTask {
 		return new File(dest, fileName);
 	}
 
-	private String readFully(Reader input) throws IOException {
-		StringWriter content = new StringWriter(1024 * 8);
-		int i;
-		while ((i = input.read()) != -1) {
-			content.write(i);
-		}
-		return content.toString();
-	}
-
 	private URL computeRawUrl(String path) {
 		try {
 			String qualifiedUrl = wikiBaseUrl;
@@ -873,7 +886,7 @@ public class WikiToDocTask extends MarkupTask {
 						SplitOutlineItem item = outline.getOutlineItemById(hashId);
 
 						if (item == null) {
-							getProject().log(MessageFormat.format(
+							log(MessageFormat.format(
 									Messages.getString("WikiToDocTask_missing_id_in_page_reference"), hashId, //$NON-NLS-1$
 									name, currentPath.name), Project.MSG_WARN);
 						} else {
@@ -1112,4 +1125,99 @@ public class WikiToDocTask extends MarkupTask {
 		this.titleParameter = titleParameter;
 	}
 
+
+	/**
+	 * The number of pages that are fetched concurrently, which is also the number of images of a page that are fetched
+	 * concurrently. Each page is parsed for its outline as soon as it is fetched. The default is 1, which fetches pages
+	 * sequentially.
+	 *
+	 * @since 2.9
+	 */
+	public int getConnections() {
+		return connections;
+	}
+
+	/**
+	 * The number of pages that are fetched concurrently.
+	 *
+	 * @param connections
+	 *            the number of connections, which must be at least 1
+	 * @since 2.9
+	 */
+	public void setConnections(int connections) {
+		if (connections < 1) {
+			throw new BuildException(
+					MessageFormat.format(Messages.getString("WikiToDocTask_invalid_connections"), connections)); //$NON-NLS-1$
+		}
+		this.connections = connections;
+	}
+
+	/**
+	 * The number of times that fetching a page is retried after it fails. The default is 0.
+	 *
+	 * @since 2.9
+	 */
+	public int getRetries() {
+		return retries;
+	}
+
+	/**
+	 * The number of times that fetching a page is retried after it fails.
+	 *
+	 * @param retries
+	 *            the number of retries, which must not be negative
+	 * @since 2.9
+	 */
+	public void setRetries(int retries) {
+		if (retries < 0) {
+			throw new BuildException(MessageFormat.format(Messages.getString("WikiToDocTask_invalid_retries"), retries)); //$NON-NLS-1$
+		}
+		this.retries = retries;
+	}
+
+	/**
+	 * The minimum delay in milliseconds between the start of two requests for pages of the same host. The default is 0,
+	 * which does not throttle requests.
+	 *
+	 * @since 2.9
+	 */
+	public long getThrottleDelay() {
+		return throttleDelay;
+	}
+
+	/**
+	 * The minimum delay in milliseconds between the start of two requests for pages of the same host.
+	 *
+	 * @param throttleDelay
+	 *            the delay in milliseconds, which must not be negative
+	 * @since 2.9
+	 */
+	public void setThrottleDelay(long throttleDelay) {
+		if (throttleDelay < 0) {
+			throw new BuildException(
+					MessageFormat.format(Messages.getString("WikiToDocTask_invalid_throttleDelay"), throttleDelay)); //$NON-NLS-1$
+		}
+		this.throttleDelay = throttleDelay;
+	}
+
+	/**
+	 * A directory in which templates fetched from the wiki are stored, so that later builds do not fetch them again
+	 * while they are less than an hour old. By default templates are only cached in memory while the task runs.
+	 *
+	 * @since 2.9
+	 */
+	public File getTemplateCacheDir() {
+		return templateCacheDir;
+	}
+
+	/**
+	 * A directory in which templates fetched from the wiki are stored.
+	 *
+	 * @see #getTemplateCacheDir()
+	 * @since 2.9
+	 */
+	public void setTemplateCacheDir(File templateCacheDir) {
+		this.templateCacheDir = templateCacheDir;
+	}
+
 }
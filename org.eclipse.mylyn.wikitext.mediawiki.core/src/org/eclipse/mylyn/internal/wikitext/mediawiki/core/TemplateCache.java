@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A thread-safe cache of template markup keyed by wiki base URL and template name. Entries expire after a configurable
+ * time to live, and the least recently used entries are evicted when the cache is full. Concurrent requests for the
+ * same template load it only once. Optionally the cache is backed by a {@link #setStoreDirectory(File) directory} so
+ * that templates are not fetched again by later processes while they are fresh.
+ *
+ * @author David Green
+ */
+public class TemplateCache {
+
+	/**
+	 * Loads the markup of a template that is not in the cache.
+	 */
+	public interface Loader {
+
+		/**
+		 * @return the template markup, or null if the template does not exist
+		 */
+		String load() throws IOException;
+	}
+
+	private static final String STORE_FILE_SUFFIX = ".template"; //$NON-NLS-1$
+
+	private static class Entry {
+
+		private final long expiryTime;
+
+		private final FutureTask<String> task;
+
+		private Entry(long expiryTime, FutureTask<String> task) {
+			this.expiryTime = expiryTime;
+			this.task = task;
+		}
+	}
+
+	private final long timeToLive;
+
+	private final Map<String, Entry> entryByKey;
+
+	private volatile File storeDirectory;
+
+	/**
+	 * @param maximumSize
+	 *            the maximum number of templates held in memory
+	 * @param timeToLive
+	 *            the time in milliseconds for which a template is used before it is loaded again
+	 */
+	public TemplateCache(final int maximumSize, long timeToLive) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException();
+		}
+		if (timeToLive < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.timeToLive = timeToLive;
+		entryByKey = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > maximumSize;
+			}
+		};
+	}
+
+	/**
+	 * Provides the markup of a template, loading it if it is not cached or has expired.
+	 *
+	 * @param wikiBaseUrl
+	 *            the base URL of the wiki that defines the template
+	 * @param templateName
+	 *            the qualified name of the template
+	 * @param loader
+	 *            the loader that is used if the template must be loaded
+	 * @return the template markup, or null if the template does not exist
+	 * @throws IOException
+	 *             if the template cannot be loaded, in which case the failure is not cached
+	 */
+	public String get(String wikiBaseUrl, String templateName, final Loader loader) throws IOException {
+		final String key = wikiBaseUrl + '\n' + templateName;
+		boolean owner = false;
+		Entry entry;
+		synchronized (entryByKey) {
+			entry = entryByKey.get(key);
+			if (entry == null || entry.expiryTime < System.currentTimeMillis()) {
+				entry = new Entry(System.currentTimeMillis() + timeToLive, new FutureTask<String>(new Callable<String>() {
+
+					@Override
+					public String call() throws IOException {
+						return load(key, loader);
+					}
+				}));
+				entryByKey.put(key, entry);
+				owner = true;
+			}
+		}
+		if (owner) {
+			entry.task.run();
+		}
+		try {
+			return getResult(entry.task);
+		} catch (ExecutionException e) {
+			synchronized (entryByKey) {
+				if (entryByKey.get(key) == entry) {
+					entryByKey.remove(key);
+				}
+			}
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Removes all templates from memory. Templates in the {@link #getStoreDirectory() store directory} are not removed.
+	 */
+	public void clear() {
+		synchronized (entryByKey) {
+			entryByKey.clear();
+		}
+	}
+
+	/**
+	 * The directory in which templates are stored, or null if templates are only cached in memory.
+	 */
+	public File getStoreDirectory() {
+		return storeDirectory;
+	}
+
+	/**
+	 * The directory in which templates are stored, or null if templates should only be cached in memory. Stored
+	 * templates are used by later processes until they expire.
+	 */
+	public void setStoreDirectory(File storeDirectory) {
+		this.storeDirectory = storeDirectory;
+	}
+
+	private String load(String key, Loader loader) throws IOException {
+		File storeDirectory = this.storeDirectory;
+		File storeFile = storeDirectory == null ? null : new File(storeDirectory, computeStoreFileName(key));
+		if (storeFile != null && storeFile.isFile()
+				&& storeFile.lastModified() + timeToLive >= System.currentTimeMillis()) {
+			try {
+				return read(storeFile);
+			} catch (IOException e) {
+				Logger.getLogger(TemplateCache.class.getName()).log(Level.WARNING,
+						String.format("Cannot read %s: %s", storeFile, e.getMessage()), e); //$NON-NLS-1$
+			}
+		}
+		String markup = loader.load();
+		if (storeFile != null && markup != null) {
+			try {
+				write(storeFile, markup);
+			} catch (IOException e) {
+				Logger.getLogger(TemplateCache.class.getName()).log(Level.WARNING,
+						String.format("Cannot write %s: %s", storeFile, e.getMessage()), e); //$NON-NLS-1$
+			}
+		}
+		return markup;
+	}
+
+	private String computeStoreFileName(String key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes("UTF-8")); //$NON-NLS-1$ //$NON-NLS-2$
+			StringBuilder name = new StringBuilder(digest.length * 2 + STORE_FILE_SUFFIX.length());
+			for (byte b : digest) {
+				name.append(Character.forDigit((b >> 4) & 0xF, 16));
+				name.append(Character.forDigit(b & 0xF, 16));
+			}
+			return name.append(STORE_FILE_SUFFIX).toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private String read(File file) throws IOException {
+		Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8"); //$NON-NLS-1$
+		try {
+			StringWriter content = new StringWriter();
+			char[] buffer = new char[1024 * 4];
+			int length;
+			while ((length = reader.read(buffer)) != -1) {
+				content.write(buffer, 0, length);
+			}
+			return content.toString();
+		} finally {
+			reader.close();
+		}
+	}
+
+	private void write(File file, String content) throws IOException {
+		if (!file.getParentFile().exists() && !file.getParentFile().mkdirs() && !file.getParentFile().isDirectory()) {
+			throw new IOException(String.format("Cannot create %s", file.getParentFile())); //$NON-NLS-1$
+		}
+		File partFile = File.createTempFile(file.getName(), ".part", file.getParentFile()); //$NON-NLS-1$
+		try {
+			Writer writer = new OutputStreamWriter(new FileOutputStream(partFile), "UTF-8"); //$NON-NLS-1$
+			try {
+				writer.write(content);
+			} finally {
+				writer.close();
+			}
+			if (!partFile.renameTo(file) && (!file.delete() || !partFile.renameTo(file))) {
+				throw new IOException(String.format("Cannot write %s", file)); //$NON-NLS-1$
+			}
+		} finally {
+			if (partFile.exists()) {
+				partFile.delete();
+			}
+		}
+	}
+
+	private String getResult(FutureTask<String> task) throws ExecutionException {
+		boolean interrupted = false;
+		try {
+			for (;;) {
+				try {
+					return task.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses markup into a tree of text, template calls such as <code>{{name|argument}}</code> and template parameter
+ * references such as <code>{{{name|default}}}</code>, so that it can be expanded without scanning it again. Braces
+ * that do not form a well-formed call or parameter reference are parsed as text. Whether a call or parameter reference
+ * is well-formed depends only on where it starts, so offsets at which one is not well-formed are remembered and not
+ * parsed again, which keeps parsing of unterminated nested calls from taking exponential time.
+ *
+ * @author David Green
+ * @see TemplateProcessor
+ */
+class TemplateParser {
+
+	static abstract class Node {
+	}
+
+	static class Text extends Node {
+
+		final String text;
+
+		Text(String text) {
+			this.text = text;
+		}
+	}
+
+	static class Call extends Node {
+
+		/**
+		 * the nodes of the template name, which are all {@link Text text} unless the name is computed from parameters
+		 */
+		final List<Node> name;
+
+		final List<List<Node>> arguments;
+
+		Call(List<Node> name, List<List<Node>> arguments) {
+			this.name = name;
+			this.arguments = arguments;
+		}
+
+		/**
+		 * the template name, or null if the name is computed from parameters
+		 */
+		String getStaticName() {
+			StringBuilder staticName = new StringBuilder();
+			for (Node node : name) {
+				if (!(node instanceof Text)) {
+					return null;
+				}
+				staticName.append(((Text) node).text);
+			}
+			return staticName.toString();
+		}
+	}
+
+	static class ParameterReference extends Node {
+
+		final String name;
+
+		/**
+		 * the default value, or null if there is none
+		 */
+		final List<Node> defaultValue;
+
+		/**
+		 * the markup of the reference, which is the expansion of the reference when there are no parameters
+		 */
+		final String source;
+
+		ParameterReference(String name, List<Node> defaultValue, String source) {
+			this.name = name;
+			this.defaultValue = defaultValue;
+			this.source = source;
+		}
+	}
+
+	private enum Context {
+		MARKUP, ARGUMENT, DEFAULT_VALUE
+	}
+
+	private final String markup;
+
+	private int offset;
+
+	private final BitSet failedCalls = new BitSet();
+
+	private final BitSet failedParameterReferences = new BitSet();
+
+	private TemplateParser(String markup) {
+		this.markup = markup;
+	}
+
+	static List<Node> parse(String markup) {
+		return new TemplateParser(markup).parseNodes(Context.MARKUP);
+	}
+
+	/**
+	 * Parses nodes up to the end of the given context, leaving the offset at the terminator.
+	 *
+	 * @return the nodes, or null if the context is not terminated
+	 */
+	private List<Node> parseNodes(Context context) {
+		List<Node> nodes = new ArrayList<Node>();
+		StringBuilder text = new StringBuilder();
+		while (offset < markup.length()) {
+			char c = markup.charAt(offset);
+			if (c == '{') {
+				int braceCount = countBraces(offset);
+				Node node = null;
+				int start = offset;
+				if (braceCount == 2 || braceCount == 5) {
+					node = parseCall();
+				} else if (braceCount == 3) {
+					node = parseParameterReference();
+				}
+				if (node != null) {
+					addText(nodes, text);
+					nodes.add(node);
+				} else {
+					offset = start + (braceCount == 2 || braceCount == 3 ? braceCount : 1);
+					text.append(markup, start, offset);
+				}
+			} else if (context == Context.ARGUMENT && (c == '|' || markup.startsWith("}}", offset))) { //$NON-NLS-1$
+				addText(nodes, text);
+				return nodes;
+			} else if (context == Context.DEFAULT_VALUE && markup.startsWith("}}}", offset)) { //$NON-NLS-1$
+				addText(nodes, text);
+				return nodes;
+			} else {
+				text.append(c);
+				++offset;
+			}
+		}
+		if (context != Context.MARKUP) {
+			return null;
+		}
+		addText(nodes, text);
+		return nodes;
+	}
+
+	/**
+	 * Parses a call starting at the current offset, advancing past it.
+	 *
+	 * @return the call, or null if there is no well-formed call at the offset
+	 */
+	private Call parseCall() {
+		int start = offset;
+		if (failedCalls.get(start)) {
+			return null;
+		}
+		offset += 2;
+		List<Node> name = new ArrayList<Node>(1);
+		StringBuilder text = new StringBuilder();
+		while (offset < markup.length()) {
+			char c = markup.charAt(offset);
+			if (isNameCharacter(c) || (c == '#' && offset == start + 2)) {
+				text.append(c);
+				++offset;
+			} else if (c == '{' && countBraces(offset) == 3) {
+				Node reference = parseParameterReference();
+				if (reference == null) {
+					break;
+				}
+				addText(name, text);
+				name.add(reference);
+			} else {
+				break;
+			}
+		}
+		addText(name, text);
+		while (offset < markup.length() && Character.isWhitespace(markup.charAt(offset))) {
+			++offset;
+		}
+		if (!name.isEmpty()) {
+			if (markup.startsWith("}}", offset)) { //$NON-NLS-1$
+				offset += 2;
+				return new Call(name, Collections.<List<Node>> emptyList());
+			}
+			if (offset < markup.length() && markup.charAt(offset) == '|') {
+				List<List<Node>> arguments = new ArrayList<List<Node>>();
+				while (offset < markup.length() && markup.charAt(offset) == '|') {
+					++offset;
+					List<Node> argument = parseNodes(Context.ARGUMENT);
+					if (argument == null) {
+						break;
+					}
+					arguments.add(argument);
+					if (markup.startsWith("}}", offset)) { //$NON-NLS-1$
+						offset += 2;
+						return new Call(name, arguments);
+					}
+				}
+			}
+		}
+		offset = start;
+		failedCalls.set(start);
+		return null;
+	}
+
+	/**
+	 * Parses a parameter reference starting at the current offset, advancing past it.
+	 *
+	 * @return the reference, or null if there is no well-formed reference at the offset
+	 */
+	private ParameterReference parseParameterReference() {
+		int start = offset;
+		if (failedParameterReferences.get(start)) {
+			return null;
+		}
+		offset += 3;
+		int nameStart = offset;
+		while (offset < markup.length() && isParameterNameCharacter(markup.charAt(offset))) {
+			++offset;
+		}
+		String name = markup.substring(nameStart, offset);
+		if (name.length() > 0) {
+			List<Node> defaultValue = null;
+			if (offset < markup.length() && markup.charAt(offset) == '|') {
+				++offset;
+				defaultValue = parseNodes(Context.DEFAULT_VALUE);
+			}
+			if (markup.startsWith("}}}", offset)) { //$NON-NLS-1$
+				offset += 3;
+				return new ParameterReference(name, defaultValue, markup.substring(start, offset));
+			}
+		}
+		offset = start;
+		failedParameterReferences.set(start);
+		return null;
+	}
+
+	private int countBraces(int start) {
+		int end = start;
+		while (end < markup.length() && markup.charAt(end) == '{') {
+			++end;
+		}
+		return end - start;
+	}
+
+	private static void addText(List<Node> nodes, StringBuilder text) {
+		if (text.length() > 0) {
+			nodes.add(new Text(text.toString()));
+			text.setLength(0);
+		}
+	}
+
+	static boolean isNameCharacter(char c) {
+		return isParameterNameCharacter(c) || c == '_' || c == ' ' || c == ':' || c == '/' || c == '(' || c == ')'
+				|| c == '.' || c == '-';
+	}
+
+	private static boolean isParameterNameCharacter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+	}
+}
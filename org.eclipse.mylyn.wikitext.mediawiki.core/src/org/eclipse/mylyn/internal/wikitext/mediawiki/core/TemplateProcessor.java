@@ -14,27 +14,37 @@ package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.TemplateParser.Call;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.TemplateParser.Node;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.TemplateParser.ParameterReference;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.TemplateParser.Text;
 import org.eclipse.mylyn.wikitext.mediawiki.core.Template;
 import org.eclipse.mylyn.wikitext.mediawiki.core.TemplateResolver;
 
+/**
+ * Expands the templates that are referenced by markup. The markup, and the content of each template, is parsed once
+ * into a tree of {@link TemplateParser.Node nodes} that is expanded into a single buffer. Expansions of a template with
+ * the same arguments are reused within the markup that is processed.
+ */
 public class TemplateProcessor {
 
-	private static final Pattern templatePattern = Pattern
-			.compile("(?:^|(?<!\\{))(\\{\\{(#?[a-zA-Z0-9_ :/()\\.\\-]+)\\s*(\\|[^\\}]*)?\\}\\})"); //$NON-NLS-1$
-
-	private static final Pattern templateParameterPattern = Pattern
-			.compile("\\{\\{\\{([a-zA-Z0-9]+)(?:\\|([^\\}]*))?\\}\\}\\}"); //$NON-NLS-1$
-
-	private static final Pattern parameterSpec = Pattern.compile("\\|\\s*([^\\|=]+)(?:\\s*=\\s*(([^|]*)))?"); //$NON-NLS-1$
+	private static final Pattern templateNamePattern = Pattern.compile("#?[a-zA-Z0-9_ :/()\\.\\-]+"); //$NON-NLS-1$
 
 	private static final Pattern includeOnlyPattern = Pattern.compile(".*?<includeonly>(.*?)</includeonly>.*", //$NON-NLS-1$
 			Pattern.DOTALL);
@@ -43,7 +53,9 @@ public class TemplateProcessor {
 
 	private final AbstractMediaWikiLanguage mediaWikiLanguage;
 
-	private final Map<String, Template> templateByName = new HashMap<String, Template>();
+	private final Map<String, Template> templateByName = new ConcurrentHashMap<String, Template>();
+
+	private final Map<Template, List<Node>> nodesByTemplate = new ConcurrentHashMap<Template, List<Node>>();
 
 	private final List<Pattern> excludePatterns = new ArrayList<Pattern>();
 
@@ -64,116 +76,279 @@ public class TemplateProcessor {
 	}
 
 	public String processTemplates(String markupContent) {
-		return processTemplates(markupContent, Collections.<String> emptySet());
+		if (markupContent.indexOf("{{") == -1) { //$NON-NLS-1$
+			return markupContent;
+		}
+		StringBuilder processedMarkup = new StringBuilder(markupContent.length());
+		new Expander().expand(TemplateParser.parse(markupContent), null, null, processedMarkup);
+		return processedMarkup.toString();
 	}
 
-	private String processTemplates(String markupContent, Set<String> usedTemplates) {
-		StringBuilder processedMarkup = new StringBuilder();
-
-		int lastIndex = 0;
-		Matcher matcher = templatePattern.matcher(markupContent);
-		while (matcher.find()) {
-			int start = matcher.start();
-			if (lastIndex < start) {
-				processedMarkup.append(markupContent.substring(lastIndex, start));
+	/**
+	 * Resolves the templates that are referenced by the given markup, and the templates that they reference in turn,
+	 * using the given number of threads. Templates are resolved using the template providers of the markup language,
+	 * which may cache them for later use by other template processors.
+	 *
+	 * @param markupContents
+	 *            the markup of the pages that reference the templates
+	 * @param threads
+	 *            the number of templates that are resolved concurrently
+	 */
+	public void prefetchTemplates(Collection<String> markupContents, int threads) {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CompletionService<Template> completionService = new ExecutorCompletionService<Template>(executor);
+			Set<String> templateNames = new HashSet<String>();
+			int pending = 0;
+			for (String markupContent : markupContents) {
+				pending += submitTemplates(completionService, TemplateParser.parse(markupContent), templateNames);
 			}
-			String templateName = matcher.group(2);
-			Template template = resolveTemplate(templateName);
-			if (template != null) {
-				String replacementText;
-				if (usedTemplates.contains(templateName)) {
-					StringBuilder sb = new StringBuilder();
-					sb.append("<span class=\"error\">"); //$NON-NLS-1$
-					sb.append(MessageFormat.format(Messages.getString("TemplateProcessor_loopDetected"), //$NON-NLS-1$
-							template.getName()));
-					sb.append("</span>"); //$NON-NLS-1$
-					replacementText = sb.toString();
-				} else {
-					String parameters = matcher.group(3);
-					replacementText = processTemplate(template, parameters);
-					//The replacementText might contain other templates. Add the current template to the set of used template and call recursively this function again:
-					Set<String> templates = new HashSet<String>(usedTemplates);
-					templates.add(templateName);
-					replacementText = processTemplates(replacementText, templates);
+			while (pending > 0) {
+				Template template = completionService.take().get();
+				--pending;
+				if (template != null && template.getTemplateMarkup() != null) {
+					pending += submitTemplates(completionService, getNodes(template), templateNames);
 				}
-				replacementText = processTemplates(replacementText);
-				processedMarkup.append(replacementText);
 			}
-			lastIndex = matcher.end();
-		}
-		if (lastIndex == 0) {
-			return markupContent;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			executor.shutdownNow();
 		}
-		if (lastIndex < markupContent.length()) {
-			processedMarkup.append(markupContent.substring(lastIndex));
+	}
+
+	private int submitTemplates(CompletionService<Template> completionService, List<Node> nodes,
+			Set<String> templateNames) {
+		int count = 0;
+		for (Node node : nodes) {
+			if (node instanceof Call) {
+				Call call = (Call) node;
+				final String templateName = call.getStaticName();
+				if (templateName != null && templateNames.add(templateName)) {
+					completionService.submit(new Callable<Template>() {
+
+						@Override
+						public Template call() {
+							return resolveTemplate(templateName);
+						}
+					});
+					++count;
+				}
+				for (List<Node> argument : call.arguments) {
+					count += submitTemplates(completionService, argument, templateNames);
+				}
+			} else if (node instanceof ParameterReference) {
+				ParameterReference reference = (ParameterReference) node;
+				if (reference.defaultValue != null) {
+					count += submitTemplates(completionService, reference.defaultValue, templateNames);
+				}
+			}
 		}
-		return processedMarkup.toString();
+		return count;
 	}
 
-	private String processTemplate(Template template, String parametersText) {
-		if (template.getTemplateMarkup() == null) {
-			return ""; //$NON-NLS-1$
+	private List<Node> getNodes(Template template) {
+		List<Node> nodes = nodesByTemplate.get(template);
+		if (nodes == null) {
+			nodes = TemplateParser.parse(template.getTemplateContent());
+			nodesByTemplate.put(template, nodes);
 		}
-		String macro = template.getTemplateContent();
+		return nodes;
+	}
 
-		List<Parameter> parameters = processParameters(parametersText);
+	private List<Parameter> processParameters(List<String> arguments) {
+		List<Parameter> parameters = new ArrayList<TemplateProcessor.Parameter>(arguments.size());
+		for (String argument : arguments) {
+			// leading whitespace is skipped unless the name or value would otherwise be empty
+			int start = 0;
+			while (start < argument.length() && Character.isWhitespace(argument.charAt(start))) {
+				++start;
+			}
+			if (start == argument.length() || argument.charAt(start) == '=') {
+				if (start == 0) {
+					continue;
+				}
+				--start;
+			}
+			Parameter parameter = new Parameter();
+			int equalsIndex = argument.indexOf('=', start);
+			if (equalsIndex == -1) {
+				parameter.value = argument.substring(start);
+			} else {
+				parameter.name = argument.substring(start, equalsIndex);
+				int valueStart = equalsIndex + 1;
+				while (valueStart < argument.length() && Character.isWhitespace(argument.charAt(valueStart))) {
+					++valueStart;
+				}
+				parameter.value = argument.substring(valueStart);
+			}
+			parameters.add(parameter);
+		}
+		return parameters;
+	}
 
-		StringBuilder processedMarkup = new StringBuilder();
-		int lastIndex = 0;
-		Matcher matcher = templateParameterPattern.matcher(macro);
-		while (matcher.find()) {
-			int start = matcher.start();
-			if (lastIndex < start) {
-				processedMarkup.append(macro.substring(lastIndex, start));
+	private String findParameterValue(List<Parameter> parameters, String parameterName) {
+		try {
+			int parameterIndex = Integer.parseInt(parameterName);
+			if (parameterIndex <= parameters.size() && parameterIndex > 0) {
+				return parameters.get(parameterIndex - 1).value;
 			}
-			String parameterName = matcher.group(1);
-			String parameterValue = matcher.group(2);
-			try {
-				int parameterIndex = Integer.parseInt(parameterName);
-				if (parameterIndex <= parameters.size() && parameterIndex > 0) {
-					parameterValue = parameters.get(parameterIndex - 1).value;
+		} catch (NumberFormatException e) {
+			for (Parameter param : parameters) {
+				if (parameterName.equalsIgnoreCase(param.name)) {
+					return param.value;
 				}
-			} catch (NumberFormatException e) {
-				for (Parameter param : parameters) {
-					if (parameterName.equalsIgnoreCase(param.name)) {
-						parameterValue = param.value;
-						break;
-					}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Expands the nodes of one markup content, reusing the expansion of each distinct call.
+	 */
+	private class Expander {
+
+		private final Map<String, Expansion> expansionByCall = new HashMap<String, Expansion>();
+
+		/**
+		 * @param parameters
+		 *            the parameters of the template being expanded, or null if the nodes are not in a template
+		 * @param invocation
+		 *            the invocation of the template being expanded, or null if the nodes are not in a template
+		 */
+		void expand(List<Node> nodes, List<Parameter> parameters, Invocation invocation, StringBuilder out) {
+			for (Node node : nodes) {
+				if (node instanceof Text) {
+					out.append(((Text) node).text);
+				} else if (node instanceof ParameterReference) {
+					expand((ParameterReference) node, parameters, invocation, out);
+				} else {
+					expand((Call) node, parameters, invocation, out);
 				}
 			}
+		}
+
+		private void expand(ParameterReference reference, List<Parameter> parameters, Invocation invocation,
+				StringBuilder out) {
+			if (parameters == null) {
+				out.append(reference.source);
+				return;
+			}
+			String parameterValue = findParameterValue(parameters, reference.name);
 			if (parameterValue != null) {
-				processedMarkup.append(parameterValue);
+				out.append(parameterValue);
+			} else if (reference.defaultValue != null) {
+				expand(reference.defaultValue, parameters, invocation, out);
 			}
-
-			lastIndex = matcher.end();
 		}
-		if (lastIndex == 0) {
-			return macro;
+
+		private void expand(Call call, List<Parameter> parameters, Invocation invocation, StringBuilder out) {
+			String templateName = call.getStaticName();
+			if (templateName == null) {
+				templateName = expandToString(call.name, parameters, invocation);
+			}
+			if (!templateNamePattern.matcher(templateName).matches()) {
+				out.append("{{").append(templateName); //$NON-NLS-1$
+				for (List<Node> argument : call.arguments) {
+					out.append('|');
+					expand(argument, parameters, invocation, out);
+				}
+				out.append("}}"); //$NON-NLS-1$
+				return;
+			}
+			Template template = resolveTemplate(templateName);
+			if (template == null) {
+				return;
+			}
+			if (invocation != null && invocation.isWithin(templateName)) {
+				out.append("<span class=\"error\">"); //$NON-NLS-1$
+				out.append(MessageFormat.format(Messages.getString("TemplateProcessor_loopDetected"), //$NON-NLS-1$
+						template.getName()));
+				out.append("</span>"); //$NON-NLS-1$
+				return;
+			}
+			List<String> arguments = new ArrayList<String>(call.arguments.size());
+			StringBuilder key = new StringBuilder(templateName);
+			for (List<Node> argument : call.arguments) {
+				String value = expandToString(argument, parameters, invocation);
+				arguments.add(value);
+				key.append('|').append(value.replace("\\", "\\\\").replace("|", "\\|")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			}
+			for (Invocation caller = invocation; caller != null; caller = caller.caller) {
+				key.append('\n').append(caller.templateName);
+			}
+			String callKey = key.toString();
+			Expansion expansion = expansionByCall.get(callKey);
+			if (expansion != null) {
+				out.append(expansion.buffer, expansion.start, expansion.end);
+				return;
+			}
+			int start = out.length();
+			if (template.getTemplateMarkup() != null) {
+				expand(getNodes(template), processParameters(arguments), new Invocation(templateName, invocation), out);
+			}
+			expansionByCall.put(callKey, new Expansion(out, start, out.length()));
 		}
-		if (lastIndex < macro.length()) {
-			processedMarkup.append(macro.substring(lastIndex));
+
+		private String expandToString(List<Node> nodes, List<Parameter> parameters, Invocation invocation) {
+			if (nodes.size() == 1 && nodes.get(0) instanceof Text) {
+				return ((Text) nodes.get(0)).text;
+			}
+			StringBuilder out = new StringBuilder();
+			expand(nodes, parameters, invocation, out);
+			return out.toString();
 		}
-		return processedMarkup.toString();
 	}
 
-	private List<Parameter> processParameters(String parametersText) {
-		List<Parameter> parameters = new ArrayList<TemplateProcessor.Parameter>();
-		if (parametersText != null && parametersText.length() > 0) {
-			Matcher matcher = parameterSpec.matcher(parametersText);
-			while (matcher.find()) {
-				String nameOrValue = matcher.group(1);
-				String value = matcher.group(2);
-				Parameter parameter = new Parameter();
-				if (value != null) {
-					parameter.name = nameOrValue;
-					parameter.value = value;
-				} else {
-					parameter.value = nameOrValue;
+	/**
+	 * A template that is being expanded, which may not be referenced again until its expansion is complete.
+	 */
+	private static class Invocation {
+
+		final String templateName;
+
+		final Invocation caller;
+
+		Invocation(String templateName, Invocation caller) {
+			this.templateName = templateName;
+			this.caller = caller;
+		}
+
+		boolean isWithin(String templateName) {
+			for (Invocation invocation = this; invocation != null; invocation = invocation.caller) {
+				if (invocation.templateName.equals(templateName)) {
+					return true;
 				}
-				parameters.add(parameter);
 			}
+			return false;
+		}
+	}
+
+	/**
+	 * The range of a buffer that holds the expansion of a call. Buffers are only appended to, so the range remains
+	 * valid.
+	 */
+	private static class Expansion {
+
+		final CharSequence buffer;
+
+		final int start;
+
+		final int end;
+
+		Expansion(CharSequence buffer, int start, int end) {
+			this.buffer = buffer;
+			this.start = start;
+			this.end = end;
 		}
-		return parameters;
 	}
 
 	private Template resolveTemplate(String templateName) {
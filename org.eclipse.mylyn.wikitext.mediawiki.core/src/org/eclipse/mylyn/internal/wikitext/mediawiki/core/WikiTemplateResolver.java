@@ -34,6 +34,8 @@ public class WikiTemplateResolver extends TemplateResolver {
 
 	private String wikiBaseUrl;
 
+	private TemplateCache templateCache;
+
 	public String getWikiBaseUrl() {
 		return wikiBaseUrl;
 	}
@@ -42,6 +44,19 @@ public class WikiTemplateResolver extends TemplateResolver {
 		this.wikiBaseUrl = wikiBaseUrl;
 	}
 
+	/**
+	 * The cache of templates that were fetched from the wiki, or null if templates are fetched each time they are
+	 * resolved, which is the default. A cache is meant for bulk conversions, during which templates are not expected
+	 * to change.
+	 */
+	public TemplateCache getTemplateCache() {
+		return templateCache;
+	}
+
+	public void setTemplateCache(TemplateCache templateCache) {
+		this.templateCache = templateCache;
+	}
+
 	@Override
 	public Template resolveTemplate(String templateName) {
 		if (wikiBaseUrl != null) {
@@ -51,21 +66,26 @@ public class WikiTemplateResolver extends TemplateResolver {
 			} else if (indexOf == -1) {
 				templateName = "Template:" + templateName; //$NON-NLS-1$
 			}
-			URL url = computeRawUrl(templateName);
+			final URL url = computeRawUrl(templateName);
 			if (url != null) {
-				Reader input;
 				try {
-					input = new InputStreamReader(new BufferedInputStream(url.openStream()), "UTF-8"); //$NON-NLS-1$
-					try {
-						String content = readFully(input);
-						Template template = new Template();
-						String basicName = templateName.toLowerCase().startsWith("template:") ? templateName.substring(templateName.lastIndexOf(':') + 1) : templateName; //$NON-NLS-1$
-						template.setName(basicName);
-						template.setTemplateMarkup(content);
-						return template;
-					} finally {
-						input.close();
+					String content;
+					if (templateCache == null) {
+						content = fetch(url);
+					} else {
+						content = templateCache.get(wikiBaseUrl, templateName, new TemplateCache.Loader() {
+
+							@Override
+							public String load() throws IOException {
+								return fetch(url);
+							}
+						});
 					}
+					Template template = new Template();
+					String basicName = templateName.toLowerCase().startsWith("template:") ? templateName.substring(templateName.lastIndexOf(':') + 1) : templateName; //$NON-NLS-1$
+					template.setName(basicName);
+					template.setTemplateMarkup(content);
+					return template;
 				} catch (final IOException e) {
 					final String message = MessageFormat.format("Cannot read from {0}: {1}", url, e.getMessage()); //$NON-NLS-1$
 					Logger.getLogger(WikiTemplateResolver.class.getName()).log(Level.WARNING, message, e);
@@ -75,6 +95,19 @@ public class WikiTemplateResolver extends TemplateResolver {
 		return null;
 	}
 
+	/**
+	 * Fetches the markup of a template. A template that does not exist fails with an exception, so that it is
+	 * reported and not cached.
+	 */
+	private String fetch(URL url) throws IOException {
+		Reader input = new InputStreamReader(new BufferedInputStream(url.openStream()), "UTF-8"); //$NON-NLS-1$
+		try {
+			return readFully(input);
+		} finally {
+			input.close();
+		}
+	}
+
 	private String readFully(Reader input) throws IOException {
 		StringWriter content = new StringWriter(1024);
 		int i;
@@ -11,38 +11,36 @@
 
 package org.eclipse.mylyn.internal.wikitext.mediawiki.core.validation;
 
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.eclipse.mylyn.wikitext.core.validation.LineValidationRule;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem.Severity;
-import org.eclipse.mylyn.wikitext.core.validation.ValidationRule;
 
 /**
  * a validation rule that tests for malformed comment delimiters.
  * 
  * @author David Green
  */
-public class CommentValidationRule extends ValidationRule {
+public class CommentValidationRule extends LineValidationRule {
 
-	private static Pattern commentPattern = Pattern.compile("(<!-{3,}|-{3,}>)", Pattern.MULTILINE); //$NON-NLS-1$
+	private static Pattern commentPattern = Pattern.compile("(<!-{3,}|-{3,}>)"); //$NON-NLS-1$
 
 	public CommentValidationRule() {
 	}
 
 	@Override
-	public ValidationProblem findProblem(String markup, int offset, int length) {
+	public void validateLine(String markup, int lineOffset, int lineLength, List<ValidationProblem> problems) {
 		Matcher matcher = commentPattern.matcher(markup);
-		if (offset > 0 || length != markup.length()) {
-			matcher.region(offset, offset + length);
-		}
-		if (matcher.find()) {
+		matcher.region(lineOffset, lineOffset + lineLength);
+		while (matcher.find()) {
 			int problemOffset = matcher.start();
 			int problemLength = Math.max(2, matcher.end() - problemOffset);
-			return new ValidationProblem(Severity.WARNING, Messages.getString("CommentValidationRule.1"), //$NON-NLS-1$
-					problemOffset, problemLength);
+			problems.add(new ValidationProblem(Severity.WARNING, Messages.getString("CommentValidationRule.1"), //$NON-NLS-1$
+					problemOffset, problemLength));
 		}
-		return null;
 	}
 
 }
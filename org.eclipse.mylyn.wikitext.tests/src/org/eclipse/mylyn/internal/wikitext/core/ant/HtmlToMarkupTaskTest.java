@@ -52,6 +52,19 @@ public class HtmlToMarkupTaskTest extends AbstractTestAntTask {
 		assertTrue(content.equals("h1. First Heading\n\nsome content\n\nh1. Second Heading\n\nsome more content\n\n"));
 	}
 
+	public void testStreamingOutput() throws IOException {
+		File markup = createSimpleHtmlMarkup();
+		task.setFile(markup);
+		task.setStreaming(true);
+		task.execute();
+
+		File markupFile = new File(markup.getParentFile(), "markup.textile");
+		assertTrue("Expecting file: " + markupFile, markupFile.exists() && markupFile.isFile());
+
+		String content = getContent(markupFile);
+		assertEquals("h1. First Heading\n\nsome content\n\nh1. Second Heading\n\nsome more content\n\n", content);
+	}
+
 	private File createSimpleHtmlMarkup() throws IOException {
 		File htmlFile = new File(tempFolder, "markup.html");
 		PrintWriter writer = new PrintWriter(new FileWriter(htmlFile));
@@ -91,6 +91,30 @@ public class MarkupToEclipseHelpTaskTest extends MarkupToHtmlTaskTest {
 		assertTrue(tocContent.contains("<topic href=\"Second-Heading.html#SecondL22\" label=\"Second L2 2\""));
 	}
 
+	public void testTocLabelsAreRenderedHeadingText() throws IOException {
+		File markupFile = new File(tempFolder, "markup.textile");
+		PrintWriter writer = new PrintWriter(new FileWriter(markupFile));
+		try {
+			writer.println("h1. *Bold* Heading");
+			writer.println();
+			writer.println("some content");
+			writer.println();
+			writer.println("h1. Fish &amp; \"Chips\":http://example.com");
+			writer.println();
+			writer.println("some more content");
+		} finally {
+			writer.close();
+		}
+		task.setFile(markupFile);
+		task.execute();
+
+		String tocContent = getContent(new File(tempFolder, "markup-toc.xml"));
+		TestUtil.println(tocContent);
+
+		assertTrue(tocContent.contains("<topic href=\"markup.html\" label=\"Bold Heading\""));
+		assertTrue(tocContent.contains("<topic href=\"markup.html#FishampChipshttpexample.com\" label=\"Fish &amp; Chips\""));
+	}
+
 	protected File createSimpleTextileMarkupWithMultiLevelHeadings() throws IOException {
 		File markupFile = new File(tempFolder, "markup.textile");
 		PrintWriter writer = new PrintWriter(new FileWriter(markupFile));
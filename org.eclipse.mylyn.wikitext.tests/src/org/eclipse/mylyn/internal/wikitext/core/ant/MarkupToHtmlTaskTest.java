@@ -18,8 +18,15 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.BuildListener;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.types.FileSet;
 import org.eclipse.mylyn.wikitext.tests.TestUtil;
 
 /**
@@ -213,6 +220,162 @@ public class MarkupToHtmlTaskTest extends AbstractTestAntTask {
 		assertTrue(content.contains("<a href=\"markup.html#HeadingOne\">link</a>"));
 	}
 
+	public void testThreads() throws IOException {
+		List<String> sequentialMessages = executeWithFileset(createTextileMarkupFiles(12), 1);
+		List<String> parallelMessages = executeWithFileset(createTextileMarkupFiles(12), 4);
+
+		assertEquals(12, sequentialMessages.size());
+		assertEquals(sequentialMessages, parallelMessages);
+		for (int x = 0; x < 12; ++x) {
+			File htmlFile = new File(tempFolder, "file" + x + ".html");
+			assertTrue(htmlFile.exists() && htmlFile.isFile());
+			assertTrue(getContent(htmlFile).contains("Heading " + x + "</h1>"));
+		}
+	}
+
+	public void testThreadsFailure() throws IOException {
+		createTextileMarkupFiles(12);
+		assertTrue(new File(tempFolder, "file5.html").mkdir());
+		try {
+			executeWithFileset(tempFolder, 4);
+			fail("Expected BuildException");
+		} catch (BuildException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("file5.html"));
+		}
+	}
+
+	public void testThreadsInvalid() {
+		try {
+			task.setThreads(0);
+			fail("Expected BuildException");
+		} catch (BuildException e) {
+			assertEquals("@threads must be at least 1 but was 0", e.getMessage());
+		}
+	}
+
+	public void testBuildCache() throws IOException {
+		File markup = createSimpleTextileMarkup();
+		File buildCache = new File(tempFolder, "wikitext.cache");
+		File htmlFile = new File(markup.getParentFile(), "markup.html");
+		task.setFile(markup);
+		task.setBuildCache(buildCache);
+		task.execute();
+
+		assertTrue(buildCache.isFile());
+		assertTrue(getContent(htmlFile).contains("First Heading"));
+
+		writeContent(htmlFile, "unchanged");
+		assertTrue(markup.setLastModified(htmlFile.lastModified() + 10000));
+		task.execute();
+		assertEquals("unchanged", getContent(htmlFile));
+
+		task.setTitle("Changed Title");
+		task.execute();
+		assertTrue(getContent(htmlFile).contains("<title>Changed Title</title>"));
+
+		writeContent(htmlFile, "unchanged");
+		writeContent(markup, "h1. Changed Heading");
+		task.execute();
+		assertTrue(getContent(htmlFile).contains("Changed Heading"));
+
+		assertTrue(htmlFile.delete());
+		task.execute();
+		assertTrue(htmlFile.exists());
+	}
+
+	public void testBuildCacheMultipleOutputFiles() throws IOException {
+		File markup = createSimpleTextileMarkup();
+		File buildCache = new File(tempFolder, "wikitext.cache");
+		File htmlFile = new File(markup.getParentFile(), "markup.html");
+		File pageFile = new File(markup.getParentFile(), "Second-Heading.html");
+		task.setFile(markup);
+		task.setMultipleOutputFiles(true);
+		task.setBuildCache(buildCache);
+		task.execute();
+
+		assertTrue(pageFile.exists());
+
+		writeContent(htmlFile, "unchanged");
+		task.execute();
+		assertEquals("unchanged", getContent(htmlFile));
+
+		assertTrue(pageFile.delete());
+		task.execute();
+		assertTrue(pageFile.exists());
+		assertTrue(getContent(htmlFile).contains("First Heading"));
+	}
+
+	private void writeContent(File file, String content) throws IOException {
+		Writer writer = new FileWriter(file);
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+
+	private List<String> executeWithFileset(File dir, int threads) {
+		final List<String> messages = new ArrayList<String>();
+		Project project = new Project();
+		project.addBuildListener(new BuildListener() {
+
+			@Override
+			public void messageLogged(BuildEvent event) {
+				if (event.getMessage().startsWith("Processing file")) {
+					messages.add(event.getMessage());
+				}
+			}
+
+			@Override
+			public void taskStarted(BuildEvent event) {
+			}
+
+			@Override
+			public void taskFinished(BuildEvent event) {
+			}
+
+			@Override
+			public void targetStarted(BuildEvent event) {
+			}
+
+			@Override
+			public void targetFinished(BuildEvent event) {
+			}
+
+			@Override
+			public void buildStarted(BuildEvent event) {
+			}
+
+			@Override
+			public void buildFinished(BuildEvent event) {
+			}
+		});
+		FileSet fileset = new FileSet();
+		fileset.setProject(project);
+		fileset.setDir(dir);
+		fileset.setIncludes("*.textile");
+
+		task = createTask();
+		task.setProject(project);
+		task.setMarkupLanguage(languageName);
+		task.setThreads(threads);
+		task.addFileset(fileset);
+		task.execute();
+		return messages;
+	}
+
+	protected File createTextileMarkupFiles(int count) throws IOException {
+		for (int x = 0; x < count; ++x) {
+			Writer writer = new FileWriter(new File(tempFolder, "file" + x + ".textile"));
+			try {
+				writer.write("h1. Heading " + x + "\n\nsome content\n");
+			} finally {
+				writer.close();
+			}
+		}
+		return tempFolder;
+	}
+
 	protected File createSimpleTextileMarkup() throws IOException {
 		StringWriter out = new StringWriter();
 		PrintWriter writer = new PrintWriter(out);
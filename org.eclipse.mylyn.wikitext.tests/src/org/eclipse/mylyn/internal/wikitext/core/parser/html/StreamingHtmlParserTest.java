@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.core.parser.html;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.eclipse.mylyn.internal.wikitext.textile.core.TextileDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * @author David Green
+ * @see StreamingHtmlParser
+ */
+public class StreamingHtmlParserTest extends AbstractSaxParserTest {
+
+	@Override
+	protected AbstractSaxHtmlParser createParser() {
+		return new StreamingHtmlParser();
+	}
+
+	public void testBasicMalformed() throws IOException, SAXException {
+		performTest("<p>foo<br>bar</p>", "foo\nbar\n\n");
+	}
+
+	public void testBasicMalformed2() throws IOException, SAXException {
+		performTest("<p>foo<p>bar", "foo\n\nbar\n\n");
+	}
+
+	public void testImpliedEndTags() throws IOException, SAXException {
+		performTest("<ul><li>one<li>two</ul><p>a<div>b</div>", "* one\n* two\n\na\n\nb\n\n");
+	}
+
+	public void testImpliedTableEndTags() throws IOException, SAXException {
+		performTest("<table><tr><td>a<td>b<tr><td>c</table>", "|a|b|\n|c|\n\n");
+	}
+
+	public void testCharacterReferences() throws IOException, SAXException {
+		performTest("<p>a &amp; b &lt; &#99; &#x64; &copy; &unknown; &amp</p>", "a & b < c d (c) &unknown; &\n\n");
+	}
+
+	public void testSkipsHeadCommentsAndScripts() throws IOException, SAXException {
+		performTest("<!DOCTYPE html><html><head><title>Title</title><style>p { color: red; }</style>"
+				+ "<script>if (a < b) {}</script></head><body><!-- a <p>comment</p> --><p>content</p>"
+				+ "<script>document.write('<p>x</p>');</script></body></html>", "content\n\n");
+	}
+
+	public void testAttributes() throws IOException, SAXException {
+		performTest("<p><a HREF='a.html?x=1&amp;y=2'>link</a> <a href=b.html>b</a> <a href = \"c.html\" >c</a></p>",
+				"\"link\":a.html?x=1&y=2 \"b\":b.html \"c\":c.html\n\n");
+	}
+
+	public void testPreformattedWhitespace() throws IOException, SAXException {
+		performTest("<pre>one\n  two</pre>", "pre. one\n  two\n\n");
+	}
+
+	public void testParseInvalidHtml() throws IOException, SAXException {
+		performTest("</font>one <b>two", "one **two**\n\n");
+	}
+
+	public void testParseInvalidHtml_Clean() throws IOException, SAXException {
+		new HtmlCleaner().configure((StreamingHtmlParser) parser);
+
+		performTest("</font>one <b>two", "one **two**\n\n");
+	}
+
+	public void testSignificantWhitespaceNotLost_Clean() throws IOException, SAXException {
+		new HtmlCleaner().configure((StreamingHtmlParser) parser);
+
+		performTest("<html><body><p>one <b>two</b> three</p></body></html>", "one **two** three\n\n");
+	}
+
+	public void testParseWhitespaceCleanup() throws IOException, SAXException {
+		new HtmlCleaner().configure((StreamingHtmlParser) parser);
+
+		performTest("one <b>two </b>three", "one **two** three\n\n");
+	}
+
+	public void testCleanupMatchesDocumentCleanup() throws IOException, SAXException {
+		String[] inputs = new String[] { "<p>foo <span style=\"color:blue;\"> bar</span></p>",
+				"<p>foo <span style=\"color:blue;\"> <br/>bar</span></p>",
+				"<p>foo <span style=\"color:blue;\">bar <br/></span>baz</p>",
+				"<p>foo<span> </span>bar <b></b><i> </i>baz</p>",
+				"<p><font color=\"red\">red</font> <font face=\"Arial\">plain</font></p>",
+				"<p><span style=\"font-weight: bold; color: red\">bold</span> and "
+						+ "<span style=\"text-decoration: underline\">underlined</span></p>",
+				"<p><span style=\"color: 010101\">black</span></p>", "<ul> <li> one </li> <li> two </li> </ul>",
+				"<table> <tr> <td> a </td> <td> b </td> </tr> </table>", "<p>one <b> two </b> three</p>",
+				"<p>one <br> two</p>", "<pre>  keep  <b> this </b></pre>",
+				"<div><p> first </p> <p> second <i>italic </i></p></div>" };
+		for (String input : inputs) {
+			assertEquals(input, toTextile(createCleanParser(new HtmlParser()), input),
+					toTextile(createCleanParser(new StreamingHtmlParser()), input));
+		}
+	}
+
+	public void testCleanupMatchesDocumentCleanupForBodyLevelInlineContent() throws IOException, SAXException {
+		String[] inputs = new String[] { "plain <span>x</span> y", "text <a href='x'>link</a> more",
+				"<html><body>one <b>two</b> three</body></html>", "a <i> b </i> c", "fish &amp; <b>chips</b> &amp; peas",
+				"lead <br> trail", "<p>para</p> tail <b>bold</b> end", "one<b> two </b>three",
+				"<span>a</span> <span>b</span>", " <b>x</b> ", "x <span style='color:red'> </span> y",
+				"<ul><li>a <b>b</b> c</li></ul>" };
+		org.eclipse.mylyn.wikitext.core.parser.HtmlParser documentParser = org.eclipse.mylyn.wikitext.core.parser.HtmlParser.instanceWithHtmlCleanupRules();
+		org.eclipse.mylyn.wikitext.core.parser.HtmlParser streamingParser = org.eclipse.mylyn.wikitext.core.parser.HtmlParser.streamingInstanceWithHtmlCleanupRules();
+		for (String input : inputs) {
+			assertEquals(input, toTextile(documentParser, input), toTextile(streamingParser, input));
+		}
+	}
+
+	public void testRequiresStreamingProcessors() throws IOException, SAXException {
+		((StreamingHtmlParser) parser).getProcessors().add(new DocumentProcessor() {
+
+			@Override
+			public void process(org.jsoup.nodes.Document document) {
+			}
+		});
+		try {
+			performTest("<p>test</p>", "test\n\n");
+			fail();
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	public void testReadsInputIncrementally() throws IOException, SAXException {
+		final int paragraphCount = 10000;
+		final CountingReader reader = new CountingReader(new Reader() {
+
+			private int paragraph;
+
+			private final StringBuilder pending = new StringBuilder();
+
+			@Override
+			public int read(char[] cbuf, int off, int len) {
+				if (pending.length() == 0) {
+					if (paragraph == paragraphCount) {
+						return -1;
+					}
+					pending.append("<p>paragraph ").append(paragraph++).append("</p>\n");
+				}
+				int count = Math.min(len, pending.length());
+				pending.getChars(0, count, cbuf, off);
+				pending.delete(0, count);
+				return count;
+			}
+
+			@Override
+			public void close() {
+			}
+		});
+		final long[] charactersReadAtFirstParagraph = new long[1];
+		parser.parse(new InputSource(reader), new NoOpDocumentBuilder() {
+
+			@Override
+			public void characters(String text) {
+				if (charactersReadAtFirstParagraph[0] == 0) {
+					charactersReadAtFirstParagraph[0] = reader.count;
+				}
+			}
+		}, true);
+
+		assertTrue(reader.count > 100000);
+		assertTrue(String.valueOf(charactersReadAtFirstParagraph[0]), charactersReadAtFirstParagraph[0] < 20000);
+	}
+
+	private static AbstractSaxHtmlParser createCleanParser(HtmlParser parser) {
+		new HtmlCleaner().configure(parser);
+		return parser;
+	}
+
+	private static AbstractSaxHtmlParser createCleanParser(StreamingHtmlParser parser) {
+		new HtmlCleaner().configure(parser);
+		return parser;
+	}
+
+	private static String toTextile(org.eclipse.mylyn.wikitext.core.parser.HtmlParser parser, String html)
+			throws IOException, SAXException {
+		StringWriter out = new StringWriter();
+		parser.parse(new InputSource(new StringReader(html)), new TextileDocumentBuilder(out), true);
+		return out.toString();
+	}
+
+	private static String toTextile(AbstractSaxHtmlParser parser, String html) throws IOException, SAXException {
+		StringWriter out = new StringWriter();
+		parser.parse(new InputSource(new StringReader(html)), new TextileDocumentBuilder(out), true);
+		return out.toString();
+	}
+
+	private static class CountingReader extends Reader {
+
+		private final Reader delegate;
+
+		long count;
+
+		CountingReader(Reader delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			int read = delegate.read(cbuf, off, len);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+	}
+}
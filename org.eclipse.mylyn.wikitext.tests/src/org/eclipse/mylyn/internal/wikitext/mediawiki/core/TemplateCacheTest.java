@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TemplateCacheTest {
+
+	private static class CountingLoader implements TemplateCache.Loader {
+
+		private final AtomicInteger loadCount = new AtomicInteger();
+
+		private final String markup;
+
+		CountingLoader(String markup) {
+			this.markup = markup;
+		}
+
+		@Override
+		public String load() throws IOException {
+			loadCount.incrementAndGet();
+			return markup;
+		}
+	}
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void loadsOnce() throws IOException {
+		TemplateCache cache = new TemplateCache(10, TimeUnit.HOURS.toMillis(1));
+		CountingLoader loader = new CountingLoader("markup");
+		assertEquals("markup", cache.get("http://example.com", "Template:One", loader));
+		assertEquals("markup", cache.get("http://example.com", "Template:One", loader));
+		assertEquals(1, loader.loadCount.get());
+
+		assertEquals("markup", cache.get("http://example.org", "Template:One", loader));
+		assertEquals(2, loader.loadCount.get());
+	}
+
+	@Test
+	public void cachesMissingTemplates() throws IOException {
+		TemplateCache cache = new TemplateCache(10, TimeUnit.HOURS.toMillis(1));
+		CountingLoader loader = new CountingLoader(null);
+		assertNull(cache.get("http://example.com", "Template:Missing", loader));
+		assertNull(cache.get("http://example.com", "Template:Missing", loader));
+		assertEquals(1, loader.loadCount.get());
+	}
+
+	@Test
+	public void doesNotCacheFailures() throws IOException {
+		TemplateCache cache = new TemplateCache(10, TimeUnit.HOURS.toMillis(1));
+		try {
+			cache.get("http://example.com", "Template:One", new TemplateCache.Loader() {
+
+				@Override
+				public String load() throws IOException {
+					throw new IOException("test");
+				}
+			});
+			fail();
+		} catch (IOException e) {
+			assertEquals("test", e.getMessage());
+		}
+		assertEquals("markup", cache.get("http://example.com", "Template:One", new CountingLoader("markup")));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() throws IOException {
+		TemplateCache cache = new TemplateCache(2, TimeUnit.HOURS.toMillis(1));
+		CountingLoader loader = new CountingLoader("markup");
+		cache.get("http://example.com", "Template:One", loader);
+		cache.get("http://example.com", "Template:Two", loader);
+		cache.get("http://example.com", "Template:One", loader);
+		cache.get("http://example.com", "Template:Three", loader);
+		assertEquals(3, loader.loadCount.get());
+
+		cache.get("http://example.com", "Template:One", loader);
+		assertEquals(3, loader.loadCount.get());
+		cache.get("http://example.com", "Template:Two", loader);
+		assertEquals(4, loader.loadCount.get());
+	}
+
+	@Test
+	public void expires() throws IOException {
+		TemplateCache cache = new TemplateCache(10, 0);
+		CountingLoader loader = new CountingLoader("markup");
+		cache.get("http://example.com", "Template:One", loader);
+		sleep(5);
+		cache.get("http://example.com", "Template:One", loader);
+		assertEquals(2, loader.loadCount.get());
+	}
+
+	@Test
+	public void storeDirectory() throws IOException {
+		TemplateCache cache = new TemplateCache(10, TimeUnit.HOURS.toMillis(1));
+		cache.setStoreDirectory(temporaryFolder.getRoot());
+		assertEquals("markup", cache.get("http://example.com", "Template:One", new CountingLoader("markup")));
+
+		TemplateCache otherCache = new TemplateCache(10, TimeUnit.HOURS.toMillis(1));
+		otherCache.setStoreDirectory(temporaryFolder.getRoot());
+		CountingLoader loader = new CountingLoader("other");
+		assertEquals("markup", otherCache.get("http://example.com", "Template:One", loader));
+		assertEquals(0, loader.loadCount.get());
+	}
+
+	@Test
+	public void concurrentRequestsLoadOnce() throws Exception {
+		final TemplateCache cache = new TemplateCache(10, TimeUnit.HOURS.toMillis(1));
+		final CountDownLatch loading = new CountDownLatch(1);
+		final AtomicInteger loadCount = new AtomicInteger();
+		final TemplateCache.Loader loader = new TemplateCache.Loader() {
+
+			@Override
+			public String load() throws IOException {
+				loadCount.incrementAndGet();
+				try {
+					loading.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+				return "markup";
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<Future<String>>();
+			for (int x = 0; x < 4; ++x) {
+				results.add(executor.submit(new Callable<String>() {
+
+					@Override
+					public String call() throws IOException {
+						return cache.get("http://example.com", "Template:One", loader);
+					}
+				}));
+			}
+			sleep(50);
+			loading.countDown();
+			for (Future<String> result : results) {
+				assertEquals("markup", result.get());
+			}
+			assertEquals(1, loadCount.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
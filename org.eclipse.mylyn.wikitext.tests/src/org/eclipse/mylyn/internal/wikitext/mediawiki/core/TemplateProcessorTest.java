@@ -14,6 +14,11 @@ package org.eclipse.mylyn.internal.wikitext.mediawiki.core;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.mylyn.wikitext.mediawiki.core.MediaWikiLanguage;
 import org.eclipse.mylyn.wikitext.mediawiki.core.Template;
@@ -372,6 +377,95 @@ public class TemplateProcessorTest extends TestCase {
 		assertEquals("one _expandedfirstandsecond_ two", markup);
 	}
 
+	public void testTemplateInParameter() {
+		markupLanguage.getTemplates().add(new Template("box", "[{{{1}}}|{{{title|untitled}}}]"));
+		markupLanguage.getTemplates().add(new Template("bold", "'''{{{1}}}'''"));
+
+		TemplateProcessor templateProcessor = new TemplateProcessor(markupLanguage);
+
+		String markup = templateProcessor.processTemplates("one {{box|{{bold|a}}|title={{bold|b}}}} two");
+		assertEquals("one ['''a'''|'''b'''] two", markup);
+	}
+
+	public void testTemplateInDefaultValue() {
+		markupLanguage.getTemplates().add(new Template("box", "[{{{1|{{empty}}}}}]"));
+		markupLanguage.getTemplates().add(new Template("empty", "none"));
+
+		TemplateProcessor templateProcessor = new TemplateProcessor(markupLanguage);
+
+		assertEquals("[none] [x]", templateProcessor.processTemplates("{{box}} {{box|x}}"));
+	}
+
+	public void testTemplateNameFromParameter() {
+		markupLanguage.getTemplates().add(new Template("dispatch", "{{{{{1}}}|{{{2}}}}}"));
+		markupLanguage.getTemplates().add(new Template("bold", "'''{{{1}}}'''"));
+
+		TemplateProcessor templateProcessor = new TemplateProcessor(markupLanguage);
+
+		assertEquals("one '''a''' two", templateProcessor.processTemplates("one {{dispatch|bold|a}} two"));
+	}
+
+	public void testDeeplyNestedTemplates() {
+		int depth = 200;
+		for (int x = 0; x < depth; ++x) {
+			markupLanguage.getTemplates().add(new Template("level" + x, "<" + x + ">{{level" + (x + 1) + "|{{{1}}}}}"));
+		}
+		markupLanguage.getTemplates().add(new Template("level" + depth, "{{{1}}}"));
+
+		TemplateProcessor templateProcessor = new TemplateProcessor(markupLanguage);
+
+		StringBuilder expected = new StringBuilder();
+		for (int x = 0; x < depth; ++x) {
+			expected.append("<" + x + ">");
+		}
+		expected.append("end");
+		assertEquals(expected.toString(), templateProcessor.processTemplates("{{level0|end}}"));
+	}
+
+	public void testRepeatedTemplate() {
+		markupLanguage.getTemplates().add(new Template("row", "[{{{1}}}{{{2|}}}]"));
+
+		TemplateProcessor templateProcessor = new TemplateProcessor(markupLanguage);
+
+		assertEquals("[a] [a] [b] [ab] [a]",
+				templateProcessor.processTemplates("{{row|a}} {{row|a}} {{row|b}} {{row|a|b}} {{row|a}}"));
+	}
+
+	public void testUnbalancedBracesAreText() {
+		markupLanguage.getTemplates().add(new Template("test", "_expanded_"));
+
+		TemplateProcessor templateProcessor = new TemplateProcessor(markupLanguage);
+
+		assertEquals("{{test {{{ _expanded_ }} {{test|", templateProcessor.processTemplates("{{test {{{ {{test}} }} {{test|"));
+	}
+
+	public void testUnterminatedNestedTemplatesTakePolynomialTime() throws Exception {
+		markupLanguage.getTemplates().add(new Template("test", "_expanded_"));
+
+		final TemplateProcessor templateProcessor = new TemplateProcessor(markupLanguage);
+		StringBuilder calls = new StringBuilder();
+		StringBuilder references = new StringBuilder();
+		for (int x = 0; x < 200; ++x) {
+			calls.append("{{test|");
+			references.append("{{{a|");
+		}
+		final String markup = calls.toString() + references.toString() + "{{test}}";
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> result = executor.submit(new Callable<String>() {
+
+				@Override
+				public String call() {
+					return templateProcessor.processTemplates(markup);
+				}
+			});
+			assertEquals(calls.toString() + references.toString() + "_expanded_", result.get(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	private void assertContains(Set<String> strings, String string) {
 		assertTrue(String.format("Expected %s but got %s", string, strings), strings.contains(string));
 	}
@@ -11,9 +11,25 @@
 
 package org.eclipse.mylyn.internal.wikitext.mediawiki.core.ant.tasks;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.tools.ant.Project;
 import org.junit.Before;
@@ -21,6 +37,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+
 public class MediaWikiImageFetcherTest {
 	@Rule
 	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
@@ -44,4 +63,148 @@ public class MediaWikiImageFetcherTest {
 		WikiPageAssertions.assertManyImages(temporaryFolder.getRoot());
 	}
 
+	@Test
+	public void fetchesImagesConcurrently() throws IOException {
+		StubWikiServer server = new StubWikiServer();
+		try {
+			for (int x = 0; x < 6; ++x) {
+				server.addImage("image" + x + ".png", imageContent(x, 1));
+			}
+			fetchImages(server);
+
+			assertEquals(6, server.getImageTransfers().size());
+			for (int x = 0; x < 6; ++x) {
+				assertArrayEquals(imageContent(x, 1), imageFile(x));
+			}
+			assertTrue(new File(temporaryFolder.getRoot(), ImageDownloader.MANIFEST_FILE_NAME).exists());
+		} finally {
+			server.close();
+		}
+	}
+
+	@Test
+	public void fetchesOnlyChangedImages() throws IOException {
+		StubWikiServer server = new StubWikiServer();
+		try {
+			for (int x = 0; x < 3; ++x) {
+				server.addImage("image" + x + ".png", imageContent(x, 1));
+			}
+			fetchImages(server);
+			assertEquals(3, server.getImageTransfers().size());
+
+			server.addImage("image1.png", imageContent(1, 2));
+			Files.write(new byte[] { 1, 2, 3 }, new File(temporaryFolder.getRoot(), "image2.png"));
+			fetchImages(server);
+
+			assertEquals(ImmutableSet.of("image1.png", "image2.png"),
+					ImmutableSet.copyOf(server.getImageTransfers().subList(3, server.getImageTransfers().size())));
+			assertEquals(5, server.getImageTransfers().size());
+			assertArrayEquals(imageContent(0, 1), imageFile(0));
+			assertArrayEquals(imageContent(1, 2), imageFile(1));
+			assertArrayEquals(imageContent(2, 1), imageFile(2));
+		} finally {
+			server.close();
+		}
+	}
+
+	@Test
+	public void sharesManifestBetweenConcurrentFetchers() throws Exception {
+		StubWikiServer server = new StubWikiServer();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for (int x = 0; x < 6; ++x) {
+				server.addImage("image" + x + ".png", imageContent(x, 1));
+			}
+			server.setImageDelay(50);
+			final URL url = new URL(server.getBaseUrl());
+			List<Future<Void>> fetches = new ArrayList<Future<Void>>();
+			for (int x = 0; x < 4; ++x) {
+				fetches.add(executor.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() {
+						MediaWikiImageFetcher fetcher = new MediaWikiImageFetcher();
+						fetcher.setProject(new Project());
+						fetcher.setDest(temporaryFolder.getRoot());
+						fetcher.setUrl(url);
+						fetcher.setPageName("Test");
+						fetcher.setThreads(3);
+						fetcher.execute();
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> fetch : fetches) {
+				fetch.get();
+			}
+
+			assertEquals(6, server.getImageTransfers().size());
+			Properties manifest = readManifest();
+			for (int x = 0; x < 6; ++x) {
+				assertArrayEquals(imageContent(x, 1), imageFile(x));
+				assertEquals(String.valueOf(imageContent(x, 1).length), manifest.getProperty("image" + x + ".png.length"));
+			}
+
+			fetchImages(server);
+			assertEquals(6, server.getImageTransfers().size());
+		} catch (ExecutionException e) {
+			throw (Exception) e.getCause();
+		} finally {
+			executor.shutdownNow();
+			server.close();
+		}
+	}
+
+	@Test
+	public void doesNotRecordImagesWithoutValidators() throws IOException {
+		StubWikiServer server = new StubWikiServer();
+		try {
+			server.setImageValidators(false);
+			for (int x = 0; x < 2; ++x) {
+				server.addImage("image" + x + ".png", imageContent(x, 1));
+			}
+			fetchImages(server);
+
+			assertEquals(2, server.getImageTransfers().size());
+			assertArrayEquals(imageContent(0, 1), imageFile(0));
+			assertArrayEquals(imageContent(1, 1), imageFile(1));
+			assertTrue(readManifest().isEmpty());
+			assertFalse(readManifest().containsKey("image0.png.length"));
+		} finally {
+			server.close();
+		}
+	}
+
+	private Properties readManifest() throws IOException {
+		Properties manifest = new Properties();
+		File file = new File(temporaryFolder.getRoot(), ImageDownloader.MANIFEST_FILE_NAME);
+		if (file.exists()) {
+			InputStream in = new FileInputStream(file);
+			try {
+				manifest.load(in);
+			} finally {
+				in.close();
+			}
+		}
+		return manifest;
+	}
+
+	private void fetchImages(StubWikiServer server) throws MalformedURLException {
+		task.setUrl(new URL(server.getBaseUrl()));
+		task.setPageName("Test");
+		task.setThreads(3);
+		task.execute();
+	}
+
+	private byte[] imageFile(int index) throws IOException {
+		return Files.toByteArray(new File(temporaryFolder.getRoot(), "image" + index + ".png"));
+	}
+
+	private byte[] imageContent(int index, int version) {
+		byte[] content = new byte[1024 * 64 + index];
+		for (int x = 0; x < content.length; ++x) {
+			content[x] = (byte) (x * version + index);
+		}
+		return content;
+	}
 }
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core.ant.tasks;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Charsets;
+
+/**
+ * A minimal HTTP server that serves the raw content of wiki pages and their images, for testing {@link WikiToDocTask}
+ * without a network. Images are served with an ETag and support conditional requests, unless validators are disabled.
+ */
+class StubWikiServer implements Closeable {
+
+	private static final Pattern RAW_PAGE_REQUEST = Pattern.compile("GET /index\\.php\\?title=([^&]*)&action=raw .*");
+
+	private static final Pattern IMAGE_LIST_REQUEST = Pattern.compile("GET /api\\.php\\?action=query&.*");
+
+	private static final Pattern IMAGE_REQUEST = Pattern.compile("GET /images/([^ ]*) .*");
+
+	private final Map<String, String> pageContent = new ConcurrentHashMap<String, String>();
+
+	private final Map<String, byte[]> imageContent = new ConcurrentHashMap<String, byte[]>();
+
+	private final List<String> imageTransfers = new ArrayList<String>();
+
+	private final Map<String, AtomicInteger> failuresByPage = new ConcurrentHashMap<String, AtomicInteger>();
+
+	private final List<String> requests = new ArrayList<String>();
+
+	private final List<Long> requestTimes = new ArrayList<Long>();
+
+	private final AtomicInteger activeRequests = new AtomicInteger();
+
+	private final AtomicInteger maxActiveRequests = new AtomicInteger();
+
+	private volatile long responseDelay;
+
+	private volatile long imageDelay;
+
+	private volatile boolean imageValidators = true;
+
+	private final ServerSocket serverSocket;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	StubWikiServer() throws IOException {
+		serverSocket = new ServerSocket(0, 50, InetAddress.getByName("localhost"));
+		executor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				while (!serverSocket.isClosed()) {
+					try {
+						final Socket socket = serverSocket.accept();
+						executor.execute(new Runnable() {
+
+							@Override
+							public void run() {
+								handle(socket);
+							}
+						});
+					} catch (IOException e) {
+						// closed
+					}
+				}
+			}
+		});
+	}
+
+	String getBaseUrl() {
+		return "http://localhost:" + serverSocket.getLocalPort();
+	}
+
+	void addPage(String name, String content) {
+		pageContent.put(name, content);
+	}
+
+	void addImage(String name, byte[] content) {
+		imageContent.put(name, content);
+	}
+
+	void failRequests(String name, int count) {
+		failuresByPage.put(name, new AtomicInteger(count));
+	}
+
+	void setResponseDelay(long responseDelay) {
+		this.responseDelay = responseDelay;
+	}
+
+	void setImageDelay(long imageDelay) {
+		this.imageDelay = imageDelay;
+	}
+
+	void setImageValidators(boolean imageValidators) {
+		this.imageValidators = imageValidators;
+	}
+
+	synchronized List<String> getRequests() {
+		return new ArrayList<String>(requests);
+	}
+
+	synchronized List<Long> getRequestTimes() {
+		return new ArrayList<Long>(requestTimes);
+	}
+
+	synchronized List<String> getImageTransfers() {
+		return new ArrayList<String>(imageTransfers);
+	}
+
+	int getMaxActiveRequests() {
+		return maxActiveRequests.get();
+	}
+
+	private void handle(Socket socket) {
+		try {
+			try {
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), Charsets.US_ASCII));
+				String requestLine = reader.readLine();
+				String ifNoneMatch = null;
+				for (String header = reader.readLine(); header != null && !header.isEmpty(); header = reader
+						.readLine()) {
+					if (header.toLowerCase().startsWith("if-none-match:")) {
+						ifNoneMatch = header.substring(header.indexOf(':') + 1).trim();
+					}
+				}
+				if (requestLine != null && IMAGE_LIST_REQUEST.matcher(requestLine).matches()) {
+					writeResponse(socket.getOutputStream(), "200 OK", createImageList());
+				} else if (requestLine != null && IMAGE_REQUEST.matcher(requestLine).matches()) {
+					Matcher matcher = IMAGE_REQUEST.matcher(requestLine);
+					matcher.matches();
+					respondWithImage(socket.getOutputStream(), matcher.group(1), ifNoneMatch);
+				} else {
+					respond(socket.getOutputStream(), requestLine);
+				}
+			} finally {
+				socket.close();
+			}
+		} catch (IOException e) {
+			// ignore
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void respond(OutputStream out, String requestLine) throws IOException, InterruptedException {
+		Matcher matcher = RAW_PAGE_REQUEST.matcher(requestLine == null ? "" : requestLine);
+		String name = matcher.matches() ? URLDecoder.decode(matcher.group(1), "UTF-8") : null;
+		synchronized (this) {
+			requests.add(name);
+			requestTimes.add(System.nanoTime());
+		}
+		updateMaxActiveRequests(activeRequests.incrementAndGet());
+		try {
+			Thread.sleep(responseDelay);
+		} finally {
+			activeRequests.decrementAndGet();
+		}
+
+		AtomicInteger failures = name == null ? null : failuresByPage.get(name);
+		String content = name == null ? null : pageContent.get(name);
+		if (failures != null && failures.getAndDecrement() > 0) {
+			writeResponse(out, "503 Service Unavailable", "");
+		} else if (content == null) {
+			writeResponse(out, "404 Not Found", "");
+		} else {
+			writeResponse(out, "200 OK", content);
+		}
+	}
+
+	private String createImageList() {
+		StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?><api><query><pages>");
+		for (String name : imageContent.keySet()) {
+			xml.append("<page title=\"File:").append(name).append("\"><imageinfo><ii url=\"/images/").append(name).append(
+					"\"/></imageinfo></page>");
+		}
+		return xml.append("</pages></query></api>").toString();
+	}
+
+	private void respondWithImage(OutputStream out, String name, String ifNoneMatch) throws IOException,
+			InterruptedException {
+		byte[] content = imageContent.get(name);
+		if (content == null) {
+			writeResponse(out, "404 Not Found", "");
+			return;
+		}
+		Thread.sleep(imageDelay);
+		String etag = "\"" + Arrays.hashCode(content) + "\"";
+		String validators = imageValidators ? "ETag: " + etag + "\r\n" : "";
+		if (imageValidators && etag.equals(ifNoneMatch)) {
+			writeResponse(out, "304 Not Modified", validators, new byte[0]);
+		} else {
+			synchronized (this) {
+				imageTransfers.add(name);
+			}
+			writeResponse(out, "200 OK", validators + "Content-Type: image/png\r\n", content);
+		}
+	}
+
+	private void writeResponse(OutputStream out, String status, String content) throws IOException {
+		writeResponse(out, status, "Content-Type: text/plain; charset=UTF-8\r\n", content.getBytes(Charsets.UTF_8));
+	}
+
+	private void writeResponse(OutputStream out, String status, String headers, byte[] body) throws IOException {
+		String head = "HTTP/1.1 " + status + "\r\n" + headers + "Content-Length: " + body.length
+				+ "\r\nConnection: close\r\n\r\n";
+		out.write(head.getBytes(Charsets.US_ASCII));
+		out.write(body);
+		out.flush();
+	}
+
+	private void updateMaxActiveRequests(int active) {
+		int max;
+		while ((max = maxActiveRequests.get()) < active) {
+			if (maxActiveRequests.compareAndSet(max, active)) {
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		executor.shutdownNow();
+	}
+}
@@ -0,0 +1,319 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.internal.wikitext.mediawiki.core.ant.tasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tools.ant.BuildEvent;
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.BuildListener;
+import org.apache.tools.ant.Project;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.WikiTemplateResolver;
+import org.eclipse.mylyn.internal.wikitext.mediawiki.core.ant.tasks.WikiToDocTask.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+
+public class WikiToDocTaskFetchTest {
+
+	private static final int PAGE_COUNT = 8;
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private StubWikiServer server;
+
+	@Before
+	public void before() throws IOException {
+		server = new StubWikiServer();
+		for (int x = 0; x < PAGE_COUNT; ++x) {
+			server.addPage(pageName(x), "= Page " + x + " =\n\nSee [[" + pageName((x + 1) % PAGE_COUNT)
+					+ "]].\n\n= Details " + x + " =\n\nMore content.\n");
+		}
+	}
+
+	@After
+	public void after() throws IOException {
+		server.close();
+	}
+
+	@Test
+	public void fetchesPagesConcurrently() throws IOException {
+		server.setResponseDelay(50);
+		File sequentialDest = temporaryFolder.newFolder("sequential");
+		createTask(sequentialDest).execute();
+		assertEquals(1, server.getMaxActiveRequests());
+
+		File concurrentDest = temporaryFolder.newFolder("concurrent");
+		WikiToDocTask task = createTask(concurrentDest);
+		task.setConnections(4);
+		task.setThreads(3);
+		task.execute();
+		assertTrue(server.getMaxActiveRequests() > 1);
+
+		assertEquals(readFile(new File(sequentialDest, "toc.xml")), readFile(new File(concurrentDest, "toc.xml")));
+		for (Path path : task.getPaths()) {
+			String relativePath = task.computeHtmlOutputFile(path)
+					.getAbsolutePath()
+					.substring(concurrentDest.getAbsolutePath().length());
+			assertEquals(readFile(new File(sequentialDest, relativePath)),
+					readFile(new File(concurrentDest, relativePath)));
+		}
+	}
+
+	@Test
+	public void unifiedTocFollowsPathOrder() throws IOException {
+		WikiToDocTask task = createTask(temporaryFolder.getRoot());
+		task.setConnections(PAGE_COUNT);
+		task.setThreads(PAGE_COUNT);
+		task.execute();
+
+		String toc = readFile(new File(temporaryFolder.getRoot(), "toc.xml"));
+		int previousIndex = -1;
+		for (int x = 0; x < PAGE_COUNT; ++x) {
+			int index = toc.indexOf("label=\"Page Title " + x + "\"");
+			assertTrue(toc, index > previousIndex);
+			previousIndex = index;
+		}
+	}
+
+	@Test
+	public void logsInPathOrder() {
+		server.setResponseDelay(20);
+		WikiToDocTask task = createTask(temporaryFolder.getRoot());
+		task.setConnections(4);
+		task.setThreads(3);
+		final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+		task.getProject().addBuildListener(new BuildListener() {
+
+			@Override
+			public void messageLogged(BuildEvent event) {
+				if (event.getMessage().startsWith("Fetching content for page")
+						|| event.getMessage().startsWith("Processing page")) {
+					messages.add(event.getMessage());
+				}
+			}
+
+			@Override
+			public void taskStarted(BuildEvent event) {
+			}
+
+			@Override
+			public void taskFinished(BuildEvent event) {
+			}
+
+			@Override
+			public void targetStarted(BuildEvent event) {
+			}
+
+			@Override
+			public void targetFinished(BuildEvent event) {
+			}
+
+			@Override
+			public void buildStarted(BuildEvent event) {
+			}
+
+			@Override
+			public void buildFinished(BuildEvent event) {
+			}
+		});
+		task.execute();
+
+		List<String> expected = new ArrayList<String>();
+		for (int x = 0; x < PAGE_COUNT; ++x) {
+			expected.add("Fetching content for page " + pageName(x));
+		}
+		for (int x = 0; x < PAGE_COUNT; ++x) {
+			expected.add("Processing page " + pageName(x));
+		}
+		assertEquals(expected, messages);
+	}
+
+	@Test
+	public void retriesFailedFetch() {
+		server.failRequests(pageName(2), 2);
+		WikiToDocTask task = createTask(temporaryFolder.getRoot());
+		task.setRetries(2);
+		task.execute();
+
+		assertEquals(PAGE_COUNT + 2, server.getRequests().size());
+		assertTrue(task.computeHtmlOutputFile(task.getPaths().get(2)).exists());
+	}
+
+	@Test
+	public void failsWhenRetriesAreExhausted() {
+		server.failRequests(pageName(2), 2);
+		WikiToDocTask task = createTask(temporaryFolder.getRoot());
+		task.setConnections(2);
+		task.setRetries(1);
+		try {
+			task.execute();
+			fail();
+		} catch (BuildException e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Cannot read from " + server.getBaseUrl()));
+		}
+	}
+
+	@Test
+	public void throttlesRequestsToTheSameHost() {
+		final List<Long> requestTimes = Collections.synchronizedList(new ArrayList<Long>());
+		WikiToDocTask task = createTask(temporaryFolder.getRoot(), new WikiToDocTask() {
+
+			@Override
+			protected Reader createInputReader(URL pathUrl) throws IOException {
+				requestTimes.add(System.nanoTime());
+				return super.createInputReader(pathUrl);
+			}
+		});
+		task.setPaths(new ArrayList<Path>(task.getPaths().subList(0, 3)));
+		task.setGenerateUnifiedToc(false);
+		task.setConnections(3);
+		task.setThrottleDelay(100);
+		task.execute();
+
+		assertEquals(3, requestTimes.size());
+		assertEquals(3, server.getRequestTimes().size());
+		for (int x = 1; x < requestTimes.size(); ++x) {
+			long elapsed = requestTimes.get(x) - requestTimes.get(x - 1);
+			assertTrue(String.valueOf(elapsed), elapsed >= TimeUnit.MILLISECONDS.toNanos(90));
+		}
+	}
+
+	@Test
+	public void resolvesEachTemplateOnce() throws IOException {
+		server.addPage("Template:Note", "<span class=\"note\">{{{1}}}</span> {{Footer}}");
+		server.addPage("Template:Footer", "footer");
+		for (int x = 0; x < PAGE_COUNT; ++x) {
+			server.addPage(pageName(x), "= Page " + x + " =\n\n{{Note|note " + x + "}}\n");
+		}
+		WikiToDocTask task = createTask(temporaryFolder.getRoot());
+		task.setConnections(4);
+		task.setThreads(2);
+		task.setTemplateCacheDir(temporaryFolder.newFolder("templates"));
+		task.execute();
+
+		List<String> requests = server.getRequests();
+		assertEquals(1, Collections.frequency(requests, "Template:Note"));
+		assertEquals(1, Collections.frequency(requests, "Template:Footer"));
+		String content = readFile(task.computeHtmlOutputFile(task.getPaths().get(3)));
+		assertTrue(content, content.contains("<span class=\"note\">note 3</span> footer"));
+		assertEquals(2, new File(temporaryFolder.getRoot(), "templates").list().length);
+	}
+
+	@Test
+	public void doesNotCacheMissingTemplates() throws IOException {
+		for (int x = 0; x < PAGE_COUNT; ++x) {
+			server.addPage(pageName(x), "= Page " + x + " =\n\n{{Missing}}\n");
+		}
+		WikiToDocTask task = createTask(temporaryFolder.getRoot());
+		task.setConnections(4);
+		task.setThreads(2);
+		task.execute();
+
+		// pages that are rendered at the same time may share a request
+		int requests = Collections.frequency(server.getRequests(), "Template:Missing");
+		assertTrue(String.valueOf(requests), requests > 1);
+	}
+
+	@Test
+	public void resolverDoesNotCacheTemplatesByDefault() {
+		server.addPage("Template:Note", "note");
+		WikiTemplateResolver resolver = new WikiTemplateResolver();
+		resolver.setWikiBaseUrl(server.getBaseUrl());
+
+		assertEquals("note", resolver.resolveTemplate("Note").getTemplateMarkup());
+		server.addPage("Template:Note", "changed note");
+		assertEquals("changed note", resolver.resolveTemplate("Note").getTemplateMarkup());
+		assertNull(resolver.resolveTemplate("Missing"));
+	}
+
+	@Test
+	public void invalidConfiguration() {
+		final WikiToDocTask task = new WikiToDocTask();
+		for (Runnable configuration : ImmutableList.of(new Runnable() {
+
+			@Override
+			public void run() {
+				task.setConnections(0);
+			}
+		}, new Runnable() {
+
+			@Override
+			public void run() {
+				task.setRetries(-1);
+			}
+		}, new Runnable() {
+
+			@Override
+			public void run() {
+				task.setThrottleDelay(-1);
+			}
+		})) {
+			try {
+				configuration.run();
+				fail();
+			} catch (BuildException e) {
+				// expected
+			}
+		}
+	}
+
+	private WikiToDocTask createTask(File dest) {
+		return createTask(dest, new WikiToDocTask());
+	}
+
+	private WikiToDocTask createTask(File dest, WikiToDocTask task) {
+		task.setProject(new Project());
+		task.setDest(dest);
+		task.setWikiBaseUrl(server.getBaseUrl());
+		task.setFetchImages(false);
+		task.setTitle("Stub");
+		for (int x = 0; x < PAGE_COUNT; ++x) {
+			Path path = new Path();
+			path.setName(pageName(x));
+			path.setTitle("Page Title " + x);
+			path.setGenerateToc(x % 2 == 0);
+			if (x > 0 && x % 3 == 0) {
+				path.setTocParentName(pageName(x - 1));
+			}
+			task.addPath(path);
+		}
+		return task;
+	}
+
+	private static String pageName(int index) {
+		return "Guide/Page_" + index;
+	}
+
+	private static String readFile(File file) throws IOException {
+		return Files.toString(file, Charsets.UTF_8);
+	}
+}
@@ -16,6 +16,7 @@ import static org.junit.Assert.assertTrue;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -213,6 +214,16 @@ public class HtmlTextPresentationParserTest {
 				return false;
 			}
 
+			@Override
+			public String getId() {
+				return null;
+			}
+
+			@Override
+			public List<String> getCssClasses() {
+				return Collections.emptyList();
+			}
+
 			@Override
 			public boolean hasCssClass(String cssClass) {
 				return false;
@@ -11,6 +11,10 @@
 
 package org.eclipse.mylyn.wikitext.core.parser.outline;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import junit.framework.TestCase;
 
 import org.eclipse.mylyn.wikitext.textile.core.TextileLanguage;
@@ -51,4 +55,78 @@ public class OutlineItemTest extends TestCase {
 		assertEquals(17, secondHeader.getSectionLength());
 		assertEquals(30, firstHeaderFirstChild.getSectionLength());
 	}
+
+	public void testGetSectionLengthAfterAddChild() {
+		OutlineItem root = new OutlineItem(null, 0, "root", 0, 100, "root");
+		OutlineItem first = new OutlineItem(root, 1, "first", 10, 5, "first");
+		assertEquals(90, first.getSectionLength());
+
+		new OutlineItem(root, 1, "second", 40, 5, "second");
+		assertEquals(30, first.getSectionLength());
+
+		OutlineItem child = new OutlineItem(first, 2, "child", 20, 5, "child");
+		assertEquals(20, child.getSectionLength());
+	}
+
+	public void testFindNearestMatchingOffset() {
+		OutlineItem root = new OutlineItem(null, 0, "root", 0, 100, "root");
+		assertNull(root.findNearestMatchingOffset(10));
+
+		OutlineItem first = new OutlineItem(root, 1, "first", 10, 5, "first");
+		OutlineItem child = new OutlineItem(first, 2, "child", 10, 5, "child");
+		OutlineItem second = new OutlineItem(root, 1, "second", 40, 5, "second");
+
+		assertSame(first, root.findNearestMatchingOffset(0));
+		assertSame(first, root.findNearestMatchingOffset(10));
+		assertSame(first, root.findNearestMatchingOffset(39));
+		assertSame(second, root.findNearestMatchingOffset(40));
+		assertSame(second, root.findNearestMatchingOffset(1000));
+		assertSame(child, first.findNearestMatchingOffset(39));
+
+		OutlineItem third = new OutlineItem(root, 1, "third", 60, 5, "third");
+		assertSame(third, root.findNearestMatchingOffset(60));
+	}
+
+	public void testFindNearestMatchingOffsetMatchesTreeWalk() {
+		Random random = new Random(42);
+		OutlineItem root = new OutlineItem(null, 0, "root", 0, 100000, "root");
+		List<OutlineItem> items = new ArrayList<OutlineItem>();
+		OutlineItem parent = root;
+		int offset = 0;
+		for (int x = 0; x < 2000; ++x) {
+			offset += random.nextInt(3) * 10;
+			int level = Math.min(parent.getLevel() + 1, 1 + random.nextInt(4));
+			while (parent.getLevel() >= level) {
+				parent = parent.getParent();
+			}
+			parent = new OutlineItem(parent, level, "h" + x, offset, 5, "heading " + x);
+			items.add(parent);
+		}
+		for (int x = -5; x < offset + 20; x += 5) {
+			OutlineItem expected = items.get(0);
+			for (OutlineItem item : items) {
+				if (item.getOffset() <= x && item.getOffset() > expected.getOffset()) {
+					expected = item;
+				}
+			}
+			assertSame(String.valueOf(x), expected, root.findNearestMatchingOffset(x));
+		}
+	}
+
+	public void testGetPreviousAfterMoveChildren() {
+		OutlineItem root = new OutlineItem(null, 0, "root", 0, 100, "root");
+		OutlineItem first = new OutlineItem(root, 1, "first", 10, 5, "first");
+		OutlineItem other = new OutlineItem(null, 0, "other", 0, 100, "other");
+		OutlineItem second = new OutlineItem(other, 1, "second", 40, 5, "second");
+		OutlineItem third = new OutlineItem(other, 1, "third", 60, 5, "third");
+
+		root.moveChildren(other);
+
+		assertSame(root, first.getPrevious());
+		assertSame(first, second.getPrevious());
+		assertSame(second, third.getPrevious());
+		assertSame(third, root.findNearestMatchingOffset(70));
+		assertEquals(30, first.getSectionLength());
+		assertNull(other.findNearestMatchingOffset(70));
+	}
 }
@@ -113,4 +113,32 @@ public class OutlineParserTest extends TestCase {
 		assertEquals("Heading_Text", headingItem.getId());
 		assertEquals("Heading Text", headingItem.getLabel());
 	}
+
+	public void testHeadersWithEntityReferences() {
+		OutlineItem outline = outlineParser.parse("h1. Fish &amp; Chips &#169;\n\ntext");
+
+		assertEquals(1, outline.getChildren().size());
+
+		OutlineItem headingItem = outline.getChildren().get(0);
+
+		assertEquals("FishampChips169", headingItem.getId());
+		assertEquals("Fish &amp; Chips &#169;", headingItem.getLabel());
+	}
+
+	public void testHeadersWithEntityReferencesNotBlocksOnly() {
+		outlineParser = new OutlineParser(new TextileLanguage()) {
+			@Override
+			protected boolean isBlocksOnly() {
+				return false;
+			}
+		};
+
+		OutlineItem outline = outlineParser.parse("h1. Fish &amp; Chips\n\ntext");
+
+		assertEquals(1, outline.getChildren().size());
+
+		OutlineItem headingItem = outline.getChildren().get(0);
+
+		assertEquals("Fish  Chips", headingItem.getLabel());
+	}
 }
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.validation;
+
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.internal.wikitext.textile.core.validation.BlockWhitespaceRule;
+import org.eclipse.mylyn.internal.wikitext.textile.core.validation.TextileReferenceValidationRule;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+
+/**
+ * @author David Green
+ */
+public class IncrementalMarkupValidatorTest extends TestCase {
+
+	private static final String[] FRAGMENTS = new String[] { "h1. Foo", "h1. Bar", "\"link\":#Foo", "\"link\":#Baz",
+			"bc.", "bc. code", "p.text", "text", "\n", "\n\n", "\r\n", "\r\n\r\n", " ", "b", "c." };
+
+	private final MarkupValidator validator = new MarkupValidator();
+
+	private final IncrementalMarkupValidator incrementalValidator = new IncrementalMarkupValidator(validator);
+
+	private final CountingLineRule countingRule = new CountingLineRule();
+
+	private final CountingReferenceRule referenceRule = new CountingReferenceRule();
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		validator.getRules().add(new BlockWhitespaceRule());
+		validator.getRules().add(referenceRule);
+	}
+
+	public void testValidate() {
+		String markup = "h1. Foo\n\nbc.\n\n\"link\":#Bar\n";
+
+		assertEquals(validator.validate(markup).toString(), incrementalValidator.validate(markup).toString());
+		assertEquals(2, incrementalValidator.validate(markup).size());
+	}
+
+	public void testValidateRegion() {
+		String markup = "bc.\n\nh1. Foo\n\nbc.\n\n\"link\":#Bar\n";
+
+		List<ValidationProblem> problems = incrementalValidator.validate(markup, 5, 14);
+
+		assertEquals(1, problems.size());
+		assertEquals(14, problems.get(0).getOffset());
+		assertEquals(3, incrementalValidator.validate(markup).size());
+	}
+
+	public void testMovesProblemsOfUnchangedBlocks() {
+		String markup = "bc.\n\ntext\n\nbc.\n";
+		incrementalValidator.validate(markup);
+
+		List<ValidationProblem> problems = incrementalValidator.validate("bc.\n\nmore text\n\nbc.\n");
+
+		assertEquals(2, problems.size());
+		assertEquals(0, problems.get(0).getOffset());
+		assertEquals(16, problems.get(1).getOffset());
+	}
+
+	public void testValidatesOnlyChangedBlocks() {
+		validator.getRules().add(countingRule);
+		StringBuilder markup = new StringBuilder();
+		for (int x = 0; x < 1000; ++x) {
+			markup.append("paragraph ").append(x).append("\nsecond line\n\n");
+		}
+		incrementalValidator.validate(markup.toString());
+		assertEquals(3000, countingRule.lineCount);
+
+		countingRule.lineCount = 0;
+		markup.insert(markup.indexOf("paragraph 500"), "bc.");
+		List<ValidationProblem> problems = incrementalValidator.validate(markup.toString());
+
+		assertTrue(String.valueOf(countingRule.lineCount), countingRule.lineCount <= 9);
+		assertEquals(1, problems.size());
+		assertEquals(markup.indexOf("bc."), problems.get(0).getOffset());
+	}
+
+	public void testMatchesFullValidationAfterEdits() {
+		Random random = new Random(1);
+		String markup = "";
+		for (int x = 0; x < 2000; ++x) {
+			int offset = random.nextInt(markup.length() + 1);
+			int length = random.nextInt(Math.min(10, markup.length() - offset) + 1);
+			String replacement = random.nextInt(4) == 0 ? "" : FRAGMENTS[random.nextInt(FRAGMENTS.length)];
+			markup = markup.substring(0, offset) + replacement + markup.substring(offset + length);
+			if (markup.length() > 400) {
+				markup = markup.substring(markup.length() - 200);
+			}
+
+			assertEquals(markup, validator.validate(markup).toString(), incrementalValidator.validate(markup)
+					.toString());
+		}
+	}
+
+	public void testRetainsReferenceProblemsWhileEditingPlainText() {
+		String markup = "h1. Foo\nbar\n\nsome text\n\n\"link\":#Baz\n";
+		assertEquals(1, incrementalValidator.validate(markup).size());
+		assertEquals(1, referenceRule.parseCount);
+
+		markup = markup.replace("some text", "some more text");
+		List<ValidationProblem> problems = incrementalValidator.validate(markup);
+
+		assertEquals(1, referenceRule.parseCount);
+		assertEquals(1, problems.size());
+		assertEquals(markup.indexOf("\"link\""), problems.get(0).getOffset());
+
+		incrementalValidator.validate(markup.replace("some more text", "some more\ntext"));
+		assertEquals(2, referenceRule.parseCount);
+
+		incrementalValidator.validate(markup.replace("some more text", "some *more* text"));
+		assertEquals(3, referenceRule.parseCount);
+
+		incrementalValidator.validate(markup.replace("bar", "baz"));
+		assertEquals(4, referenceRule.parseCount);
+	}
+
+	public void testRetainsProblemsWhileEditingPlainTextBlock() {
+		CountingSpanningReferenceRule spanningRule = new CountingSpanningReferenceRule();
+		validator.getRules().add(spanningRule);
+		String markup = "h1. Foo\n\nsome text\non two lines\n\n\"link\":#Baz\nand text\n";
+		// both rules find the missing reference
+		assertEquals(2, incrementalValidator.validate(markup).size());
+		assertEquals(1, spanningRule.parseCount);
+
+		markup = markup.replace("some text", "some more text");
+		List<ValidationProblem> problems = incrementalValidator.validate(markup);
+
+		assertEquals(1, spanningRule.parseCount);
+		assertEquals(2, problems.size());
+		assertEquals(markup.indexOf("\"link\""), problems.get(0).getOffset());
+
+		incrementalValidator.validate(markup.replace("and text", "and more text"));
+		assertEquals(2, spanningRule.parseCount);
+		assertEquals(2, referenceRule.parseCount);
+	}
+
+	public void testReset() {
+		String markup = "bc.\n\ntext\n";
+		validator.getRules().add(countingRule);
+		incrementalValidator.validate(markup);
+		incrementalValidator.reset();
+		incrementalValidator.validate(markup);
+
+		assertEquals(6, countingRule.lineCount);
+	}
+
+	private static class CountingReferenceRule extends TextileReferenceValidationRule {
+
+		int parseCount;
+
+		@Override
+		public DocumentBuilder createValidationBuilder(MarkupLanguage markupLanguage, String markup, int offset,
+				int length, List<ValidationProblem> problems) {
+			++parseCount;
+			return super.createValidationBuilder(markupLanguage, markup, offset, length, problems);
+		}
+	}
+
+	/**
+	 * A rule that is only unaffected by plain text in blocks of plain text, as are rules for markup that may span
+	 * lines.
+	 */
+	private static class CountingSpanningReferenceRule extends CountingReferenceRule {
+
+		@Override
+		protected boolean isAffectedByPlainText() {
+			return true;
+		}
+
+		@Override
+		protected boolean isAffectedByPlainTextBlock() {
+			return false;
+		}
+	}
+
+	private static class CountingLineRule extends LineValidationRule {
+
+		int lineCount;
+
+		@Override
+		public void validateLine(String markup, int lineOffset, int lineLength, List<ValidationProblem> problems) {
+			++lineCount;
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2016 Tasktop Technologies and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     David Green - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.mylyn.wikitext.core.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.mylyn.internal.wikitext.textile.core.validation.BlockWhitespaceRule;
+import org.eclipse.mylyn.internal.wikitext.textile.core.validation.TextileReferenceValidationRule;
+import org.eclipse.mylyn.wikitext.confluence.core.ConfluenceLanguage;
+import org.eclipse.mylyn.wikitext.core.parser.DocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.builder.NoOpDocumentBuilder;
+import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.textile.core.TextileLanguage;
+
+/**
+ * @author David Green
+ */
+public class MarkupValidatorTest extends TestCase {
+
+	private final MarkupValidator validator = new MarkupValidator();
+
+	public void testCombinesProblemsInOffsetOrder() {
+		validator.getRules().add(new TextileReferenceValidationRule());
+		validator.getRules().add(new BlockWhitespaceRule());
+
+		String markup = "h1. Foo\n\n\"link\":#bar\n\nbc.\n\n\"link\":#Foo\n";
+		List<ValidationProblem> problems = validator.validate(markup);
+
+		assertEquals(2, problems.size());
+		assertEquals(9, problems.get(0).getOffset());
+		assertEquals(ValidationProblem.Severity.ERROR, problems.get(0).getSeverity());
+		assertEquals(22, problems.get(1).getOffset());
+		assertEquals(ValidationProblem.Severity.WARNING, problems.get(1).getSeverity());
+	}
+
+	public void testSharesParseForRulesOfSameMarkupLanguage() {
+		RecordingBuilderRule first = new RecordingBuilderRule(new TextileLanguage());
+		RecordingBuilderRule second = new RecordingBuilderRule(new TextileLanguage());
+		RecordingBuilderRule other = new RecordingBuilderRule(new ConfluenceLanguage());
+		validator.getRules().add(first);
+		validator.getRules().add(second);
+		validator.getRules().add(other);
+
+		validator.validate("h1. Foo\n\ntext");
+
+		assertEquals(1, first.markupLanguages.size());
+		assertSame(first.markupLanguages.get(0), second.markupLanguages.get(0));
+		assertNotSame(first.markupLanguages.get(0), other.markupLanguages.get(0));
+		assertEquals(1, first.documentCount);
+		assertEquals(1, second.documentCount);
+		assertEquals(1, other.documentCount);
+	}
+
+	public void testSplitsRegionIntoLines() {
+		RecordingLineRule first = new RecordingLineRule();
+		RecordingLineRule second = new RecordingLineRule();
+		validator.getRules().add(first);
+		validator.getRules().add(second);
+
+		String markup = "one\r\ntwo\n\nthree\rfour";
+		validator.validate(markup, 1, markup.length() - 3);
+
+		assertEquals("[ne, two, , three, fo]", first.lines.toString());
+		assertEquals(first.lines, second.lines);
+	}
+
+	public void testLineRuleFindsProblemsWithinRegion() {
+		LineValidationRule rule = new BlockWhitespaceRule();
+		String markup = "p.one\n\np.two\n\np.three";
+
+		List<ValidationProblem> problems = rule.findProblems(markup, 7, 7);
+
+		assertEquals(1, problems.size());
+		assertEquals(7, problems.get(0).getOffset());
+		assertEquals(7, rule.findProblem(markup, 1, markup.length() - 1).getOffset());
+	}
+
+	public void testBuilderRuleFindsFirstProblem() {
+		ValidationRule rule = new TextileReferenceValidationRule();
+		String markup = "h1. Foo\n\n\"link\":#bar\n\n\"link\":#baz\n";
+
+		assertEquals(9, rule.findProblem(markup, 0, markup.length()).getOffset());
+		assertEquals(22, rule.findProblem(markup, 10, markup.length() - 10).getOffset());
+		assertNull(rule.findProblem(markup, 0, 8));
+	}
+
+	private static class RecordingBuilderRule extends DocumentBuilderValidationRule {
+
+		private final MarkupLanguage markupLanguage;
+
+		final List<MarkupLanguage> markupLanguages = new ArrayList<MarkupLanguage>();
+
+		int documentCount;
+
+		RecordingBuilderRule(MarkupLanguage markupLanguage) {
+			this.markupLanguage = markupLanguage;
+		}
+
+		@Override
+		protected MarkupLanguage createMarkupLanguage() {
+			return markupLanguage.clone();
+		}
+
+		@Override
+		public DocumentBuilder createValidationBuilder(MarkupLanguage markupLanguage, String markup, int offset,
+				int length, List<ValidationProblem> problems) {
+			markupLanguages.add(markupLanguage);
+			return new NoOpDocumentBuilder() {
+
+				@Override
+				public void beginDocument() {
+					++documentCount;
+				}
+			};
+		}
+	}
+
+	private static class RecordingLineRule extends LineValidationRule {
+
+		final List<String> lines = new ArrayList<String>();
+
+		@Override
+		public void validateLine(String markup, int lineOffset, int lineLength, List<ValidationProblem> problems) {
+			lines.add(markup.substring(lineOffset, lineOffset + lineLength));
+		}
+	}
+}
@@ -11,48 +11,40 @@
 package org.eclipse.mylyn.internal.wikitext.textile.core.validation;
 
 import java.text.MessageFormat;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.eclipse.mylyn.wikitext.core.validation.LineValidationRule;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem;
-import org.eclipse.mylyn.wikitext.core.validation.ValidationRule;
 
 /**
  * @author David Green
  */
-public class BlockWhitespaceRule extends ValidationRule {
+public class BlockWhitespaceRule extends LineValidationRule {
 
-	private static final Pattern pattern = Pattern.compile("((?:bc|bq|pre|table|p)(?:\\.){1,2})(.)?", Pattern.MULTILINE); //$NON-NLS-1$
+	private static final Pattern pattern = Pattern.compile("((?:bc|bq|pre|table|p)(?:\\.){1,2})(.)?"); //$NON-NLS-1$
 
 	@Override
-	public ValidationProblem findProblem(String markup, int offset, int length) {
-		Matcher matcher = pattern.matcher(markup);
-		if (offset > 0) {
-			matcher.region(offset, offset + length);
-		}
-		while (matcher.find()) {
-			int start = matcher.start();
-			boolean startOfLine = false;
-			if (start == 0) {
-				startOfLine = true;
-			} else {
-				char c = markup.charAt(start - 1);
-				if (c == '\r' || c == '\n') {
-					startOfLine = true;
-				}
+	public void validateLine(String markup, int lineOffset, int lineLength, List<ValidationProblem> problems) {
+		if (lineOffset > 0) {
+			char c = markup.charAt(lineOffset - 1);
+			if (c != '\r' && c != '\n') {
+				return;
 			}
-			if (startOfLine) {
-				String followingCharacter = matcher.group(2);
-				if (followingCharacter == null || !followingCharacter.equals(" ")) { //$NON-NLS-1$
-					int problemLength = matcher.end(1) - start;
-					String matched = matcher.group(1);
-					return new ValidationProblem(ValidationProblem.Severity.WARNING, MessageFormat.format(
-							Messages.getString("BlockWhitespaceRule.2"), //$NON-NLS-1$
-							matched), start, problemLength);
-				}
+		}
+		Matcher matcher = pattern.matcher(markup);
+		matcher.region(lineOffset, lineOffset + lineLength);
+		if (matcher.lookingAt()) {
+			String followingCharacter = matcher.group(2);
+			if (followingCharacter == null || !followingCharacter.equals(" ")) { //$NON-NLS-1$
+				int problemLength = matcher.end(1) - lineOffset;
+				String matched = matcher.group(1);
+				problems.add(new ValidationProblem(ValidationProblem.Severity.WARNING, MessageFormat.format(
+						Messages.getString("BlockWhitespaceRule.2"), //$NON-NLS-1$
+						matched), lineOffset, problemLength));
 			}
 		}
-		return null;
 	}
 
 }
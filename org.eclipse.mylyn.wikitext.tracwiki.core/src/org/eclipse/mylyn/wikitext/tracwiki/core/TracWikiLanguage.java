@@ -305,4 +305,9 @@ public class TracWikiLanguage extends AbstractMarkupLanguage {
 		return new ParagraphBlock();
 	}
 
+	@Override
+	protected boolean isStreamingSupported() {
+		return true;
+	}
+
 }
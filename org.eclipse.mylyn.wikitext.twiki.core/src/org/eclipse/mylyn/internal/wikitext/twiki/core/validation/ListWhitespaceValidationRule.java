@@ -10,49 +10,48 @@
  *******************************************************************************/
 package org.eclipse.mylyn.internal.wikitext.twiki.core.validation;
 
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.eclipse.mylyn.wikitext.core.validation.LineValidationRule;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem.Severity;
-import org.eclipse.mylyn.wikitext.core.validation.ValidationRule;
 
 /**
  * TWiki lists markup must have spaces in multiples of 3 preceding the markup (*,i,I,1,a,A)
  * 
  * @author David Green
  */
-public class ListWhitespaceValidationRule extends ValidationRule {
+public class ListWhitespaceValidationRule extends LineValidationRule {
 
-	private static final Pattern almostListPattern = Pattern.compile("^((?: |\t)*)(\\*|((i|I|a|A|1)\\.))(\\S)?", //$NON-NLS-1$
-			Pattern.MULTILINE);
+	private static final Pattern almostListPattern = Pattern.compile("((?: |\t)*)(\\*|((i|I|a|A|1)\\.))(\\S)?"); //$NON-NLS-1$
 
 	public ListWhitespaceValidationRule() {
 	}
 
 	@Override
-	public ValidationProblem findProblem(String markup, int offset, int length) {
+	public void validateLine(String markup, int lineOffset, int lineLength, List<ValidationProblem> problems) {
 		Matcher matcher = almostListPattern.matcher(markup);
-		if (offset > 0 || length != markup.length()) {
-			matcher.region(offset, offset + length);
-		}
-		while (matcher.find()) {
+		matcher.region(lineOffset, lineOffset + lineLength);
+		if (matcher.lookingAt()) {
 			String spaces = matcher.group(1);
 			if (spaces == null || spaces.length() == 0 || (spaces.length() % 3) != 0 || containsNonSpace(spaces)) {
 				int problemOffset = matcher.start();
 				int problemLength = Math.max(2, matcher.end(2) - problemOffset);
-				return new ValidationProblem(Severity.WARNING,
-						Messages.getString("ListWhitespaceValidationRule.1"), problemOffset, problemLength); //$NON-NLS-1$
+				problems.add(new ValidationProblem(Severity.WARNING,
+						Messages.getString("ListWhitespaceValidationRule.1"), problemOffset, problemLength)); //$NON-NLS-1$
+				return;
 			}
 			String after = matcher.group(5);
 			if (after != null) {
 				int problemOffset = matcher.start();
 				int problemLength = Math.max(2, matcher.end(2) - problemOffset);
-				return new ValidationProblem(Severity.WARNING, Messages.getString("ListWhitespaceValidationRule.2"), //$NON-NLS-1$
-						problemOffset, problemLength);
+				problems.add(new ValidationProblem(Severity.WARNING,
+						Messages.getString("ListWhitespaceValidationRule.2"), //$NON-NLS-1$
+						problemOffset, problemLength));
 			}
 		}
-		return null;
 	}
 
 	private boolean containsNonSpace(String spaces) {
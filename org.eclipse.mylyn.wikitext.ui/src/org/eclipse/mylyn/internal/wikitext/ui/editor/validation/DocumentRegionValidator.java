@@ -21,13 +21,15 @@ import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.mylyn.wikitext.core.parser.markup.MarkupLanguage;
+import org.eclipse.mylyn.wikitext.core.validation.IncrementalMarkupValidator;
 import org.eclipse.mylyn.wikitext.core.validation.MarkupValidator;
 import org.eclipse.mylyn.wikitext.core.validation.ValidationProblem;
 import org.eclipse.mylyn.wikitext.ui.WikiText;
 
 /**
  * A validator that can be used to validate regions of a document in an editor. Delegates validation to a
- * {@link MarkupValidator} and coordinates the translation of errors and warnings to the editor framework.
+ * {@link MarkupValidator} and coordinates the translation of errors and warnings to the editor framework. Problems are
+ * retained between validations, so that only the parts of the document that changed are validated again.
  * 
  * @author David Green
  * @see MarkupValidator
@@ -41,6 +43,8 @@ public abstract class DocumentRegionValidator {
 
 	protected MarkupValidator delegate;
 
+	private IncrementalMarkupValidator incrementalDelegate;
+
 	/**
 	 * Validate a region of a document. Validation results may be created as annotations on the annotation model, or as
 	 * markers on the resource.
@@ -87,7 +91,7 @@ public abstract class DocumentRegionValidator {
 			if (length <= 0) {
 				problems = Collections.emptyList();
 			} else {
-				problems = delegate.validate(markup, offset, length);
+				problems = incrementalDelegate.validate(markup, offset, length);
 				monitor.worked(totalWork / 2);
 			}
 
@@ -133,6 +137,7 @@ public abstract class DocumentRegionValidator {
 		}
 		this.markupLanguage = markupLanguage;
 		delegate = markupLanguage == null ? null : WikiText.getMarkupValidator(markupLanguage.getName());
+		incrementalDelegate = delegate == null ? null : new IncrementalMarkupValidator(delegate);
 	}
 
 	public IResource getResource() {
@@ -17,6 +17,7 @@ import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -272,6 +273,14 @@ public class HtmlTextPresentationParser {
 		public boolean hasId(String id) {
 			return id != null && id.equals(this.id);
 		}
+
+		public String getId() {
+			return id;
+		}
+
+		public List<String> getCssClasses() {
+			return cssClasses == null ? Collections.<String> emptyList() : Arrays.asList(cssClasses);
+		}
 	}
 
 	private IAnnotationModel annotationModel;